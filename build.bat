@@ -10,4 +10,4 @@ IF %ERRORLEVEL% NEQ 0 (
 )
 
 echo === Executando aplicação ===
-java --enable-preview -jar target\ProjetoAlgebraLinear-1.0-SNAPSHOT.jar
+java --enable-preview --add-modules jdk.incubator.vector -jar target\ProjetoAlgebraLinear-1.0-SNAPSHOT.jar
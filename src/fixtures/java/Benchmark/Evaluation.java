@@ -0,0 +1,67 @@
+package Benchmark;
+
+import FisherfacesModel.FisherfacesModel;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilitários partilhados pelos benchmarks e pelos testes: classificação direta pelo vizinho mais próximo,
+ * acurácia e execução sem a saída didática do treino.
+ */
+public final class Evaluation {
+
+    private Evaluation() {}
+
+    /** Vizinho mais próximo no espaço final, sem a saída didática do FaceRecognizer. */
+    public static List<String> classify(FisherfacesModel model, List<double[]> probes) {
+        RealMatrix w = model.getEigenfaces();
+        double[] mean = model.getMeanVector();
+        List<String> answers = new ArrayList<>(probes.size());
+        for (double[] probe : probes) {
+            double[] diff = new double[mean.length];
+            for (int i = 0; i < mean.length; i++) diff[i] = probe[i] - mean[i];
+            double[] coeffs = w.preMultiply(diff);
+
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            List<double[]> gallery = model.getProjectedFaces();
+            for (int j = 0; j < gallery.size(); j++) {
+                double d = 0.0;
+                for (int c = 0; c < coeffs.length; c++) {
+                    double t = coeffs[c] - gallery.get(j)[c];
+                    d += t * t;
+                }
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = j;
+                }
+            }
+            answers.add(model.getLabels().get(best));
+        }
+        return answers;
+    }
+
+    /** Percentual de respostas iguais às esperadas, posição a posição. */
+    public static double accuracy(List<String> answers, List<String> expected) {
+        int hits = 0;
+        for (int i = 0; i < answers.size(); i++) {
+            if (answers.get(i).equals(expected.get(i))) hits++;
+        }
+        return 100.0 * hits / answers.size();
+    }
+
+    /** Executa {@code action} com o System.out descartado (os passos didáticos do treino e do enroll). */
+    public static void quietly(Runnable action) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+    }
+}
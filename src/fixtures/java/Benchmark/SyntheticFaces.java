@@ -0,0 +1,132 @@
+package Benchmark;
+
+import Data.TrainingData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gerador de galerias sintéticas para benchmarks e testes.
+ *
+ * Cada indivíduo é um "rosto base" suave (soma de cossenos de baixa frequência) e cada foto
+ * acrescenta variação de iluminação, alguns fatores latentes partilhados e ruído, com valores em [0, 255].
+ * A estrutura imita o suficiente uma galeria real para que PCA e LDA tenham algo para separar.
+ */
+public final class SyntheticFaces {
+
+    private static final int BASE_WAVES = 12;
+    private static final int SHARED_FACTORS = 8;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+
+    public SyntheticFaces(int width, int height, long seed) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+    }
+
+    // Rostos base de cada indivíduo e fatores de variação partilhados por todas as fotos
+    private record Basis(double[][] identities, double[][] factors) {}
+
+    /** Galeria com {@code m} imagens distribuídas em rodízio por {@code classes} indivíduos. */
+    public TrainingData gallery(int m, int classes) {
+        if (classes < 1 || m < classes) throw new IllegalArgumentException("É preciso pelo menos uma imagem por indivíduo.");
+        Basis basis = basis(classes);
+        Random random = new Random(seed + 1);
+
+        List<double[]> vectors = new ArrayList<>(m);
+        List<String> labels = new ArrayList<>(m);
+        for (int j = 0; j < m; j++) {
+            int c = j % classes;
+            vectors.add(sample(random, basis.identities()[c], basis.factors()));
+            labels.add(label(c));
+        }
+        return new TrainingData(vectors, labels, width, height);
+    }
+
+    /** Destino de cada imagem de {@link #forEachGalleryImage(int, int, ImageSink)}. */
+    @FunctionalInterface
+    public interface ImageSink {
+        void accept(String label, double[] vector) throws IOException;
+    }
+
+    /** As mesmas imagens de {@link #gallery(int, int)}, entregues uma a uma, sem ficarem todas em memória. */
+    public void forEachGalleryImage(int m, int classes, ImageSink sink) throws IOException {
+        if (classes < 1 || m < classes) throw new IllegalArgumentException("É preciso pelo menos uma imagem por indivíduo.");
+        Basis basis = basis(classes);
+        Random random = new Random(seed + 1);
+        for (int j = 0; j < m; j++) {
+            int c = j % classes;
+            sink.accept(label(c), sample(random, basis.identities()[c], basis.factors()));
+        }
+    }
+
+    /**
+     * Fotos novas ({@code perClass} por indivíduo, agrupadas por indivíduo) dos mesmos indivíduos
+     * de {@link #gallery(int, int)} com o mesmo número de classes.
+     */
+    public List<double[]> probes(int classes, int perClass, long probeSeed) {
+        Basis basis = basis(classes);
+        Random random = new Random(probeSeed);
+        List<double[]> probes = new ArrayList<>(classes * perClass);
+        for (int c = 0; c < classes; c++) {
+            for (int p = 0; p < perClass; p++) probes.add(sample(random, basis.identities()[c], basis.factors()));
+        }
+        return probes;
+    }
+
+    private Basis basis(int classes) {
+        Random random = new Random(seed);
+        double[][] identities = new double[classes][];
+        for (int c = 0; c < classes; c++) identities[c] = smoothField(random, BASE_WAVES, 60.0);
+        double[][] factors = new double[SHARED_FACTORS][];
+        for (int f = 0; f < SHARED_FACTORS; f++) factors[f] = smoothField(random, 4, 1.0);
+        return new Basis(identities, factors);
+    }
+
+    public static String label(int classIndex) {
+        return String.format("Individuo_%05d", classIndex);
+    }
+
+    public int dimension() {
+        return width * height;
+    }
+
+    private double[] sample(Random random, double[] identity, double[][] factors) {
+        int dim = width * height;
+        double[] v = new double[dim];
+        double gx = random.nextGaussian() * 0.15;
+        double gy = random.nextGaussian() * 0.15;
+        double[] weights = new double[factors.length];
+        for (int f = 0; f < factors.length; f++) weights[f] = random.nextGaussian() * 15.0;
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                double value = 128.0 + identity[i] + gx * (x - width / 2.0) + gy * (y - height / 2.0);
+                for (int f = 0; f < factors.length; f++) value += weights[f] * factors[f][i];
+                value += random.nextGaussian() * 6.0;
+                v[i] = Math.min(255.0, Math.max(0.0, value));
+            }
+        }
+        return v;
+    }
+
+    private double[] smoothField(Random random, int waves, double amplitude) {
+        double[] field = new double[width * height];
+        for (int w = 0; w < waves; w++) {
+            double fx = random.nextDouble() * 4.0 * Math.PI / width;
+            double fy = random.nextDouble() * 4.0 * Math.PI / height;
+            double phase = random.nextDouble() * 2.0 * Math.PI;
+            double a = random.nextGaussian() * amplitude / Math.sqrt(waves);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) field[y * width + x] += a * Math.cos(fx * x + fy * y + phase);
+            }
+        }
+        return field;
+    }
+}
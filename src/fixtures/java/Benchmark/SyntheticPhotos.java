@@ -0,0 +1,38 @@
+package Benchmark;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+/**
+ * Fotos sintéticas em resolução de câmera, para os testes e benchmarks da decodificação: rosto claro sobre
+ * fundo em gradiente, textura fina e ruído de sensor, em RGB.
+ */
+public final class SyntheticPhotos {
+
+    private SyntheticPhotos() {}
+
+    // Escrita direto no int[] do raster: setRGB seria lento demais para 12 megapixels
+    public static BufferedImage camera(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        double cx = width / 2.0, cy = height / 2.0, rx = width * 0.28, ry = height * 0.36;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double dx = (x - cx) / rx, dy = (y - cy) / ry;
+                double face = Math.max(0.0, 1.0 - dx * dx - dy * dy);
+                double texture = 12 * Math.sin(x * 0.9) * Math.cos(y * 0.7);
+                double base = 60 + 60.0 * y / height + 130 * Math.sqrt(face) + texture;
+                int r = clamp(base + 20 + random.nextGaussian() * 8);
+                int g = clamp(base + random.nextGaussian() * 8);
+                int b = clamp(base - 15 + random.nextGaussian() * 8);
+                pixels[y * width + x] = r << 16 | g << 8 | b;
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(double v) {
+        return (int) Math.max(0, Math.min(255, v));
+    }
+}
@@ -0,0 +1,64 @@
+package Benchmark;
+
+import ImageProcessor.ImageProcessor;
+import ImageProcessor.SubsampledDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificação de uma foto de câmera já em memória: reduzida ({@link SubsampledDecoder}) x
+ * {@code ImageIO.read} em resolução cheia. Com {@code -prof gc} sai também a memória alocada por decodificação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class DecodeJmh {
+
+    @Param({"4032x3024", "1600x1200"})
+    public String resolution;
+
+    @Param({"jpg", "png"})
+    public String format;
+
+    private final SubsampledDecoder decoder = new SubsampledDecoder(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+    private byte[] content;
+
+    @Setup
+    public void encode() throws IOException {
+        String[] parts = resolution.split("x");
+        BufferedImage photo = SyntheticPhotos.camera(new Random(3L), Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(photo, format, bytes);
+        content = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public BufferedImage full() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public BufferedImage subsampled() throws IOException {
+        return decoder.read(content);
+    }
+}
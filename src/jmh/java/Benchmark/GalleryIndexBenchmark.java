@@ -0,0 +1,85 @@
+package Benchmark;
+
+import GalleryIndex.FlatGalleryIndex;
+import GalleryIndex.GalleryIndex;
+import GalleryIndex.HnswGalleryIndex;
+import GalleryIndex.Neighbor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Recall x latência dos índices da galeria sobre projeções sintéticas no espaço de faces.
+ *
+ * Uso: java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.GalleryIndexBenchmark [n] [dimensão] [consultas]
+ */
+public final class GalleryIndexBenchmark {
+
+    private GalleryIndexBenchmark() {}
+
+    public static void main(String[] args) {
+        int n = args.length >= 1 ? Integer.parseInt(args[0]) : 100_000;
+        int dimension = args.length >= 2 ? Integer.parseInt(args[1]) : 64;
+        int queries = args.length >= 3 ? Integer.parseInt(args[2]) : 500;
+
+        // Projeções agrupadas por indivíduo (~5 fotos cada), como numa galeria real
+        Random random = new Random(5L);
+        List<double[]> projections = new ArrayList<>(n);
+        List<String> labels = new ArrayList<>(n);
+        double[] center = new double[dimension];
+        for (int i = 0; i < n; i++) {
+            if (i % 5 == 0) {
+                for (int c = 0; c < dimension; c++) center[c] = random.nextGaussian() * 1000.0;
+            }
+            double[] v = new double[dimension];
+            for (int c = 0; c < dimension; c++) v[c] = center[c] + random.nextGaussian() * 150.0;
+            projections.add(v);
+            labels.add(SyntheticFaces.label(i / 5));
+        }
+        List<double[]> probes = new ArrayList<>(queries);
+        for (int q = 0; q < queries; q++) {
+            double[] base = projections.get(random.nextInt(n));
+            double[] v = new double[dimension];
+            for (int c = 0; c < dimension; c++) v[c] = base[c] + random.nextGaussian() * 150.0;
+            probes.add(v);
+        }
+
+        System.out.printf("Galeria: %d projeções de dimensão %d, %d consultas (top-10)%n", n, dimension, queries);
+
+        long start = System.nanoTime();
+        GalleryIndex flat = new FlatGalleryIndex(projections, labels);
+        double flatBuild = (System.nanoTime() - start) / 1e6;
+        List<List<Neighbor>> truth = new ArrayList<>(queries);
+        start = System.nanoTime();
+        for (double[] probe : probes) truth.add(flat.search(probe, 10));
+        double flatLatency = (System.nanoTime() - start) / 1e3 / queries;
+        System.out.printf("%-22s %12s %14s %10s %10s%n", "Índice", "Build (ms)", "Latência (µs)", "Recall@1", "Recall@10");
+        System.out.printf("%-22s %12.1f %14.1f %10.3f %10.3f%n", "Flat (exato)", flatBuild, flatLatency, 1.0, 1.0);
+
+        start = System.nanoTime();
+        HnswGalleryIndex hnsw = new HnswGalleryIndex(projections, labels, 16, 200, 32);
+        double hnswBuild = (System.nanoTime() - start) / 1e6;
+        for (int ef : new int[]{16, 32, 64, 128, 256}) {
+            hnsw.setEfSearch(ef);
+            int hits1 = 0, hits10 = 0;
+            start = System.nanoTime();
+            List<List<Neighbor>> answers = new ArrayList<>(queries);
+            for (double[] probe : probes) answers.add(hnsw.search(probe, 10));
+            double latency = (System.nanoTime() - start) / 1e3 / queries;
+            for (int q = 0; q < queries; q++) {
+                Set<Integer> expected = new HashSet<>();
+                for (Neighbor nb : truth.get(q)) expected.add(nb.index());
+                List<Neighbor> got = answers.get(q);
+                if (!got.isEmpty() && got.getFirst().index() == truth.get(q).getFirst().index()) hits1++;
+                for (Neighbor nb : got) {
+                    if (expected.contains(nb.index())) hits10++;
+                }
+            }
+            System.out.printf("%-22s %12.1f %14.1f %10.3f %10.3f%n", "HNSW (M=16, ef=" + ef + ")", hnswBuild, latency,
+                    (double) hits1 / queries, (double) hits10 / (10.0 * queries));
+        }
+    }
+}
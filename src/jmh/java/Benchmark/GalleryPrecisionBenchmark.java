@@ -0,0 +1,152 @@
+package Benchmark;
+
+import Data.TrainingData;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import FisherfacesModel.Projection;
+import GalleryIndex.FlatGalleryIndex;
+import GalleryIndex.GalleryIndex;
+import GalleryIndex.Neighbor;
+import GalleryIndex.Precision;
+import GalleryIndex.VectorStore;
+import ImageProcessor.ImageProcessor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compara as precisões de armazenamento da galeria (DOUBLE, FLOAT32, INT8).
+ *
+ * 1. Acurácia: treina um modelo, guarda as projeções em cada precisão e mede a acurácia num conjunto
+ *    de teste, a concordância do top-1 com DOUBLE e o maior erro relativo das distâncias.
+ * 2. Escala: uma galeria de {@code n} vetores aleatórios agrupados de dimensão {@code d}, com os bytes
+ *    ocupados, o tempo de uma varredura exata e o recall do top-10 em relação a DOUBLE.
+ *
+ * Uso:
+ *   java --enable-preview -Xmx3g -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.GalleryPrecisionBenchmark [n] [d]
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.GalleryPrecisionBenchmark --galeria data/database_criminosos
+ */
+public final class GalleryPrecisionBenchmark {
+
+    private static final int QUERIES = 20;
+    private static final int TOP = 10;
+
+    private GalleryPrecisionBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        boolean real = args.length >= 2 && args[0].equals("--galeria");
+        accuracy(real ? args[1] : null);
+        if (!real) {
+            int n = args.length >= 1 ? Integer.parseInt(args[0]) : 500_000;
+            int d = args.length >= 2 ? Integer.parseInt(args[1]) : 49;
+            System.out.println();
+            scale(n, d);
+        }
+    }
+
+    private static void accuracy(String galleryDir) throws Exception {
+        TrainingData train;
+        List<double[]> test = new ArrayList<>();
+        List<String> testLabels = new ArrayList<>();
+        PcaOptions options;
+        if (galleryDir != null) {
+            train = MatchingModeEvaluation.holdOut(MatchingModeEvaluation.loadGallery(galleryDir), test, testLabels);
+            options = PcaOptions.exact();
+        } else {
+            int classes = 50;
+            SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 21L);
+            train = faces.gallery(classes * 10, classes);
+            test = faces.probes(classes, 3, 77L);
+            for (int c = 0; c < classes; c++) {
+                for (int p = 0; p < 3; p++) testLabels.add(SyntheticFaces.label(c));
+            }
+            options = PcaOptions.exact().withComponents(45);
+        }
+        if (test.isEmpty()) {
+            System.err.println("Conjunto de teste vazio: é preciso pelo menos um indivíduo com 2 ou mais fotos.");
+            return;
+        }
+
+        FisherfacesModel model = new FisherfacesModel();
+        TrainingData data = train;
+        Evaluation.quietly(() -> model.train(data, options));
+        Projection projection = model.getProjection();
+        List<double[]> coeffs = new ArrayList<>(test.size());
+        for (double[] v : test) coeffs.add(projection.project(v));
+        VectorStore exact = model.getProjectedVectors();
+
+        System.out.printf("Treino: %d imagens (dimensão %d); teste: %d imagens.%n", train.size(), exact.dimension(), test.size());
+        System.out.printf("%-9s %12s %14s %16s %18s%n", "Precisão", "Bytes/face", "Acurácia (%)", "Top-1 = DOUBLE", "Erro dist. máx.");
+        List<String> reference = null;
+        for (Precision precision : Precision.values()) {
+            VectorStore store = exact.withPrecision(precision);
+            GalleryIndex index = new FlatGalleryIndex(store, model.getLabels());
+            List<String> answers = new ArrayList<>(coeffs.size());
+            double worst = 0.0;
+            for (double[] c : coeffs) {
+                Neighbor best = index.search(c, 1).getFirst();
+                answers.add(best.label());
+                for (int i = 0; i < store.size(); i++) {
+                    double d = exact.distanceSquared(c, i);
+                    worst = Math.max(worst, Math.abs(store.distanceSquared(c, i) - d) / d);
+                }
+            }
+            if (reference == null) reference = answers;
+            System.out.printf("%-9s %12.1f %14.2f %15.2f%% %18.2e%n", precision, (double) store.bytes() / store.size(),
+                    Evaluation.accuracy(answers, testLabels),
+                    Evaluation.accuracy(answers, reference), worst);
+        }
+    }
+
+    private static void scale(int n, int d) {
+        Random random = new Random(5L);
+        int clusters = Math.max(1, n / 20);
+        double[][] centers = new double[clusters][d];
+        for (double[] c : centers) {
+            for (int i = 0; i < d; i++) c[i] = random.nextGaussian() * 1000.0;
+        }
+        double[] data = new double[n * d];
+        for (int j = 0; j < n; j++) {
+            double[] c = centers[random.nextInt(clusters)];
+            for (int i = 0; i < d; i++) data[j * d + i] = c[i] + random.nextGaussian() * 150.0;
+        }
+        List<double[]> queries = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            double[] c = centers[random.nextInt(clusters)];
+            double[] query = new double[d];
+            for (int i = 0; i < d; i++) query[i] = c[i] + random.nextGaussian() * 150.0;
+            queries.add(query);
+        }
+        List<String> labels = new ArrayList<>(n);
+        for (int j = 0; j < n; j++) labels.add("");
+
+        System.out.printf("Galeria sintética: %d vetores de dimensão %d, %d consultas, top-%d.%n", n, d, QUERIES, TOP);
+        System.out.printf("%-9s %14s %18s %16s%n", "Precisão", "Memória (MB)", "Varredura (ms)", "Recall top-10");
+        VectorStore exact = VectorStore.of(data, n, d, Precision.DOUBLE);
+        List<Set<Integer>> truth = null;
+        for (Precision precision : Precision.values()) {
+            VectorStore store = exact.withPrecision(precision);
+            GalleryIndex index = new FlatGalleryIndex(store, labels);
+            for (double[] q : queries) index.search(q, TOP); // aquecimento
+
+            List<Set<Integer>> found = new ArrayList<>(QUERIES);
+            long start = System.nanoTime();
+            for (double[] q : queries) {
+                Set<Integer> ids = new HashSet<>();
+                for (Neighbor neighbor : index.search(q, TOP)) ids.add(neighbor.index());
+                found.add(ids);
+            }
+            double ms = (System.nanoTime() - start) / 1e6 / QUERIES;
+            if (truth == null) truth = found;
+
+            int hits = 0;
+            for (int q = 0; q < QUERIES; q++) {
+                for (int id : found.get(q)) if (truth.get(q).contains(id)) hits++;
+            }
+            System.out.printf("%-9s %14.1f %18.2f %15.2f%%%n", precision, store.bytes() / 1e6, ms, 100.0 * hits / (QUERIES * TOP));
+        }
+    }
+}
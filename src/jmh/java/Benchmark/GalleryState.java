@@ -0,0 +1,41 @@
+package Benchmark;
+
+import Data.TrainingData;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Galeria sintética partilhada pelos benchmarks: {@code m} imagens de {@code classes} indivíduos,
+ * com a resolução dada por {@code resolution} ("LxA"), e algumas fotos novas para consulta.
+ */
+@State(Scope.Benchmark)
+public class GalleryState {
+
+    @Param({"400", "1600"})
+    public int m;
+
+    @Param({"40"})
+    public int classes;
+
+    @Param({"100x100"})
+    public String resolution;
+
+    public int width;
+    public int height;
+    public TrainingData gallery;
+    public List<double[]> probes;
+
+    @Setup
+    public void generate() {
+        String[] parts = resolution.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+        SyntheticFaces faces = new SyntheticFaces(width, height, 17L);
+        gallery = faces.gallery(m, classes);
+        probes = faces.probes(classes, 2, 29L);
+    }
+}
@@ -0,0 +1,26 @@
+package Benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ponto de entrada do JAR de benchmarks. Repassa os argumentos ao JMH e, se nenhum formato de
+ * resultado for pedido, grava os resultados em JSON ({@code jmh-result.json}) para acompanhar a
+ * evolução entre versões.
+ *
+ * Uso: java -jar target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar [opções do JMH] [regex dos benchmarks]
+ */
+public final class JmhRunner {
+
+    private JmhRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-rf")) {
+            jmhArgs.addAll(0, List.of("-rf", "json"));
+            if (!jmhArgs.contains("-rff")) jmhArgs.addAll(2, List.of("-rff", "jmh-result.json"));
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
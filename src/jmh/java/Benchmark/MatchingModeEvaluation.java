@@ -0,0 +1,114 @@
+package Benchmark;
+
+import Data.TrainingData;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.MatchingMode;
+import FisherfacesModel.PcaOptions;
+import FisherfacesModel.Projection;
+import GalleryIndex.GalleryIndex;
+import ImageProcessor.ImageProcessor;
+import Services.DatabaseLoader;
+import Services.IngestListener;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compara a acurácia e o custo de busca dos modos de comparação (por amostra, centróide, medoides)
+ * num conjunto de teste separado do treino.
+ *
+ * Com {@code --galeria <dir>} a cada 4 fotos de um indivíduo uma fica de fora do treino (indivíduos com
+ * uma única foto ficam só no treino). Sem argumentos usa uma galeria sintética com fotos novas como teste.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.MatchingModeEvaluation [C] [fotosPorPessoa] [k]
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.MatchingModeEvaluation --galeria data/database_criminosos
+ */
+public final class MatchingModeEvaluation {
+
+    private MatchingModeEvaluation() {}
+
+    static TrainingData loadGallery(String dir) throws Exception {
+        DatabaseLoader loader = new DatabaseLoader(new ImageProcessor());
+        return loader.loadFromDirectoryParallel(Paths.get(dir), Runtime.getRuntime().availableProcessors(), IngestListener.CONSOLE);
+    }
+
+    /** Separa uma a cada 4 fotos de cada indivíduo com mais de uma foto em {@code test}; devolve o restante. */
+    static TrainingData holdOut(TrainingData all, List<double[]> test, List<String> testLabels) {
+        Map<String, Integer> seen = new HashMap<>();
+        Map<String, Integer> totals = new HashMap<>();
+        for (String label : all.labels()) totals.merge(label, 1, Integer::sum);
+        List<double[]> trainVectors = new ArrayList<>();
+        List<String> trainLabels = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            String label = all.labels().get(i);
+            int index = seen.merge(label, 1, Integer::sum);
+            if (totals.get(label) > 1 && index % 4 == 0) {
+                test.add(all.vectors().get(i));
+                testLabels.add(label);
+            } else {
+                trainVectors.add(all.vectors().get(i));
+                trainLabels.add(label);
+            }
+        }
+        return new TrainingData(trainVectors, trainLabels, all.imageWidth(), all.imageHeight());
+    }
+
+    public static void main(String[] args) throws Exception {
+        TrainingData train;
+        List<double[]> test = new ArrayList<>();
+        List<String> testLabels = new ArrayList<>();
+        PcaOptions options;
+
+        if (args.length >= 2 && args[0].equals("--galeria")) {
+            train = holdOut(loadGallery(args[1]), test, testLabels);
+            options = PcaOptions.exact();
+        } else {
+            int classes = args.length >= 1 ? Integer.parseInt(args[0]) : 50;
+            int perClass = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+            int k = args.length >= 3 ? Integer.parseInt(args[2]) : 45;
+            SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 21L);
+            train = faces.gallery(classes * perClass, classes);
+            test = faces.probes(classes, 3, 77L);
+            for (int c = 0; c < classes; c++) {
+                for (int p = 0; p < 3; p++) testLabels.add(SyntheticFaces.label(c));
+            }
+            options = PcaOptions.exact().withComponents(k);
+        }
+        if (test.isEmpty()) {
+            System.err.println("Conjunto de teste vazio: é preciso pelo menos um indivíduo com 2 ou mais fotos.");
+            return;
+        }
+
+        FisherfacesModel model = new FisherfacesModel();
+        Evaluation.quietly(() -> model.train(train, options));
+        Projection projection = model.getProjection();
+        List<double[]> coeffs = new ArrayList<>(test.size());
+        for (double[] v : test) coeffs.add(projection.project(v));
+
+        System.out.printf("Treino: %d imagens; teste: %d imagens.%n", train.size(), test.size());
+        System.out.printf("%-16s %12s %14s %16s%n", "Modo", "Protótipos", "Acurácia (%)", "Busca (µs/img)");
+
+        record Mode(String name, MatchingMode mode, int perClass) {}
+        List<Mode> modes = List.of(
+                new Mode("Por amostra", MatchingMode.PER_SAMPLE, 1),
+                new Mode("Centróide", MatchingMode.CENTROID, 1),
+                new Mode("Medoides (2)", MatchingMode.MEDOIDS, 2),
+                new Mode("Medoides (3)", MatchingMode.MEDOIDS, 3));
+        for (Mode mode : modes) {
+            model.setMatchingMode(mode.mode(), mode.perClass());
+            GalleryIndex index = model.getGalleryIndex();
+
+            List<String> answers = new ArrayList<>(coeffs.size());
+            long start = System.nanoTime();
+            for (double[] c : coeffs) answers.add(index.search(c, 1).getFirst().label());
+            double micros = (System.nanoTime() - start) / 1e3 / coeffs.size();
+
+            System.out.printf("%-16s %12d %14.2f %16.2f%n", mode.name(), index.size(),
+                    Evaluation.accuracy(answers, testLabels), micros);
+        }
+    }
+}
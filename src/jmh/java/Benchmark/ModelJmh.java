@@ -0,0 +1,77 @@
+package Benchmark;
+
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos completos: {@link FisherfacesModel#train} (PCA + LDA) e {@link FaceRecognizer#recognize}
+ * de um vetor já pré-processado. A saída didática no console é descartada durante as medições.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class ModelJmh {
+
+    private GalleryState state;
+    private FaceRecognizer recognizer;
+    private PrintStream console;
+    private int next;
+
+    @Setup
+    public void train(GalleryState state) {
+        this.state = state;
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        FisherfacesModel model = new FisherfacesModel();
+        model.train(state.gallery, PcaOptions.exact().withComponents(45));
+        recognizer = new FaceRecognizer(model, new ImageProcessor());
+    }
+
+    @TearDown
+    public void restoreConsole() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FisherfacesModel trainExact() {
+        FisherfacesModel model = new FisherfacesModel();
+        model.train(state.gallery, PcaOptions.exact().withComponents(45));
+        return model;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public FisherfacesModel trainRandomized() {
+        FisherfacesModel model = new FisherfacesModel();
+        model.train(state.gallery, PcaOptions.randomized(45));
+        return model;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RecognitionResult recognize() {
+        next = (next + 1) % state.probes.size();
+        return recognizer.recognize(state.probes.get(next), "consulta");
+    }
+}
@@ -0,0 +1,72 @@
+package Benchmark;
+
+import GalleryIndex.MultiIndexHash;
+import ImageProcessor.PerceptualHash;
+import Services.DeduplicationOptions;
+
+import java.io.IOException;
+
+/**
+ * Escala da busca de fotos quase iguais: só os hashes perceptuais de {@code n} faces sintéticas, inseridos e
+ * buscados no {@link MultiIndexHash} x comparação de cada um com todos os anteriores (medida num prefixo e
+ * extrapolada, porque cresce com n²). Sai o tempo de cada um, as distâncias de Hamming calculadas por imagem
+ * e os pares achados, para cada raio.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.NearDuplicateBenchmark
+ *        [--escala 20000,200000] [--bits 6,7,8]
+ */
+public final class NearDuplicateBenchmark {
+
+    private NearDuplicateBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        String scales = "20000,200000";
+        String radii = "6," + DeduplicationOptions.DEFAULT_HASH_DISTANCE + ",8";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--escala" -> scales = args[i + 1];
+                case "--bits" -> radii = args[i + 1];
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        System.out.printf("%10s %5s %12s %14s %12s %14s %12s%n", "Hashes", "Raio", "MIH (ms)", "Dist./imagem",
+                "Pares", "Todas (ms)", "Pares (pref.)");
+        for (String scale : scales.split(",")) {
+            long[] hashes = hashes(Integer.parseInt(scale.trim()));
+            for (String radius : radii.split(",")) run(hashes, Integer.parseInt(radius.trim()));
+        }
+    }
+
+    private static long[] hashes(int n) throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(32, 32, 3L);
+        long[] hashes = new long[n];
+        int[] index = {0};
+        faces.forEachGalleryImage(n, Math.max(2, n / 5), (label, vector) ->
+                hashes[index[0]++] = PerceptualHash.of(vector, 32, 32).hash());
+        return hashes;
+    }
+
+    private static void run(long[] hashes, int radius) {
+        int n = hashes.length;
+        MultiIndexHash mih = new MultiIndexHash();
+        long[] mihFound = {0};
+        long start = System.nanoTime();
+        for (long h : hashes) {
+            mih.search(h, radius, (item, bits) -> mihFound[0]++);
+            mih.add(h);
+        }
+        double mihMs = (System.nanoTime() - start) / 1e6;
+
+        // Varredura completa medida num prefixo e extrapolada
+        int sample = Math.min(n, 20_000);
+        long brute = 0;
+        start = System.nanoTime();
+        for (int a = 0; a < sample; a++) {
+            for (int b = 0; b < a; b++) if (Long.bitCount(hashes[a] ^ hashes[b]) <= radius) brute++;
+        }
+        double bruteMs = (System.nanoTime() - start) / 1e6 * ((double) n * n) / ((double) sample * sample);
+        System.out.printf("%10d %5d %12.0f %14.1f %12d %14.0f %12d%n", n, radius, mihMs,
+                (double) mih.comparisons() / n, mihFound[0], bruteMs, brute);
+    }
+}
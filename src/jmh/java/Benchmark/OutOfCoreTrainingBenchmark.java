@@ -0,0 +1,106 @@
+package Benchmark;
+
+import Data.RecognitionResult;
+import Data.TrainingData;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.MappedTrainingMatrix;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Treino em memória x treino fora do heap ({@link MappedTrainingMatrix}) sobre a mesma galeria sintética:
+ * tempo (geração + carregamento + treino), pico de heap e concordância do reconhecimento de fotos novas
+ * (mesmo indivíduo e distância relativa; os sinais das eigenfaces podem diferir, as distâncias não).
+ *
+ * Com {@code --so-disco} o treino em memória é pulado, para mostrar que o outro cabe num -Xmx onde
+ * as duas cópias dim x m não cabem.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.OutOfCoreTrainingBenchmark [m] [classes] [--so-disco]
+ */
+public final class OutOfCoreTrainingBenchmark {
+
+    private OutOfCoreTrainingBenchmark() {}
+
+    @FunctionalInterface
+    private interface Training {
+        FisherfacesModel run() throws Exception;
+    }
+
+    private record Measurement(FisherfacesModel model, double millis, long peakHeapBytes) {}
+
+    public static void main(String[] args) throws Exception {
+        int m = args.length >= 1 ? Integer.parseInt(args[0]) : 2000;
+        int classes = args.length >= 2 ? Integer.parseInt(args[1]) : 200;
+        boolean diskOnly = List.of(args).contains("--so-disco");
+        SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 7L);
+        System.out.printf("Galeria: %d imagens de %d indivíduos, %d pixels cada (%.0f MB por cópia dim x m); -Xmx %.0f MB%n",
+                m, classes, faces.dimension(), (double) m * faces.dimension() * Double.BYTES / 1e6,
+                Runtime.getRuntime().maxMemory() / 1e6);
+
+        Path file = Files.createTempFile("treino", ".bin");
+        Measurement disk = measure(() -> {
+            try (MappedTrainingMatrix matrix = MappedTrainingMatrix.create(file)) {
+                faces.forEachGalleryImage(m, classes, (label, vector) -> matrix.append(vector, label));
+                FisherfacesModel model = new FisherfacesModel();
+                model.train(matrix, PcaOptions.exact());
+                return model;
+            }
+        });
+        Files.deleteIfExists(file);
+        System.out.printf("%-10s %12s %16s%n", "Treino", "Tempo (ms)", "Pico heap (MB)");
+        print("disco", disk);
+        if (diskOnly) return;
+
+        Measurement memory = measure(() -> {
+            TrainingData data = faces.gallery(m, classes);
+            FisherfacesModel model = new FisherfacesModel();
+            model.train(data, PcaOptions.exact());
+            return model;
+        });
+        print("memória", memory);
+
+        ImageProcessor processor = new ImageProcessor();
+        FaceRecognizer fromDisk = new FaceRecognizer(disk.model(), processor);
+        FaceRecognizer fromMemory = new FaceRecognizer(memory.model(), processor);
+        List<double[]> probes = faces.probes(classes, 2, 13L);
+        int agree = 0;
+        double worst = 0.0;
+        for (double[] probe : probes) {
+            RecognitionResult a = fromDisk.recognize(probe, "sonda");
+            RecognitionResult b = fromMemory.recognize(probe, "sonda");
+            if (a.recognizedLabel().equals(b.recognizedLabel())) agree++;
+            worst = Math.max(worst, Math.abs(a.distance() - b.distance()) / Math.max(1e-12, b.distance()));
+        }
+        System.out.printf("Reconhecimento de %d fotos novas: %d com o mesmo indivíduo, maior diferença relativa de distância %.2e%n",
+                probes.size(), agree, worst);
+    }
+
+    private static Measurement measure(Training training) throws Exception {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        FisherfacesModel model = training.run();
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) peak += pool.getPeakUsage().getUsed();
+        return new Measurement(model, millis, peak);
+    }
+
+    private static void print(String name, Measurement result) {
+        System.out.printf("%-10s %12.1f %16.1f%n", name, result.millis(), result.peakHeapBytes() / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,78 @@
+package Benchmark;
+
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+import LinearAlgebra.RandomizedPca;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PCA: matriz de covariância reduzida AᵀA (m x m) e a sua decomposição.
+ * Kernels em blocos x Commons Math para AᵀA; decomposição completa (Commons Math) x SVD aleatório truncado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class PcaJmh {
+
+    // Componentes pedidas ao solver aleatório (ordem de grandeza do k usado no treino)
+    private static final int COMPONENTS = 100;
+
+    private DenseMatrix centered;     // A (dim x m)
+    private RealMatrix centeredCommons;
+    private RealMatrix gram;          // AᵀA já calculada, entrada da decomposição
+
+    @Setup
+    public void center(GalleryState state) {
+        List<double[]> vectors = state.gallery.vectors();
+        int dim = vectors.getFirst().length;
+        int m = vectors.size();
+        double[] mean = new double[dim];
+        for (double[] v : vectors) {
+            for (int i = 0; i < dim; i++) mean[i] += v[i] / m;
+        }
+        centered = new DenseMatrix(dim, m);
+        for (int j = 0; j < m; j++) {
+            for (int i = 0; i < dim; i++) centered.set(i, j, vectors.get(j)[i] - mean[i]);
+        }
+        centeredCommons = new Array2DRowRealMatrix(centered.toRealMatrix().getData(), false);
+        gram = DenseKernels.gram(centered).toRealMatrix();
+    }
+
+    @Benchmark
+    public DenseMatrix covarianceDense() {
+        return DenseKernels.gram(centered);
+    }
+
+    @Benchmark
+    public RealMatrix covarianceCommonsMath() {
+        return centeredCommons.transpose().multiply(centeredCommons);
+    }
+
+    @Benchmark
+    public double[] eigenCommonsMath() {
+        return new EigenDecomposition(gram).getRealEigenvalues();
+    }
+
+    @Benchmark
+    public RandomizedPca.Result eigenRandomized() {
+        return RandomizedPca.topComponents(centered, COMPONENTS, 10, 2, 42L);
+    }
+}
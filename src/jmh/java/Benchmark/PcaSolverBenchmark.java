@@ -0,0 +1,82 @@
+package Benchmark;
+
+import Data.TrainingData;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+import Services.DatabaseLoader;
+import Services.IngestListener;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Compara o tempo de treino e o pico de heap dos solvers de PCA (exato x aleatório),
+ * todos limitados às mesmas k componentes ({@code k <= 0} usa o padrão m - C).
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.PcaSolverBenchmark [m] [classes] [k]
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.PcaSolverBenchmark --galeria data/database_criminosos [k]
+ */
+public final class PcaSolverBenchmark {
+
+    private PcaSolverBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        TrainingData data;
+        int k;
+        if (args.length >= 2 && args[0].equals("--galeria")) {
+            DatabaseLoader loader = new DatabaseLoader(new ImageProcessor());
+            data = loader.loadFromDirectoryParallel(Paths.get(args[1]), Runtime.getRuntime().availableProcessors(), IngestListener.CONSOLE);
+            k = args.length >= 3 ? Integer.parseInt(args[2]) : 0;
+        } else {
+            int m = args.length >= 1 ? Integer.parseInt(args[0]) : 1000;
+            int classes = args.length >= 2 ? Integer.parseInt(args[1]) : 100;
+            k = args.length >= 3 ? Integer.parseInt(args[2]) : 100;
+            data = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 7L).gallery(m, classes);
+        }
+
+        System.out.printf("Galeria: %d imagens, %d pixels cada.%n", data.size(), data.vectors().getFirst().length);
+        System.out.printf("%-12s %12s %16s%n", "Solver", "Tempo (ms)", "Pico heap (MB)");
+
+        List<PcaOptions> solvers = List.of(
+                PcaOptions.exact().withComponents(k),
+                PcaOptions.randomized(k),
+                PcaOptions.randomized(k).withPowerIterations(0));
+        for (PcaOptions options : solvers) {
+            Measurement result = measure(data, options);
+            String name = options.solver() == PcaOptions.Solver.EXACT ? "EXACT"
+                    : "RAND(q=" + options.powerIterations() + ")";
+            System.out.printf("%-12s %12.1f %16.1f%n", name, result.millis(), result.peakHeapBytes() / (1024.0 * 1024.0));
+        }
+    }
+
+    private record Measurement(double millis, long peakHeapBytes) {}
+
+    private static Measurement measure(TrainingData data, PcaOptions options) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            new FisherfacesModel().train(data, options);
+        } finally {
+            System.setOut(console);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) peak += pool.getPeakUsage().getUsed();
+        return new Measurement(millis, peak);
+    }
+}
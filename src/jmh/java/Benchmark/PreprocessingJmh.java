@@ -0,0 +1,61 @@
+package Benchmark;
+
+import ImageProcessor.ImageProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pré-processamento de uma imagem já decodificada até o vetor 100x100 equalizado:
+ * caminho rápido (buffer reutilizado) x caminho original pela AWT.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class PreprocessingJmh {
+
+    @Param({"320x240", "640x480", "1280x960"})
+    public String resolution;
+
+    private final ImageProcessor processor = new ImageProcessor();
+    private final double[] out = new double[ImageProcessor.VECTOR_SIZE];
+    private BufferedImage image;
+
+    @Setup
+    public void decode() {
+        String[] parts = resolution.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        double[] pixels = new SyntheticFaces(width, height, 5L).probes(1, 1, 7L).getFirst();
+        image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int i = 0; i < pixels.length; i++) {
+            int gray = (int) pixels[i];
+            image.setRGB(i % width, i / width, (gray << 16) | (gray << 8) | gray);
+        }
+    }
+
+    @Benchmark
+    public double[] fast() {
+        processor.preprocess(image, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] awt() {
+        return processor.preprocessAwt(image);
+    }
+}
@@ -0,0 +1,81 @@
+package Benchmark;
+
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import FisherfacesModel.Projection;
+import LinearAlgebra.DenseMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projeção de {@link #PROBES} imagens no espaço de faces (tempo por imagem):
+ * Commons Math ({@code W.preMultiply(x - μ)}) x {@link Projection} uma a uma x em lote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class ProjectionJmh {
+
+    private static final int PROBES = 64;
+
+    private RealMatrix eigenfaces;
+    private double[] mean;
+    private Projection projection;
+    private List<double[]> probes;
+    private double[] out;
+
+    @Setup
+    public void train(GalleryState state) {
+        FisherfacesModel model = new FisherfacesModel();
+        Evaluation.quietly(() -> model.train(state.gallery, PcaOptions.exact().withComponents(45)));
+        eigenfaces = model.getEigenfaces();
+        mean = model.getMeanVector();
+        projection = model.getProjection();
+        out = new double[projection.components()];
+        probes = new ArrayList<>(PROBES);
+        for (int i = 0; i < PROBES; i++) probes.add(state.probes.get(i % state.probes.size()));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void projectCommonsMath(Blackhole bh) {
+        for (double[] probe : probes) {
+            double[] diff = new double[mean.length];
+            for (int i = 0; i < mean.length; i++) diff[i] = probe[i] - mean[i];
+            bh.consume(eigenfaces.preMultiply(diff));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void projectSingle(Blackhole bh) {
+        for (double[] probe : probes) {
+            projection.project(probe, out);
+            bh.consume(out);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public DenseMatrix projectBatch() {
+        return projection.projectBatch(probes);
+    }
+}
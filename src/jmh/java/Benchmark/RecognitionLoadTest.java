@@ -0,0 +1,240 @@
+package Benchmark;
+
+import Server.RecognitionServer;
+import Server.ServerOptions;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga do {@link RecognitionServer}: {@code clientes} threads virtuais enviam imagens sem pausa
+ * durante {@code segundos} e medem a latência de cada requisição (p50, p90, p99, máximo). Com
+ * {@code --recarregar-em s}, um re-treino é pedido nesse instante; a vazão por segundo e as latências
+ * antes, durante e depois da recarga mostram se a troca do modelo afeta as requisições.
+ *
+ * Sem {@code --url} sobe um servidor no próprio processo, treinado numa galeria sintética gravada numa
+ * pasta temporária; sem {@code --imagens} as requisições usam JPEGs sintéticos dos mesmos indivíduos.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.RecognitionLoadTest
+ *        [--url http://127.0.0.1:8080] [--imagens data/suspeitos] [--clientes 16] [--segundos 20] [--recarregar-em 8]
+ */
+public final class RecognitionLoadTest {
+
+    private static final Pattern VERSION = Pattern.compile("\"modelVersion\":(\\d+)");
+
+    private RecognitionLoadTest() {}
+
+    private record Sample(long startNanos, long latencyNanos, int version) {}
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) flags.put(args[i], args[i + 1]);
+        int clients = Integer.parseInt(flags.getOrDefault("--clientes", "16"));
+        int seconds = Integer.parseInt(flags.getOrDefault("--segundos", "20"));
+        int reloadAt = Integer.parseInt(flags.getOrDefault("--recarregar-em", String.valueOf(seconds * 2 / 5)));
+
+        List<Path> temporary = new ArrayList<>();
+        RecognitionServer embedded = null;
+        try {
+            String url = flags.get("--url");
+            if (url == null) {
+                Path gallery = Files.createTempDirectory("galeria-servidor");
+                temporary.add(gallery);
+                writeFaces(gallery, 30, 6, 100, 5L, true);
+                Path cacheDir = Files.createTempDirectory("cache-servidor");
+                temporary.add(cacheDir);
+                ServerOptions options = ServerOptions.defaults(gallery).withPort(0).withCacheFile(cacheDir.resolve("vetores.bin"));
+                RecognitionServer[] started = new RecognitionServer[1];
+                Evaluation.quietly(() -> {
+                    try {
+                        started[0] = RecognitionServer.start(options);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                embedded = started[0];
+                url = "http://127.0.0.1:" + embedded.port();
+            }
+
+            List<byte[]> images = new ArrayList<>();
+            Path imageDir = flags.containsKey("--imagens") ? Paths.get(flags.get("--imagens")) : null;
+            if (imageDir == null) {
+                imageDir = Files.createTempDirectory("requisicoes");
+                temporary.add(imageDir);
+                writeFaces(imageDir, 30, 4, 240, 23L, false);
+            }
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(imageDir, "*.{jpg,jpeg,png}")) {
+                for (Path p : stream) images.add(Files.readAllBytes(p));
+            }
+            if (images.isEmpty()) throw new IOException("Nenhuma imagem em " + imageDir);
+
+            System.out.printf("%s: %d clientes, %d s, %d imagens, recarga em %d s, %d núcleos%n",
+                    url, clients, seconds, images.size(), reloadAt, Runtime.getRuntime().availableProcessors());
+            run(URI.create(url), images, clients, seconds, reloadAt);
+        } finally {
+            if (embedded != null) embedded.close();
+            for (Path dir : temporary) deleteTree(dir);
+        }
+    }
+
+    private static void run(URI base, List<byte[]> images, int clients, int seconds, int reloadAt) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI recognize = base.resolve("/recognize?name=carga");
+
+        // Aquecimento: JIT e conexões, fora da medição
+        for (int i = 0; i < 2 * images.size(); i++) post(http, recognize, images.get(i % images.size()));
+
+        List<List<Sample>> perClient = new ArrayList<>();
+        LongAdder errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            List<Sample> samples = new ArrayList<>();
+            perClient.add(samples);
+            threads.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    byte[] image = images.get(Math.floorMod(next.getAndIncrement(), images.size()));
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = post(http, recognize, image);
+                        long latency = System.nanoTime() - t0;
+                        Matcher m = VERSION.matcher(response.body());
+                        if (response.statusCode() != 200 || !m.find()) {
+                            errors.increment();
+                            continue;
+                        }
+                        samples.add(new Sample(t0 - start, latency, Integer.parseInt(m.group(1))));
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+
+        // Pedido de recarga e espera pela publicação do modelo novo
+        long reloadStart = -1, reloadEnd = -1;
+        if (reloadAt < seconds) {
+            Thread.sleep(reloadAt * 1000L);
+            reloadStart = System.nanoTime() - start;
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(base.resolve("/model/reload"))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            System.out.printf("Recarga pedida em %.1f s: HTTP %d %s%n", reloadStart / 1e9, response.statusCode(), response.body());
+            while (System.nanoTime() < deadline) {
+                String status = http.send(HttpRequest.newBuilder(base.resolve("/status")).build(), HttpResponse.BodyHandlers.ofString()).body();
+                if (status.contains("\"reloading\":false")) {
+                    reloadEnd = System.nanoTime() - start;
+                    System.out.printf("Modelo novo publicado em %.1f s (recarga de %.1f s)%n",
+                            reloadEnd / 1e9, (reloadEnd - reloadStart) / 1e9);
+                    break;
+                }
+                Thread.sleep(50);
+            }
+        }
+        for (Thread t : threads) t.join();
+        long elapsed = System.nanoTime() - start;
+
+        List<Sample> all = new ArrayList<>();
+        perClient.forEach(all::addAll);
+        System.out.printf("%n%d requisições em %.1f s (%.0f/s), %d erros%n", all.size(), elapsed / 1e9, all.size() / (elapsed / 1e9), errors.sum());
+        report("Todas", all);
+        if (reloadStart >= 0) {
+            long from = reloadStart, to = reloadEnd >= 0 ? reloadEnd : elapsed;
+            report("Antes da recarga", all.stream().filter(s -> s.startNanos() < from).toList());
+            report("Durante a recarga", all.stream().filter(s -> s.startNanos() >= from && s.startNanos() < to).toList());
+            report("Depois da recarga", all.stream().filter(s -> s.startNanos() >= to).toList());
+        }
+
+        // Vazão por segundo e versões do modelo que responderam em cada segundo
+        System.out.println("\nSegundo  Requisições  Versões");
+        int buckets = (int) (elapsed / 1_000_000_000L) + 1;
+        long[] counts = new long[buckets];
+        Map<Integer, Map<Integer, Integer>> versions = new HashMap<>();
+        for (Sample s : all) {
+            int b = (int) (s.startNanos() / 1_000_000_000L);
+            counts[b]++;
+            versions.computeIfAbsent(b, k -> new TreeMap<>()).merge(s.version(), 1, Integer::sum);
+        }
+        for (int b = 0; b < buckets; b++) {
+            System.out.printf("%7d  %11d  %s%n", b, counts[b], versions.getOrDefault(b, Map.of()));
+        }
+    }
+
+    private static HttpResponse<String> post(HttpClient http, URI uri, byte[] image) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(image))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void report(String name, List<Sample> samples) {
+        if (samples.isEmpty()) {
+            System.out.printf("%-18s nenhuma requisição%n", name);
+            return;
+        }
+        long[] latencies = samples.stream().mapToLong(Sample::latencyNanos).toArray();
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %7d req  p50 %7.2f ms  p90 %7.2f ms  p99 %7.2f ms  máx %7.2f ms%n", name, latencies.length,
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.90) / 1e6,
+                percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    // Galeria (uma pasta por indivíduo) ou imagens soltas, em JPEG, dos mesmos indivíduos sintéticos
+    private static void writeFaces(Path dir, int people, int photos, int side, long seed, boolean byPerson) throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(side, side, 3L);
+        List<double[]> samples = faces.probes(people, photos, seed);
+        for (int i = 0; i < samples.size(); i++) {
+            Path target = byPerson ? Files.createDirectories(dir.resolve(SyntheticFaces.label(i / photos))) : dir;
+            double[] pixels = samples.get(i);
+            BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+            for (int p = 0; p < pixels.length; p++) {
+                int gray = Math.clamp((int) pixels[p], 0, 255);
+                image.setRGB(p % side, p / side, (gray << 16) | (gray << 8) | gray);
+            }
+            String name = byPerson ? String.format("foto_%03d.jpg", i % photos) : String.format("pessoa_%05d.jpg", i);
+            ImageIO.write(image, "jpg", target.resolve(name).toFile());
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
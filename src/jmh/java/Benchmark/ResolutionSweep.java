@@ -0,0 +1,183 @@
+package Benchmark;
+
+import Data.TrainingData;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import FisherfacesModel.Projection;
+import ImageProcessor.ImageProcessor;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Varredura de resoluções das faces, para escolher a menor que ainda dá a acurácia desejada. Para cada
+ * resolução, as mesmas imagens são pré-processadas de novo, o modelo é treinado e o conjunto de teste é
+ * reconhecido; a tabela mostra a acurácia, a concordância do top-1 com a maior resolução, o tempo de treino,
+ * o custo por imagem (pré-processamento e projeção) e o tamanho do arquivo do modelo.
+ *
+ * Sem {@code --galeria}, usa rostos sintéticos desenhados em 200x200 com ruído por pixel (a redução para
+ * resoluções menores também é uma média do ruído). Com {@code --galeria}, uma em cada 4 fotos de cada
+ * indivíduo com mais de uma foto vai para o teste (como no {@link MatchingModeEvaluation}).
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.ResolutionSweep
+ *        [--resolucoes 24,32,48,64,100] [--classes 40] [--fotos 8] [--galeria data/database_criminosos]
+ */
+public final class ResolutionSweep {
+
+    private static final int SOURCE_SIDE = 200;
+    private static final int PROBES_PER_CLASS = 3;
+    private static final int TIMING_ROUNDS = 5;
+
+    private ResolutionSweep() {}
+
+    private record Image(String label, BufferedImage image) {}
+
+    public static void main(String[] args) throws Exception {
+        String resolutions = "24,32,48,64,100";
+        int classes = 40;
+        int photos = 8;
+        String galleryDir = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--resolucoes" -> resolutions = args[i + 1];
+                case "--classes" -> classes = Integer.parseInt(args[i + 1]);
+                case "--fotos" -> photos = Integer.parseInt(args[i + 1]);
+                case "--galeria" -> galleryDir = args[i + 1];
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+
+        List<ImageProcessor> processors = new ArrayList<>();
+        for (String r : resolutions.split(",")) processors.add(ImageProcessor.parse(r));
+        // A referência da concordância é a maior resolução, avaliada primeiro
+        processors.sort((a, b) -> Integer.compare(b.vectorSize(), a.vectorSize()));
+
+        List<Image> train = new ArrayList<>();
+        List<Image> test = new ArrayList<>();
+        if (galleryDir != null) {
+            loadGallery(Paths.get(galleryDir), processors.getFirst(), train, test);
+        } else {
+            synthetic(classes, photos, train, test);
+        }
+        if (test.isEmpty()) {
+            System.err.println("Conjunto de teste vazio: é preciso pelo menos um indivíduo com 2 ou mais fotos.");
+            return;
+        }
+        System.out.printf("Treino: %d imagens; teste: %d imagens (%s).%n", train.size(), test.size(),
+                galleryDir != null ? galleryDir : "sintéticas " + SOURCE_SIDE + "x" + SOURCE_SIDE);
+
+        System.out.printf("%-10s %8s %12s %12s %11s %15s %15s %12s%n", "Resolução", "Pixels", "Acurácia (%)",
+                "Top-1 = ref.", "Treino (s)", "Pré-proc. (µs)", "Projeção (µs)", "Modelo (MB)");
+        List<String> reference = null;
+        List<String> expected = test.stream().map(Image::label).toList();
+        for (ImageProcessor processor : processors) {
+            TrainingData data = vectors(processor, train);
+            List<double[]> probes = new ArrayList<>(test.size());
+            for (Image image : test) probes.add(processor.preprocess(image.image()));
+            double[] out = new double[processor.vectorSize()];
+            long start = System.nanoTime();
+            for (int round = 0; round < TIMING_ROUNDS; round++) {
+                for (Image image : test) processor.preprocess(image.image(), out);
+            }
+            double preprocessUs = (System.nanoTime() - start) / 1e3 / (TIMING_ROUNDS * test.size());
+
+            FisherfacesModel model = new FisherfacesModel();
+            start = System.nanoTime();
+            Evaluation.quietly(() -> model.train(data, PcaOptions.exact()));
+            double trainSeconds = (System.nanoTime() - start) / 1e9;
+
+            Projection projection = model.getProjection();
+            List<double[]> coeffs = new ArrayList<>(probes.size());
+            for (double[] probe : probes) coeffs.add(projection.project(probe)); // também aquece
+            start = System.nanoTime();
+            for (int round = 0; round < TIMING_ROUNDS; round++) {
+                for (double[] probe : probes) projection.project(probe);
+            }
+            double projectUs = (System.nanoTime() - start) / 1e3 / (TIMING_ROUNDS * probes.size());
+
+            FaceRecognizer recognizer = new FaceRecognizer(model, processor);
+            List<String> answers = new ArrayList<>(coeffs.size());
+            for (int i = 0; i < coeffs.size(); i++) {
+                answers.add(recognizer.recognizeProjected(coeffs.get(i), "teste_" + i).recognizedLabel());
+            }
+            if (reference == null) reference = answers;
+
+            Path file = Files.createTempFile("modelo-" + processor.resolution(), ".ffm");
+            long modelBytes;
+            try {
+                model.save(file);
+                modelBytes = Files.size(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+            System.out.printf("%-10s %8d %12.2f %11.2f%% %11.2f %15.1f %15.1f %12.2f%n", processor.resolution(),
+                    processor.vectorSize(), Evaluation.accuracy(answers, expected),
+                    Evaluation.accuracy(answers, reference), trainSeconds, preprocessUs, projectUs, modelBytes / 1e6);
+        }
+    }
+
+    private static TrainingData vectors(ImageProcessor processor, List<Image> images) {
+        List<double[]> vectors = new ArrayList<>(images.size());
+        List<String> labels = new ArrayList<>(images.size());
+        for (Image image : images) {
+            vectors.add(processor.preprocess(image.image()));
+            labels.add(image.label());
+        }
+        return new TrainingData(vectors, labels, processor.width(), processor.height());
+    }
+
+    // Rostos sintéticos em tons de cinza, com ruído por pixel; a galeria e o teste são fotos diferentes
+    private static void synthetic(int classes, int photos, List<Image> train, List<Image> test) {
+        SyntheticFaces faces = new SyntheticFaces(SOURCE_SIDE, SOURCE_SIDE, 11L);
+        Random noise = new Random(17L);
+        TrainingData gallery = faces.gallery(classes * photos, classes);
+        for (int j = 0; j < gallery.size(); j++) train.add(new Image(gallery.labels().get(j), render(gallery.vectors().get(j), noise)));
+        List<double[]> probes = faces.probes(classes, PROBES_PER_CLASS, 29L);
+        for (int j = 0; j < probes.size(); j++) {
+            test.add(new Image(SyntheticFaces.label(j / PROBES_PER_CLASS), render(probes.get(j), noise)));
+        }
+    }
+
+    private static BufferedImage render(double[] pixels, Random noise) {
+        BufferedImage image = new BufferedImage(SOURCE_SIDE, SOURCE_SIDE, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int p = 0; p < pixels.length; p++) {
+            data[p] = (byte) Math.clamp((int) (pixels[p] + noise.nextGaussian() * 40.0), 0, 255);
+        }
+        return image;
+    }
+
+    // Cada foto é decodificada uma vez, já reduzida para a maior resolução da varredura
+    private static void loadGallery(Path dir, ImageProcessor decoder, List<Image> train, List<Image> test) throws IOException {
+        try (Stream<Path> people = Files.list(dir)) {
+            for (Path person : people.filter(Files::isDirectory).sorted().toList()) {
+                List<Path> files;
+                try (Stream<Path> stream = Files.list(person)) {
+                    files = stream.filter(Files::isRegularFile).sorted().toList();
+                }
+                String label = person.getFileName().toString();
+                int index = 0;
+                for (Path file : files) {
+                    BufferedImage image;
+                    try {
+                        image = decoder.decode(file.toFile());
+                    } catch (IOException e) {
+                        System.err.printf("  [Aviso] %s: %s%n", file.getFileName(), e.getMessage());
+                        continue;
+                    }
+                    (files.size() > 1 && ++index % 4 == 0 ? test : train).add(new Image(label, image));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package Benchmark;
+
+import GalleryIndex.FlatGalleryIndex;
+import GalleryIndex.HnswGalleryIndex;
+import GalleryIndex.Neighbor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vizinhos mais próximos (top-3) no espaço de faces: varredura sobre {@code List<double[]>}
+ * (como o reconhecedor fazia), índice exato contíguo e HNSW.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class SearchJmh {
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"39", "199"})
+    public int dimension;
+
+    private List<double[]> projections;
+    private FlatGalleryIndex flat;
+    private HnswGalleryIndex hnsw;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void build() {
+        Random random = new Random(9L);
+        projections = new ArrayList<>(n);
+        List<String> labels = new ArrayList<>(n);
+        double[] center = new double[dimension];
+        for (int i = 0; i < n; i++) {
+            if (i % 5 == 0) {
+                for (int c = 0; c < dimension; c++) center[c] = random.nextGaussian() * 1000.0;
+            }
+            double[] v = new double[dimension];
+            for (int c = 0; c < dimension; c++) v[c] = center[c] + random.nextGaussian() * 150.0;
+            projections.add(v);
+            labels.add(SyntheticFaces.label(i / 5));
+        }
+        flat = new FlatGalleryIndex(projections, labels);
+        hnsw = new HnswGalleryIndex(projections, labels, 16, 200, 64);
+        queries = new double[256][];
+        for (int q = 0; q < queries.length; q++) {
+            double[] base = projections.get(random.nextInt(n));
+            queries[q] = new double[dimension];
+            for (int c = 0; c < dimension; c++) queries[q][c] = base[c] + random.nextGaussian() * 150.0;
+        }
+    }
+
+    private double[] query() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public int listScan() {
+        double[] q = query();
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int j = 0; j < projections.size(); j++) {
+            double[] p = projections.get(j);
+            double d = 0.0;
+            for (int c = 0; c < q.length; c++) {
+                double t = q[c] - p[c];
+                d += t * t;
+            }
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = j;
+            }
+        }
+        return best;
+    }
+
+    @Benchmark
+    public List<Neighbor> flat() {
+        return flat.search(query(), 3);
+    }
+
+    @Benchmark
+    public List<Neighbor> hnsw() {
+        return hnsw.search(query(), 3);
+    }
+}
@@ -0,0 +1,209 @@
+package Benchmark;
+
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import GalleryIndex.FlatGalleryIndex;
+import GalleryIndex.GalleryIndex;
+import GalleryIndex.Neighbor;
+import GalleryIndex.Precision;
+import GalleryIndex.VectorStore;
+import ImageProcessor.ImageProcessor;
+import Metrics.LatencyHistogram;
+import Shard.ShardCoordinator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Busca distribuída: uma galeria sintética de {@code n} faces já projetadas (agrupadas por indivíduo, como em
+ * {@link GalleryPrecisionBenchmark}) é gravada num arquivo de modelo e servida por 1, 2, 4... JVMs
+ * {@link Shard.ShardWorker}, cada uma com uma fatia. Para cada número de partições:
+ *
+ * 1. Confere que o top-1 (rótulo e distância) do {@link ShardCoordinator} é igual ao da varredura exata no
+ *    próprio processo, para todas as consultas.
+ * 2. Mede a vazão e a latência (p50, p99) com {@code clientes} threads buscando sem pausa durante {@code segundos}.
+ *
+ * A vazão só cresce com as partições se houver núcleos para elas; o número de núcleos é impresso no início.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.ShardScalingBenchmark
+ *        [n=400000] [segundos=5] [clientes=8] [partições=1,2,4]
+ */
+public final class ShardScalingBenchmark {
+
+    private static final int QUERIES = 200;
+    private static final Pattern PORT = Pattern.compile("ouvindo em 127\\.0\\.0\\.1:(\\d+)");
+
+    private ShardScalingBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length >= 1 ? Integer.parseInt(args[0]) : 400_000;
+        int seconds = args.length >= 2 ? Integer.parseInt(args[1]) : 5;
+        int clients = args.length >= 3 ? Integer.parseInt(args[2]) : 8;
+        String counts = args.length >= 4 ? args[3] : "1,2,4";
+
+        // Projeção de um modelo treinado com 50 indivíduos e uma galeria grande no mesmo espaço
+        int classes = 50;
+        FisherfacesModel trained = new FisherfacesModel();
+        SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 21L);
+        Evaluation.quietly(() -> trained.train(faces.gallery(classes * 10, classes), PcaOptions.exact().withComponents(45)));
+        int d = trained.getEigenfaces().getColumnDimension();
+
+        Random random = new Random(5L);
+        int clusters = Math.max(1, n / 20);
+        double[][] centers = new double[clusters][d];
+        for (double[] c : centers) {
+            for (int i = 0; i < d; i++) c[i] = random.nextGaussian() * 1000.0;
+        }
+        double[] data = new double[n * d];
+        List<String> labels = new ArrayList<>(n);
+        for (int j = 0; j < n; j++) {
+            int cluster = random.nextInt(clusters);
+            for (int i = 0; i < d; i++) data[j * d + i] = centers[cluster][i] + random.nextGaussian() * 150.0;
+            labels.add(SyntheticFaces.label(cluster));
+        }
+        List<double[]> queries = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            double[] c = centers[random.nextInt(clusters)];
+            double[] query = new double[d];
+            for (int i = 0; i < d; i++) query[i] = c[i] + random.nextGaussian() * 150.0;
+            queries.add(query);
+        }
+
+        VectorStore store = VectorStore.of(data, n, d, Precision.DOUBLE);
+        Path modelFile = Files.createTempFile("galeria-particionada", ".ffm");
+        try {
+            FisherfacesModel.withGallery(trained, store, labels).save(modelFile);
+            System.out.printf("Galeria: %d faces de dimensão %d (%.0f MB no arquivo), %d consultas, %d clientes, %d s, %d núcleos%n",
+                    n, d, Files.size(modelFile) / 1e6, QUERIES, clients, seconds, Runtime.getRuntime().availableProcessors());
+
+            GalleryIndex reference = new FlatGalleryIndex(store, labels);
+            List<Neighbor> expected = new ArrayList<>(QUERIES);
+            for (double[] q : queries) expected.add(reference.search(q, 1).getFirst());
+
+            System.out.printf("%-22s %10s %12s %12s %14s%n", "Configuração", "Buscas/s", "p50 (ms)", "p99 (ms)", "Top-1 igual");
+            report("No processo (exata)", measure(q -> reference.search(q, 1), queries, clients, seconds), QUERIES);
+
+            for (String count : counts.split(",")) {
+                int shards = Integer.parseInt(count.trim());
+                List<Process> workers = new ArrayList<>();
+                try {
+                    List<InetSocketAddress> addresses = new ArrayList<>();
+                    for (int s = 0; s < shards; s++) {
+                        Process worker = startWorker(modelFile, s, shards);
+                        workers.add(worker);
+                        addresses.add(new InetSocketAddress("127.0.0.1", readPort(worker)));
+                    }
+                    try (ShardCoordinator coordinator = ShardCoordinator.connect(FisherfacesModel.loadProjection(modelFile), addresses, Double.MAX_VALUE)) {
+                        int agree = 0;
+                        for (int q = 0; q < QUERIES; q++) {
+                            Neighbor got = coordinator.search(queries.get(q), 1).getFirst();
+                            Neighbor want = expected.get(q);
+                            if (got.label().equals(want.label()) && got.distance() == want.distance()) agree++;
+                        }
+                        report(shards + (shards == 1 ? " partição" : " partições"),
+                                measure(q -> coordinator.search(q, 1), queries, clients, seconds), agree);
+                    }
+                } finally {
+                    for (Process worker : workers) worker.destroy();
+                    for (Process worker : workers) worker.waitFor();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(modelFile);
+        }
+    }
+
+    private interface Search {
+        List<Neighbor> run(double[] query) throws IOException;
+    }
+
+    private record Result(double throughput, LatencyHistogram latency, long errors) {}
+
+    // Aquecimento e depois {@code clients} threads buscando até o prazo
+    private static Result measure(Search search, List<double[]> queries, int clients, int seconds) throws Exception {
+        for (int i = 0; i < 2 * queries.size(); i++) search.run(queries.get(i % queries.size()));
+
+        LatencyHistogram latency = new LatencyHistogram("busca", "");
+        LongAdder errors = new LongAdder();
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    double[] query = queries.get(Math.floorMod(next.getAndIncrement(), queries.size()));
+                    long t0 = System.nanoTime();
+                    try {
+                        search.run(query);
+                        latency.recordSince(t0);
+                    } catch (IOException e) {
+                        errors.increment();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) t.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new Result(latency.count() / elapsed, latency, errors.sum());
+    }
+
+    private static void report(String name, Result result, int agree) {
+        System.out.printf("%-22s %10.0f %12.2f %12.2f %10d/%d%s%n", name, result.throughput(),
+                result.latency().percentile(0.50) / 1e6, result.latency().percentile(0.99) / 1e6, agree, QUERIES,
+                result.errors() > 0 ? "  (" + result.errors() + " erros)" : "");
+    }
+
+    // Mesma JVM (executável, --enable-preview, módulos) e mesmo classpath deste processo
+    private static Process startWorker(Path modelFile, int shard, int shards) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Shard.ShardWorker");
+        command.add("--modelo");
+        command.add(modelFile.toString());
+        command.add("--particao");
+        command.add(String.valueOf(shard));
+        command.add("--particoes");
+        command.add(String.valueOf(shards));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    // Espera a linha com a porta e continua a esvaziar a saída da partição numa thread à parte
+    private static int readPort(Process worker) throws IOException {
+        BufferedReader out = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            Matcher m = PORT.matcher(line);
+            if (m.find()) {
+                Thread.ofPlatform().daemon().start(() -> {
+                    try {
+                        while (out.readLine() != null) {
+                            // descarta
+                        }
+                    } catch (IOException e) {
+                        // partição encerrada
+                    }
+                });
+                return Integer.parseInt(m.group(1));
+            }
+        }
+        throw new IOException("A partição terminou sem informar a porta (código " + worker.onExit().join().exitValue() + ").");
+    }
+}
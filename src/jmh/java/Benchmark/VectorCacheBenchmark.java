@@ -0,0 +1,159 @@
+package Benchmark;
+
+import Data.TrainingData;
+import ImageProcessor.ImageProcessor;
+import Services.DatabaseLoader;
+import Services.IngestListener;
+import Services.VectorCache;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Carga da galeria sem cache x com o {@link VectorCache} frio (primeira execução, grava os vetores) e
+ * quente (reaberto, nenhuma imagem decodificada). Confere que os vetores do cache são idênticos aos
+ * recalculados, que alterar uma imagem invalida só a sua entrada e que a compactação respeita o limite.
+ *
+ * Sem {@code --galeria} grava {@code pessoas x fotos} JPEGs sintéticos de {@code lado x lado} pixels
+ * numa pasta temporária. O cache fica sempre numa pasta temporária.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.VectorCacheBenchmark [pessoas] [fotos] [lado]
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.VectorCacheBenchmark --galeria data/database_criminosos
+ */
+public final class VectorCacheBenchmark {
+
+    // Só os tempos interessam: nada de mensagens por indivíduo
+    private static final IngestListener QUIET = new IngestListener() {};
+
+    private VectorCacheBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Path gallery;
+        boolean temporary = false;
+        if (args.length >= 2 && args[0].equals("--galeria")) {
+            gallery = Paths.get(args[1]);
+        } else {
+            int people = args.length >= 1 ? Integer.parseInt(args[0]) : 40;
+            int photos = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+            int side = args.length >= 3 ? Integer.parseInt(args[2]) : 480;
+            gallery = Files.createTempDirectory("galeria-sintetica");
+            temporary = true;
+            writeGallery(gallery, people, photos, side);
+        }
+        Path cacheDir = Files.createTempDirectory("cache-vetores");
+        Path cacheFile = cacheDir.resolve("vetores.bin");
+
+        try {
+            ImageProcessor processor = new ImageProcessor();
+            int threads = Runtime.getRuntime().availableProcessors();
+
+            long t0 = System.nanoTime();
+            TrainingData reference = new DatabaseLoader(processor).loadFromDirectoryParallel(gallery, threads, QUIET);
+            report("Sem cache", reference, System.nanoTime() - t0, null);
+
+            TrainingData cold = timed("Cache frio", processor, cacheFile, VectorCache.DEFAULT_MAX_BYTES, gallery, threads);
+            TrainingData warm = timed("Cache quente", processor, cacheFile, VectorCache.DEFAULT_MAX_BYTES, gallery, threads);
+            System.out.printf("%nVetores idênticos aos recalculados: frio %s, quente %s%n",
+                    same(reference, cold), same(reference, warm));
+
+            // Alterar uma imagem muda o seu hash: só essa entrada falha
+            Path changed = firstImage(gallery);
+            if (temporary) {
+                BufferedImage image = ImageIO.read(changed.toFile());
+                image.setRGB(0, 0, ~image.getRGB(0, 0));
+                ImageIO.write(image, "png", changed.toFile());
+                timed("Uma imagem alterada", processor, cacheFile, VectorCache.DEFAULT_MAX_BYTES, gallery, threads);
+            }
+
+            // Limite menor que o arquivo: compacta para 3/4 do limite numa nova geração do arquivo
+            long limit = Files.size(cacheFile) / 2;
+            timed("Limite de " + limit / 1024 + " KB", processor, cacheFile, limit, gallery, threads);
+            try (VectorCache cache = VectorCache.open(cacheFile, limit)) {
+                System.out.printf("Arquivo após a compactação: %s, %d KB; entradas mantidas: %d de %d%n",
+                        cache.file().getFileName(), Files.size(cache.file()) / 1024, cache.stats().entries(),
+                        reference.vectors().size());
+            }
+
+            // Limite bem menor, sem fechar: cada acréscimo que passaria do limite compacta antes
+            long small = limit / 4;
+            try (VectorCache cache = VectorCache.open(cacheFile, small)) {
+                long peak = 0;
+                for (int i = 0; i < reference.vectors().size(); i++) {
+                    double[] v = reference.vectors().get(i).clone();
+                    v[0] += 1.0; // conteúdo novo: sempre uma falta
+                    cache.put(cache.keyOf(processor, ("imagem-" + i).getBytes()), v);
+                    peak = Math.max(peak, Files.size(cache.file()));
+                }
+                System.out.printf("Limite de %d KB sem fechar: maior arquivo %d KB, em uso %s%n",
+                        small / 1024, peak / 1024, cache.file().getFileName());
+            }
+        } finally {
+            deleteTree(cacheDir);
+            if (temporary) deleteTree(gallery);
+        }
+    }
+
+    private static TrainingData timed(String name, ImageProcessor processor, Path cacheFile, long maxBytes,
+                                      Path gallery, int threads) throws IOException {
+        long t0 = System.nanoTime();
+        try (VectorCache cache = VectorCache.open(cacheFile, maxBytes)) {
+            TrainingData data = new DatabaseLoader(processor, cache).loadFromDirectoryParallel(gallery, threads, QUIET);
+            report(name, data, System.nanoTime() - t0, cache.stats());
+            return data;
+        }
+    }
+
+    private static void report(String name, TrainingData data, long nanos, VectorCache.Stats stats) {
+        System.out.printf("%-22s %5d imagens em %8.1f ms", name, data.vectors().size(), nanos / 1e6);
+        if (stats != null) {
+            long lookups = Math.max(1, stats.hits() + stats.misses());
+            System.out.printf("  acertos %5.1f%% (%d/%d), arquivo %.1f MB",
+                    100.0 * stats.hits() / lookups, stats.hits(), lookups, stats.bytes() / 1e6);
+        }
+        System.out.println();
+    }
+
+    private static boolean same(TrainingData a, TrainingData b) {
+        if (a.vectors().size() != b.vectors().size() || !a.labels().equals(b.labels())) return false;
+        for (int i = 0; i < a.vectors().size(); i++) {
+            if (!Arrays.equals(a.vectors().get(i), b.vectors().get(i))) return false;
+        }
+        return true;
+    }
+
+    private static void writeGallery(Path dir, int people, int photos, int side) throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(side, side, 11L);
+        List<double[]> probes = faces.probes(people, photos, 17L);
+        for (int i = 0; i < probes.size(); i++) {
+            Path person = Files.createDirectories(dir.resolve(SyntheticFaces.label(i / photos)));
+            double[] pixels = probes.get(i);
+            BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+            for (int p = 0; p < pixels.length; p++) {
+                int gray = (int) pixels[p];
+                image.setRGB(p % side, p / side, (gray << 16) | (gray << 8) | gray);
+            }
+            ImageIO.write(image, "jpg", person.resolve(String.format("foto_%03d.jpg", i % photos)).toFile());
+        }
+    }
+
+    private static Path firstImage(Path gallery) throws IOException {
+        try (Stream<Path> files = Files.walk(gallery)) {
+            return files.filter(Files::isRegularFile).sorted().findFirst().orElseThrow();
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package Benchmark;
+
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+import Services.PipelineOptions;
+import Services.PipelineReport;
+import Services.VerificationPipeline;
+import Services.VerificationService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Vazão da verificação sequencial x pipeline com várias configurações de threads por etapa.
+ *
+ * Sem {@code --suspeitos} grava {@code n} JPEGs sintéticos de {@code lado x lado} pixels numa pasta
+ * temporária (a decodificação de arquivos maiores que 100x100 é o que o pipeline esconde). O modelo é
+ * treinado numa galeria sintética; só a vazão interessa aqui, não a acurácia.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.VerificationPipelineBenchmark [n] [lado]
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT-benchmarks.jar Benchmark.VerificationPipelineBenchmark --suspeitos data/suspeitos
+ */
+public final class VerificationPipelineBenchmark {
+
+    private VerificationPipelineBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        Path dir;
+        boolean temporary = false;
+        if (args.length >= 2 && args[0].equals("--suspeitos")) {
+            dir = Paths.get(args[1]);
+        } else {
+            int n = args.length >= 1 ? Integer.parseInt(args[0]) : 400;
+            int side = args.length >= 2 ? Integer.parseInt(args[1]) : 480;
+            dir = Files.createTempDirectory("suspeitos-sinteticos");
+            temporary = true;
+            writeProbes(dir, n, side);
+        }
+
+        try {
+            ImageProcessor processor = new ImageProcessor();
+            FisherfacesModel model = new FisherfacesModel();
+            SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 3L);
+            Evaluation.quietly(() -> model.train(faces.gallery(400, 40), PcaOptions.exact().withComponents(45)));
+            FaceRecognizer recognizer = new FaceRecognizer(model, processor);
+
+            List<Path> files = list(dir);
+            System.out.printf("%d imagens em %s, %d núcleos%n%n", files.size(), dir, Runtime.getRuntime().availableProcessors());
+
+            // Referência: verificação sequencial (a saída didática é descartada)
+            VerificationService service = new VerificationService(processor, recognizer);
+            long start = System.nanoTime();
+            AtomicReference<List<RecognitionResult>> sequential = new AtomicReference<>();
+            Evaluation.quietly(() -> {
+                try {
+                    sequential.set(service.verifySuspects(dir));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Sequencial: %d imagens em %.1f ms (%.1f imagens/s)%n%n",
+                    sequential.get().size(), seconds * 1e3, sequential.get().size() / seconds);
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            List<PipelineOptions> configurations = List.of(
+                    PipelineOptions.defaults().withThreads(1, 1, 1, 1),
+                    PipelineOptions.defaults(),
+                    PipelineOptions.defaults().withThreads(cores, Math.max(1, cores / 2), 1, 2));
+            for (PipelineOptions options : configurations) {
+                AtomicInteger streamed = new AtomicInteger();
+                PipelineReport report = new VerificationPipeline(processor, recognizer, options)
+                        .run(files, result -> streamed.incrementAndGet());
+                report.print(System.out);
+                System.out.println();
+            }
+        } finally {
+            if (temporary) deleteTree(dir);
+        }
+    }
+
+    private static void writeProbes(Path dir, int n, int side) throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(side, side, 7L);
+        List<double[]> probes = faces.probes(Math.max(1, n / 10), 10, 13L);
+        for (int i = 0; i < n; i++) {
+            double[] pixels = probes.get(i % probes.size());
+            BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+            for (int p = 0; p < pixels.length; p++) {
+                int gray = (int) pixels[p];
+                image.setRGB(p % side, p / side, (gray << 16) | (gray << 8) | gray);
+            }
+            ImageIO.write(image, "jpg", dir.resolve(String.format("suspeito_%05d.jpg", i)).toFile());
+        }
+    }
+
+    private static List<Path> list(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{jpg,jpeg,png}")) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+        return files;
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path p : stream) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,136 @@
+package FisherfacesModel;
+
+import LinearAlgebra.SymmetricGeneralizedEigen;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LDA a partir das coordenadas PCA ({@code m} amostras, {@code classes} indivíduos, dimensão {@code k}):
+ * construção de Sw e Sb (produtos externos do Commons Math x atualização simétrica em blocos) e
+ * resolução (inversa de Sw x branqueamento de Cholesky).
+ * Fica no pacote do modelo para medir o código real, que não é público.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class LdaScatterJmh {
+
+    @Param({"400", "1600"})
+    public int m;
+
+    @Param({"40", "200"})
+    public int classes;
+
+    @Param({"100", "300"})
+    public int k;
+
+    private Map<String, List<RealVector>> projectedClasses;
+    private FisherfacesModel.Scatter scatter;
+    private RealMatrix within;
+    private RealMatrix between;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(3L);
+        double[][] centers = new double[classes][k];
+        for (double[] c : centers) {
+            for (int i = 0; i < k; i++) c[i] = random.nextGaussian() * 100.0;
+        }
+        projectedClasses = new LinkedHashMap<>();
+        for (int j = 0; j < m; j++) {
+            int c = j % classes;
+            double[] x = new double[k];
+            for (int i = 0; i < k; i++) x[i] = centers[c][i] + random.nextGaussian() * 20.0;
+            projectedClasses.computeIfAbsent("Individuo_" + c, l -> new ArrayList<>()).add(new ArrayRealVector(x, false));
+        }
+        scatter = FisherfacesModel.calcularDispersao(projectedClasses, k, m, FisherfacesModel.SW_REGULARIZATION);
+        within = scatter.within().toRealMatrix();
+        between = scatter.between().toRealMatrix();
+    }
+
+    @Benchmark
+    public RealMatrix[] scatterCommonsMath() {
+        return calcularDispersaoCommonsMath(projectedClasses, k, m);
+    }
+
+    @Benchmark
+    public FisherfacesModel.Scatter scatterDense() {
+        return FisherfacesModel.calcularDispersao(projectedClasses, k, m, FisherfacesModel.SW_REGULARIZATION);
+    }
+
+    @Benchmark
+    public RealMatrix solveInverse() {
+        RealMatrix target = new LUDecomposition(within).getSolver().getInverse().multiply(between);
+        return new EigenDecomposition(target).getV();
+    }
+
+    @Benchmark
+    public SymmetricGeneralizedEigen.Result solveCholesky() {
+        return SymmetricGeneralizedEigen.solve(scatter.betweenFactor(), scatter.within(), classes - 1);
+    }
+
+    // Construção anterior de Sw e Sb no FisherfacesModel, com um produto externo k x k por amostra
+    private static RealMatrix[] calcularDispersaoCommonsMath(Map<String, List<RealVector>> projectedClasses, int k_pca_actual, int m) {
+        RealVector globalMean_pca = new ArrayRealVector(k_pca_actual);
+        Map<String, RealVector> classMeans_pca = new HashMap<>();
+
+        for (String label : projectedClasses.keySet()) {
+            RealVector classMean = new ArrayRealVector(k_pca_actual);
+            List<RealVector> vectors = projectedClasses.get(label);
+            for (RealVector v : vectors) {
+                classMean = classMean.add(v);
+                globalMean_pca = globalMean_pca.add(v);
+            }
+            classMeans_pca.put(label, classMean.mapDivide(vectors.size()));
+        }
+        globalMean_pca = globalMean_pca.mapDivide(m);
+
+        RealMatrix Sw = new Array2DRowRealMatrix(k_pca_actual, k_pca_actual);
+        for (String label : projectedClasses.keySet()) {
+            RealVector m_i = classMeans_pca.get(label);
+            for (RealVector x : projectedClasses.get(label)) {
+                RealVector diff = x.subtract(m_i);
+                Sw = Sw.add(diff.outerProduct(diff));
+            }
+        }
+
+        RealMatrix identity = MatrixUtils.createRealIdentityMatrix(k_pca_actual);
+        Sw = Sw.add(identity.scalarMultiply(FisherfacesModel.SW_REGULARIZATION)); // Regularização
+
+        RealMatrix Sb = new Array2DRowRealMatrix(k_pca_actual, k_pca_actual);
+        for (String label : projectedClasses.keySet()) {
+            int Ni = projectedClasses.get(label).size();
+            RealVector m_i = classMeans_pca.get(label);
+            RealVector diff = m_i.subtract(globalMean_pca);
+            Sb = Sb.add(diff.outerProduct(diff).scalarMultiply(Ni));
+        }
+        return new RealMatrix[]{Sw, Sb};
+    }
+}
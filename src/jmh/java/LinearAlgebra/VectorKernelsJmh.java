@@ -0,0 +1,146 @@
+package LinearAlgebra;
+
+import GalleryIndex.FlatGalleryIndex;
+import GalleryIndex.Neighbor;
+import GalleryIndex.Precision;
+import GalleryIndex.VectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Laços escalares x SIMD ({@link VectorKernels}) para vetores de tamanho {@code length}: produto escalar,
+ * distância ao quadrado nas três precisões da galeria e a projeção Wᵀx - Wᵀμ com {@code components} linhas.
+ * A varredura top-10 de uma galeria de {@code 20 * length} vetores usa o código real do índice; o caminho
+ * escalar é forçado com {@code -Dfisherfaces.simd=false} num fork separado.
+ * Fica no pacote LinearAlgebra para chamar as duas implementações diretamente.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class VectorKernelsJmh {
+
+    @Param({"49", "199", "10000"})
+    public int length;
+
+    @Param({"49"})
+    public int components;
+
+    private final VectorKernels.Impl scalar = VectorKernels.SCALAR;
+    private final VectorKernels.Impl simd = new SimdKernels();
+
+    private double[] a, b, scales, transposed, bias, out;
+    private float[] floats;
+    private byte[] bytes;
+    private FlatGalleryIndex flat;
+    private double[] query;
+
+    @Setup
+    public void generate() {
+        Random random = new Random(13L);
+        a = new double[length];
+        b = new double[length];
+        scales = new double[length];
+        floats = new float[length];
+        bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = random.nextGaussian() * 100.0;
+            b[i] = random.nextGaussian() * 100.0;
+            floats[i] = (float) b[i];
+            bytes[i] = (byte) (random.nextInt(255) - 127);
+            scales[i] = 0.5 + random.nextDouble();
+        }
+        transposed = new double[components * length];
+        for (int i = 0; i < transposed.length; i++) transposed[i] = random.nextGaussian();
+        bias = new double[components];
+        out = new double[components];
+
+        int n = 20 * length;
+        List<String> labels = new ArrayList<>(n);
+        double[] gallery = new double[n * components];
+        for (int i = 0; i < gallery.length; i++) gallery[i] = random.nextGaussian() * 100.0;
+        for (int i = 0; i < n; i++) labels.add("");
+        flat = new FlatGalleryIndex(VectorStore.of(gallery, n, components, Precision.DOUBLE), labels);
+        query = new double[components];
+        for (int i = 0; i < components; i++) query[i] = random.nextGaussian() * 100.0;
+    }
+
+    @Benchmark
+    public double dotScalar() {
+        return scalar.dot(a, 0, b, 0, length);
+    }
+
+    @Benchmark
+    public double dotSimd() {
+        return simd.dot(a, 0, b, 0, length);
+    }
+
+    @Benchmark
+    public double distanceScalar() {
+        return scalar.distanceSquared(a, 0, b, 0, length);
+    }
+
+    @Benchmark
+    public double distanceSimd() {
+        return simd.distanceSquared(a, 0, b, 0, length);
+    }
+
+    @Benchmark
+    public double distanceFloat32Scalar() {
+        return scalar.distanceSquared(a, floats, 0, length);
+    }
+
+    @Benchmark
+    public double distanceFloat32Simd() {
+        return simd.distanceSquared(a, floats, 0, length);
+    }
+
+    @Benchmark
+    public double distanceInt8Scalar() {
+        return scalar.distanceSquared(a, bytes, 0, scales, length);
+    }
+
+    @Benchmark
+    public double distanceInt8Simd() {
+        return simd.distanceSquared(a, bytes, 0, scales, length);
+    }
+
+    @Benchmark
+    public double[] projectScalar() {
+        for (int c = 0; c < components; c++) out[c] = scalar.dot(transposed, c * length, a, 0, length) - bias[c];
+        return out;
+    }
+
+    @Benchmark
+    public double[] projectSimd() {
+        for (int c = 0; c < components; c++) out[c] = simd.dot(transposed, c * length, a, 0, length) - bias[c];
+        return out;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--enable-preview", "--add-modules=jdk.incubator.vector", "-Dfisherfaces.simd=false"})
+    public List<Neighbor> scanTop10Scalar() {
+        return flat.search(query, 10);
+    }
+
+    @Benchmark
+    public List<Neighbor> scanTop10Simd() {
+        return flat.search(query, 10);
+    }
+}
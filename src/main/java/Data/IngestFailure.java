@@ -0,0 +1,17 @@
+package Data;
+
+import java.nio.file.Path;
+
+/**
+ * Descreve uma imagem da galeria que não pôde ser carregada.
+ */
+public record IngestFailure(
+    Path file,
+    String label,
+    String reason
+) {
+    @Override
+    public String toString() {
+        return String.format("[%s] %s: %s", label, file.getFileName(), reason);
+    }
+}
@@ -0,0 +1,31 @@
+package Data;
+
+import java.nio.file.Path;
+
+/**
+ * Imagem da galeria quase igual a outra já carregada: mesma foto reenviada, recomprimida ou da mesma rajada.
+ * Com indivíduos diferentes ({@link #crossLabel()}) é quase sempre um erro de cadastro.
+ *
+ * @param hashDistance   bits diferentes entre os hashes perceptuais
+ * @param meanDifference diferença média por pixel das miniaturas, em níveis de cinza
+ * @param removed        true se a imagem ficou fora do treino
+ */
+public record NearDuplicate(
+    Path file,
+    String label,
+    Path original,
+    String originalLabel,
+    int hashDistance,
+    double meanDifference,
+    boolean removed
+) {
+    public boolean crossLabel() {
+        return !label.equals(originalLabel);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %s ~ [%s] %s (%d bits, %.1f níveis)%s", label, file.getFileName(),
+                originalLabel, original.getFileName(), hashDistance, meanDifference, removed ? ", removida" : "");
+    }
+}
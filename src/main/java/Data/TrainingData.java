@@ -1,11 +1,24 @@
 package Data;
 
+import ImageProcessor.ImageProcessor;
+
 import java.util.List;
 
+/**
+ * Vetores de treino e os seus rótulos, com a resolução (largura x altura) em que as imagens foram
+ * pré-processadas; o modelo treinado herda essa resolução.
+ */
 public record TrainingData(
     List<double[]> vectors,
-    List<String> labels
+    List<String> labels,
+    int imageWidth,
+    int imageHeight
 ) {
+    /** Vetores na resolução padrão ({@link ImageProcessor#IMAGE_WIDTH} x {@link ImageProcessor#IMAGE_HEIGHT}). */
+    public TrainingData(List<double[]> vectors, List<String> labels) {
+        this(vectors, labels, ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+    }
+
     public int size() {
         return vectors.size();
     }
@@ -2,10 +2,12 @@ package FaceRecognizer;
 
 import Data.RecognitionResult;
 import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.Projection;
+import GalleryIndex.Neighbor;
 import ImageProcessor.ImageProcessor;
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
+import LinearAlgebra.DenseMatrix;
+import Metrics.Didactic;
+import Metrics.Metrics;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,13 +15,21 @@ import java.util.List;
 public class FaceRecognizer {
 
     private final FisherfacesModel model;
-    private double recognitionThreshold;
-
-    // Classe auxiliar interna para ranking
-    private record MatchCandidate(String label, double distance) {}
+    private final ImageProcessor processor;
+    private volatile double recognitionThreshold;
 
+    /**
+     * {@code processor} tem de produzir vetores na resolução do modelo (ver {@link FisherfacesModel#newImageProcessor()});
+     * com um modelo já treinado, uma resolução diferente é rejeitada aqui em vez de falhar na primeira projeção.
+     */
     public FaceRecognizer(FisherfacesModel model, ImageProcessor processor, double threshold) {
+        if (model.getEigenfaces() != null
+                && (processor.width() != model.getImageWidth() || processor.height() != model.getImageHeight())) {
+            throw new IllegalArgumentException(String.format("Processador em %s, modelo treinado em %dx%d.",
+                    processor.resolution(), model.getImageWidth(), model.getImageHeight()));
+        }
         this.model = model;
+        this.processor = processor;
         this.recognitionThreshold = threshold;
     }
 
@@ -31,61 +41,113 @@ public class FaceRecognizer {
         this.recognitionThreshold = value;
     }
 
+    public double getRecognitionThreshold() {
+        return recognitionThreshold;
+    }
+
+    /** Revisão do modelo ({@link FisherfacesModel#getRevision()}): muda a cada re-treino ou cadastro. */
+    public long getModelRevision() {
+        return model.getRevision();
+    }
+
     public RecognitionResult recognize(double[] inputVector, String fileName) {
-        if (model.getEigenfaces() == null || model.getMeanVector() == null) {
+        Projection projection = model.getProjection();
+        if (projection == null) {
             return new RecognitionResult(fileName, "Modelo não treinado", -1, false);
         }
+        return classify(projection.project(inputVector), fileName);
+    }
 
-        double[] coeffs = project(inputVector);
-
-        // Calcular todas as distâncias para criar um ranking
-        List<MatchCandidate> ranking = new ArrayList<>();
-        List<double[]> projections = model.getProjectedFaces();
-        List<String> labels = model.getLabels();
+    public List<RecognitionResult> recognizeBatch(List<double[]> inputVectors) {
+        List<String> names = new ArrayList<>(inputVectors.size());
+        for (int i = 0; i < inputVectors.size(); i++) names.add("amostra_" + i);
+        return recognizeBatch(inputVectors, names);
+    }
 
-        for (int i = 0; i < projections.size(); i++) {
-            double d = euclideanDistanceSquared(coeffs, projections.get(i));
-            ranking.add(new MatchCandidate(labels.get(i), d));
+    /**
+     * Reconhece um lote de imagens: todas são projetadas de uma vez com um único produto
+     * matriz-matriz sobre W_finalᵀ, em vez de uma projeção por imagem.
+     */
+    public List<RecognitionResult> recognizeBatch(List<double[]> inputVectors, List<String> fileNames) {
+        if (inputVectors.size() != fileNames.size()) {
+            throw new IllegalArgumentException("Número de vetores e de nomes de arquivo diferente.");
+        }
+        List<RecognitionResult> results = new ArrayList<>(inputVectors.size());
+        Projection projection = model.getProjection();
+        if (projection == null) {
+            for (String fileName : fileNames) results.add(new RecognitionResult(fileName, "Modelo não treinado", -1, false));
+            return results;
+        }
+        if (inputVectors.isEmpty()) return results;
+
+        DenseMatrix coeffs = projection.projectBatch(inputVectors);
+        int k = coeffs.cols();
+        for (int i = 0; i < inputVectors.size(); i++) {
+            double[] row = new double[k];
+            System.arraycopy(coeffs.data(), i * k, row, 0, k);
+            results.add(classify(row, fileNames.get(i)));
         }
+        return results;
+    }
+
+    /** Processador na resolução do modelo, para decodificar as imagens a reconhecer. */
+    public ImageProcessor getImageProcessor() {
+        return processor;
+    }
 
-        // Ordenar por menor distância
-        ranking.sort((c1, c2) -> Double.compare(c1.distance, c2.distance));
+    /** Projeção atual do modelo, ou {@code null} se ainda não foi treinado. */
+    public Projection getProjection() {
+        return model.getProjection();
+    }
+
+    /**
+     * Classifica coeficientes já projetados, sem a saída didática no console.
+     * Usado pelo pipeline de verificação, em que várias threads classificam ao mesmo tempo.
+     */
+    public RecognitionResult recognizeProjected(double[] coeffs, String fileName) {
+        Neighbor best = search(coeffs, 1).getFirst();
+        return result(best, fileName);
+    }
+
+    private List<Neighbor> search(double[] coeffs, int k) {
+        long start = System.nanoTime();
+        List<Neighbor> ranking = model.getGalleryIndex().search(coeffs, k);
+        Metrics.SEARCH.recordSince(start);
+        return ranking;
+    }
+
+    private RecognitionResult result(Neighbor best, String fileName) {
+        boolean isMatch = best.distance() < recognitionThreshold;
+        Metrics.RECOGNITIONS.increment();
+        if (isMatch) Metrics.MATCHES.increment();
+        return new RecognitionResult(fileName, isMatch ? best.label() : "Desconhecido", best.distance(), isMatch);
+    }
+
+    private RecognitionResult classify(double[] coeffs, String fileName) {
+        if (!Didactic.enabled()) return recognizeProjected(coeffs, fileName);
+
+        // Os 3 mais próximos vêm do índice da galeria (busca exata ou aproximada), sem ordenar a galeria inteira
+        List<Neighbor> ranking = search(coeffs, 3);
 
         // --- EXIBIÇÃO DIDÁTICA DO RANKING ---
         System.out.println("--------------------------------------------------");
         System.out.printf("Analisando imagem: %s%n", fileName);
         System.out.println("Ranking de Proximidade (Cálculo de Distância Euclidiana):");
-        for (int i = 0; i < Math.min(3, ranking.size()); i++) {
-            MatchCandidate c = ranking.get(i);
-            System.out.printf("  %dº. Candidato: %-15s | Distância: %.2f%n", (i+1), c.label, c.distance);
+        for (int i = 0; i < ranking.size(); i++) {
+            Neighbor c = ranking.get(i);
+            System.out.printf("  %dº. Candidato: %-15s | Distância: %.2f%n", (i+1), c.label(), c.distance());
         }
 
-        MatchCandidate best = ranking.getFirst();
-        boolean isMatch = best.distance < recognitionThreshold;
+        Neighbor best = ranking.getFirst();
+        RecognitionResult result = result(best, fileName);
 
-        if (isMatch) {
+        if (result.isMatch()) {
             System.out.println("  -> CONCLUSÃO: Correspondência Confirmada!");
         } else {
             System.out.println("  -> CONCLUSÃO: Distância muito alta. Desconhecido.");
         }
         System.out.println("--------------------------------------------------");
 
-        return new RecognitionResult(fileName, isMatch ? best.label : "Desconhecido", best.distance, isMatch);
-    }
-
-    private double[] project(double[] inputVector) {
-        RealMatrix eigenfaces = model.getEigenfaces();
-        double[] mean = model.getMeanVector();
-        RealVector diff = new ArrayRealVector(inputVector).subtract(new ArrayRealVector(mean));
-        return eigenfaces.transpose().operate(diff).toArray();
-    }
-
-    private double euclideanDistanceSquared(double[] v1, double[] v2) {
-        double sum = 0.0;
-        for (int i = 0; i < v1.length; i++) {
-            double d = v1[i] - v2[i];
-            sum += d * d;
-        }
-        return sum;
+        return result;
     }
 }
\ No newline at end of file
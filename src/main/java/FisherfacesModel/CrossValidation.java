@@ -0,0 +1,452 @@
+package FisherfacesModel;
+
+import Data.TrainingData;
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+import LinearAlgebra.SymmetricEigen;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Validação cruzada (k partes estratificadas ou deixa-um-de-fora) e varredura de parâmetros do treino
+ * (componentes do PCA e regularização de Sw) sem re-treinar um {@link FisherfacesModel} por combinação.
+ *
+ * O trabalho é partilhado em três níveis:
+ *
+ * 1. A matriz de Gram G = AᵀA (m x m) de todas as imagens é calculada uma única vez em {@link #prepare}; é o
+ *    único passo com custo proporcional ao número de pixels. O PCA de cada parte sai da submatriz das
+ *    imagens de treino, centralizada de novo na média delas (G' = H·G·H, sem tocar nos pixels), e as
+ *    coordenadas das imagens de teste saem das colunas cruzadas de G.
+ * 2. Por parte, uma decomposição de G' serve todos os números de componentes (as coordenadas com k
+ *    componentes são o prefixo das com k_max), e Sw e Sb são montadas uma vez com k_max: as de k
+ *    componentes são o bloco k x k do canto, e cada regularização só muda a diagonal.
+ * 3. Por combinação, as distâncias de cada imagem de teste ao indivíduo mais próximo de cada classe
+ *    ficam guardadas ({@link Outcome}); qualquer limiar é avaliado sobre elas, sem novas projeções.
+ *
+ * As partes rodam em paralelo. Com o solver exato e a mesma regularização, cada parte dá as mesmas
+ * distâncias que treinar o modelo só com as imagens de treino da parte (ver {@code Services.ParameterSweep}).
+ *
+ * Cada parte decompõe a sua G' do zero, O(n³) para n imagens de treino: com k partes são k decomposições,
+ * mas o deixa-um-de-fora faz m decomposições de (m-1) x (m-1), O(m⁴) no total, e só serve para galerias
+ * pequenas (algumas centenas de imagens).
+ */
+public final class CrossValidation {
+
+    /** Uma combinação avaliada: componentes do PCA ({@code <= 0}: m - C, como no treino) e regularização de Sw. */
+    public record Setting(int components, double regularization) {}
+
+    /** Todas as combinações de {@code components} x {@code regularizations}. */
+    public static List<Setting> grid(int[] components, double[] regularizations) {
+        List<Setting> settings = new ArrayList<>(components.length * regularizations.length);
+        for (int k : components) {
+            for (double r : regularizations) settings.add(new Setting(k, r));
+        }
+        return settings;
+    }
+
+    private final DenseMatrix gram; // AᵀA, com A centralizada na média de todas as imagens
+    private final int[] classOf;
+    private final List<String> classes;
+
+    private CrossValidation(DenseMatrix gram, int[] classOf, List<String> classes) {
+        this.gram = gram;
+        this.classOf = classOf;
+        this.classes = classes;
+    }
+
+    /** Calcula a matriz de Gram das imagens de {@code data}; as imagens em si não ficam guardadas. */
+    public static CrossValidation prepare(TrainingData data) {
+        int m = data.size();
+        if (m == 0) throw new IllegalArgumentException("Nenhuma imagem de treinamento.");
+        List<double[]> vectors = data.vectors();
+        int dim = vectors.getFirst().length;
+        double[] mean = new double[dim];
+        for (double[] v : vectors) {
+            if (v.length != dim) throw new IllegalArgumentException("Vetor com dimensão " + v.length + ", esperado " + dim + ".");
+            for (int i = 0; i < dim; i++) mean[i] += v[i];
+        }
+        for (int i = 0; i < dim; i++) mean[i] /= m;
+
+        // Mesma montagem do treino: A centralizada (dim x m), contígua e linha a linha
+        DenseMatrix a = new DenseMatrix(dim, m);
+        double[] ad = a.data();
+        DenseKernels.parallelFor(0, dim, 256, (from, to) -> {
+            for (int j = 0; j < m; j++) {
+                double[] v = vectors.get(j);
+                for (int i = from; i < to; i++) ad[i * m + j] = v[i] - mean[i];
+            }
+        });
+
+        Map<String, Integer> index = new LinkedHashMap<>();
+        int[] classOf = new int[m];
+        for (int j = 0; j < m; j++) classOf[j] = index.computeIfAbsent(data.labels().get(j), l -> index.size());
+        return new CrossValidation(DenseKernels.gram(a), classOf, List.copyOf(index.keySet()));
+    }
+
+    public int size() {
+        return classOf.length;
+    }
+
+    public List<String> classes() {
+        return classes;
+    }
+
+    /**
+     * Avalia todas as combinações com {@code folds} partes estratificadas por indivíduo (embaralhadas com
+     * {@code seed}); {@code folds <= 0} ou {@code >= m} é deixa-um-de-fora.
+     *
+     * @throws IllegalArgumentException se o treino de alguma parte tiver menos de 2 indivíduos
+     */
+    public Report run(int folds, List<Setting> settings, long seed) {
+        if (settings.isEmpty()) throw new IllegalArgumentException("Nenhuma combinação de parâmetros.");
+        int m = size();
+        boolean leaveOneOut = folds <= 0 || folds >= m;
+        int count = leaveOneOut ? m : folds;
+        int[] foldOf = leaveOneOut ? identity(m) : stratify(count, seed);
+
+        double[][][] distances = new double[settings.size()][m][];
+        int[][] components = new int[count][];
+        DenseKernels.parallelFor(0, count, 1, (from, to) -> {
+            for (int f = from; f < to; f++) components[f] = evaluateFold(f, foldOf, settings, distances);
+        });
+
+        List<Outcome> outcomes = new ArrayList<>(settings.size());
+        for (int s = 0; s < settings.size(); s++) {
+            int min = Integer.MAX_VALUE, max = 0;
+            for (int[] used : components) {
+                if (used == null) continue;
+                min = Math.min(min, used[s]);
+                max = Math.max(max, used[s]);
+            }
+            outcomes.add(new Outcome(settings.get(s), min, max, distances[s], classOf, classes));
+        }
+        return new Report(count, leaveOneOut, foldOf, outcomes);
+    }
+
+    /** Resultado de {@link #run}: a parte de cada imagem e um {@link Outcome} por combinação, na ordem pedida. */
+    public record Report(int folds, boolean leaveOneOut, int[] foldOf, List<Outcome> outcomes) {
+
+        /** Combinação de maior acurácia do vizinho mais próximo (a primeira, em caso de empate). */
+        public Outcome best() {
+            Outcome best = outcomes.getFirst();
+            for (Outcome o : outcomes) {
+                if (o.rank1Accuracy() > best.rank1Accuracy()) best = o;
+            }
+            return best;
+        }
+    }
+
+    // Amostras de cada indivíduo embaralhadas e distribuídas em rodízio, continuando de onde o anterior parou
+    private int[] stratify(int folds, long seed) {
+        Random random = new Random(seed);
+        List<List<Integer>> members = new ArrayList<>();
+        for (int c = 0; c < classes.size(); c++) members.add(new ArrayList<>());
+        for (int j = 0; j < classOf.length; j++) members.get(classOf[j]).add(j);
+        int[] foldOf = new int[classOf.length];
+        int next = 0;
+        for (List<Integer> list : members) {
+            Collections.shuffle(list, random);
+            for (int j : list) foldOf[j] = next++ % folds;
+        }
+        return foldOf;
+    }
+
+    private static int[] identity(int m) {
+        int[] a = new int[m];
+        for (int i = 0; i < m; i++) a[i] = i;
+        return a;
+    }
+
+    // Treina a parte f a partir de G e grava as distâncias das suas imagens de teste; devolve os componentes usados
+    private int[] evaluateFold(int f, int[] foldOf, List<Setting> settings, double[][][] distances) {
+        int m = size();
+        int[] train = new int[m], test = new int[m];
+        int n = 0, s = 0;
+        for (int j = 0; j < m; j++) {
+            if (foldOf[j] == f) test[s++] = j;
+            else train[n++] = j;
+        }
+        train = Arrays.copyOf(train, n);
+        test = Arrays.copyOf(test, s);
+
+        // Indivíduos do treino, na ordem de chegada (como no treino do modelo)
+        Map<String, List<RealVector>> projectedClasses = new LinkedHashMap<>();
+        Map<Integer, String> present = new HashMap<>();
+        for (int t : train) present.putIfAbsent(classOf[t], classes.get(classOf[t]));
+        int classCount = present.size();
+        if (classCount < 2) {
+            throw new IllegalArgumentException("A parte " + (f + 1) + " tem menos de 2 indivíduos no treino.");
+        }
+
+        // Médias das linhas de G restritas ao treino: (xᵢ - μ')ᵀ(xⱼ - μ') = Gᵢⱼ - rᵢ - rⱼ + r̄
+        double[] g = gram.data();
+        double[] r = new double[m];
+        for (int[] group : new int[][]{train, test}) {
+            for (int i : group) {
+                double sum = 0.0;
+                for (int t : train) sum += g[i * m + t];
+                r[i] = sum / n;
+            }
+        }
+        double rMean = 0.0;
+        for (int t : train) rMean += r[t];
+        rMean /= n;
+
+        DenseMatrix centered = new DenseMatrix(n, n);
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < n; b++) centered.set(a, b, g[train[a] * m + train[b]] - r[train[a]] - r[train[b]] + rMean);
+        }
+        SymmetricEigen.Result ed = SymmetricEigen.decompose(centered);
+        double[] ev = ed.eigenvalues();
+        int kMax = 0;
+        while (kMax < n - classCount && ev[kMax] > 1e-10) kMax++;
+        if (kMax == 0) throw new IllegalArgumentException("A parte " + (f + 1) + " não tem variância no treino.");
+
+        // Coordenadas PCA: treino √λ·vᵀ (como no treino em disco) e teste vᵀ·(colunas cruzadas de G')/√λ
+        DenseMatrix v = new DenseMatrix(n, kMax);
+        for (int a = 0; a < n; a++) {
+            for (int c = 0; c < kMax; c++) v.set(a, c, ed.eigenvectors().get(a, c));
+        }
+        DenseMatrix cross = new DenseMatrix(n, s);
+        for (int a = 0; a < n; a++) {
+            for (int b = 0; b < s; b++) cross.set(a, b, g[train[a] * m + test[b]] - r[train[a]] - r[test[b]] + rMean);
+        }
+        DenseMatrix testCoords = DenseKernels.transposeMultiply(v, cross); // kMax x s
+        DenseMatrix trainCoords = new DenseMatrix(kMax, n);
+        for (int c = 0; c < kMax; c++) {
+            double root = Math.sqrt(ev[c]);
+            for (int b = 0; b < s; b++) testCoords.set(c, b, testCoords.get(c, b) / root);
+            for (int a = 0; a < n; a++) trainCoords.set(c, a, v.get(a, c) * root);
+        }
+
+        // Sw (sem regularização) e o fator de Sb com kMax componentes; as menores são blocos destes
+        for (int a = 0; a < n; a++) {
+            projectedClasses.computeIfAbsent(present.get(classOf[train[a]]), l -> new ArrayList<>())
+                    .add(new ArrayRealVector(trainCoords.getColumn(a), false));
+        }
+        FisherfacesModel.Scatter full = FisherfacesModel.calcularDispersao(projectedClasses, kMax, n, 0.0);
+
+        int[] used = new int[settings.size()];
+        for (int si = 0; si < settings.size(); si++) {
+            Setting setting = settings.get(si);
+            int k = setting.components() > 0 ? Math.min(setting.components(), kMax) : kMax;
+            used[si] = k;
+            DenseMatrix w = DenseMatrix.of(FisherfacesModel.direcoesDiscriminantes(
+                    block(full, k, setting.regularization()), Math.min(classCount - 1, k)));
+            DenseMatrix galleryFinal = DenseKernels.transposeMultiply(w, prefix(trainCoords, k)); // d x n
+            DenseMatrix probesFinal = DenseKernels.transposeMultiply(w, prefix(testCoords, k));   // d x s
+            nearestPerClass(galleryFinal, probesFinal, train, test, distances[si]);
+        }
+        return used;
+    }
+
+    // Bloco k x k de Sw com a regularização na diagonal e as k primeiras colunas do fator de Sb
+    private static FisherfacesModel.Scatter block(FisherfacesModel.Scatter full, int k, double regularization) {
+        DenseMatrix within = new DenseMatrix(k, k);
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) within.set(i, j, full.within().get(i, j));
+            within.set(i, i, within.get(i, i) + regularization);
+        }
+        DenseMatrix factor = full.betweenFactor();
+        DenseMatrix between = new DenseMatrix(factor.rows(), k);
+        for (int i = 0; i < factor.rows(); i++) System.arraycopy(factor.data(), i * factor.cols(), between.data(), i * k, k);
+        return new FisherfacesModel.Scatter(within, between);
+    }
+
+    // As k primeiras linhas (componentes) de uma matriz linha a linha
+    private static DenseMatrix prefix(DenseMatrix coords, int k) {
+        return new DenseMatrix(k, coords.cols(), Arrays.copyOf(coords.data(), k * coords.cols()));
+    }
+
+    // Para cada imagem de teste, o quadrado da distância à face de treino mais próxima de cada indivíduo
+    private void nearestPerClass(DenseMatrix gallery, DenseMatrix probes, int[] train, int[] test, double[][] out) {
+        int d = gallery.rows(), n = gallery.cols(), s = probes.cols();
+        double[] gd = gallery.data(), pd = probes.data();
+        for (int b = 0; b < s; b++) {
+            double[] mins = new double[classes.size()];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            for (int a = 0; a < n; a++) {
+                double dist = 0.0;
+                for (int c = 0; c < d; c++) {
+                    double diff = gd[c * n + a] - pd[c * s + b];
+                    dist += diff * diff;
+                }
+                int cls = classOf[train[a]];
+                if (dist < mins[cls]) mins[cls] = dist;
+            }
+            out[test[b]] = mins;
+        }
+    }
+
+    /**
+     * Distâncias guardadas de uma combinação e as métricas que saem delas. "Genuína" é a distância de uma
+     * imagem de teste ao seu próprio indivíduo e "impostora" a cada um dos outros. Imagens cujo indivíduo
+     * não ficou no treino da parte (ex.: com uma única foto no deixa-um-de-fora) são desconhecidas: só têm
+     * distâncias impostoras e a resposta certa para elas é rejeitar.
+     */
+    public static final class Outcome {
+
+        private final Setting setting;
+        private final int minComponents;
+        private final int maxComponents;
+        private final List<String> classes;
+        private final int[] nearestClass;
+        private final double[] nearest;
+        private final boolean[] known;
+        private final boolean[] correct;
+        private final double[] genuine;   // ordenadas
+        private final double[] impostor;  // ordenadas
+        private final double[] sortedNearest;
+        private final int[] acceptedCorrect; // prefixos sobre sortedNearest
+        private final int[] acceptedUnknown;
+        private final int unknownCount;
+
+        Outcome(Setting setting, int minComponents, int maxComponents, double[][] distances, int[] classOf, List<String> classes) {
+            this.setting = setting;
+            this.minComponents = minComponents;
+            this.maxComponents = maxComponents;
+            this.classes = classes;
+            int m = distances.length;
+            this.nearestClass = new int[m];
+            this.nearest = new double[m];
+            this.known = new boolean[m];
+            this.correct = new boolean[m];
+            double[] genuine = new double[m];
+            double[] impostor = new double[m * Math.max(0, classes.size() - 1)];
+            int g = 0, im = 0, unknown = 0;
+            for (int j = 0; j < m; j++) {
+                double[] mins = distances[j];
+                int best = 0;
+                for (int c = 0; c < mins.length; c++) {
+                    if (mins[c] < mins[best]) best = c;
+                    if (c != classOf[j] && mins[c] != Double.POSITIVE_INFINITY) impostor[im++] = mins[c];
+                }
+                nearestClass[j] = best;
+                nearest[j] = mins[best];
+                known[j] = mins[classOf[j]] != Double.POSITIVE_INFINITY;
+                correct[j] = known[j] && best == classOf[j];
+                if (known[j]) genuine[g++] = mins[classOf[j]];
+                else unknown++;
+            }
+            this.genuine = Arrays.copyOf(genuine, g);
+            this.impostor = Arrays.copyOf(impostor, im);
+            Arrays.sort(this.genuine);
+            Arrays.sort(this.impostor);
+            this.unknownCount = unknown;
+
+            Integer[] order = new Integer[m];
+            for (int j = 0; j < m; j++) order[j] = j;
+            Arrays.sort(order, (a, b) -> Double.compare(nearest[a], nearest[b]));
+            this.sortedNearest = new double[m];
+            this.acceptedCorrect = new int[m + 1];
+            this.acceptedUnknown = new int[m + 1];
+            for (int i = 0; i < m; i++) {
+                int j = order[i];
+                sortedNearest[i] = nearest[j];
+                acceptedCorrect[i + 1] = acceptedCorrect[i] + (correct[j] ? 1 : 0);
+                acceptedUnknown[i + 1] = acceptedUnknown[i] + (known[j] ? 0 : 1);
+            }
+        }
+
+        public Setting setting() { return setting; }
+
+        /** Componentes do PCA efetivamente usados (o pedido é limitado a m - C de cada parte). */
+        public int minComponents() { return minComponents; }
+        public int maxComponents() { return maxComponents; }
+
+        /** Indivíduo mais próximo da imagem {@code sample} quando ela ficou no teste. */
+        public String nearestLabel(int sample) { return classes.get(nearestClass[sample]); }
+
+        /** Quadrado da distância ao indivíduo mais próximo, na mesma escala do limiar do {@code FaceRecognizer}. */
+        public double nearestDistance(int sample) { return nearest[sample]; }
+
+        /** Fração das imagens de indivíduos conhecidos cujo vizinho mais próximo é o próprio indivíduo (sem limiar). */
+        public double rank1Accuracy() {
+            int knownCount = genuine.length, hits = 0;
+            for (boolean c : correct) if (c) hits++;
+            return knownCount == 0 ? 0.0 : (double) hits / knownCount;
+        }
+
+        /**
+         * Um ponto da curva ROC e da tabela de identificação, para reconhecer quando a distância é menor que
+         * {@code threshold}: TAR e FAR sobre as distâncias genuínas e impostoras e, sobre o vizinho mais próximo
+         * de cada imagem, as frações aceitas com o indivíduo certo, aceitas com outro e rejeitadas.
+         */
+        public Point at(double threshold) {
+            int m = nearest.length;
+            int accepted = lowerBound(sortedNearest, threshold);
+            double tar = genuine.length == 0 ? 0.0 : (double) lowerBound(genuine, threshold) / genuine.length;
+            double far = impostor.length == 0 ? 0.0 : (double) lowerBound(impostor, threshold) / impostor.length;
+            int right = acceptedCorrect[accepted];
+            int rejectedUnknown = unknownCount - acceptedUnknown[accepted];
+            return new Point(threshold, tar, far, (double) right / m, (double) (accepted - right) / m,
+                    (double) (m - accepted) / m, (double) (right + rejectedUnknown) / m);
+        }
+
+        /** Limiar em que a taxa de falsa rejeição (1 - TAR) e a FAR ficam mais próximas. */
+        public Point equalErrorRate() {
+            Point best = at(0.0);
+            double gap = Double.MAX_VALUE;
+            double[][] candidates = {genuine, impostor};
+            for (double[] scores : candidates) {
+                for (double score : scores) {
+                    Point p = at(Math.nextUp(score));
+                    double diff = Math.abs((1.0 - p.trueAcceptRate()) - p.falseAcceptRate());
+                    if (diff < gap) {
+                        gap = diff;
+                        best = p;
+                    }
+                }
+            }
+            return best;
+        }
+
+        /** Limiar com a maior fração de decisões certas (indivíduo certo aceito, desconhecido rejeitado). */
+        public Point bestThreshold() {
+            int m = sortedNearest.length;
+            int bestAccepted = 0;
+            int bestHits = unknownCount;
+            for (int i = 1; i <= m; i++) {
+                if (i < m && sortedNearest[i] == sortedNearest[i - 1]) continue; // empates: aceitos juntos
+                int hits = acceptedCorrect[i] + unknownCount - acceptedUnknown[i];
+                if (hits > bestHits) {
+                    bestHits = hits;
+                    bestAccepted = i;
+                }
+            }
+            double threshold = bestAccepted == 0 ? (m == 0 ? 0.0 : sortedNearest[0]) : Math.nextUp(sortedNearest[bestAccepted - 1]);
+            return at(threshold);
+        }
+
+        // Quantos valores de sorted são menores que x
+        private static int lowerBound(double[] sorted, double x) {
+            int lo = 0, hi = sorted.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sorted[mid] < x) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * @param trueAcceptRate  fração das distâncias genuínas abaixo do limiar
+     * @param falseAcceptRate fração das distâncias impostoras abaixo do limiar
+     * @param correctRate     imagens aceitas com o indivíduo certo
+     * @param wrongRate       imagens aceitas com outro indivíduo (ou de um desconhecido)
+     * @param rejectRate      imagens rejeitadas ("Desconhecido")
+     * @param accuracy        decisões certas: {@code correctRate} mais os desconhecidos rejeitados
+     */
+    public record Point(double threshold, double trueAcceptRate, double falseAcceptRate,
+                        double correctRate, double wrongRate, double rejectRate, double accuracy) {}
+}
@@ -1,77 +1,171 @@
 package FisherfacesModel;
 
 import Data.TrainingData;
+import GalleryIndex.GalleryIndex;
+import GalleryIndex.Precision;
+import GalleryIndex.VectorStore;
+import ImageProcessor.ImageProcessor;
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+import LinearAlgebra.RandomizedPca;
+import LinearAlgebra.SymmetricEigen;
+import LinearAlgebra.SymmetricGeneralizedEigen;
+import Metrics.Didactic;
+import Metrics.Metrics;
 import org.apache.commons.math3.linear.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
 
 public class FisherfacesModel {
 
     private RealMatrix eigenfaces; // W_final
     private RealVector meanFace;
-    private final List<double[]> projectedFaces;
+    private VectorStore projectedFaces; // uma linha por face, na precisão de galleryPrecision
     private final List<String> labels;
+    private Precision galleryPrecision = Precision.DOUBLE;
 
-    private RealMatrix w_pca;
+    // Resolução das imagens do treino: os vetores a reconhecer têm de vir do mesmo pré-processamento
+    private int imageWidth = ImageProcessor.IMAGE_WIDTH;
+    private int imageHeight = ImageProcessor.IMAGE_HEIGHT;
+
+    private DenseMatrix w_pca;
     private RealMatrix w_lda;
 
+    // Estado do PCA guardado após o treino para permitir enroll/unenroll sem re-treinar
+    private double[] pcaEigenvalues;                       // σ² dos dados centralizados em cada coluna de w_pca
+    private Map<String, List<RealVector>> pcaCoordinates;  // coordenadas PCA de cada amostra, por indivíduo
+    private int pcaComponentLimit;
+    private double swRegularization = SW_REGULARIZATION;
+    // Estado do LDA no espaço PCA atual: Sw sem a regularização e a soma das coordenadas de cada indivíduo (Sb)
+    private DenseMatrix withinScatter;
+    private Map<String, double[]> classSums;
+
+    // W_finalᵀ contígua, preparada na primeira projeção e descartada quando o modelo muda
+    private volatile Projection projection;
+
+    // Índice de busca sobre projectedFaces, reconstruído sempre que a galeria muda
+    private GalleryIndex.Factory galleryIndexFactory = GalleryIndex.flat();
+    private volatile GalleryIndex galleryIndex;
+    private MatchingMode matchingMode = MatchingMode.PER_SAMPLE;
+    private int prototypesPerClass = 1;
+    // Incrementada a cada novo índice: treino, enroll/unenroll, troca de modo, de índice ou de precisão
+    private volatile long revision;
+
     public FisherfacesModel() {
-        this.projectedFaces = new ArrayList<>();
+        this.projectedFaces = VectorStore.of(List.of(), galleryPrecision);
         this.labels = new ArrayList<>();
     }
 
     public void train(TrainingData data) {
+        train(data, PcaOptions.exact());
+    }
+
+    /**
+     * Treina o modelo escolhendo o solver do PCA. O solver exato é o padrão; o aleatório
+     * calcula apenas as {@link PcaOptions#components()} primeiras componentes e é o indicado para galerias grandes.
+     */
+    public void train(TrainingData data, PcaOptions pcaOptions) {
         int m = data.size();
         if (m == 0) throw new IllegalArgumentException("Nenhuma imagem de treinamento.");
         int dim = data.vectors().getFirst().length;
+        definirResolucao(data.imageWidth(), data.imageHeight(), dim);
+        treinar(data.labels(), dim, pcaOptions, k_pca -> executarPCA(data.vectors(), data.labels(), dim, m, k_pca, pcaOptions));
+    }
+
+    /**
+     * Treina a partir de imagens num arquivo mapeado, com a média e AᵀA já acumuladas durante o carregamento
+     * (ver {@link MappedTrainingMatrix}). O PCA é sempre a decomposição de AᵀA, qualquer que seja
+     * {@link PcaOptions#solver()}; {@code components} e {@code varianceTarget} continuam a valer.
+     * A matriz fica selada: não aceita mais imagens nem serve para um segundo treino.
+     *
+     * A base PCA (dim x k, com k até m - C) nunca é montada: W_final = A·(V·Λ^-½·W_lda) sai direto da
+     * releitura do arquivo, com dim x (C - 1). Por isso o modelo resultante não aceita {@link #enroll}/{@link #unenroll}.
+     */
+    public void train(MappedTrainingMatrix data, PcaOptions pcaOptions) throws IOException {
+        if (data.size() == 0) throw new IllegalArgumentException("Nenhuma imagem de treinamento.");
+        data.seal();
+        definirResolucao(data.imageWidth(), data.imageHeight(), data.dim());
+        treinar(data.labels(), data.dim(), pcaOptions, k_pca -> executarPCAEmDisco(data, k_pca, pcaOptions));
+    }
+
+    private void definirResolucao(int width, int height, int dim) {
+        if ((long) width * height != dim) {
+            throw new IllegalArgumentException(String.format("Vetores com %d pixels, mas a resolução %dx%d tem %d.",
+                    dim, width, height, width * height));
+        }
+        this.imageWidth = width;
+        this.imageHeight = height;
+    }
 
-        System.out.println("\n=== INÍCIO DO TREINAMENTO MATEMÁTICO ===");
-        System.out.printf("Dados de Entrada: %d imagens com %d pixels (dimensões) cada.%n", m, dim);
+    // Resultado do PCA: coordenadas das amostras por indivíduo e como montar W_final a partir de W_lda
+    private record PcaStep(Map<String, List<RealVector>> coordinates, UnaryOperator<RealMatrix> finalBasis) {}
 
-        Map<String, List<double[]>> classes = agruparPorClasse(data.vectors(), data.labels());
-        int C = classes.size();
+    // Passos comuns aos dois treinos; o PCA recebe o número máximo de componentes
+    private void treinar(List<String> faceLabels, int dim, PcaOptions pcaOptions, IntFunction<PcaStep> pcaSolver) {
+        int m = faceLabels.size();
+        long trainStart = System.nanoTime();
+
+        Didactic.println("\n=== INÍCIO DO TREINAMENTO MATEMÁTICO ===");
+        Didactic.printf("Dados de Entrada: %d imagens com %d pixels (dimensões) cada.%n", m, dim);
+
+        int C = new HashSet<>(faceLabels).size();
         if (C <= 1) throw new IllegalArgumentException("O treinamento LDA requer pelo menos 2 classes (indivíduos).");
 
         // --- PASSO 1: PCA (Principal Component Analysis) ---
         // Objetivo: Reduzir ruído e dimensionalidade bruta
-        int k_pca = m - C;
-        System.out.println("\n--- PASSO 1: PCA (Análise de Componentes Principais) ---");
-        System.out.println("Objetivo: Encontrar as direções de maior variação global nos rostos.");
+        int k_pca = pcaOptions.components() > 0 ? Math.min(pcaOptions.components(), m - C) : m - C;
+        Didactic.println("\n--- PASSO 1: PCA (Análise de Componentes Principais) ---");
+        Didactic.println("Objetivo: Encontrar as direções de maior variação global nos rostos.");
 
-        Map<String, List<RealVector>> projectedClasses = executarPCA(data.vectors(), classes, dim, m, k_pca);
+        long pcaStart = System.nanoTime();
+        PcaStep pca = pcaSolver.apply(k_pca);
+        Metrics.TRAIN_PCA.recordSince(pcaStart);
 
-        if (this.w_pca == null) throw new RuntimeException("PCA falhou.");
-        int k_pca_actual = this.w_pca.getColumnDimension();
-        System.out.printf("Resultado PCA: Reduzido de %d dimensões para %d características principais.%n", dim, k_pca_actual);
+        if (pca == null) throw new RuntimeException("PCA falhou.");
+        Map<String, List<RealVector>> projectedClasses = pca.coordinates();
+        this.pcaCoordinates = projectedClasses;
+        this.pcaComponentLimit = pcaOptions.components() > 0 ? pcaOptions.components() : Integer.MAX_VALUE;
+        int k_pca_actual = this.pcaEigenvalues.length;
+        Didactic.printf("Resultado PCA: Reduzido de %d dimensões para %d características principais.%n", dim, k_pca_actual);
 
         // --- PASSO 2: LDA (Linear Discriminant Analysis) ---
         // Objetivo: Classificação (Separar classes)
         int k_lda = C - 1;
-        System.out.println("\n--- PASSO 2: LDA (Análise Discriminante Linear) ---");
-        System.out.println("Objetivo: Maximizar distância entre pessoas diferentes e minimizar variação da mesma pessoa.");
-
-        executarLDA(projectedClasses, k_pca_actual, k_lda, m);
+        Didactic.println("\n--- PASSO 2: LDA (Análise Discriminante Linear) ---");
+        Didactic.println("Objetivo: Maximizar distância entre pessoas diferentes e minimizar variação da mesma pessoa.");
+
+        long ldaStart = System.nanoTime();
+        iniciarDispersao(projectedClasses, k_pca_actual, m);
+        executarLDA(k_lda);
+        if (this.w_pca == null) { // treino em disco: sem cadastro incremental, não vale a pena guardar Sw
+            this.withinScatter = null;
+            this.classSums = null;
+        }
+        Metrics.TRAIN_LDA.recordSince(ldaStart);
 
         // --- PASSO 3: Finalização ---
-        this.eigenfaces = this.w_pca.multiply(this.w_lda);
-        projetarDadosFinais(projectedClasses);
-        System.out.println("\n=== TREINAMENTO CONCLUÍDO ===");
-        System.out.printf("Dimensão Final do Espaço de Faces: %d (suficiente para distinguir %d pessoas)%n",
+        finalizarEspacoDeFaces(pca.finalBasis().apply(this.w_lda));
+        Metrics.TRAIN.recordSince(trainStart);
+        Didactic.println("\n=== TREINAMENTO CONCLUÍDO ===");
+        Didactic.printf("Dimensão Final do Espaço de Faces: %d (suficiente para distinguir %d pessoas)%n",
                 this.eigenfaces.getColumnDimension(), C);
     }
 
-    private Map<String, List<double[]>> agruparPorClasse(List<double[]> trainingVectors, List<String> faceLabels) {
-        Map<String, List<double[]>> classes = new HashMap<>();
-        for (int i = 0; i < trainingVectors.size(); i++) {
-            classes.computeIfAbsent(faceLabels.get(i), k -> new ArrayList<>()).add(trainingVectors.get(i));
-        }
-        return classes;
-    }
+    // Direções principais (colunas de basis) e os autovalores de AᵀA correspondentes, em ordem decrescente
+    private record PcaBasis(DenseMatrix basis, double[] eigenvalues) {}
 
-    private Map<String, List<RealVector>> executarPCA(List<double[]> trainingVectors, Map<String, List<double[]>> classes, int dim, int m, int k_pca) {
+    private PcaStep executarPCA(List<double[]> trainingVectors, List<String> faceLabels, int dim, int m,
+                                                      int k_pca, PcaOptions options) {
         // 1.1. Calcular média global
         double[] mean = new double[dim];
         for (double[] v : trainingVectors) {
@@ -80,101 +174,254 @@ public class FisherfacesModel {
         for (int i = 0; i < dim; i++) mean[i] /= m;
         this.meanFace = new ArrayRealVector(mean);
 
-        // 1.2. Montar Matriz A centralizada
-        RealMatrix A = new Array2DRowRealMatrix(dim, m);
-        for (int j = 0; j < m; j++) {
-            double[] v = trainingVectors.get(j);
-            for (int i = 0; i < dim; i++) {
-                A.setEntry(i, j, v[i] - mean[i]);
+        // 1.2. Montar Matriz A centralizada (dim x m), contígua e linha a linha
+        DenseMatrix A = new DenseMatrix(dim, m);
+        double[] a = A.data();
+        DenseKernels.parallelFor(0, dim, 256, (from, to) -> {
+            for (int j = 0; j < m; j++) {
+                double[] v = trainingVectors.get(j);
+                for (int i = from; i < to; i++) a[i * m + j] = v[i] - mean[i];
             }
+        });
+
+        // Variância total = traço de AᵀA = ||A||², usada pelo critério de variância explicada
+        double totalVariance = 0.0;
+        for (double x : a) totalVariance += x * x;
+
+        long start = System.nanoTime();
+        PcaBasis pca = switch (options.solver()) {
+            case EXACT -> resolverPcaExato(A, k_pca, options.varianceTarget(), totalVariance);
+            case RANDOMIZED -> resolverPcaAleatorio(A, k_pca, options, totalVariance);
+        };
+        mostrarAutovalores(pca.eigenvalues(), options.solver().toString(), totalVariance, start);
+
+        if (pca.basis().cols() == 0) return null;
+        this.w_pca = pca.basis();
+        this.pcaEigenvalues = pca.eigenvalues();
+
+        // Projeção de todas as amostras de uma vez: W_pcaᵀ·A (k x m)
+        return new PcaStep(agruparCoordenadas(DenseKernels.transposeMultiply(this.w_pca, A), faceLabels),
+                w_lda -> DenseKernels.multiply(this.w_pca, DenseMatrix.of(w_lda)).toRealMatrix());
+    }
+
+    /**
+     * PCA sobre a {@link MappedTrainingMatrix}: AᵀA já foi acumulada no carregamento, só falta centralizá-la
+     * e decompô-la. Com AᵀA·v = λ·v, a eigenface é u = A·v/√λ e as coordenadas das amostras saem sem reler
+     * o arquivo: uᵀA = vᵀ(AᵀA)/√λ = √λ·vᵀ.
+     */
+    private PcaStep executarPCAEmDisco(MappedTrainingMatrix data, int k_pca, PcaOptions options) {
+        this.meanFace = new ArrayRealVector(data.mean(), false);
+        this.w_pca = null;
+        int m = data.size();
+
+        long start = System.nanoTime();
+        DenseMatrix gram = data.centeredGram();
+        double totalVariance = 0.0;
+        for (int i = 0; i < m; i++) totalVariance += gram.get(i, i);
+        SymmetricEigen.Result ed = SymmetricEigen.decompose(gram);
+        double[] ev_all = ed.eigenvalues();
+        int positive = 0;
+        while (positive < Math.min(k_pca, m) && ev_all[positive] > 1e-10) positive++;
+        double[] ev_pca = Arrays.copyOf(ev_all, componentesParaVariancia(Arrays.copyOf(ev_all, positive),
+                options.varianceTarget(), totalVariance));
+        mostrarAutovalores(ev_pca, "EXACT (em disco)", totalVariance, start);
+
+        int k = ev_pca.length;
+        if (k == 0) return null;
+        this.pcaEigenvalues = ev_pca;
+
+        // weights = V·Λ^-½ (m x k): W_pca = A·weights
+        DenseMatrix weights = new DenseMatrix(m, k);
+        DenseMatrix projected = new DenseMatrix(k, m);
+        for (int c = 0; c < k; c++) {
+            double root = Math.sqrt(ev_pca[c]);
+            for (int j = 0; j < m; j++) {
+                double v = ed.eigenvectors().get(j, c);
+                weights.set(j, c, v / root);
+                projected.set(c, j, v * root);
+            }
+        }
+        return new PcaStep(agruparCoordenadas(projected, data.labels()),
+                w_lda -> data.multiplyCentered(DenseKernels.multiply(weights, DenseMatrix.of(w_lda))).toRealMatrix());
+    }
+
+    // MOSTRAR AUTOVALORES (IMPORTÂNCIA DAS CARACTERÍSTICAS)
+    private void mostrarAutovalores(double[] ev_pca, String solver, double totalVariance, long startNanos) {
+        double elapsedMs = (System.nanoTime() - startNanos) / 1e6;
+        Didactic.printf("  [Didático] Top 5 Autovalores (Importância): ");
+        for(int i=0; i<Math.min(5, ev_pca.length); i++) Didactic.printf("%.2e; ", ev_pca[i]);
+        Didactic.println("...");
+
+        double explained = 0.0;
+        for (double ev : ev_pca) explained += ev;
+        Didactic.printf("  [Didático] Solver %s: %d componentes (%.1f%% da variância) em %.1f ms%n",
+                solver, ev_pca.length, totalVariance > 0 ? 100.0 * explained / totalVariance : 0.0, elapsedMs);
+    }
+
+    // Coluna j de projected (k x m) são as coordenadas PCA da amostra j, agrupadas por indivíduo na ordem de chegada
+    private Map<String, List<RealVector>> agruparCoordenadas(DenseMatrix projected, List<String> faceLabels) {
+        int m = faceLabels.size();
+        Map<String, List<RealVector>> projectedClasses = new LinkedHashMap<>();
+        for (int j = 0; j < m; j++) {
+            projectedClasses.computeIfAbsent(faceLabels.get(j), l -> new ArrayList<>())
+                    .add(new ArrayRealVector(projected.getColumn(j), false));
         }
+        return projectedClasses;
+    }
 
-        RealMatrix covariance = A.transpose().multiply(A);
+    // Decomposição completa de AᵀA (m x m); cada eigenface é reconstruída com A·v e normalizada
+    private PcaBasis resolverPcaExato(DenseMatrix A, int k_pca, double varianceTarget, double totalVariance) {
+        // AᵀA (m x m) pelo kernel em blocos, sem criar a transposta
+        RealMatrix covariance = DenseKernels.gram(A).toRealMatrix();
         EigenDecomposition ed_pca = new EigenDecomposition(covariance);
 
         double[] ev_pca = ed_pca.getRealEigenvalues();
 
-        // MOSTRAR AUTOVALORES (IMPORTÂNCIA DAS CARACTERÍSTICAS)
-        System.out.print("  [Didático] Top 5 Autovalores (Importância): ");
-        for(int i=0; i<Math.min(5, ev_pca.length); i++) System.out.printf("%.2e; ", ev_pca[i]);
-        System.out.println("...");
-
         List<Integer> idx = new ArrayList<>();
-        for (int i = 0; i < m; i++) idx.add(i);
+        for (int i = 0; i < ev_pca.length; i++) {
+            if (ev_pca[i] > 1e-10) idx.add(i);
+        }
         idx.sort((i, j) -> Double.compare(ev_pca[j], ev_pca[i]));
 
-        List<RealVector> pcaEigenvectors = new ArrayList<>();
-        for (int i : idx) {
-            if (ev_pca[i] > 1e-10) {
-                RealVector vSmall = ed_pca.getEigenvector(i);
-                RealVector u = A.operate(vSmall);
-                u = u.mapDivide(u.getNorm());
-                pcaEigenvectors.add(u);
-            }
+        double[] sorted = new double[Math.min(k_pca, idx.size())];
+        for (int c = 0; c < sorted.length; c++) sorted[c] = ev_pca[idx.get(c)];
+        int k = componentesParaVariancia(sorted, varianceTarget, totalVariance);
+
+        DenseMatrix basis = new DenseMatrix(A.rows(), k);
+        for (int c = 0; c < k; c++) {
+            double[] u = DenseKernels.operate(A, ed_pca.getEigenvector(idx.get(c)).toArray());
+            double norm = 0.0;
+            for (double x : u) norm += x * x;
+            norm = Math.sqrt(norm);
+            for (int d = 0; d < u.length; d++) u[d] /= norm;
+            basis.setColumn(c, u);
         }
+        return new PcaBasis(basis, Arrays.copyOf(sorted, k));
+    }
 
-        int k_pca_actual = Math.min(k_pca, pcaEigenvectors.size());
-        if (k_pca_actual == 0) return null;
+    // SVD truncado aleatório: só as k_pca primeiras componentes, sem a matriz m x m
+    private PcaBasis resolverPcaAleatorio(DenseMatrix A, int k_pca, PcaOptions options, double totalVariance) {
+        RandomizedPca.Result result = RandomizedPca.topComponents(A, k_pca, options.oversampling(),
+                options.powerIterations(), options.seed());
+        int k = componentesParaVariancia(result.eigenvalues(), options.varianceTarget(), totalVariance);
+
+        DenseMatrix basis = result.basis();
+        if (k < basis.cols()) {
+            DenseMatrix truncated = new DenseMatrix(basis.rows(), k);
+            for (int c = 0; c < k; c++) truncated.setColumn(c, basis.getColumn(c));
+            basis = truncated;
+        }
+        return new PcaBasis(basis, Arrays.copyOf(result.eigenvalues(), k));
+    }
 
-        this.w_pca = new Array2DRowRealMatrix(dim, k_pca_actual);
-        for (int c = 0; c < k_pca_actual; c++) {
-            this.w_pca.setColumnVector(c, pcaEigenvectors.get(c));
+    // Menor número de componentes cuja soma de autovalores atinge a fração pedida da variância total
+    private int componentesParaVariancia(double[] sortedEigenvalues, double target, double totalVariance) {
+        if (target <= 0 || totalVariance <= 0) return sortedEigenvalues.length;
+        double acc = 0.0;
+        for (int c = 0; c < sortedEigenvalues.length; c++) {
+            acc += sortedEigenvalues[c];
+            if (acc / totalVariance >= target) return c + 1;
         }
+        return sortedEigenvalues.length;
+    }
 
-        Map<String, List<RealVector>> projectedClasses = new HashMap<>();
-        for (String label : classes.keySet()) {
-            List<RealVector> projectedVectors = new ArrayList<>();
-            for (double[] v : classes.get(label)) {
-                RealVector diff = new ArrayRealVector(v).subtract(this.meanFace);
-                projectedVectors.add(this.w_pca.transpose().operate(diff));
-            }
-            projectedClasses.put(label, projectedVectors);
+    // Matrizes de dispersão no espaço PCA (k x k); within já inclui a regularização
+    record Scatter(DenseMatrix within, DenseMatrix betweenFactor) {
+        /** Sb = BᵀB. */
+        DenseMatrix between() {
+            return DenseKernels.gram(betweenFactor);
         }
-        return projectedClasses;
     }
 
-    private void executarLDA(Map<String, List<RealVector>> projectedClasses, int k_pca_actual, int k_lda, int m) {
-        RealVector globalMean_pca = new ArrayRealVector(k_pca_actual);
-        Map<String, RealVector> classMeans_pca = new HashMap<>();
+    // Amostras centralizadas acumuladas por bloco em Sw += XcᵀXc
+    private static final int SCATTER_BLOCK = 256;
+    static final double SW_REGULARIZATION = 1e-5;
 
-        for (String label : projectedClasses.keySet()) {
-            RealVector classMean = new ArrayRealVector(k_pca_actual);
-            List<RealVector> vectors = projectedClasses.get(label);
-            for (RealVector v : vectors) {
-                classMean = classMean.add(v);
-                globalMean_pca = globalMean_pca.add(v);
+    private void executarLDA(int k_lda) {
+        Scatter scatter = dispersaoAtual();
+        int k_pca_actual = scatter.within().rows();
+        Didactic.printf("  [Matemática] Matriz Sw (Intra-classe) calculada [%dx%d]. Representa variação interna.%n", k_pca_actual, k_pca_actual);
+        Didactic.printf("  [Matemática] Matriz Sb (Inter-classe) calculada [%dx%d]. Representa separação entre pessoas.%n", k_pca_actual, k_pca_actual);
+
+        this.w_lda = direcoesDiscriminantes(scatter, Math.min(k_lda, k_pca_actual));
+    }
+
+    // Sw (sem regularização) e as somas por indivíduo das coordenadas PCA, mantidos pelo enroll/unenroll
+    private void iniciarDispersao(Map<String, List<RealVector>> projectedClasses, int k_pca_actual, int m) {
+        this.withinScatter = calcularDispersao(projectedClasses, k_pca_actual, m, 0.0).within();
+        this.classSums = new HashMap<>();
+        for (Map.Entry<String, List<RealVector>> entry : projectedClasses.entrySet()) {
+            double[] sum = new double[k_pca_actual];
+            for (RealVector v : entry.getValue()) {
+                for (int i = 0; i < k_pca_actual; i++) sum[i] += v.getEntry(i);
             }
-            classMeans_pca.put(label, classMean.mapDivide(vectors.size()));
+            this.classSums.put(entry.getKey(), sum);
         }
-        globalMean_pca = globalMean_pca.mapDivide(m);
+    }
 
-        // 2.2. Sw (Matriz de Dispersão Intra-classe)
-        // TEORIA: Queremos MINIMIZAR isto. Representa o quanto a foto do "João" difere de outra foto do "João".
-        RealMatrix Sw = new Array2DRowRealMatrix(k_pca_actual, k_pca_actual);
-        for (String label : projectedClasses.keySet()) {
-            RealVector m_i = classMeans_pca.get(label);
-            for (RealVector x : projectedClasses.get(label)) {
-                RealVector diff = x.subtract(m_i);
-                Sw = Sw.add(diff.outerProduct(diff));
-            }
+    /**
+     * Sw regularizada e o fator de Sb montados a partir do estado mantido, em O(k² + C·k):
+     * as linhas de B são √Nᵢ·(Sᵢ/Nᵢ - ΣS/m), com Sᵢ a soma das coordenadas do indivíduo i.
+     */
+    Scatter dispersaoAtual() {
+        int k = this.withinScatter.rows();
+        DenseMatrix within = new DenseMatrix(k, k, this.withinScatter.data().clone());
+        for (int i = 0; i < k; i++) within.set(i, i, within.get(i, i) + this.swRegularization);
+
+        double[] globalMean = new double[k];
+        int m = 0;
+        for (Map.Entry<String, double[]> entry : this.classSums.entrySet()) {
+            for (int i = 0; i < k; i++) globalMean[i] += entry.getValue()[i];
+            m += this.pcaCoordinates.get(entry.getKey()).size();
+        }
+        for (int i = 0; i < k; i++) globalMean[i] /= m;
+
+        DenseMatrix between = new DenseMatrix(this.classSums.size(), k);
+        int row = 0;
+        for (Map.Entry<String, double[]> entry : this.classSums.entrySet()) {
+            int count = this.pcaCoordinates.get(entry.getKey()).size();
+            double weight = Math.sqrt(count);
+            for (int i = 0; i < k; i++) between.set(row, i, weight * (entry.getValue()[i] / count - globalMean[i]));
+            row++;
         }
-        System.out.printf("  [Matemática] Matriz Sw (Intra-classe) calculada [%dx%d]. Representa variação interna.%n", k_pca_actual, k_pca_actual);
+        return new Scatter(within, between);
+    }
 
-        RealMatrix identity = MatrixUtils.createRealIdentityMatrix(k_pca_actual);
-        Sw = Sw.add(identity.scalarMultiply(1e-5)); // Regularização
+    /**
+     * 2.4. Resolve o problema generalizado Sb·w = λ·Sw·w por branqueamento de Cholesky (Sw = L·Lᵀ) e devolve
+     * W_lda (k x k_lda_actual), cada direção com norma 1. Também usado pela {@link CrossValidation}.
+     */
+    static RealMatrix direcoesDiscriminantes(Scatter scatter, int k_lda_actual) {
+        int k_pca_actual = scatter.within().rows();
+        RealMatrix w_lda = new Array2DRowRealMatrix(k_pca_actual, k_lda_actual);
+        SymmetricGeneralizedEigen.Result solution;
+        try {
+            solution = SymmetricGeneralizedEigen.solve(scatter.betweenFactor(), scatter.within(), k_lda_actual);
+        } catch (ArithmeticException e) {
+            System.err.println("  [Aviso] " + e.getMessage() + " Usando Sw⁻¹·Sb com LU.");
+            resolverLDAPorInversa(scatter, w_lda, k_pca_actual, k_lda_actual);
+            return w_lda;
+        }
+        Didactic.println("  [Matemática] Sb·w = λ·Sw·w resolvido com Sw = L·Lᵀ e a matriz simétrica L⁻¹·Sb·L⁻ᵀ (posto C-1).");
 
-        // 2.3. Sb (Matriz de Dispersão Inter-classe)
-        // TEORIA: Queremos MAXIMIZAR isto. Representa a distância média entre o "João" e a "Maria".
-        RealMatrix Sb = new Array2DRowRealMatrix(k_pca_actual, k_pca_actual);
-        for (String label : projectedClasses.keySet()) {
-            int Ni = projectedClasses.get(label).size();
-            RealVector m_i = classMeans_pca.get(label);
-            RealVector diff = m_i.subtract(globalMean_pca);
-            Sb = Sb.add(diff.outerProduct(diff).scalarMultiply(Ni));
+        // Mesma escala do método anterior: cada direção discriminante com norma 1
+        int col = 0;
+        for (int c = 0; c < solution.eigenvalues().length && col < k_lda_actual; c++) {
+            if (solution.eigenvalues()[c] <= 1e-12) break;
+            double[] w = solution.eigenvectors().getColumn(c);
+            double norm = 0.0;
+            for (double x : w) norm += x * x;
+            norm = Math.sqrt(norm);
+            for (int i = 0; i < w.length; i++) w[i] /= norm;
+            w_lda.setColumn(col++, w);
         }
-        System.out.printf("  [Matemática] Matriz Sb (Inter-classe) calculada [%dx%d]. Representa separação entre pessoas.%n", k_pca_actual, k_pca_actual);
+        return w_lda;
+    }
 
-        // 2.4. Resolver problema generalizado de autovalores: Sw^-1 * Sb
+    // Caminho anterior: inversa explícita de Sw e decomposição da matriz não simétrica Sw⁻¹·Sb
+    private static void resolverLDAPorInversa(Scatter scatter, RealMatrix w_lda, int k_pca_actual, int k_lda_actual) {
+        RealMatrix Sw = scatter.within().toRealMatrix();
+        RealMatrix Sb = scatter.between().toRealMatrix();
         RealMatrix Sw_inv = new LUDecomposition(Sw).getSolver().getInverse();
         RealMatrix target = Sw_inv.multiply(Sb);
 
@@ -184,32 +431,447 @@ public class FisherfacesModel {
         for(int i=0; i < k_pca_actual; i++) indices.add(i);
         indices.sort((i, j) -> Double.compare(ed_lda.getRealEigenvalue(j), ed_lda.getRealEigenvalue(i)));
 
-        int k_lda_actual = Math.min(k_lda, k_pca_actual);
-
-        this.w_lda = new Array2DRowRealMatrix(k_pca_actual, k_lda_actual);
         int col = 0;
         for (int i : indices) {
             if(col >= k_lda_actual) break;
             if (ed_lda.getRealEigenvalue(i) > 1e-12) {
-                this.w_lda.setColumnVector(col++, ed_lda.getEigenvector(i));
+                w_lda.setColumnVector(col++, ed_lda.getEigenvector(i));
             }
         }
     }
 
+    /**
+     * 2.1 a 2.3: médias por classe, Sw e Sb sem matrizes temporárias por amostra.
+     * Sw = XcᵀXc, com Xc as amostras menos a média da sua classe, acumulada no lugar em blocos de
+     * {@link #SCATTER_BLOCK} linhas; Sb = BᵀB fica representada só pelo fator B (C x k), com as
+     * linhas iguais a √Nᵢ·(μᵢ - μ). {@code regularization} é somada à diagonal de Sw.
+     */
+    static Scatter calcularDispersao(Map<String, List<RealVector>> projectedClasses, int k_pca_actual, int m,
+                                     double regularization) {
+        int k = k_pca_actual;
+        double[] globalMean = new double[k];
+        Map<String, double[]> classMeans = new HashMap<>();
+        for (Map.Entry<String, List<RealVector>> entry : projectedClasses.entrySet()) {
+            double[] mean = new double[k];
+            for (RealVector v : entry.getValue()) {
+                for (int i = 0; i < k; i++) mean[i] += v.getEntry(i);
+            }
+            for (int i = 0; i < k; i++) {
+                globalMean[i] += mean[i];
+                mean[i] /= entry.getValue().size();
+            }
+            classMeans.put(entry.getKey(), mean);
+        }
+        for (int i = 0; i < k; i++) globalMean[i] /= m;
+
+        // 2.2. Sw (Matriz de Dispersão Intra-classe)
+        // TEORIA: Queremos MINIMIZAR isto. Representa o quanto a foto do "João" difere de outra foto do "João".
+        DenseMatrix Sw = new DenseMatrix(k, k);
+        DenseMatrix block = new DenseMatrix(SCATTER_BLOCK, k);
+        double[] bd = block.data();
+        int filled = 0;
+        for (Map.Entry<String, List<RealVector>> entry : projectedClasses.entrySet()) {
+            double[] mean = classMeans.get(entry.getKey());
+            for (RealVector x : entry.getValue()) {
+                int off = filled * k;
+                for (int i = 0; i < k; i++) bd[off + i] = x.getEntry(i) - mean[i];
+                if (++filled == SCATTER_BLOCK) {
+                    DenseKernels.symmetricRankUpdate(Sw, block);
+                    filled = 0;
+                }
+            }
+        }
+        if (filled > 0) DenseKernels.symmetricRankUpdate(Sw, new DenseMatrix(filled, k, Arrays.copyOf(bd, filled * k)));
+        for (int i = 0; i < k; i++) Sw.set(i, i, Sw.get(i, i) + regularization); // Regularização
+
+        // 2.3. Sb (Matriz de Dispersão Inter-classe)
+        // TEORIA: Queremos MAXIMIZAR isto. Representa a distância média entre o "João" e a "Maria".
+        DenseMatrix between = new DenseMatrix(projectedClasses.size(), k);
+        int row = 0;
+        for (Map.Entry<String, List<RealVector>> entry : projectedClasses.entrySet()) {
+            double[] mean = classMeans.get(entry.getKey());
+            double weight = Math.sqrt(entry.getValue().size());
+            for (int i = 0; i < k; i++) between.set(row, i, weight * (mean[i] - globalMean[i]));
+            row++;
+        }
+        return new Scatter(Sw, between);
+    }
+
+    private void finalizarEspacoDeFaces() {
+        finalizarEspacoDeFaces(DenseKernels.multiply(this.w_pca, DenseMatrix.of(this.w_lda)).toRealMatrix());
+    }
+
+    private void finalizarEspacoDeFaces(RealMatrix eigenfaces) {
+        this.projection = null;
+        this.eigenfaces = eigenfaces;
+        projetarDadosFinais(this.pcaCoordinates);
+    }
+
+    /**
+     * Adiciona fotos de um indivíduo (novo ou já existente) sem re-treinar a galeria inteira.
+     * A média e a base PCA são atualizadas por SVD incremental; Sw e Sb não são reconstruídas a partir de
+     * todas as amostras: Sw gira com a nova base e recebe só os termos das novas fotos, e Sb sai das somas
+     * por indivíduo. O LDA (k x k) é resolvido de novo e, como W_final muda, a galeria inteira é reprojetada.
+     */
+    public void enroll(String label, List<double[]> vectors) {
+        exigirEstadoIncremental();
+        if (vectors.isEmpty()) throw new IllegalArgumentException("Nenhuma imagem para cadastrar: " + label);
+        int dim = this.w_pca.rows();
+        for (double[] v : vectors) {
+            if (v.length != dim) throw new IllegalArgumentException("Vetor com dimensão " + v.length + ", esperado " + dim + ".");
+        }
+
+        int n = contarAmostras();
+        int C = this.pcaCoordinates.containsKey(label) ? this.pcaCoordinates.size() : this.pcaCoordinates.size() + 1;
+        int limit = Math.min(this.pcaComponentLimit, n + vectors.size() - C);
+
+        IncrementalPca.Update update = IncrementalPca.addSamples(this.w_pca, this.pcaEigenvalues, this.meanFace.toArray(),
+                n, vectors, limit);
+        aplicarAtualizacaoPca(update);
+
+        // Coordenadas das novas amostras diretamente na nova base: U'ᵀ(x - μ')
+        double[] mean = update.mean();
+        DenseMatrix centered = new DenseMatrix(dim, vectors.size());
+        for (int j = 0; j < vectors.size(); j++) {
+            double[] v = vectors.get(j);
+            for (int i = 0; i < dim; i++) centered.set(i, j, v[i] - mean[i]);
+        }
+        DenseMatrix coords = DenseKernels.transposeMultiply(this.w_pca, centered);
+        acrescentarDispersao(label, coords);
+        List<RealVector> classCoords = this.pcaCoordinates.computeIfAbsent(label, l -> new ArrayList<>());
+        for (int j = 0; j < vectors.size(); j++) classCoords.add(new ArrayRealVector(coords.getColumn(j), false));
+
+        resolverLDAIncremental();
+    }
+
+    /**
+     * Remove todas as fotos de um indivíduo. A base PCA é re-diagonalizada dentro do subespaço atual
+     * (as amostras restantes são conhecidas pelas suas coordenadas); de Sw sai só a dispersão do indivíduo
+     * removido e o LDA é resolvido de novo.
+     *
+     * @return false se o indivíduo não estava cadastrado
+     */
+    public boolean unenroll(String label) {
+        exigirEstadoIncremental();
+        List<RealVector> removed = this.pcaCoordinates.get(label);
+        if (removed == null) return false;
+        if (this.pcaCoordinates.size() <= 2) {
+            throw new IllegalStateException("O LDA requer pelo menos 2 indivíduos; não é possível remover " + label + ".");
+        }
+
+        int n = contarAmostras();
+        int k = this.w_pca.cols();
+        double[] removedMean = new double[k];
+        for (RealVector c : removed) {
+            for (int a = 0; a < k; a++) removedMean[a] += c.getEntry(a) / removed.size();
+        }
+        List<double[]> remaining = new ArrayList<>(n - removed.size());
+        for (Map.Entry<String, List<RealVector>> entry : this.pcaCoordinates.entrySet()) {
+            if (entry.getKey().equals(label)) continue;
+            for (RealVector c : entry.getValue()) remaining.add(c.toArray());
+        }
+
+        int C = this.pcaCoordinates.size() - 1;
+        int limit = Math.min(this.pcaComponentLimit, remaining.size() - C);
+        IncrementalPca.Update update = IncrementalPca.removeSamples(this.w_pca, this.meanFace.toArray(), n,
+                remaining, removedMean, removed.size(), limit);
+
+        removerDispersao(removed, removedMean);
+        this.classSums.remove(label);
+        this.pcaCoordinates.remove(label);
+        aplicarAtualizacaoPca(update);
+        resolverLDAIncremental();
+        return true;
+    }
+
+    private void exigirEstadoIncremental() {
+        if (this.pcaCoordinates == null || this.w_pca == null) {
+            throw new IllegalStateException("Cadastro incremental requer um modelo treinado em memória nesta execução (modelos carregados de arquivo ou treinados fora do heap não guardam a base PCA).");
+        }
+    }
+
+    // Coordenadas PCA guardadas, por indivíduo; null em modelos sem estado incremental
+    Map<String, List<RealVector>> coordenadasPca() {
+        return this.pcaCoordinates;
+    }
+
+    private int contarAmostras() {
+        int n = 0;
+        for (List<RealVector> coords : this.pcaCoordinates.values()) n += coords.size();
+        return n;
+    }
+
+    /**
+     * Sw += dispersão das novas amostras (k x p, colunas) em torno da sua média ν e, se o indivíduo já existia
+     * com N amostras de média μ, o termo de junção (N·p/(N+p))·(μ - ν)(μ - ν)ᵀ; a soma do indivíduo cresce.
+     */
+    private void acrescentarDispersao(String label, DenseMatrix coords) {
+        int k = coords.rows(), p = coords.cols();
+        double[] added = new double[k];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < p; j++) added[i] += coords.get(i, j);
+        }
+        double[] sum = this.classSums.get(label);
+        int existing = sum == null ? 0 : this.pcaCoordinates.get(label).size();
+
+        DenseMatrix rows = new DenseMatrix(p + (existing > 0 ? 1 : 0), k);
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < k; i++) rows.set(j, i, coords.get(i, j) - added[i] / p);
+        }
+        if (existing > 0) {
+            double weight = Math.sqrt((double) existing * p / (existing + p));
+            for (int i = 0; i < k; i++) rows.set(p, i, weight * (sum[i] / existing - added[i] / p));
+        }
+        DenseKernels.symmetricRankUpdate(this.withinScatter, rows);
+
+        if (sum == null) this.classSums.put(label, added);
+        else for (int i = 0; i < k; i++) sum[i] += added[i];
+    }
+
+    // Sw -= Σ(x - μ)(x - μ)ᵀ sobre as amostras do indivíduo removido, ainda na base atual
+    private void removerDispersao(List<RealVector> removed, double[] removedMean) {
+        int k = removedMean.length;
+        DenseMatrix rows = new DenseMatrix(removed.size(), k);
+        for (int j = 0; j < removed.size(); j++) {
+            for (int i = 0; i < k; i++) rows.set(j, i, removed.get(j).getEntry(i) - removedMean[i]);
+        }
+        DenseMatrix scatter = new DenseMatrix(k, k);
+        DenseKernels.symmetricRankUpdate(scatter, rows);
+        double[] sw = this.withinScatter.data(), sd = scatter.data();
+        for (int i = 0; i < sw.length; i++) sw[i] -= sd[i];
+    }
+
+    /**
+     * Troca a base e leva para ela as coordenadas guardadas (y' = M·y + s), as somas por indivíduo
+     * (S' = M·S + N·s) e Sw: a translação não altera a dispersão, então Sw' = M·Sw·Mᵀ.
+     */
+    private void aplicarAtualizacaoPca(IncrementalPca.Update update) {
+        DenseMatrix map = update.coordinateMap();
+        double[] shift = update.coordinateShift();
+        for (List<RealVector> coords : this.pcaCoordinates.values()) {
+            for (int j = 0; j < coords.size(); j++) {
+                double[] moved = DenseKernels.operate(map, coords.get(j).toArray());
+                for (int a = 0; a < moved.length; a++) moved[a] += shift[a];
+                coords.set(j, new ArrayRealVector(moved, false));
+            }
+        }
+        for (Map.Entry<String, double[]> entry : this.classSums.entrySet()) {
+            int count = this.pcaCoordinates.get(entry.getKey()).size();
+            double[] moved = DenseKernels.operate(map, entry.getValue());
+            for (int a = 0; a < moved.length; a++) moved[a] += count * shift[a];
+            entry.setValue(moved);
+        }
+        DenseMatrix rotated = DenseKernels.multiplyTransposed(DenseKernels.multiply(map, this.withinScatter), map);
+        int k = rotated.rows();
+        for (int i = 0; i < k; i++) { // simetriza os arredondamentos do produto
+            for (int j = i + 1; j < k; j++) {
+                double v = 0.5 * (rotated.get(i, j) + rotated.get(j, i));
+                rotated.set(i, j, v);
+                rotated.set(j, i, v);
+            }
+        }
+        this.withinScatter = rotated;
+        this.w_pca = update.basis();
+        this.pcaEigenvalues = update.eigenvalues();
+        this.meanFace = new ArrayRealVector(update.mean(), false);
+    }
+
+    private void resolverLDAIncremental() {
+        executarLDA(this.pcaCoordinates.size() - 1);
+        finalizarEspacoDeFaces();
+    }
+
     private void projetarDadosFinais(Map<String, List<RealVector>> projectedClasses) {
-        this.projectedFaces.clear();
+        int n = 0;
+        for (List<RealVector> vectors : projectedClasses.values()) n += vectors.size();
+        int d = this.w_lda.getColumnDimension();
+        double[] data = new double[n * d];
         this.labels.clear();
+        int row = 0;
         for (String label : projectedClasses.keySet()) {
             for (RealVector pca_vector : projectedClasses.get(label)) {
-                RealVector final_coeffs = this.w_lda.transpose().operate(pca_vector);
-                this.projectedFaces.add(final_coeffs.toArray());
+                RealVector final_coeffs = this.w_lda.preMultiply(pca_vector);
+                for (int c = 0; c < d; c++) data[row * d + c] = final_coeffs.getEntry(c);
                 this.labels.add(label);
+                row++;
             }
         }
+        this.projectedFaces = VectorStore.of(data, n, d, this.galleryPrecision);
+        construirIndice();
+    }
+
+    /**
+     * Grava o modelo treinado (W_final, face média, projeções e rótulos) num arquivo binário
+     * versionado, com checksum e os parâmetros de pré-processamento usados no treino.
+     */
+    public void save(Path file) throws IOException {
+        ModelFile.write(this, file);
+    }
+
+    /**
+     * Carrega um modelo gravado por {@link #save(Path)} através de um FileChannel mapeado em memória.
+     * Rejeita arquivos corrompidos ou treinados com outro pré-processamento.
+     */
+    public static FisherfacesModel load(Path file) throws IOException {
+        FisherfacesModel model = new FisherfacesModel();
+        ModelFile.read(model, file);
+        return model;
+    }
+
+    /**
+     * Fatia de uma galeria gravada, para busca distribuída.
+     *
+     * @param firstRow  posição da primeira face da fatia na galeria completa
+     * @param totalRows faces na galeria completa
+     * @param checksum  CRC32C do arquivo, igual em todas as fatias do mesmo modelo
+     */
+    public record GalleryShard(FisherfacesModel model, int firstRow, int totalRows, long checksum) {}
+
+    /**
+     * Carrega a projeção completa e só a fatia {@code shard} (de 0 a {@code shards} - 1) das projeções da galeria,
+     * em blocos contíguos de tamanho quase igual. As outras fatias não ocupam heap.
+     */
+    public static GalleryShard loadShard(Path file, int shard, int shards) throws IOException {
+        return ModelFile.readShard(new FisherfacesModel(), file, shard, shards);
+    }
+
+    /** Processador na resolução com que o modelo gravado foi treinado, sem carregar a galeria. */
+    public static ImageProcessor loadImageProcessor(Path file) throws IOException {
+        return ModelFile.readImageProcessor(file);
+    }
+
+    /**
+     * Projeção de um modelo gravado.
+     *
+     * @param checksum CRC32C do arquivo, para conferir com o {@link GalleryShard#checksum()} das partições
+     */
+    public record ProjectionFile(Projection projection, long checksum) {}
+
+    /** Só a projeção (W_final e face média) de um modelo gravado, sem a galeria. */
+    public static ProjectionFile loadProjection(Path file) throws IOException {
+        return ModelFile.readProjection(file);
+    }
+
+    /**
+     * Modelo com a projeção de {@code base} e outra galeria já projetada no mesmo espaço
+     * (ex.: as galerias sintéticas dos benchmarks de busca).
+     */
+    public static FisherfacesModel withGallery(FisherfacesModel base, VectorStore projections, List<String> labels) {
+        if (base.eigenfaces == null) throw new IllegalStateException("Modelo não treinado.");
+        if (projections.dimension() != base.eigenfaces.getColumnDimension() || projections.size() != labels.size()) {
+            throw new IllegalArgumentException("Galeria incompatível com a projeção do modelo.");
+        }
+        FisherfacesModel model = new FisherfacesModel();
+        model.restore(base.imageWidth, base.imageHeight, base.eigenfaces, base.meanFace, projections, labels);
+        return model;
+    }
+
+    void restore(int imageWidth, int imageHeight, RealMatrix eigenfaces, RealVector meanFace,
+                 VectorStore projectedFaces, List<String> labels) {
+        definirResolucao(imageWidth, imageHeight, eigenfaces.getRowDimension());
+        this.w_pca = null;
+        this.w_lda = null;
+        this.pcaEigenvalues = null;
+        this.pcaCoordinates = null;
+        this.withinScatter = null;
+        this.classSums = null;
+        this.projection = null;
+        this.eigenfaces = eigenfaces;
+        this.meanFace = meanFace;
+        this.projectedFaces = projectedFaces.withPrecision(this.galleryPrecision);
+        this.labels.clear();
+        this.labels.addAll(labels);
+        construirIndice();
+    }
+
+    /**
+     * Escolhe a estrutura de busca usada pelo reconhecimento (ex.: {@link GalleryIndex#flat()} ou
+     * {@link GalleryIndex#hnsw(int, int, int)}). Se o modelo já estiver treinado, o índice é reconstruído.
+     */
+    public void setGalleryIndexFactory(GalleryIndex.Factory factory) {
+        this.galleryIndexFactory = factory;
+        if (this.projectedFaces.size() > 0) construirIndice();
+    }
+
+    /**
+     * Define contra o que as imagens de teste são comparadas: cada projeção de treino, o centróide de
+     * cada indivíduo ou até {@code prototypesPerClass} medoides por indivíduo. Nos dois últimos modos o
+     * custo da busca passa a depender do número de pessoas, e não do número de fotos.
+     */
+    public void setMatchingMode(MatchingMode mode, int prototypesPerClass) {
+        if (prototypesPerClass < 1) throw new IllegalArgumentException("É preciso pelo menos 1 protótipo por indivíduo.");
+        this.matchingMode = mode;
+        this.prototypesPerClass = prototypesPerClass;
+        if (this.projectedFaces.size() > 0) construirIndice();
+    }
+
+    public void setMatchingMode(MatchingMode mode) {
+        setMatchingMode(mode, mode == MatchingMode.MEDOIDS ? 3 : 1);
+    }
+
+    public MatchingMode getMatchingMode() { return matchingMode; }
+
+    /**
+     * Valor somado à diagonal de Sw antes do LDA (padrão {@value #SW_REGULARIZATION}); vale para o próximo
+     * treino e para os próximos {@link #enroll}/{@link #unenroll}. Para escolhê-lo, ver {@link CrossValidation}.
+     */
+    public void setWithinClassRegularization(double value) {
+        if (!(value >= 0.0)) throw new IllegalArgumentException("A regularização de Sw não pode ser negativa.");
+        this.swRegularization = value;
+    }
+
+    public double getWithinClassRegularization() { return swRegularization; }
+
+    /**
+     * Precisão com que as projeções da galeria ficam em memória e são comparadas: DOUBLE (padrão),
+     * FLOAT32 (metade da memória) ou INT8 (um oitavo). A galeria atual é convertida e o índice reconstruído;
+     * voltar a uma precisão maior não recupera o que a conversão perdeu, só um novo treino ou {@link #load(Path)}.
+     */
+    public void setGalleryPrecision(Precision precision) {
+        this.galleryPrecision = precision;
+        this.projectedFaces = this.projectedFaces.withPrecision(precision);
+        if (this.projectedFaces.size() > 0) construirIndice();
+    }
+
+    public Precision getGalleryPrecision() { return galleryPrecision; }
+
+    private void construirIndice() {
+        Prototypes.Gallery gallery = Prototypes.build(this.projectedFaces, this.labels, this.matchingMode, this.prototypesPerClass);
+        this.galleryIndex = this.galleryIndexFactory.build(gallery.vectors(), gallery.labels());
+        this.revision++;
+    }
+
+    public GalleryIndex getGalleryIndex() { return galleryIndex; }
+
+    /**
+     * Muda sempre que o resultado de um reconhecimento pode mudar (projeção ou galeria novas); quem guarda
+     * resultados compara-a para saber quando descartá-los.
+     */
+    public long getRevision() { return revision; }
+
+    /** Projeção pronta para uso (W_finalᵀ contígua e Wᵀμ), ou null se o modelo não foi treinado. */
+    public Projection getProjection() {
+        Projection current = this.projection;
+        if (current == null && this.eigenfaces != null && this.meanFace != null) {
+            current = new Projection(this.eigenfaces, this.meanFace.toArray());
+            this.projection = current;
+        }
+        return current;
+    }
+
+    /** Largura das imagens do treino; os vetores a reconhecer têm de ter {@code getImageWidth() * getImageHeight()} pixels. */
+    public int getImageWidth() { return imageWidth; }
+    public int getImageHeight() { return imageHeight; }
+
+    /** Processador que produz vetores compatíveis com este modelo. */
+    public ImageProcessor newImageProcessor() {
+        return new ImageProcessor(imageWidth, imageHeight);
     }
 
     public RealMatrix getEigenfaces() { return eigenfaces; }
     public double[] getMeanVector() { return this.meanFace != null ? this.meanFace.toArray() : null; }
-    public List<double[]> getProjectedFaces() { return projectedFaces; }
+    /** Cópias em double das projeções; para varrer a galeria sem alocar, use {@link #getProjectedVectors()}. */
+    public List<double[]> getProjectedFaces() { return projectedFaces.asList(); }
+    public VectorStore getProjectedVectors() { return projectedFaces; }
     public List<String> getLabels() { return labels; }
 }
\ No newline at end of file
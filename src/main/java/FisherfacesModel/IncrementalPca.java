@@ -0,0 +1,168 @@
+package FisherfacesModel;
+
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+import LinearAlgebra.RandomizedPca;
+import org.apache.commons.math3.linear.EigenDecomposition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Atualizações do PCA sem refazer a decomposição sobre toda a galeria.
+ *
+ * Inclusão: SVD incremental com atualização da média (Ross et al., "Incremental Learning for Robust
+ * Visual Tracking", 2008). O custo depende de dim·(k + p) e não do número de imagens já treinadas.
+ * Remoção: as amostras restantes são conhecidas pelas suas coordenadas na base atual, por isso a
+ * base é re-diagonalizada dentro do próprio subespaço (matriz k x k).
+ */
+final class IncrementalPca {
+
+    /**
+     * Resultado de uma atualização. As coordenadas antigas (relativas à média antiga) passam a ser
+     * {@code coordinateMap · c + coordinateShift} na nova base.
+     */
+    record Update(DenseMatrix basis, double[] eigenvalues, double[] mean,
+                  DenseMatrix coordinateMap, double[] coordinateShift) {}
+
+    private IncrementalPca() {}
+
+    /**
+     * @param u             base atual (dim x k), colunas ortonormais
+     * @param eigenvalues   autovalores de AᵀA (σ²) associados às colunas de u
+     * @param mean          média atual das n amostras
+     * @param samples       p novas amostras
+     * @param maxComponents limite de componentes da nova base
+     */
+    static Update addSamples(DenseMatrix u, double[] eigenvalues, double[] mean, int n,
+                             List<double[]> samples, int maxComponents) {
+        int dim = u.rows(), k = u.cols(), p = samples.size();
+        int total = n + p;
+
+        double[] sampleMean = new double[dim];
+        for (double[] b : samples) {
+            for (int i = 0; i < dim; i++) sampleMean[i] += b[i];
+        }
+        for (int i = 0; i < dim; i++) sampleMean[i] /= p;
+
+        double[] newMean = new double[dim];
+        for (int i = 0; i < dim; i++) newMean[i] = (n * mean[i] + p * sampleMean[i]) / total;
+
+        // B̂ = [b_1 - μ_B, ..., b_p - μ_B, sqrt(n·p/(n+p))·(μ_B - μ)]: a coluna extra carrega a mudança da média
+        int cols = p + 1;
+        DenseMatrix bHat = new DenseMatrix(dim, cols);
+        double[] bh = bHat.data();
+        double meanWeight = Math.sqrt((double) n * p / total);
+        for (int j = 0; j < p; j++) {
+            double[] b = samples.get(j);
+            for (int i = 0; i < dim; i++) bh[i * cols + j] = b[i] - sampleMean[i];
+        }
+        for (int i = 0; i < dim; i++) bh[i * cols + p] = meanWeight * (sampleMean[i] - mean[i]);
+
+        // Resíduo desprezável face a B̂ significa que as amostras já estão no subespaço: nenhuma direção nova
+        double scale = 0.0;
+        for (double x : bh) scale += x * x;
+
+        // Parte de B̂ dentro da base atual (Ã) e resíduo ortogonal (R = B̂ - U·Ã, feito no próprio B̂), com base própria Q
+        DenseMatrix inside = DenseKernels.transposeMultiply(u, bHat);
+        DenseMatrix residual = bHat;
+        DenseMatrix back = DenseKernels.multiply(u, inside);
+        double[] r = residual.data(), bk = back.data();
+        for (int i = 0; i < r.length; i++) r[i] -= bk[i];
+        DenseMatrix q = RandomizedPca.orthonormalize(residual, 1e-20 * scale);
+        DenseMatrix residualCoeffs = DenseKernels.transposeMultiply(q, residual);
+        int qc = q.cols();
+
+        // S = [[diag(σ), Ã], [0, QᵀR]] ((k+q) x (k+p+1)); guardamos Sᵀ para que gram(Sᵀ) = S·Sᵀ
+        DenseMatrix st = new DenseMatrix(k + cols, k + qc);
+        for (int c = 0; c < k; c++) st.set(c, c, Math.sqrt(Math.max(0.0, eigenvalues[c])));
+        for (int j = 0; j < cols; j++) {
+            for (int c = 0; c < k; c++) st.set(k + j, c, inside.get(c, j));
+            for (int c = 0; c < qc; c++) st.set(k + j, k + c, residualCoeffs.get(c, j));
+        }
+
+        Rotation rotation = rotate(DenseKernels.gram(st), maxComponents);
+
+        // U' = [U Q]·Us
+        DenseMatrix extended = new DenseMatrix(dim, k + qc);
+        double[] ext = extended.data(), ud = u.data(), qd = q.data();
+        for (int i = 0; i < dim; i++) {
+            System.arraycopy(ud, i * k, ext, i * (k + qc), k);
+            System.arraycopy(qd, i * qc, ext, i * (k + qc) + k, qc);
+        }
+        DenseMatrix newBasis = DenseKernels.multiply(extended, rotation.vectors());
+
+        // Coordenadas antigas: U'ᵀ(x - μ') = Us[0:k]ᵀ·c + U'ᵀ(μ - μ')
+        int kNew = newBasis.cols();
+        DenseMatrix map = new DenseMatrix(kNew, k);
+        for (int a = 0; a < kNew; a++) {
+            for (int c = 0; c < k; c++) map.set(a, c, rotation.vectors().get(c, a));
+        }
+        double[] meanShift = new double[dim];
+        for (int i = 0; i < dim; i++) meanShift[i] = mean[i] - newMean[i];
+        double[] shift = DenseKernels.transposeOperate(newBasis, meanShift);
+
+        return new Update(newBasis, rotation.eigenvalues(), newMean, map, shift);
+    }
+
+    /**
+     * @param u                  base atual (dim x k)
+     * @param mean               média atual das n amostras
+     * @param remainingCoords    coordenadas das amostras que ficam (relativas à média atual)
+     * @param removedCoordsMean  média das coordenadas das p amostras removidas
+     */
+    static Update removeSamples(DenseMatrix u, double[] mean, int n, List<double[]> remainingCoords,
+                                double[] removedCoordsMean, int p, int maxComponents) {
+        int k = u.cols();
+        int remaining = n - p;
+
+        // μ' = μ - p/(n-p)·(μ_B - μ), com μ_B - μ = U·c̄_B; no subespaço isso é só um deslocamento s
+        double[] s = new double[k];
+        for (int c = 0; c < k; c++) s[c] = (double) p / remaining * removedCoordsMean[c];
+        double[] deltaMean = DenseKernels.operate(u, s);
+        double[] newMean = new double[mean.length];
+        for (int i = 0; i < mean.length; i++) newMean[i] = mean[i] - deltaMean[i];
+
+        // Dispersão das amostras restantes dentro da base atual: Σ (c + s)(c + s)ᵀ
+        DenseMatrix shifted = new DenseMatrix(remaining, k);
+        double[] sh = shifted.data();
+        for (int j = 0; j < remaining; j++) {
+            double[] c = remainingCoords.get(j);
+            for (int a = 0; a < k; a++) sh[j * k + a] = c[a] + s[a];
+        }
+        Rotation rotation = rotate(DenseKernels.gram(shifted), maxComponents);
+
+        DenseMatrix newBasis = DenseKernels.multiply(u, rotation.vectors());
+        int kNew = newBasis.cols();
+        DenseMatrix map = new DenseMatrix(kNew, k);
+        for (int a = 0; a < kNew; a++) {
+            for (int c = 0; c < k; c++) map.set(a, c, rotation.vectors().get(c, a));
+        }
+        double[] shift = DenseKernels.operate(map, s);
+
+        return new Update(newBasis, rotation.eigenvalues(), newMean, map, shift);
+    }
+
+    // Autovetores (colunas) e autovalores de uma matriz simétrica pequena, em ordem decrescente e truncados
+    private record Rotation(DenseMatrix vectors, double[] eigenvalues) {}
+
+    private static Rotation rotate(DenseMatrix symmetric, int maxComponents) {
+        EigenDecomposition ed = new EigenDecomposition(symmetric.toRealMatrix());
+        double[] ev = ed.getRealEigenvalues();
+
+        List<Integer> idx = new ArrayList<>();
+        for (int i = 0; i < ev.length; i++) {
+            if (ev[i] > 1e-10) idx.add(i);
+        }
+        idx.sort((i, j) -> Double.compare(ev[j], ev[i]));
+        int kept = Math.min(maxComponents, idx.size());
+
+        DenseMatrix vectors = new DenseMatrix(symmetric.rows(), kept);
+        double[] values = new double[kept];
+        for (int c = 0; c < kept; c++) {
+            vectors.setColumn(c, ed.getEigenvector(idx.get(c)).toArray());
+            values[c] = ev[idx.get(c)];
+        }
+        return new Rotation(vectors, values);
+    }
+}
@@ -0,0 +1,266 @@
+package FisherfacesModel;
+
+import ImageProcessor.ImageProcessor;
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Conjunto de treino fora do heap, para galerias cujas duas cópias dim x m do treino em memória
+ * (a {@code List<double[]>} do TrainingData e a matriz A) não cabem na JVM.
+ *
+ * Os vetores pré-processados vão para um arquivo mapeado em memória, uma linha de dim doubles por imagem.
+ * À medida que chegam, em blocos de {@code blockRows} imagens, são acumuladas a soma (para a face média)
+ * e a matriz de Gram m x m: cada bloco novo é multiplicado por ele próprio e pelos blocos já gravados,
+ * lidos de volta do arquivo. O treino ({@link FisherfacesModel#train(MappedTrainingMatrix, PcaOptions)})
+ * centraliza a Gram, decompõe-na e relê o arquivo uma única vez, bloco a bloco, para montar W_final.
+ * O heap fica em O(m² + blockRows·dim + C·dim), com C o número de indivíduos.
+ *
+ * A Gram é um único array de m² doubles, por isso m vai no máximo até {@link #MAX_IMAGES} (46 340 imagens,
+ * já cerca de 17 GB de heap só para ela); {@link #append} recusa a imagem seguinte em vez de falhar no treino.
+ *
+ * Os vetores são gravados menos a primeira imagem: a Gram centralizada não muda com esse deslocamento, e os
+ * produtos escalares ficam menores, com menos cancelamento na centralização. O arquivo é temporário e é
+ * apagado no {@link #close()}. Não é thread-safe; as imagens devem ser acrescentadas por uma só thread.
+ */
+public final class MappedTrainingMatrix implements Closeable {
+
+    public static final int DEFAULT_BLOCK_ROWS = 256;
+    /** Maior m com m² ainda dentro de um int, o tamanho máximo do array da Gram. */
+    public static final int MAX_IMAGES = 46_340;
+
+    private final FileChannel channel;
+    private final int blockRows;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final List<String> labels = new ArrayList<>();
+    private final List<MappedByteBuffer> blocks = new ArrayList<>();
+    // Faixa b da Gram: linhas do bloco b x colunas 0 até o fim do bloco (triângulo inferior por blocos)
+    private List<double[]> gramStrips = new ArrayList<>();
+    private double[] reference;  // primeira imagem, subtraída de todas
+    private double[] sum;        // soma dos vetores deslocados
+    private double[] pending;    // bloco ainda não gravado
+    private double[] scratch;    // bloco lido de volta do arquivo
+    private int pendingRows;
+    private int dim = -1;
+    private boolean sealed;
+
+    private MappedTrainingMatrix(FileChannel channel, int blockRows, int imageWidth, int imageHeight) {
+        this.channel = channel;
+        this.blockRows = blockRows;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+    }
+
+    /** Matriz para imagens na resolução padrão. */
+    public static MappedTrainingMatrix create(Path file) throws IOException {
+        return create(file, DEFAULT_BLOCK_ROWS, ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+    }
+
+    /**
+     * Cria (ou substitui) o arquivo {@code file} para imagens de {@code imageWidth x imageHeight}.
+     * Blocos maiores leem o arquivo menos vezes, mas ocupam mais heap.
+     */
+    public static MappedTrainingMatrix create(Path file, int blockRows, int imageWidth, int imageHeight) throws IOException {
+        if (blockRows < 1) throw new IllegalArgumentException("O bloco deve ter pelo menos 1 imagem.");
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        return new MappedTrainingMatrix(channel, blockRows, imageWidth, imageHeight);
+    }
+
+    /**
+     * Acrescenta uma imagem; a Gram é atualizada a cada {@code blockRows} imagens.
+     *
+     * @throws IllegalStateException se já houver {@link #MAX_IMAGES} imagens
+     */
+    public void append(double[] vector, String label) throws IOException {
+        if (sealed) throw new IllegalStateException("Matriz de treino já usada num treino; crie outra para novas imagens.");
+        if (labels.size() == MAX_IMAGES) {
+            throw new IllegalStateException("O treino em disco aceita no máximo " + MAX_IMAGES
+                    + " imagens (a matriz de Gram m x m é um único array); divida a galeria ou deduplique-a.");
+        }
+        if (vector.length != imageWidth * imageHeight) {
+            throw new IllegalArgumentException("Vetor com dimensão " + vector.length + ", esperado " + imageWidth * imageHeight
+                    + " (" + imageWidth + "x" + imageHeight + ").");
+        }
+        if (dim < 0) {
+            if ((long) blockRows * vector.length * Double.BYTES > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Bloco de " + blockRows + " imagens com " + vector.length + " pixels excede 2 GB.");
+            }
+            dim = vector.length;
+            reference = vector.clone();
+            sum = new double[dim];
+            pending = new double[blockRows * dim];
+        }
+        int off = pendingRows * dim;
+        for (int i = 0; i < dim; i++) {
+            double y = vector[i] - reference[i];
+            pending[off + i] = y;
+            sum[i] += y;
+        }
+        labels.add(label);
+        if (++pendingRows == blockRows) flushBlock();
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    /** Pixels por imagem, ou -1 se ainda não houver imagens. */
+    public int dim() {
+        return dim;
+    }
+
+    public int imageWidth() {
+        return imageWidth;
+    }
+
+    public int imageHeight() {
+        return imageHeight;
+    }
+
+    public List<String> labels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /** Grava o último bloco incompleto; a partir daqui não se acrescentam imagens. */
+    void seal() throws IOException {
+        if (sealed) return;
+        if (pendingRows > 0) flushBlock();
+        pending = null;
+        sealed = true;
+    }
+
+    double[] mean() {
+        double[] mean = new double[dim];
+        for (int i = 0; i < dim; i++) mean[i] = reference[i] + sum[i] / size();
+        return mean;
+    }
+
+    /**
+     * AᵀA, com A as imagens centralizadas em colunas, pela dupla centralização da Gram acumulada:
+     * Gc = G - r·1ᵀ - 1·rᵀ + s, com r as médias das linhas de G e s a média de todas as entradas.
+     * As faixas são libertadas à medida que são copiadas, por isso só pode ser chamada uma vez.
+     */
+    DenseMatrix centeredGram() {
+        if (!sealed) throw new IllegalStateException("Matriz de treino não selada.");
+        if (gramStrips == null) throw new IllegalStateException("A matriz de Gram já foi usada num treino.");
+        int m = size();
+        double[] g = new double[Math.multiplyExact(m, m)];
+        for (int b = 0; b < gramStrips.size(); b++) {
+            double[] strip = gramStrips.get(b);
+            gramStrips.set(b, null);
+            int start = b * blockRows;
+            int width = Math.min(m, start + blockRows);
+            for (int r = 0; r < width - start; r++) {
+                int row = start + r;
+                for (int col = 0; col < width; col++) {
+                    double value = strip[r * width + col];
+                    g[row * m + col] = value;
+                    g[col * m + row] = value;
+                }
+            }
+        }
+        gramStrips = null;
+
+        double[] rowMean = new double[m];
+        double total = 0.0;
+        for (int i = 0; i < m; i++) {
+            double s = 0.0;
+            for (int j = 0; j < m; j++) s += g[i * m + j];
+            rowMean[i] = s / m;
+            total += rowMean[i];
+        }
+        total /= m;
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < m; j++) g[i * m + j] += total - rowMean[i] - rowMean[j];
+        }
+        return new DenseMatrix(m, m, g);
+    }
+
+    /** A·V (dim x k), para V (m x k), numa passagem pelo arquivo: Σ Ybᵀ·Vb menos a média vezes 1ᵀV. */
+    DenseMatrix multiplyCentered(DenseMatrix v) {
+        if (!sealed) throw new IllegalStateException("Matriz de treino não selada.");
+        int k = v.cols();
+        double[] out = new double[dim * k];
+        for (int b = 0; b < blocks.size(); b++) {
+            DenseMatrix block = read(b);
+            int start = b * blockRows;
+            DenseMatrix vb = new DenseMatrix(block.rows(), k,
+                    Arrays.copyOfRange(v.data(), start * k, (start + block.rows()) * k));
+            double[] part = DenseKernels.transposeMultiply(block, vb).data();
+            for (int i = 0; i < out.length; i++) out[i] += part[i];
+        }
+        int m = size();
+        for (int c = 0; c < k; c++) {
+            double colSum = 0.0;
+            for (int j = 0; j < m; j++) colSum += v.get(j, c);
+            for (int i = 0; i < dim; i++) out[i * k + c] -= sum[i] / m * colSum;
+        }
+        return new DenseMatrix(dim, k, out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocks.clear();
+        gramStrips = null;
+        channel.close();
+    }
+
+    // Grava o bloco pendente e calcula a sua faixa da Gram contra todos os blocos anteriores e contra si
+    private void flushBlock() throws IOException {
+        int rows = pendingRows;
+        int start = blocks.size() * blockRows;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE,
+                (long) start * dim * Double.BYTES, (long) rows * dim * Double.BYTES);
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.asDoubleBuffer().put(0, pending, 0, rows * dim);
+        blocks.add(buffer);
+
+        DenseMatrix current = new DenseMatrix(rows, dim, rows == blockRows ? pending : Arrays.copyOf(pending, rows * dim));
+        int width = start + rows;
+        double[] strip = new double[rows * width];
+        for (int b = 0; b < blocks.size() - 1; b++) {
+            copyInto(strip, width, b * blockRows, DenseKernels.multiplyTransposed(current, read(b)));
+        }
+        copyInto(strip, width, start, DenseKernels.multiplyTransposed(current, current));
+        gramStrips.add(strip);
+        pendingRows = 0;
+    }
+
+    private static void copyInto(double[] strip, int width, int col0, DenseMatrix part) {
+        for (int r = 0; r < part.rows(); r++) {
+            System.arraycopy(part.data(), r * part.cols(), strip, r * width + col0, part.cols());
+        }
+    }
+
+    // Bloco b do arquivo no heap; os blocos completos reaproveitam o mesmo array
+    private DenseMatrix read(int b) {
+        DoubleBuffer source = blocks.get(b).duplicate().order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        int rows = source.capacity() / dim;
+        double[] target;
+        if (rows == blockRows) {
+            if (scratch == null) scratch = new double[blockRows * dim];
+            target = scratch;
+        } else {
+            target = new double[rows * dim];
+        }
+        source.get(0, target, 0, rows * dim);
+        return new DenseMatrix(rows, dim, target);
+    }
+}
@@ -0,0 +1,13 @@
+package FisherfacesModel;
+
+/**
+ * Contra o que cada imagem de teste é comparada no espaço de faces.
+ */
+public enum MatchingMode {
+    /** Cada projeção de treino individualmente (vizinho mais próximo clássico). */
+    PER_SAMPLE,
+    /** Um centróide por indivíduo: C comparações em vez de m. */
+    CENTROID,
+    /** Até k medoides por indivíduo, para pessoas com fotos muito diferentes entre si. */
+    MEDOIDS
+}
@@ -0,0 +1,358 @@
+package FisherfacesModel;
+
+import GalleryIndex.Precision;
+import GalleryIndex.VectorStore;
+import ImageProcessor.ImageProcessor;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binário do modelo treinado.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int    MAGIC ("FFMD")
+ *   int    VERSION
+ *   int    largura, int altura, byte equalização   (resolução do modelo e parâmetro do ImageProcessor)
+ *   int    decodificação                          (ImageProcessor.DECODE_MODE; ausente na versão 1)
+ *   int    dim, int k (colunas de W_final), int n (faces projetadas)
+ *   double meanFace[dim]
+ *   double eigenfaces[dim * k]                     (linha a linha)
+ *   double projectedFaces[n * k]
+ *   int    numRótulos, { int bytes, byte[] UTF-8 } por rótulo distinto
+ *   int    índiceDoRótulo[n]
+ *   long   CRC32C de todos os bytes anteriores
+ * </pre>
+ * Os vetores de treino e os de reconhecimento têm de sair da mesma decodificação: um modelo gravado com
+ * outro {@code -Dfisherfaces.subamostragem} é rejeitado. Arquivos da versão 1 não registram o modo e são
+ * aceitos com um aviso.
+ */
+final class ModelFile {
+
+    static final int MAGIC = 0x46464D44;
+    static final int VERSION = 2;
+    /** Maior janela mapeada de uma vez; posições e tamanhos no arquivo são long. */
+    static final long WINDOW_BYTES = 1L << 30;
+    // MAGIC, VERSION, largura, altura, equalização, decodificação, dim, k, n
+    private static final int HEADER_BYTES = 8 * Integer.BYTES + 1;
+    private static final int HEADER_BYTES_V1 = HEADER_BYTES - Integer.BYTES;
+
+    private ModelFile() {}
+
+    static void write(FisherfacesModel model, Path file) throws IOException {
+        RealMatrix W = model.getEigenfaces();
+        double[] mean = model.getMeanVector();
+        if (W == null || mean == null) throw new IllegalStateException("Modelo não treinado.");
+
+        VectorStore projected = model.getProjectedVectors();
+        List<String> labels = model.getLabels();
+        int dim = W.getRowDimension();
+        int k = W.getColumnDimension();
+        int n = projected.size();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        // Escreve num ficheiro temporário e só depois substitui: um leitor nunca vê um modelo pela metade
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+        CRC32C crc = new CRC32C();
+        try (OutputStream raw = Files.newOutputStream(tmp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 1 << 16), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(model.getImageWidth());
+            out.writeInt(model.getImageHeight());
+            out.writeByte(ImageProcessor.HISTOGRAM_EQUALIZATION ? 1 : 0);
+            out.writeInt(ImageProcessor.DECODE_MODE);
+            out.writeInt(dim);
+            out.writeInt(k);
+            out.writeInt(n);
+
+            for (double v : mean) out.writeDouble(v);
+            for (int i = 0; i < dim; i++) {
+                for (int c = 0; c < k; c++) out.writeDouble(W.getEntry(i, c));
+            }
+            double[] row = new double[k];
+            for (int i = 0; i < n; i++) {
+                projected.copyRow(i, row, 0);
+                for (double v : row) out.writeDouble(v);
+            }
+
+            // Tabela de rótulos distintos + um índice por face
+            Map<String, Integer> labelIds = new HashMap<>();
+            List<String> distinct = new ArrayList<>();
+            for (String label : labels) {
+                labelIds.computeIfAbsent(label, l -> {
+                    distinct.add(l);
+                    return distinct.size() - 1;
+                });
+            }
+            out.writeInt(distinct.size());
+            for (String label : distinct) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (String label : labels) out.writeInt(labelIds.get(label));
+
+            out.flush();
+            out.writeLong(crc.getValue());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void read(FisherfacesModel model, Path file) throws IOException {
+        readShard(model, file, 0, 1);
+    }
+
+    /**
+     * Carrega só as linhas [n·shard/shards, n·(shard+1)/shards) da galeria, com a projeção completa.
+     * Só o cabeçalho, a fatia e os rótulos são mapeados, em janelas de até {@link #WINDOW_BYTES}; as outras
+     * linhas não chegam ao heap nem ao espaço de endereços.
+     */
+    static FisherfacesModel.GalleryShard readShard(FisherfacesModel model, Path file, int shard, int shards) throws IOException {
+        return readShard(model, file, shard, shards, WINDOW_BYTES);
+    }
+
+    // O mesmo, com janelas de windowBytes (os testes usam janelas pequenas para exercitar a troca de janela)
+    static FisherfacesModel.GalleryShard readShard(FisherfacesModel model, Path file, int shard, int shards,
+                                                   long windowBytes) throws IOException {
+        if (shards < 1 || shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException("Partição " + shard + " de " + shards + " inválida.");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Contents contents = open(channel, file, windowBytes);
+            Window window = contents.window();
+            int n = contents.n();
+            int k = contents.k();
+            int from = (int) ((long) n * shard / shards);
+            int to = (int) ((long) n * (shard + 1) / shards);
+
+            // As projeções são gravadas sempre em double; o modelo converte para a precisão da galeria
+            long rowBytes = (long) k * Double.BYTES;
+            long projectionsEnd = contents.projectionsStart() + Math.multiplyExact(n, rowBytes);
+            double[] rows = new double[Math.multiplyExact(to - from, k)];
+            window.region(contents.projectionsStart() + from * rowBytes, contents.projectionsStart() + to * rowBytes);
+            window.getDoubles(rows, 0, rows.length);
+            VectorStore projected = VectorStore.of(rows, to - from, k, Precision.DOUBLE);
+
+            // Rótulos distintos e, no fim do arquivo, um índice por face
+            long indicesStart = window.end() - (long) n * Integer.BYTES;
+            window.region(projectionsEnd, indicesStart);
+            int labelCount = window.getInt();
+            if (labelCount < 0) throw new IOException("Tabela de rótulos inválida: " + file);
+            String[] distinct = new String[labelCount];
+            for (int i = 0; i < labelCount; i++) distinct[i] = new String(window.getBytes(window.getInt()), StandardCharsets.UTF_8);
+            if (window.position() != indicesStart) throw new IOException("Tabela de rótulos inválida: " + file);
+            window.region(indicesStart + (long) from * Integer.BYTES, indicesStart + (long) to * Integer.BYTES);
+            List<String> labels = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) labels.add(distinct[window.getInt()]);
+
+            model.restore(contents.width(), contents.height(), contents.eigenfaces(), new ArrayRealVector(contents.mean(), false), projected, labels);
+            return new FisherfacesModel.GalleryShard(model, from, n, contents.checksum());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Arquivo de modelo corrompido: " + file, e);
+        }
+    }
+
+    /** Só W_final e a face média, sem a galeria, com o CRC32C do arquivo. */
+    static FisherfacesModel.ProjectionFile readProjection(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Contents contents = open(channel, file, WINDOW_BYTES);
+            return new FisherfacesModel.ProjectionFile(new Projection(contents.eigenfaces(), contents.mean()), contents.checksum());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Arquivo de modelo corrompido: " + file, e);
+        }
+    }
+
+    /** Processador na resolução do modelo gravado. */
+    static ImageProcessor readImageProcessor(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Contents contents = open(channel, file, WINDOW_BYTES);
+            return new ImageProcessor(contents.width(), contents.height());
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Arquivo de modelo corrompido: " + file, e);
+        }
+    }
+
+    // Cabeçalho, face média e W_final já lidos; as projeções começam em projectionsStart
+    private record Contents(Window window, int width, int height, int dim, int k, int n, double[] mean,
+                            RealMatrix eigenfaces, long checksum, long projectionsStart) {}
+
+    private static Contents open(FileChannel channel, Path file, long windowBytes) throws IOException {
+        long size = channel.size();
+        if (size < Long.BYTES + 8 * Integer.BYTES) {
+            throw new IOException("Arquivo de modelo truncado: " + file);
+        }
+        // Validar o checksum antes de interpretar qualquer campo
+        long payload = size - Long.BYTES;
+        long checksum = checksum(channel, file, payload);
+
+        Window window = new Window(channel, file, payload, windowBytes);
+        window.region(0, 2 * Integer.BYTES);
+        if (window.getInt() != MAGIC) throw new IOException("Arquivo não é um modelo Fisherfaces: " + file);
+        int version = window.getInt();
+        if (version != VERSION && version != 1) throw new IOException("Versão de modelo não suportada: " + version);
+        int headerBytes = version == 1 ? HEADER_BYTES_V1 : HEADER_BYTES;
+        window.region(2 * Integer.BYTES, headerBytes);
+
+        int width = window.getInt();
+        int height = window.getInt();
+        boolean equalization = window.getBytes(1)[0] != 0;
+        if (equalization != ImageProcessor.HISTOGRAM_EQUALIZATION) {
+            throw new IOException(String.format(
+                    "Modelo incompatível com o pré-processamento atual (modelo: equalização=%b; atual: equalização=%b).",
+                    equalization, ImageProcessor.HISTOGRAM_EQUALIZATION));
+        }
+        if (version == 1) {
+            System.err.println("  [Aviso] Modelo " + file + " não registra a decodificação das imagens; grave-o de novo "
+                    + "para que uma troca de -D" + ImageProcessor.SUBSAMPLING_PROPERTY + " seja detectada.");
+        } else {
+            int decodeMode = window.getInt();
+            if (decodeMode != ImageProcessor.DECODE_MODE) {
+                throw new IOException(String.format(
+                        "Modelo incompatível com a decodificação atual (modelo: %s; atual: %s). Use -D%s=%b ou treine de novo.",
+                        descreverDecodificacao(decodeMode), descreverDecodificacao(ImageProcessor.DECODE_MODE),
+                        ImageProcessor.SUBSAMPLING_PROPERTY, decodeMode != 0));
+            }
+        }
+        if (width < ImageProcessor.MIN_SIDE || height < ImageProcessor.MIN_SIDE) {
+            throw new IOException("Resolução inválida no arquivo de modelo: " + width + "x" + height);
+        }
+
+        int dim = window.getInt();
+        int k = window.getInt();
+        int n = window.getInt();
+        if ((long) dim != (long) width * height || k <= 0 || n < 0) throw new IOException("Cabeçalho de modelo inválido: " + file);
+
+        window.region(headerBytes, headerBytes + Math.multiplyExact(Math.multiplyExact(dim, k + 1L), Double.BYTES));
+        double[] mean = new double[dim];
+        window.getDoubles(mean, 0, dim);
+        double[][] w = new double[dim][k];
+        for (int i = 0; i < dim; i++) window.getDoubles(w[i], 0, k);
+        return new Contents(window, width, height, dim, k, n, mean, new Array2DRowRealMatrix(w, false), checksum,
+                window.position());
+    }
+
+    private static String descreverDecodificacao(int decodeMode) {
+        return decodeMode == 0 ? "resolução cheia" : "reduzida, sobreamostragem mínima " + decodeMode;
+    }
+
+    // CRC32C dos primeiros payload bytes, lidos em blocos, comparado com o long gravado logo a seguir
+    private static long checksum(FileChannel channel, Path file, long payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20);
+        for (long position = 0; position < payload; ) {
+            chunk.clear().limit((int) Math.min(chunk.capacity(), payload - position));
+            int read = channel.read(chunk, position);
+            if (read < 0) throw new IOException("Arquivo de modelo truncado: " + file);
+            position += read;
+            crc.update(chunk.flip());
+        }
+        ByteBuffer stored = ByteBuffer.allocate(Long.BYTES);
+        while (stored.hasRemaining()) {
+            if (channel.read(stored, payload + stored.position()) < 0) throw new IOException("Arquivo de modelo truncado: " + file);
+        }
+        long checksum = stored.getLong(0);
+        if (crc.getValue() != checksum) {
+            throw new IOException("Checksum inválido no arquivo de modelo: " + file);
+        }
+        return checksum;
+    }
+
+    /**
+     * Leitura sequencial (big-endian) de uma região [início, fim) do arquivo, com posições long. Só a região é
+     * mapeada, em janelas de até {@code windowBytes} (normalmente {@link #WINDOW_BYTES}) que só são trocadas
+     * quando a leitura sai da atual.
+     */
+    private static final class Window {
+
+        private final FileChannel channel;
+        private final Path file;
+        private final long end;
+        private final long windowBytes;
+        private long regionEnd;
+        private MappedByteBuffer buffer;
+        private long bufferStart;
+        private long position;
+
+        Window(FileChannel channel, Path file, long end, long windowBytes) {
+            this.channel = channel;
+            this.file = file;
+            this.end = end;
+            this.windowBytes = windowBytes;
+        }
+
+        long position() {
+            return position;
+        }
+
+        /** Fim dos dados (o checksum vem a seguir). */
+        long end() {
+            return end;
+        }
+
+        void region(long from, long to) throws IOException {
+            if (from < 0 || from > to || to > end) throw new IOException("Arquivo de modelo truncado: " + file);
+            position = from;
+            regionEnd = to;
+        }
+
+        int getInt() throws IOException {
+            return covering(Integer.BYTES).getInt();
+        }
+
+        byte[] getBytes(int count) throws IOException {
+            if (count < 0 || count > windowBytes) throw new IOException("Arquivo de modelo corrompido: " + file);
+            byte[] bytes = new byte[count];
+            covering(count).get(bytes);
+            return bytes;
+        }
+
+        void getDoubles(double[] target, int offset, int count) throws IOException {
+            while (count > 0) {
+                int chunk = (int) Math.min(count, windowBytes / Double.BYTES);
+                covering(chunk * Double.BYTES).asDoubleBuffer().get(target, offset, chunk);
+                offset += chunk;
+                count -= chunk;
+            }
+        }
+
+        // Buffer posicionado em position, com pelo menos bytes disponíveis; avança position
+        private ByteBuffer covering(int bytes) throws IOException {
+            if (bytes > regionEnd - position) throw new IOException("Arquivo de modelo truncado: " + file);
+            if (buffer == null || position < bufferStart || position + bytes > bufferStart + buffer.capacity()) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowBytes, regionEnd - position));
+                bufferStart = position;
+            }
+            buffer.position((int) (position - bufferStart));
+            position += bytes;
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package FisherfacesModel;
+
+/**
+ * Configuração do passo de PCA do treinamento.
+ *
+ * @param solver          EXACT resolve a decomposição completa de AᵀA (m x m);
+ *                        RANDOMIZED calcula só as k primeiras componentes por projeção aleatória (custo O(dim·m·k)).
+ * @param components      número máximo de componentes; {@code <= 0} usa o padrão m - C.
+ * @param varianceTarget  fração da variância total a explicar (0, 1]; {@code <= 0} desativa o critério.
+ * @param oversampling    colunas extra da base aleatória (apenas RANDOMIZED).
+ * @param powerIterations iterações de potência para espectros que decaem devagar (apenas RANDOMIZED).
+ * @param seed            semente da matriz aleatória, para treinos reprodutíveis.
+ */
+public record PcaOptions(
+    Solver solver,
+    int components,
+    double varianceTarget,
+    int oversampling,
+    int powerIterations,
+    long seed
+) {
+    public enum Solver { EXACT, RANDOMIZED }
+
+    public PcaOptions {
+        if (solver == null) throw new IllegalArgumentException("Solver de PCA não informado.");
+        if (varianceTarget > 1.0) throw new IllegalArgumentException("A variância alvo deve estar em (0, 1].");
+        if (oversampling < 0 || powerIterations < 0) throw new IllegalArgumentException("Parâmetros do solver aleatório inválidos.");
+    }
+
+    public static PcaOptions exact() {
+        return new PcaOptions(Solver.EXACT, 0, 0.0, 0, 0, 0L);
+    }
+
+    public static PcaOptions randomized(int components) {
+        return new PcaOptions(Solver.RANDOMIZED, components, 0.0, 10, 2, 42L);
+    }
+
+    public PcaOptions withComponents(int k) {
+        return new PcaOptions(solver, k, varianceTarget, oversampling, powerIterations, seed);
+    }
+
+    public PcaOptions withVarianceTarget(double target) {
+        return new PcaOptions(solver, components, target, oversampling, powerIterations, seed);
+    }
+
+    public PcaOptions withPowerIterations(int iterations) {
+        return new PcaOptions(solver, components, varianceTarget, oversampling, iterations, seed);
+    }
+}
@@ -0,0 +1,84 @@
+package FisherfacesModel;
+
+import LinearAlgebra.DenseKernels;
+import LinearAlgebra.DenseMatrix;
+import LinearAlgebra.VectorKernels;
+import Metrics.Metrics;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import java.util.List;
+
+/**
+ * Projeção de imagens no espaço de faces, preparada uma única vez por modelo treinado.
+ *
+ * Guarda W_finalᵀ como um {@code double[]} contíguo (k x dim, linha a linha) e o termo
+ * W_finalᵀ·μ, de modo que Wᵀ(x - μ) = Wᵀx - Wᵀμ dispensa o vetor centralizado.
+ * É imutável e pode ser partilhada entre threads.
+ */
+public final class Projection {
+
+    private final DenseMatrix transposed; // k x dim
+    private final double[] bias;          // Wᵀ·μ
+    private final double[] mean;
+
+    Projection(RealMatrix eigenfaces, double[] mean) {
+        int dim = eigenfaces.getRowDimension();
+        int k = eigenfaces.getColumnDimension();
+        this.transposed = new DenseMatrix(k, dim);
+        double[] t = transposed.data();
+        for (int i = 0; i < dim; i++) {
+            for (int c = 0; c < k; c++) t[c * dim + i] = eigenfaces.getEntry(i, c);
+        }
+        this.mean = mean.clone();
+        this.bias = DenseKernels.operate(transposed, this.mean);
+    }
+
+    public int dimension() { return transposed.cols(); }
+    public int components() { return transposed.rows(); }
+
+    /** Face média usada na projeção (sem cópia; não modificar). */
+    public double[] mean() { return mean; }
+
+    /** W_finalᵀ (k x dim), linha a linha (sem cópia; não modificar). */
+    public DenseMatrix transposed() { return transposed; }
+
+    public double[] project(double[] input) {
+        double[] out = new double[components()];
+        project(input, out);
+        return out;
+    }
+
+    /** Projeta {@code input} em {@code out} (tamanho k) sem alocar. */
+    public void project(double[] input, double[] out) {
+        if (input.length != dimension()) {
+            throw new IllegalArgumentException("Vetor com dimensão " + input.length + ", esperado " + dimension() + ".");
+        }
+        long start = System.nanoTime();
+        double[] t = transposed.data();
+        int dim = dimension();
+        for (int c = 0; c < out.length; c++) out[c] = VectorKernels.dot(t, c * dim, input, 0, dim) - bias[c];
+        Metrics.PROJECT.recordSince(start);
+        Metrics.VECTORS_PROJECTED.increment();
+    }
+
+    /** Projeta um lote inteiro com um único produto matriz-matriz em blocos: (n x dim)·(k x dim)ᵀ. */
+    public DenseMatrix projectBatch(List<double[]> inputs) {
+        long start = System.nanoTime();
+        int dim = dimension();
+        DenseMatrix batch = new DenseMatrix(inputs.size(), dim);
+        for (int j = 0; j < inputs.size(); j++) {
+            double[] v = inputs.get(j);
+            if (v.length != dim) throw new IllegalArgumentException("Vetor com dimensão " + v.length + ", esperado " + dim + ".");
+            System.arraycopy(v, 0, batch.data(), j * dim, dim);
+        }
+        DenseMatrix coeffs = DenseKernels.multiplyTransposed(batch, transposed);
+        double[] cd = coeffs.data();
+        int k = components();
+        for (int j = 0; j < inputs.size(); j++) {
+            for (int c = 0; c < k; c++) cd[j * k + c] -= bias[c];
+        }
+        Metrics.PROJECT_BATCH.recordSince(start);
+        Metrics.VECTORS_PROJECTED.add(inputs.size());
+        return coeffs;
+    }
+}
@@ -0,0 +1,139 @@
+package FisherfacesModel;
+
+import GalleryIndex.VectorStore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduz as projeções de cada indivíduo aos protótipos usados pelo índice da galeria.
+ */
+final class Prototypes {
+
+    private static final int MEDOID_ITERATIONS = 10;
+
+    record Gallery(VectorStore vectors, List<String> labels) {}
+
+    private Prototypes() {}
+
+    // Os protótipos ficam na mesma precisão da galeria; no modo por amostra a própria galeria é o índice
+    static Gallery build(VectorStore projections, List<String> labels, MatchingMode mode, int perClass) {
+        if (mode == MatchingMode.PER_SAMPLE) return new Gallery(projections, labels);
+
+        Map<String, List<double[]>> classes = new LinkedHashMap<>();
+        for (int i = 0; i < projections.size(); i++) {
+            classes.computeIfAbsent(labels.get(i), l -> new ArrayList<>()).add(projections.row(i));
+        }
+
+        List<double[]> outVectors = new ArrayList<>();
+        List<String> outLabels = new ArrayList<>();
+        for (Map.Entry<String, List<double[]>> entry : classes.entrySet()) {
+            List<double[]> chosen = mode == MatchingMode.CENTROID
+                    ? List.of(centroid(entry.getValue()))
+                    : medoids(entry.getValue(), perClass);
+            for (double[] v : chosen) {
+                outVectors.add(v);
+                outLabels.add(entry.getKey());
+            }
+        }
+        return new Gallery(VectorStore.of(outVectors, projections.precision()), outLabels);
+    }
+
+    private static double[] centroid(List<double[]> points) {
+        double[] c = new double[points.getFirst().length];
+        for (double[] p : points) {
+            for (int i = 0; i < c.length; i++) c[i] += p[i];
+        }
+        for (int i = 0; i < c.length; i++) c[i] /= points.size();
+        return c;
+    }
+
+    /**
+     * k-medoides por iteração de Voronoi: começa pelo ponto mais central e acrescenta sempre o ponto
+     * mais distante dos medoides já escolhidos; depois alterna atribuição e troca do medoide de cada grupo.
+     */
+    private static List<double[]> medoids(List<double[]> points, int k) {
+        int n = points.size();
+        if (n <= k) return points;
+
+        double[][] dist = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                dist[i][j] = dist[j][i] = distanceSquared(points.get(i), points.get(j));
+            }
+        }
+
+        int[] medoids = new int[k];
+        medoids[0] = mostCentral(dist, allIndices(n));
+        for (int c = 1; c < k; c++) {
+            int farthest = -1;
+            double farthestDistance = -1;
+            for (int i = 0; i < n; i++) {
+                double nearest = Double.MAX_VALUE;
+                for (int j = 0; j < c; j++) nearest = Math.min(nearest, dist[i][medoids[j]]);
+                if (nearest > farthestDistance) {
+                    farthestDistance = nearest;
+                    farthest = i;
+                }
+            }
+            medoids[c] = farthest;
+        }
+
+        for (int it = 0; it < MEDOID_ITERATIONS; it++) {
+            List<List<Integer>> groups = new ArrayList<>();
+            for (int c = 0; c < k; c++) groups.add(new ArrayList<>());
+            for (int i = 0; i < n; i++) {
+                int best = 0;
+                for (int c = 1; c < k; c++) {
+                    if (dist[i][medoids[c]] < dist[i][medoids[best]]) best = c;
+                }
+                groups.get(best).add(i);
+            }
+            boolean changed = false;
+            for (int c = 0; c < k; c++) {
+                if (groups.get(c).isEmpty()) continue;
+                int central = mostCentral(dist, groups.get(c));
+                if (central != medoids[c]) {
+                    medoids[c] = central;
+                    changed = true;
+                }
+            }
+            if (!changed) break;
+        }
+
+        List<double[]> result = new ArrayList<>(k);
+        for (int medoid : medoids) result.add(points.get(medoid));
+        return result;
+    }
+
+    private static int mostCentral(double[][] dist, List<Integer> members) {
+        int best = members.getFirst();
+        double bestCost = Double.MAX_VALUE;
+        for (int i : members) {
+            double cost = 0.0;
+            for (int j : members) cost += dist[i][j];
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static List<Integer> allIndices(int n) {
+        List<Integer> all = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) all.add(i);
+        return all;
+    }
+
+    private static double distanceSquared(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            double t = a[i] - b[i];
+            sum += t * t;
+        }
+        return sum;
+    }
+}
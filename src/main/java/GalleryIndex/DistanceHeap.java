@@ -0,0 +1,66 @@
+package GalleryIndex;
+
+import java.util.Arrays;
+
+/**
+ * Heap binário de pares (distância, nó) sobre arrays primitivos, sem um objeto por entrada.
+ * Com {@code maxHeap = true} o topo é a maior distância (útil para manter os k melhores).
+ */
+final class DistanceHeap {
+
+    private final boolean maxHeap;
+    private double[] distances;
+    private int[] nodes;
+    private int size;
+
+    DistanceHeap(int capacity, boolean maxHeap) {
+        this.maxHeap = maxHeap;
+        this.distances = new double[Math.max(1, capacity)];
+        this.nodes = new int[Math.max(1, capacity)];
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    double topDistance() { return distances[0]; }
+    int topNode() { return nodes[0]; }
+
+    void clear() { size = 0; }
+
+    void push(int node, double distance) {
+        if (size == distances.length) {
+            distances = Arrays.copyOf(distances, size * 2);
+            nodes = Arrays.copyOf(nodes, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(distance, distances[parent])) break;
+            distances[i] = distances[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        distances[i] = distance;
+        nodes[i] = node;
+    }
+
+    void pop() {
+        double distance = distances[--size];
+        int node = nodes[size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && before(distances[child + 1], distances[child])) child++;
+            if (!before(distances[child], distance)) break;
+            distances[i] = distances[child];
+            nodes[i] = nodes[child];
+            i = child;
+        }
+        distances[i] = distance;
+        nodes[i] = node;
+    }
+
+    private boolean before(double a, double b) {
+        return maxHeap ? a > b : a < b;
+    }
+}
@@ -0,0 +1,61 @@
+package GalleryIndex;
+
+import java.util.List;
+
+/**
+ * Busca exata: varre todas as projeções, guardadas num {@link VectorStore} contíguo,
+ * e mantém só os k melhores num heap limitado (O(n log k), sem ordenar a galeria inteira).
+ * Com FLOAT32 ou INT8 a busca é exata sobre os vetores guardados, não sobre os originais.
+ */
+public final class FlatGalleryIndex implements GalleryIndex {
+
+    private final VectorStore vectors;
+    private final String[] labels;
+
+    public FlatGalleryIndex(List<double[]> projections, List<String> labels) {
+        this(VectorStore.of(projections, Precision.DOUBLE), labels);
+    }
+
+    public FlatGalleryIndex(VectorStore vectors, List<String> labels) {
+        if (vectors.size() != labels.size()) throw new IllegalArgumentException("Cada projeção precisa de um rótulo.");
+        this.vectors = vectors;
+        this.labels = labels.toArray(new String[0]);
+    }
+
+    @Override
+    public List<Neighbor> search(double[] query, int k) {
+        GalleryIndex.requireNeighbors(k);
+        int n = labels.length;
+        DistanceHeap best = new DistanceHeap(k, true);
+        for (int i = 0; i < n; i++) {
+            double d = vectors.distanceSquared(query, i);
+            if (best.size() < k) {
+                best.push(i, d);
+            } else if (d < best.topDistance()) {
+                best.pop();
+                best.push(i, d);
+            }
+        }
+        return drain(best, labels);
+    }
+
+    @Override
+    public int size() {
+        return labels.length;
+    }
+
+    @Override
+    public VectorStore vectors() {
+        return vectors;
+    }
+
+    // Esvazia um max-heap de k melhores para uma lista do mais próximo para o mais distante
+    static List<Neighbor> drain(DistanceHeap heap, String[] labels) {
+        Neighbor[] ordered = new Neighbor[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = new Neighbor(heap.topNode(), labels[heap.topNode()], heap.topDistance());
+            heap.pop();
+        }
+        return List.of(ordered);
+    }
+}
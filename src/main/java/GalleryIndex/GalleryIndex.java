@@ -0,0 +1,50 @@
+package GalleryIndex;
+
+import java.util.List;
+
+/**
+ * Índice de busca sobre as projeções da galeria no espaço de faces.
+ * É construído uma vez depois do treino e apenas consultado a partir daí.
+ */
+public interface GalleryIndex {
+
+    /** Cria o índice a partir das projeções finais e dos respetivos rótulos (o índice não copia {@code projections}). */
+    @FunctionalInterface
+    interface Factory {
+        GalleryIndex build(VectorStore projections, List<String> labels);
+    }
+
+    /**
+     * Os {@code k} vizinhos mais próximos de {@code query}, do mais próximo para o mais distante
+     * (menos de {@code k} se a galeria for menor).
+     *
+     * @throws IllegalArgumentException se {@code k < 1}
+     */
+    List<Neighbor> search(double[] query, int k);
+
+    int size();
+
+    /** Os vetores indexados, na precisão em que estão guardados. */
+    VectorStore vectors();
+
+    /** Validação de {@code k} comum às implementações de {@link #search}. */
+    static void requireNeighbors(int k) {
+        if (k < 1) throw new IllegalArgumentException("A busca precisa de pelo menos 1 vizinho (k = " + k + ").");
+    }
+
+    /** Busca exata por varredura linear (padrão). */
+    static Factory flat() {
+        return FlatGalleryIndex::new;
+    }
+
+    /**
+     * Busca aproximada HNSW.
+     *
+     * @param m              ligações por nó (mais = melhor recall, mais memória)
+     * @param efConstruction largura da busca durante a construção
+     * @param efSearch       largura da busca na consulta (o principal ajuste recall x latência)
+     */
+    static Factory hnsw(int m, int efConstruction, int efSearch) {
+        return (projections, labels) -> new HnswGalleryIndex(projections, labels, m, efConstruction, efSearch);
+    }
+}
@@ -0,0 +1,242 @@
+package GalleryIndex;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Busca aproximada com HNSW (Hierarchical Navigable Small World, Malkov e Yashunin, 2016).
+ *
+ * Cada projeção é um nó num grafo em camadas; a consulta desce guloso pelas camadas esparsas
+ * e faz uma busca em largura limitada ({@code efSearch}) na camada 0. O custo por consulta
+ * cresce com log(n) em vez de n. {@link #setEfSearch(int)} troca recall por latência sem reconstruir.
+ */
+public final class HnswGalleryIndex implements GalleryIndex {
+
+    private final VectorStore vectors;
+    private final String[] labels;
+
+    private final int m;
+    private final int maxLinksLevel0;
+    private final int efConstruction;
+    private volatile int efSearch;
+
+    // links[nó][camada] = vizinhos; linkCounts[nó][camada] = quantos estão em uso
+    private final int[][][] links;
+    private final int[][] linkCounts;
+    private int entryPoint = -1;
+    private int topLevel = -1;
+
+    public HnswGalleryIndex(List<double[]> projections, List<String> labels, int m, int efConstruction, int efSearch) {
+        this(VectorStore.of(projections, Precision.DOUBLE), labels, m, efConstruction, efSearch);
+    }
+
+    /** O grafo é construído com as distâncias da precisão de {@code vectors}. */
+    public HnswGalleryIndex(VectorStore vectors, List<String> labels, int m, int efConstruction, int efSearch) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1) throw new IllegalArgumentException("Parâmetros HNSW inválidos.");
+        if (vectors.size() != labels.size()) throw new IllegalArgumentException("Cada projeção precisa de um rótulo.");
+        this.vectors = vectors;
+        this.labels = labels.toArray(new String[0]);
+        this.m = m;
+        this.maxLinksLevel0 = 2 * m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+
+        int n = this.labels.length;
+        this.links = new int[n][][];
+        this.linkCounts = new int[n][];
+        Random random = new Random(42L);
+        double levelFactor = 1.0 / Math.log(m);
+        for (int node = 0; node < n; node++) {
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelFactor);
+            insert(node, level);
+        }
+    }
+
+    public void setEfSearch(int efSearch) {
+        if (efSearch < 1) throw new IllegalArgumentException("efSearch deve ser positivo.");
+        this.efSearch = efSearch;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    @Override
+    public int size() {
+        return labels.length;
+    }
+
+    @Override
+    public VectorStore vectors() {
+        return vectors;
+    }
+
+    @Override
+    public List<Neighbor> search(double[] query, int k) {
+        GalleryIndex.requireNeighbors(k);
+        if (entryPoint < 0) return List.of();
+        int current = entryPoint;
+        double currentDistance = distance(query, current);
+        for (int level = topLevel; level > 0; level--) {
+            int[] best = {current};
+            currentDistance = greedy(query, best, currentDistance, level);
+            current = best[0];
+        }
+        DistanceHeap results = searchLayer(query, current, currentDistance, Math.max(efSearch, k), 0);
+        while (results.size() > k) results.pop();
+        return FlatGalleryIndex.drain(results, labels);
+    }
+
+    private void insert(int node, int level) {
+        links[node] = new int[level + 1][];
+        linkCounts[node] = new int[level + 1];
+        for (int l = 0; l <= level; l++) links[node][l] = new int[(l == 0 ? maxLinksLevel0 : m) + 1];
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLevel = level;
+            return;
+        }
+
+        double[] query = vectors.row(node);
+        int current = entryPoint;
+        double currentDistance = distance(query, current);
+        for (int l = topLevel; l > level; l--) {
+            int[] best = {current};
+            currentDistance = greedy(query, best, currentDistance, l);
+            current = best[0];
+        }
+
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            DistanceHeap candidates = searchLayer(query, current, currentDistance, efConstruction, l);
+            int[] selected = selectNeighbors(query, candidates, m);
+            for (int neighbor : selected) {
+                connect(node, neighbor, l);
+                connect(neighbor, node, l);
+            }
+            if (selected.length > 0) {
+                current = selected[0];
+                currentDistance = distance(query, current);
+            }
+        }
+
+        if (level > topLevel) {
+            topLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    // Acrescenta a ligação from -> to; se estourar a capacidade, refaz a seleção heurística dos vizinhos de from
+    private void connect(int from, int to, int level) {
+        int[] list = links[from][level];
+        int count = linkCounts[from][level];
+        int capacity = level == 0 ? maxLinksLevel0 : m;
+        list[count++] = to;
+        if (count > capacity) {
+            double[] base = vectors.row(from);
+            DistanceHeap all = new DistanceHeap(count, true);
+            for (int i = 0; i < count; i++) all.push(list[i], distance(base, list[i]));
+            int[] kept = selectNeighbors(base, all, capacity);
+            System.arraycopy(kept, 0, list, 0, kept.length);
+            count = kept.length;
+        }
+        linkCounts[from][level] = count;
+    }
+
+    /**
+     * Heurística de seleção do artigo original: percorre os candidatos do mais próximo para o mais
+     * distante e só aceita um candidato se ele estiver mais perto da base do que de qualquer vizinho já
+     * aceito. Isso mantém ligações entre grupos distintos (fotos de pessoas diferentes), que a simples
+     * escolha dos M mais próximos perderia. As vagas que sobrarem são preenchidas pelos descartados.
+     * Consome o heap {@code candidates} (max-heap).
+     */
+    private int[] selectNeighbors(double[] base, DistanceHeap candidates, int max) {
+        int total = candidates.size();
+        int[] ordered = new int[total];
+        double[] distances = new double[total];
+        for (int i = total - 1; i >= 0; i--) {
+            ordered[i] = candidates.topNode();
+            distances[i] = candidates.topDistance();
+            candidates.pop();
+        }
+
+        int[] selected = new int[Math.min(max, total)];
+        int count = 0;
+        boolean[] taken = new boolean[total];
+        for (int i = 0; i < total && count < selected.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (vectors.distanceBetween(ordered[i], selected[j]) < distances[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = ordered[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < total && count < selected.length; i++) {
+            if (!taken[i]) selected[count++] = ordered[i];
+        }
+        return selected;
+    }
+
+    // Descida gulosa numa camada: anda para o vizinho mais próximo enquanto houver melhoria
+    private double greedy(double[] query, int[] current, double currentDistance, int level) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int node = current[0];
+            int[] list = links[node][level];
+            int count = linkCounts[node][level];
+            for (int i = 0; i < count; i++) {
+                double d = distance(query, list[i]);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current[0] = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return currentDistance;
+    }
+
+    // Busca em largura limitada a ef resultados; devolve um max-heap com os melhores encontrados
+    private DistanceHeap searchLayer(double[] query, int entry, double entryDistance, int ef, int level) {
+        BitSet visited = new BitSet(labels.length);
+        DistanceHeap candidates = new DistanceHeap(ef, false);
+        DistanceHeap results = new DistanceHeap(ef, true);
+        visited.set(entry);
+        candidates.push(entry, entryDistance);
+        results.push(entry, entryDistance);
+
+        while (!candidates.isEmpty()) {
+            int node = candidates.topNode();
+            double nodeDistance = candidates.topDistance();
+            candidates.pop();
+            if (nodeDistance > results.topDistance() && results.size() >= ef) break;
+
+            if (level >= links[node].length) continue;
+            int[] list = links[node][level];
+            int count = linkCounts[node][level];
+            for (int i = 0; i < count; i++) {
+                int neighbor = list[i];
+                if (visited.get(neighbor)) continue;
+                visited.set(neighbor);
+                double d = distance(query, neighbor);
+                if (results.size() < ef || d < results.topDistance()) {
+                    candidates.push(neighbor, d);
+                    results.push(neighbor, d);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    private double distance(double[] query, int node) {
+        return vectors.distanceSquared(query, node);
+    }
+}
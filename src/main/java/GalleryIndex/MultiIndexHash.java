@@ -0,0 +1,115 @@
+package GalleryIndex;
+
+import java.util.Arrays;
+
+/**
+ * Busca por raio de Hamming sobre hashes de 64 bits com multi-index hashing (Norouzi, Punjani e Fleet,
+ * "Fast Search in Hamming Space with Multi-Index Hashing", 2012): o hash é dividido em 4 blocos de 16 bits,
+ * cada um com a sua tabela. Se dois hashes diferem em no máximo r bits, pelo menos um bloco difere em no
+ * máximo ⌊r/4⌋ (senão seriam 4·(⌊r/4⌋ + 1) > r bits); a busca só olha os baldes a essa distância em cada
+ * bloco (137 por bloco com r até 11) e confere a distância completa de cada candidato.
+ *
+ * Cada balde é uma lista ligada num único {@code long[]}, com o hash completo ao lado do item, para que
+ * conferir um candidato não precise de outro acesso à memória. Um candidato que aparece em vários blocos só
+ * é conferido no primeiro deles em que fica a no máximo ⌊r/4⌋ bits. O item é a ordem de inserção.
+ * Não é thread-safe.
+ */
+public final class MultiIndexHash {
+
+    private static final int BLOCKS = 4;
+    private static final int BLOCK_BITS = 16;
+    private static final int BUCKETS = 1 << BLOCK_BITS;
+
+    private final int[] heads = new int[BLOCKS * BUCKETS]; // primeiro nó de cada balde, -1 se vazio
+    private long[] nodes = new long[2 * 64 * BLOCKS];       // pares (hash, item << 32 | próximo nó)
+    private int size;
+    private long comparisons;
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(int item, int distance);
+    }
+
+    public MultiIndexHash() {
+        Arrays.fill(heads, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Distâncias completas calculadas nas buscas, para comparar com a varredura de todos os hashes. */
+    public long comparisons() {
+        return comparisons;
+    }
+
+    /** Insere {@code hash} e devolve o seu item (a ordem de inserção, a partir de 0). */
+    public int add(long hash) {
+        if (2L * (size + 1) * BLOCKS > nodes.length) nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+        int item = size++;
+        for (int b = 0; b < BLOCKS; b++) {
+            int node = item * BLOCKS + b;
+            int bucket = b * BUCKETS + block(hash, b);
+            nodes[2 * node] = hash;
+            nodes[2 * node + 1] = (long) item << 32 | (heads[bucket] & 0xFFFFFFFFL);
+            heads[bucket] = node;
+        }
+        return item;
+    }
+
+    /** Chama {@code visitor} uma vez para cada item a no máximo {@code radius} bits de {@code hash}, em qualquer ordem. */
+    public void search(long hash, int radius, Visitor visitor) {
+        if (radius < 0 || size == 0) return;
+        int blockRadius = Math.min(radius / BLOCKS, BLOCK_BITS);
+        for (int b = 0; b < BLOCKS; b++) {
+            int key = block(hash, b);
+            visitBucket(b, key, hash, radius, blockRadius, visitor);
+            // Todas as chaves a 1..blockRadius bits de key
+            if (blockRadius >= 1) {
+                for (int i = 0; i < BLOCK_BITS; i++) {
+                    visitBucket(b, key ^ (1 << i), hash, radius, blockRadius, visitor);
+                    if (blockRadius >= 2) {
+                        for (int j = i + 1; j < BLOCK_BITS; j++) {
+                            flips(b, key ^ (1 << i) ^ (1 << j), j + 1, blockRadius - 2, hash, radius, blockRadius, visitor);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Chave já com bits trocados; troca ainda até remaining bits a partir de from
+    private void flips(int b, int key, int from, int remaining, long hash, int radius, int blockRadius, Visitor visitor) {
+        visitBucket(b, key, hash, radius, blockRadius, visitor);
+        if (remaining == 0) return;
+        for (int i = from; i < BLOCK_BITS; i++) {
+            flips(b, key ^ (1 << i), i + 1, remaining - 1, hash, radius, blockRadius, visitor);
+        }
+    }
+
+    private void visitBucket(int b, int key, long hash, int radius, int blockRadius, Visitor visitor) {
+        long[] n = nodes;
+        for (int node = heads[b * BUCKETS + key]; node >= 0; ) {
+            long other = n[2 * node];
+            long link = n[2 * node + 1];
+            node = (int) link;
+            if (seenInEarlierBlock(hash, other, b, blockRadius)) continue;
+            comparisons++;
+            int d = Long.bitCount(hash ^ other);
+            if (d <= radius) visitor.accept((int) (link >>> 32), d);
+        }
+    }
+
+    // Um bloco anterior a b também ficou a no máximo blockRadius bits: o candidato já foi conferido lá
+    private static boolean seenInEarlierBlock(long hash, long other, int b, int blockRadius) {
+        long diff = hash ^ other;
+        for (int e = 0; e < b; e++) {
+            if (Integer.bitCount(block(diff, e)) <= blockRadius) return true;
+        }
+        return false;
+    }
+
+    private static int block(long hash, int b) {
+        return (int) (hash >>> (b * BLOCK_BITS)) & (BUCKETS - 1);
+    }
+}
@@ -0,0 +1,10 @@
+package GalleryIndex;
+
+/**
+ * Um vizinho devolvido pelo índice: posição no índice (projeção ou protótipo), rótulo e distância euclidiana ao quadrado.
+ */
+public record Neighbor(
+    int index,
+    String label,
+    double distance
+) {}
@@ -0,0 +1,16 @@
+package GalleryIndex;
+
+/**
+ * Precisão com que as projeções da galeria ficam guardadas em memória.
+ */
+public enum Precision {
+    /** 8 bytes por coordenada; distâncias exatas (padrão). */
+    DOUBLE,
+    /** 4 bytes por coordenada; erro relativo da ordem de 1e-7 por coordenada. */
+    FLOAT32,
+    /**
+     * 1 byte por coordenada: quantização escalar simétrica, com uma escala por dimensão
+     * (o maior valor absoluto da dimensão vira ±127).
+     */
+    INT8
+}
@@ -0,0 +1,208 @@
+package GalleryIndex;
+
+import LinearAlgebra.VectorKernels;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Vetores da galeria (n x d) num único array contíguo, linha a linha, na {@link Precision} escolhida.
+ * As distâncias são calculadas diretamente sobre a representação guardada, sem descompactar a linha;
+ * só a consulta fica em double. Os laços são os de {@link VectorKernels} (SIMD quando disponível).
+ *
+ * Com {@link Precision#FLOAT32} a galeria ocupa metade da memória e com {@link Precision#INT8} um oitavo
+ * (mais d escalas), o que também reduz na mesma proporção os bytes lidos por uma varredura completa.
+ * Imutável depois de criado.
+ */
+public abstract sealed class VectorStore {
+
+    final int size;
+    final int dimension;
+
+    private VectorStore(int size, int dimension) {
+        this.size = size;
+        this.dimension = dimension;
+    }
+
+    /** Copia as linhas de {@code rows} (todas com o mesmo tamanho). */
+    public static VectorStore of(List<double[]> rows, Precision precision) {
+        int d = rows.isEmpty() ? 0 : rows.getFirst().length;
+        double[] data = new double[rows.size() * d];
+        for (int i = 0; i < rows.size(); i++) {
+            double[] row = rows.get(i);
+            if (row.length != d) throw new IllegalArgumentException("Vetor com dimensão " + row.length + ", esperado " + d + ".");
+            System.arraycopy(row, 0, data, i * d, d);
+        }
+        return of(data, rows.size(), d, precision);
+    }
+
+    /** A partir de {@code rows x dimension} valores linha a linha; com DOUBLE o array é usado sem cópia. */
+    public static VectorStore of(double[] data, int rows, int dimension, Precision precision) {
+        if (data.length != rows * dimension) {
+            throw new IllegalArgumentException("Esperados " + rows * dimension + " valores, recebidos " + data.length + ".");
+        }
+        return switch (precision) {
+            case DOUBLE -> new Doubles(data, rows, dimension);
+            case FLOAT32 -> new Floats(data, rows, dimension);
+            case INT8 -> new Int8(data, rows, dimension);
+        };
+    }
+
+    /** Os mesmos vetores noutra precisão. Converter de uma precisão menor não recupera o que foi perdido. */
+    public VectorStore withPrecision(Precision target) {
+        if (target == precision()) return this;
+        double[] data = new double[size * dimension];
+        for (int i = 0; i < size; i++) copyRow(i, data, i * dimension);
+        return of(data, size, dimension, target);
+    }
+
+    public int size() { return size; }
+    public int dimension() { return dimension; }
+
+    public abstract Precision precision();
+
+    /** Distância euclidiana ao quadrado entre {@code query} e a linha {@code row}. */
+    public abstract double distanceSquared(double[] query, int row);
+
+    /** Distância euclidiana ao quadrado entre duas linhas guardadas. */
+    public abstract double distanceBetween(int a, int b);
+
+    /** Escreve a linha {@code row}, em double, em {@code out[offset..offset+d)}. */
+    public abstract void copyRow(int row, double[] out, int offset);
+
+    /** Bytes ocupados pelos vetores (sem cabeçalhos de objeto). */
+    public abstract long bytes();
+
+    public double[] row(int row) {
+        double[] out = new double[dimension];
+        copyRow(row, out, 0);
+        return out;
+    }
+
+    /** Vista só de leitura; cada {@code get} devolve uma cópia da linha em double. */
+    public List<double[]> asList() {
+        return new AbstractList<>() {
+            @Override
+            public double[] get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static final class Doubles extends VectorStore {
+        private final double[] values;
+
+        Doubles(double[] data, int rows, int dimension) {
+            super(rows, dimension);
+            this.values = data;
+        }
+
+        @Override public Precision precision() { return Precision.DOUBLE; }
+        @Override public long bytes() { return (long) values.length * Double.BYTES; }
+
+        @Override
+        public double distanceSquared(double[] query, int row) {
+            return VectorKernels.distanceSquared(query, 0, values, row * dimension, dimension);
+        }
+
+        @Override
+        public double distanceBetween(int a, int b) {
+            return VectorKernels.distanceSquared(values, a * dimension, values, b * dimension, dimension);
+        }
+
+        @Override
+        public void copyRow(int row, double[] out, int offset) {
+            System.arraycopy(values, row * dimension, out, offset, dimension);
+        }
+    }
+
+    private static final class Floats extends VectorStore {
+        private final float[] values;
+
+        Floats(double[] data, int rows, int dimension) {
+            super(rows, dimension);
+            this.values = new float[data.length];
+            for (int i = 0; i < data.length; i++) values[i] = (float) data[i];
+        }
+
+        @Override public Precision precision() { return Precision.FLOAT32; }
+        @Override public long bytes() { return (long) values.length * Float.BYTES; }
+
+        @Override
+        public double distanceSquared(double[] query, int row) {
+            return VectorKernels.distanceSquared(query, values, row * dimension, dimension);
+        }
+
+        @Override
+        public double distanceBetween(int a, int b) {
+            int offA = a * dimension, offB = b * dimension;
+            double sum = 0.0;
+            for (int c = 0; c < dimension; c++) {
+                double t = values[offA + c] - values[offB + c];
+                sum += t * t;
+            }
+            return sum;
+        }
+
+        @Override
+        public void copyRow(int row, double[] out, int offset) {
+            int off = row * dimension;
+            for (int c = 0; c < dimension; c++) out[offset + c] = values[off + c];
+        }
+    }
+
+    // x ≈ escala[c] * q, com q em [-127, 127]
+    private static final class Int8 extends VectorStore {
+        private final byte[] values;
+        private final double[] scales;
+
+        Int8(double[] data, int rows, int dimension) {
+            super(rows, dimension);
+            this.scales = new double[dimension];
+            for (int i = 0; i < rows; i++) {
+                int off = i * dimension;
+                for (int c = 0; c < dimension; c++) scales[c] = Math.max(scales[c], Math.abs(data[off + c]));
+            }
+            for (int c = 0; c < dimension; c++) scales[c] = scales[c] > 0.0 ? scales[c] / 127.0 : 1.0;
+
+            this.values = new byte[data.length];
+            for (int i = 0; i < rows; i++) {
+                int off = i * dimension;
+                for (int c = 0; c < dimension; c++) {
+                    long q = Math.round(data[off + c] / scales[c]);
+                    values[off + c] = (byte) Math.max(-127, Math.min(127, q));
+                }
+            }
+        }
+
+        @Override public Precision precision() { return Precision.INT8; }
+        @Override public long bytes() { return values.length + (long) scales.length * Double.BYTES; }
+
+        @Override
+        public double distanceSquared(double[] query, int row) {
+            return VectorKernels.distanceSquared(query, values, row * dimension, scales, dimension);
+        }
+
+        @Override
+        public double distanceBetween(int a, int b) {
+            int offA = a * dimension, offB = b * dimension;
+            double sum = 0.0;
+            for (int c = 0; c < dimension; c++) {
+                double t = scales[c] * (values[offA + c] - values[offB + c]);
+                sum += t * t;
+            }
+            return sum;
+        }
+
+        @Override
+        public void copyRow(int row, double[] out, int offset) {
+            int off = row * dimension;
+            for (int c = 0; c < dimension; c++) out[offset + c] = scales[c] * values[off + c];
+        }
+    }
+}
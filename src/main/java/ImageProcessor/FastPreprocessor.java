@@ -0,0 +1,312 @@
+package ImageProcessor;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+
+/**
+ * Pré-processamento sem alocações: redimensionamento por média de áreas, tons de cinza e equalização
+ * numa só passagem sobre os pixels da imagem decodificada, escrevendo num vetor fornecido pelo chamador.
+ *
+ * Os pixels são lidos diretamente do {@code int[]}/{@code byte[]} do raster (RGB, ARGB, BGR, ABGR e
+ * cinza de 8 bits); os outros formatos passam por {@code getRGB} linha a linha num buffer reutilizado.
+ * O redimensionamento repete a acumulação em {@code float} do {@link java.awt.image.AreaAveragingScaleFilter}
+ * (que é o que {@code getScaledInstance(SCALE_SMOOTH)} usa), na mesma ordem, por isso para imagens
+ * opacas o resultado é idêntico ao de {@link ImageProcessor#preprocessAwt}. Em pixels translúcidos a
+ * composição sobre fundo preto é arredondada de outra forma e pode diferir em 1 nível de cinza antes
+ * da equalização.
+ *
+ * Cada instância guarda os seus buffers de trabalho e não é thread-safe: use uma por thread.
+ */
+public final class FastPreprocessor {
+
+    private final int width;
+    private final int height;
+
+    // Acumuladores de uma linha de destino (pré-multiplicados por alfa, como no filtro da AWT)
+    private final float[] reds;
+    private final float[] greens;
+    private final float[] blues;
+    private final float[] alphas;
+
+    private final double[] gray;
+    private final int[] histogram = new int[256];
+    private final double[] equalized = new double[256];
+
+    // Linha de origem em ARGB, reaproveitada entre imagens e aumentada só quando necessário
+    private int[] row = new int[0];
+
+    // Tabela cinza -> ARGB do último ColorModel de 8 bits visto
+    private final int[] grayLut = new int[256];
+    private ColorModel grayLutModel;
+
+    // Origem da imagem em processamento (array do raster e deslocamentos)
+    private int sourceType;
+    private int[] intData;
+    private byte[] byteData;
+    private int sourceBase;
+    private int scanlineStride;
+    private int pixelStride;
+    private final int[] bandOffsets = new int[4];
+
+    public FastPreprocessor() {
+        this(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+    }
+
+    public FastPreprocessor(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.reds = new float[width];
+        this.greens = new float[width];
+        this.blues = new float[width];
+        this.alphas = new float[width];
+        this.gray = new double[width * height];
+    }
+
+    public int vectorSize() {
+        return width * height;
+    }
+
+    /** Escreve o vetor pré-processado ({@code width * height} valores) em {@code out}. */
+    public void preprocess(BufferedImage image, double[] out) {
+        checkOutput(out.length);
+        resampleToGray(image);
+        if (!ImageProcessor.HISTOGRAM_EQUALIZATION) {
+            System.arraycopy(gray, 0, out, 0, gray.length);
+            return;
+        }
+        buildEqualization();
+        for (int i = 0; i < gray.length; i++) out[i] = equalized[bin(gray[i])];
+    }
+
+    /** Como {@link #preprocess(BufferedImage, double[])}, com saída em {@code float}. */
+    public void preprocess(BufferedImage image, float[] out) {
+        checkOutput(out.length);
+        resampleToGray(image);
+        if (!ImageProcessor.HISTOGRAM_EQUALIZATION) {
+            for (int i = 0; i < gray.length; i++) out[i] = (float) gray[i];
+            return;
+        }
+        buildEqualization();
+        for (int i = 0; i < gray.length; i++) out[i] = (float) equalized[bin(gray[i])];
+    }
+
+    private void checkOutput(int length) {
+        if (length != gray.length) {
+            throw new IllegalArgumentException("Vetor de saída com " + length + " posições, esperado " + gray.length + ".");
+        }
+    }
+
+    private static int bin(double value) {
+        return (int) Math.min(255, Math.max(0, value));
+    }
+
+    // Tabela nível -> valor equalizado, com a mesma fórmula de ImageProcessor.equalizeHistogram
+    private void buildEqualization() {
+        double[] cdf = equalized;
+        cdf[0] = histogram[0];
+        for (int i = 1; i < 256; i++) cdf[i] = cdf[i - 1] + histogram[i];
+
+        double minCdf = 0;
+        for (int i = 0; i < 256; i++) {
+            if (cdf[i] > 0) {
+                minCdf = cdf[i];
+                break;
+            }
+        }
+        double totalPixels = gray.length;
+        for (int i = 0; i < 256; i++) equalized[i] = ((cdf[i] - minCdf) / (totalPixels - 1)) * 255.0;
+    }
+
+    /**
+     * Média de áreas de srcW x srcH para width x height, seguida da luminância de cada pixel de destino.
+     * Mesma estrutura de laços do AreaAveragingScaleFilter: cada linha de origem é somada às linhas de
+     * destino que cobre, com peso igual à área de sobreposição (em unidades de 1/(width*height) pixel).
+     */
+    private void resampleToGray(BufferedImage image) {
+        int srcWidth = image.getWidth();
+        int srcHeight = image.getHeight();
+        if (row.length < srcWidth) row = new int[srcWidth];
+        Arrays.fill(histogram, 0);
+        bindSource(image);
+
+        int sy = 0;
+        int syrem = height;
+        int dy = 0;
+        int dyrem = 0;
+        int fetched = -1;
+        while (sy < srcHeight) {
+            if (dyrem == 0) {
+                for (int i = 0; i < width; i++) alphas[i] = reds[i] = greens[i] = blues[i] = 0f;
+                dyrem = srcHeight;
+            }
+            if (fetched != sy) {
+                fetchRow(image, sy, srcWidth);
+                fetched = sy;
+            }
+            int amty = Math.min(syrem, dyrem);
+
+            int sx = 0;
+            int dx = 0;
+            int sxrem = 0;
+            int dxrem = srcWidth;
+            float a = 0f, r = 0f, g = 0f, b = 0f;
+            while (sx < srcWidth) {
+                if (sxrem == 0) {
+                    sxrem = width;
+                    int rgb = row[sx];
+                    a = rgb >>> 24;
+                    r = (rgb >> 16) & 0xff;
+                    g = (rgb >> 8) & 0xff;
+                    b = rgb & 0xff;
+                    if (a != 255.0f) {
+                        float ascale = a / 255.0f;
+                        r *= ascale;
+                        g *= ascale;
+                        b *= ascale;
+                    }
+                }
+                int amtx = Math.min(sxrem, dxrem);
+                float mult = ((float) amtx) * amty;
+                alphas[dx] += mult * a;
+                reds[dx] += mult * r;
+                greens[dx] += mult * g;
+                blues[dx] += mult * b;
+                if ((sxrem -= amtx) == 0) sx++;
+                if ((dxrem -= amtx) == 0) {
+                    dx++;
+                    dxrem = srcWidth;
+                }
+            }
+
+            if ((dyrem -= amty) == 0) {
+                // Ao ampliar, uma linha de origem pode preencher várias linhas de destino inteiras
+                do {
+                    emitRow(dy, srcWidth, srcHeight);
+                    dy++;
+                } while ((syrem -= amty) >= amty && amty == srcHeight);
+            } else {
+                syrem -= amty;
+            }
+            if (syrem == 0) {
+                syrem = height;
+                sy++;
+            }
+        }
+        releaseSource();
+    }
+
+    // Fecha a média de uma linha de destino, compõe sobre preto e converte para cinza
+    private void emitRow(int dy, int srcWidth, int srcHeight) {
+        float origmult = ((float) srcWidth) * srcHeight;
+        int base = dy * width;
+        for (int x = 0; x < width; x++) {
+            float mult = origmult;
+            int a = Math.round(alphas[x] / mult);
+            if (a <= 0) {
+                a = 0;
+            } else if (a >= 255) {
+                a = 255;
+            } else {
+                mult = alphas[x] / 255;
+            }
+            int r = clamp(Math.round(reds[x] / mult));
+            int g = clamp(Math.round(greens[x] / mult));
+            int b = clamp(Math.round(blues[x] / mult));
+            if (a < 255) {
+                // A imagem redimensionada é desenhada num BufferedImage RGB vazio (preto)
+                r = (r * a + 127) / 255;
+                g = (g * a + 127) / 255;
+                b = (b * a + 127) / 255;
+            }
+            double value = 0.299 * r + 0.587 * g + 0.114 * b;
+            gray[base + x] = value;
+            histogram[bin(value)]++;
+        }
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : Math.min(v, 255);
+    }
+
+    // Prepara a leitura direta do raster: localiza o array e os deslocamentos uma vez por imagem
+    private void bindSource(BufferedImage image) {
+        Raster raster = image.getRaster();
+        int tx = -raster.getSampleModelTranslateX();
+        int ty = -raster.getSampleModelTranslateY();
+        sourceType = image.getType();
+        switch (sourceType) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+                SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+                intData = buffer.getData();
+                scanlineStride = sm.getScanlineStride();
+                pixelStride = 1;
+                sourceBase = buffer.getOffset() + ty * scanlineStride + tx;
+            }
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY -> {
+                DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+                ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+                byteData = buffer.getData();
+                scanlineStride = sm.getScanlineStride();
+                pixelStride = sm.getPixelStride();
+                sourceBase = buffer.getOffset() + ty * scanlineStride + tx * pixelStride;
+                int[] offsets = sm.getBandOffsets();
+                System.arraycopy(offsets, 0, bandOffsets, 0, offsets.length);
+                if (sourceType == BufferedImage.TYPE_BYTE_GRAY) grayLut(image.getColorModel());
+            }
+            default -> { }
+        }
+    }
+
+    private void releaseSource() {
+        intData = null;
+        byteData = null;
+    }
+
+    // Lê a linha y da imagem em ARGB não pré-multiplicado para o buffer row
+    private void fetchRow(BufferedImage image, int y, int srcWidth) {
+        int off = sourceBase + y * scanlineStride;
+        switch (sourceType) {
+            case BufferedImage.TYPE_INT_RGB -> {
+                for (int x = 0; x < srcWidth; x++) row[x] = intData[off + x] | 0xFF000000;
+            }
+            case BufferedImage.TYPE_INT_ARGB -> System.arraycopy(intData, off, row, 0, srcWidth);
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                int r = bandOffsets[0], g = bandOffsets[1], b = bandOffsets[2];
+                for (int x = 0, p = off; x < srcWidth; x++, p += pixelStride) {
+                    row[x] = 0xFF000000 | (byteData[p + r] & 0xff) << 16 | (byteData[p + g] & 0xff) << 8 | (byteData[p + b] & 0xff);
+                }
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR -> {
+                int r = bandOffsets[0], g = bandOffsets[1], b = bandOffsets[2], a = bandOffsets[3];
+                for (int x = 0, p = off; x < srcWidth; x++, p += pixelStride) {
+                    row[x] = (byteData[p + a] & 0xff) << 24 | (byteData[p + r] & 0xff) << 16
+                            | (byteData[p + g] & 0xff) << 8 | (byteData[p + b] & 0xff);
+                }
+            }
+            case BufferedImage.TYPE_BYTE_GRAY -> {
+                int v = bandOffsets[0];
+                for (int x = 0, p = off; x < srcWidth; x++, p += pixelStride) row[x] = grayLut[byteData[p + v] & 0xff];
+            }
+            default -> image.getRGB(0, y, srcWidth, 1, row, 0, srcWidth);
+        }
+    }
+
+    // O cinza de 8 bits passa pela conversão de espaço de cor do ColorModel, como em getRGB
+    private void grayLut(ColorModel model) {
+        if (!model.equals(grayLutModel)) {
+            byte[] pixel = new byte[1];
+            for (int v = 0; v < 256; v++) {
+                pixel[0] = (byte) v;
+                grayLut[v] = model.getRGB(pixel);
+            }
+            grayLutModel = model;
+        }
+    }
+}
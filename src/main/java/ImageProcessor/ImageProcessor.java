@@ -1,24 +1,153 @@
 package ImageProcessor;
 
+import Metrics.Metrics;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Locale;
 import javax.imageio.ImageIO;
 
+/**
+ * Decodificação e pré-processamento das imagens para uma resolução fixa por instância (largura x altura do
+ * vetor). A resolução é uma propriedade do modelo treinado ({@code FisherfacesModel.getImageWidth()/Height()}):
+ * reconhecer com um modelo exige um processador com a mesma resolução.
+ */
 public class ImageProcessor {
 
+    /** Resolução padrão (e a de modelos gravados antes de a resolução ser configurável). */
     public static final int IMAGE_WIDTH = 100;
     public static final int IMAGE_HEIGHT = 100;
     public static final int VECTOR_SIZE = IMAGE_WIDTH * IMAGE_HEIGHT;
+    /** Menor largura e altura aceitas: abaixo disto a equalização e o LDA deixam de fazer sentido. */
+    public static final int MIN_SIDE = 8;
+    public static final boolean HISTOGRAM_EQUALIZATION = true;
+
+    /** Propriedade de sistema que volta à decodificação em resolução cheia ({@code ImageIO.read}) quando {@code false}. */
+    public static final String SUBSAMPLING_PROPERTY = "fisherfaces.subamostragem";
+    public static final boolean SUBSAMPLED_DECODE = Boolean.parseBoolean(System.getProperty(SUBSAMPLING_PROPERTY, "true"));
+    /**
+     * Modo de decodificação gravado nos modelos e nas chaves do cache de vetores: o fator mínimo de
+     * sobreamostragem da {@link SubsampledDecoder}, ou 0 com a leitura em resolução cheia.
+     */
+    public static final int DECODE_MODE = SUBSAMPLED_DECODE ? SubsampledDecoder.MIN_OVERSAMPLING : 0;
+
+    private final int width;
+    private final int height;
+    private final SubsampledDecoder subsampled;
+
+    // Buffers de trabalho do pré-processamento rápido, um conjunto por thread
+    private final ThreadLocal<FastPreprocessor> fast;
+
+    public ImageProcessor() {
+        this(IMAGE_WIDTH, IMAGE_HEIGHT);
+    }
+
+    public ImageProcessor(int width, int height) {
+        if (width < MIN_SIDE || height < MIN_SIDE) {
+            throw new IllegalArgumentException(String.format("Resolução %dx%d abaixo do mínimo de %dx%d.", width, height, MIN_SIDE, MIN_SIDE));
+        }
+        this.width = width;
+        this.height = height;
+        this.subsampled = new SubsampledDecoder(width, height);
+        this.fast = ThreadLocal.withInitial(() -> new FastPreprocessor(width, height));
+    }
+
+    /** Processador para uma resolução escrita como {@code 64x48}, ou {@code 64} para 64x64. */
+    public static ImageProcessor parse(String resolution) {
+        String[] parts = resolution.trim().toLowerCase(Locale.ROOT).split("x");
+        try {
+            if (parts.length == 1) return new ImageProcessor(Integer.parseInt(parts[0]), Integer.parseInt(parts[0]));
+            if (parts.length == 2) return new ImageProcessor(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            // mensagem abaixo
+        }
+        throw new IllegalArgumentException("Resolução inválida: " + resolution + " (use LARGURAxALTURA, ex.: 64x64).");
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /** Tamanho dos vetores produzidos: {@code width * height}. */
+    public int vectorSize() {
+        return width * height;
+    }
+
+    public String resolution() {
+        return width + "x" + height;
+    }
 
     public double[] processImage(File imageFile) throws IOException {
-        BufferedImage originalImage = ImageIO.read(imageFile);
-        if (originalImage == null) throw new IOException("Arquivo não é uma imagem válida: " + imageFile.getName());
+        return preprocess(decode(imageFile));
+    }
+
+    /**
+     * Etapa 1: decodificação do arquivo (limitada por E/S e pelo decodificador JPEG/PNG). Fotos grandes já saem
+     * reduzidas pelo {@link SubsampledDecoder}, salvo com {@code -Dfisherfaces.subamostragem=false}.
+     */
+    public BufferedImage decode(File imageFile) throws IOException {
+        return decode(SUBSAMPLED_DECODE ? () -> subsampled.read(imageFile) : () -> ImageIO.read(imageFile), imageFile.getName());
+    }
+
+    /** Como {@link #decode(File)}, a partir do conteúdo já lido do arquivo (ex.: pelo cache de vetores). */
+    public BufferedImage decode(byte[] content, String name) throws IOException {
+        return decode(SUBSAMPLED_DECODE ? () -> subsampled.read(content)
+                : () -> ImageIO.read(new ByteArrayInputStream(content)), name);
+    }
+
+    private interface ImageSource {
+        BufferedImage read() throws IOException;
+    }
+
+    private static BufferedImage decode(ImageSource source, String name) throws IOException {
+        long start = System.nanoTime();
+        BufferedImage originalImage = null;
+        try {
+            originalImage = source.read();
+        } finally {
+            if (originalImage == null) Metrics.DECODE_FAILURES.increment();
+        }
+        if (originalImage == null) throw new IOException("Arquivo não é uma imagem válida: " + name);
+        Metrics.DECODE.recordSince(start);
+        Metrics.IMAGES_DECODED.increment();
+        return originalImage;
+    }
 
-        BufferedImage resizedImage = resizeImage(originalImage, IMAGE_WIDTH, IMAGE_HEIGHT);
+    /** Etapa 2: redimensionamento, tons de cinza e equalização (só CPU). */
+    public double[] preprocess(BufferedImage originalImage) {
+        double[] out = new double[vectorSize()];
+        preprocess(originalImage, out);
+        return out;
+    }
+
+    /** Pré-processa em {@code out} (tamanho {@link #vectorSize()}) sem alocar, via {@link FastPreprocessor}. */
+    public void preprocess(BufferedImage originalImage, double[] out) {
+        long start = System.nanoTime();
+        fast.get().preprocess(originalImage, out);
+        Metrics.PREPROCESS.recordSince(start);
+    }
+
+    public void preprocess(BufferedImage originalImage, float[] out) {
+        long start = System.nanoTime();
+        fast.get().preprocess(originalImage, out);
+        Metrics.PREPROCESS.recordSince(start);
+    }
+
+    /**
+     * Caminho original pela AWT ({@code getScaledInstance} + {@code getRGB} pixel a pixel).
+     * Mantido como referência para validar o {@link FastPreprocessor}.
+     */
+    public double[] preprocessAwt(BufferedImage originalImage) {
+        BufferedImage resizedImage = resizeImage(originalImage, width, height);
         double[] grayscale = convertToGrayscaleVector(resizedImage);
-        return equalizeHistogram(grayscale);
+        return HISTOGRAM_EQUALIZATION ? equalizeHistogram(grayscale) : grayscale;
     }
 
     /**
@@ -26,7 +155,7 @@ public class ImageProcessor {
      * Normaliza os valores para 0-255.
      */
     public void saveVectorAsImage(double[] vector, String outputPath) {
-        if (vector.length != VECTOR_SIZE) {
+        if (vector.length != vectorSize()) {
             System.err.println("Tamanho do vetor incorreto para imagem: " + vector.length);
             return;
         }
@@ -45,7 +174,7 @@ public class ImageProcessor {
         }
     }
 
-    private static BufferedImage getBufferedImage(double[] vector) {
+    private BufferedImage getBufferedImage(double[] vector) {
         double min = Double.MAX_VALUE;
         double max = -Double.MAX_VALUE;
         for (double v : vector) {
@@ -53,10 +182,10 @@ public class ImageProcessor {
             if (v > max) max = v;
         }
 
-        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         int idx = 0;
-        for (int y = 0; y < IMAGE_HEIGHT; y++) {
-            for (int x = 0; x < IMAGE_WIDTH; x++) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
                 double val = vector[idx++];
                 // Mapeamento linear de [min, max] para [0, 255]
                 int gray = (int) ((val - min) / (max - min) * 255.0);
@@ -71,10 +200,10 @@ public class ImageProcessor {
     }
 
     private double[] convertToGrayscaleVector(BufferedImage img) {
-        double[] vector = new double[VECTOR_SIZE];
+        double[] vector = new double[vectorSize()];
         int idx = 0;
-        for (int y = 0; y < IMAGE_HEIGHT; y++) {
-            for (int x = 0; x < IMAGE_WIDTH; x++) {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
                 int rgb = img.getRGB(x, y);
                 int r = (rgb >> 16) & 0xFF;
                 int g = (rgb >> 8) & 0xFF;
@@ -0,0 +1,115 @@
+package ImageProcessor;
+
+import java.util.Arrays;
+
+/**
+ * Assinatura perceptual de um vetor já pré-processado (tons de cinza equalizados, {@code width x height}),
+ * para achar fotos quase iguais: rajadas, reenvios, a mesma foto recomprimida ou redimensionada.
+ *
+ * O hash é o pHash: o vetor é reduzido por média de áreas para 32x32, passa por uma DCT 2D e dos 8x8
+ * coeficientes de menor frequência os 63 que não são a média (DC) viram bits, 1 se acima da mediana deles.
+ * Fotos quase iguais dão hashes a poucos bits de distância (Hamming), qualquer que seja a resolução do vetor.
+ * A miniatura 16x16 acompanha o hash para confirmar um candidato pela diferença média de pixels, já que
+ * rostos diferentes, depois de recortados e equalizados, também podem ter hashes próximos.
+ */
+public final class PerceptualHash {
+
+    /** Lado da imagem reduzida sobre a qual a DCT é calculada. */
+    public static final int SIDE = 32;
+    /** Lado da miniatura guardada para a confirmação. */
+    public static final int THUMBNAIL_SIDE = 16;
+
+    // Coeficientes de baixa frequência usados em cada direção
+    private static final int BLOCK = 8;
+    // COS[u * SIDE + x] = cos((2x + 1)·u·π / 2·SIDE), só para u < BLOCK
+    private static final double[] COS = new double[BLOCK * SIDE];
+
+    static {
+        for (int u = 0; u < BLOCK; u++) {
+            for (int x = 0; x < SIDE; x++) COS[u * SIDE + x] = Math.cos((2 * x + 1) * u * Math.PI / (2.0 * SIDE));
+        }
+    }
+
+    private PerceptualHash() {}
+
+    /** Hash de 64 bits (o bit 0, da componente DC, é sempre 0) e miniatura de {@code THUMBNAIL_SIDE²} tons de cinza. */
+    public record Signature(long hash, byte[] thumbnail) {}
+
+    public static Signature of(double[] vector, int width, int height) {
+        if (vector.length != width * height) {
+            throw new IllegalArgumentException("Vetor com " + vector.length + " pixels para " + width + "x" + height + ".");
+        }
+        double[] small = reduce(vector, width, height);
+
+        // DCT separável, só nas BLOCK primeiras frequências: primeiro as linhas, depois as colunas
+        double[] rows = new double[SIDE * BLOCK];
+        for (int y = 0; y < SIDE; y++) {
+            for (int u = 0; u < BLOCK; u++) {
+                double sum = 0.0;
+                for (int x = 0; x < SIDE; x++) sum += small[y * SIDE + x] * COS[u * SIDE + x];
+                rows[y * BLOCK + u] = sum;
+            }
+        }
+        double[] coeffs = new double[BLOCK * BLOCK];
+        for (int v = 0; v < BLOCK; v++) {
+            for (int u = 0; u < BLOCK; u++) {
+                double sum = 0.0;
+                for (int y = 0; y < SIDE; y++) sum += COS[v * SIDE + y] * rows[y * BLOCK + u];
+                coeffs[v * BLOCK + u] = sum;
+            }
+        }
+
+        double[] ac = Arrays.copyOfRange(coeffs, 1, coeffs.length);
+        Arrays.sort(ac);
+        double median = ac[ac.length / 2];
+        long hash = 0L;
+        for (int i = 1; i < coeffs.length; i++) {
+            if (coeffs[i] > median) hash |= 1L << i;
+        }
+        return new Signature(hash, thumbnail(small));
+    }
+
+    /** Número de bits diferentes entre dois hashes. */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /** Diferença média por pixel entre duas miniaturas, em níveis de cinza (0 a 255). */
+    public static double meanDifference(byte[] a, byte[] b) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) sum += Math.abs((a[i] & 0xFF) - (b[i] & 0xFF));
+        return (double) sum / a.length;
+    }
+
+    // Média de áreas para SIDE x SIDE; com lados menores que SIDE cada pixel cobre mais de uma célula
+    private static double[] reduce(double[] vector, int width, int height) {
+        double[] out = new double[SIDE * SIDE];
+        for (int ty = 0; ty < SIDE; ty++) {
+            int y0 = ty * height / SIDE, y1 = Math.max(y0 + 1, (ty + 1) * height / SIDE);
+            for (int tx = 0; tx < SIDE; tx++) {
+                int x0 = tx * width / SIDE, x1 = Math.max(x0 + 1, (tx + 1) * width / SIDE);
+                double sum = 0.0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) sum += vector[y * width + x];
+                }
+                out[ty * SIDE + tx] = sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+        return out;
+    }
+
+    private static byte[] thumbnail(double[] small) {
+        int f = SIDE / THUMBNAIL_SIDE;
+        byte[] out = new byte[THUMBNAIL_SIDE * THUMBNAIL_SIDE];
+        for (int ty = 0; ty < THUMBNAIL_SIDE; ty++) {
+            for (int tx = 0; tx < THUMBNAIL_SIDE; tx++) {
+                double sum = 0.0;
+                for (int y = 0; y < f; y++) {
+                    for (int x = 0; x < f; x++) sum += small[(ty * f + y) * SIDE + tx * f + x];
+                }
+                out[ty * THUMBNAIL_SIDE + tx] = (byte) Math.clamp(Math.round(sum / (f * f)), 0, 255);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,90 @@
+package ImageProcessor;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Decodificação já reduzida: em vez de {@code ImageIO.read} (que monta a foto inteira, 36 MB para uma foto
+ * de 12 megapixels em RGB), lê só uma em cada {@code f} linhas e colunas com
+ * {@link ImageReadParam#setSourceSubsampling}, escolhendo {@code f} a partir do tamanho final: a imagem
+ * decodificada continua com pelo menos {@link #MIN_OVERSAMPLING} vezes a largura e a altura do vetor,
+ * para que a média de áreas do {@link FastPreprocessor} ainda tenha vários pixels por ponto do vetor.
+ *
+ * Os leitores ({@link ImageReader}) são reaproveitados por thread, um por formato, e os metadados
+ * (EXIF, perfis de cor) não são lidos. O decodificador ainda percorre o arquivo inteiro (a descompressão do
+ * JPEG e do PNG é sequencial), mas o raster alocado fica {@code f²} vezes menor. Imagens menores que
+ * {@code MIN_OVERSAMPLING} vezes o vetor são lidas inteiras, como antes.
+ */
+public final class SubsampledDecoder {
+
+    /** Mínimo de pixels decodificados por pixel do vetor, em cada direção. */
+    public static final int MIN_OVERSAMPLING = 4;
+
+    private static final ThreadLocal<List<ImageReader>> READERS = ThreadLocal.withInitial(ArrayList::new);
+
+    private final int targetWidth;
+    private final int targetHeight;
+
+    public SubsampledDecoder(int targetWidth, int targetHeight) {
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+    }
+
+    /** A imagem reduzida, ou null se nenhum leitor reconhecer o formato (como {@code ImageIO.read}). */
+    public BufferedImage read(File file) throws IOException {
+        try (ImageInputStream in = new FileImageInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /** Como {@link #read(File)}, a partir do conteúdo já lido (sem o arquivo de cache temporário do ImageIO). */
+    public BufferedImage read(byte[] content) throws IOException {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(content))) {
+            return read(in);
+        }
+    }
+
+    /** Fator de subamostragem para uma imagem {@code width x height}. */
+    public int factor(int width, int height) {
+        int f = Math.min(width / (MIN_OVERSAMPLING * targetWidth), height / (MIN_OVERSAMPLING * targetHeight));
+        return Math.max(1, f);
+    }
+
+    private BufferedImage read(ImageInputStream in) throws IOException {
+        ImageReader reader = readerFor(in);
+        if (reader == null) return null;
+        try {
+            reader.setInput(in, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            int f = factor(reader.getWidth(0), reader.getHeight(0));
+            if (f > 1) param.setSourceSubsampling(f, f, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.setInput(null);
+        }
+    }
+
+    // Leitor desta thread para o formato do arquivo; o primeiro de cada formato é criado pelo ImageIO
+    private static ImageReader readerFor(ImageInputStream in) throws IOException {
+        List<ImageReader> readers = READERS.get();
+        for (ImageReader reader : readers) {
+            if (reader.getOriginatingProvider().canDecodeInput(in)) return reader;
+        }
+        Iterator<ImageReader> found = ImageIO.getImageReaders(in);
+        if (!found.hasNext()) return null;
+        ImageReader reader = found.next();
+        readers.add(reader);
+        return reader;
+    }
+}
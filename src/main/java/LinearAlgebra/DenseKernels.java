@@ -0,0 +1,276 @@
+package LinearAlgebra;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rotinas de álgebra linear densa sobre {@link DenseMatrix} (row-major).
+ *
+ * As rotinas são divididas em blocos que cabem na cache e executadas em paralelo
+ * no ForkJoinPool comum, por isso o tempo cai com o número de núcleos.
+ * Nenhuma delas cria cópias transpostas das entradas.
+ */
+public final class DenseKernels {
+
+    // Lado do bloco de saída em AᵀB: 64x64 doubles = 32 KB de acumulador por tarefa
+    private static final int TILE = 64;
+    // Abaixo disto não compensa dividir as linhas em tarefas separadas
+    private static final int MIN_ROWS_PER_TASK = 1024;
+    private static final int ROW_GRAIN = 64;
+    private static final int MIN_FLOPS_PER_TASK = 1 << 16;
+    private static final int K_BLOCK = 256;
+
+    private DenseKernels() {}
+
+    @FunctionalInterface
+    public interface RangeBody {
+        void run(int from, int to);
+    }
+
+    /**
+     * Executa {@code body} sobre [from, to) dividindo o intervalo recursivamente (fork-join)
+     * até pedaços de no máximo {@code grain} elementos.
+     */
+    public static void parallelFor(int from, int to, int grain, RangeBody body) {
+        if (to - from <= grain || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+            body.run(from, to);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeTask(from, to, Math.max(1, grain), body));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to, grain;
+        private final transient RangeBody body;
+
+        RangeTask(int from, int to, int grain, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, grain, body), new RangeTask(mid, to, grain, body));
+        }
+    }
+
+    /** Matriz de Gram AᵀA (cols x cols). Só o triângulo superior de blocos é calculado e depois espelhado. */
+    public static DenseMatrix gram(DenseMatrix a) {
+        return transposeMultiply(a, a, true);
+    }
+
+    /**
+     * Atualização simétrica no lugar C += AᵀA, para A (n x p) e C (p x p) simétrica.
+     * Só os blocos do triângulo superior são acumulados (cada tarefa escreve num bloco próprio de C,
+     * sem matrizes temporárias) e depois espelhados.
+     */
+    public static void symmetricRankUpdate(DenseMatrix c, DenseMatrix a) {
+        int n = a.rows(), p = a.cols();
+        if (c.rows() != p || c.cols() != p) {
+            throw new IllegalArgumentException(String.format("Dimensões incompatíveis para C += AᵀA: %dx%d e %dx%d.",
+                    c.rows(), c.cols(), n, p));
+        }
+        int tiles = (p + TILE - 1) / TILE;
+        int[] tileList = new int[tiles * (tiles + 1) / 2];
+        int count = 0;
+        for (int bi = 0; bi < tiles; bi++) {
+            for (int bj = bi; bj < tiles; bj++) tileList[count++] = bi * tiles + bj;
+        }
+        double[] ad = a.data(), cd = c.data();
+        parallelFor(0, count, 1, (from, to) -> {
+            for (int t = from; t < to; t++) {
+                int i0 = (tileList[t] / tiles) * TILE, i1 = Math.min(p, i0 + TILE);
+                int j0 = (tileList[t] % tiles) * TILE, j1 = Math.min(p, j0 + TILE);
+                for (int r = 0; r < n; r++) {
+                    int aOff = r * p;
+                    for (int i = i0; i < i1; i++) {
+                        double ai = ad[aOff + i];
+                        if (ai == 0.0) continue;
+                        int cOff = i * p;
+                        // No bloco diagonal basta j >= i
+                        for (int j = Math.max(j0, i); j < j1; j++) cd[cOff + j] += ai * ad[aOff + j];
+                    }
+                }
+            }
+        });
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < i; j++) cd[i * p + j] = cd[j * p + i];
+        }
+    }
+
+    /** AᵀB, para A (n x p) e B (n x q), sem materializar Aᵀ. */
+    public static DenseMatrix transposeMultiply(DenseMatrix a, DenseMatrix b) {
+        return transposeMultiply(a, b, false);
+    }
+
+    /** Aᵀ·v, para A (n x p) e v de tamanho n. */
+    public static double[] transposeOperate(DenseMatrix a, double[] v) {
+        return transposeMultiply(a, new DenseMatrix(v.length, 1, v), false).data();
+    }
+
+    private static DenseMatrix transposeMultiply(DenseMatrix a, DenseMatrix b, boolean symmetric) {
+        if (a.rows() != b.rows()) {
+            throw new IllegalArgumentException(String.format("Dimensões incompatíveis para AᵀB: %dx%d e %dx%d.",
+                    a.rows(), a.cols(), b.rows(), b.cols()));
+        }
+        int n = a.rows(), p = a.cols(), q = b.cols();
+        if (p == 0 || q == 0) return new DenseMatrix(p, q);
+        int tilesI = (p + TILE - 1) / TILE;
+        int tilesJ = (q + TILE - 1) / TILE;
+
+        // Lista dos blocos de saída; no caso simétrico só os blocos com bi <= bj
+        int[] tileList = new int[tilesI * tilesJ];
+        int tileCount = 0;
+        for (int bi = 0; bi < tilesI; bi++) {
+            for (int bj = symmetric ? bi : 0; bj < tilesJ; bj++) tileList[tileCount++] = bi * tilesJ + bj;
+        }
+
+        // Poucos blocos (saída pequena, n grande): também dividir as linhas e somar as parciais no fim
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int rowSplits = 1;
+        if (tileCount < parallelism) {
+            rowSplits = Math.max(1, Math.min((parallelism + tileCount - 1) / tileCount, n / MIN_ROWS_PER_TASK));
+        }
+        int splits = rowSplits;
+        int rowsPerSplit = (n + splits - 1) / splits;
+
+        double[] partials = new double[Math.multiplyExact(splits, Math.multiplyExact(p, q))];
+        int tiles = tileCount;
+        parallelFor(0, tiles * splits, 1, (from, to) -> {
+            double[] acc = new double[TILE * TILE];
+            for (int t = from; t < to; t++) {
+                int tile = tileList[t % tiles];
+                int split = t / tiles;
+                int i0 = (tile / tilesJ) * TILE, i1 = Math.min(p, i0 + TILE);
+                int j0 = (tile % tilesJ) * TILE, j1 = Math.min(q, j0 + TILE);
+                int r0 = split * rowsPerSplit, r1 = Math.min(n, r0 + rowsPerSplit);
+                accumulateTile(a, b, i0, i1, j0, j1, r0, r1, acc);
+
+                int width = j1 - j0;
+                int base = split * p * q;
+                for (int i = i0; i < i1; i++) {
+                    System.arraycopy(acc, (i - i0) * width, partials, base + i * q + j0, width);
+                }
+            }
+        });
+
+        double[] out = partials;
+        if (splits > 1) {
+            out = new double[Math.multiplyExact(p, q)];
+            for (int s = 0; s < splits; s++) {
+                int base = s * p * q;
+                for (int x = 0; x < p * q; x++) out[x] += partials[base + x];
+            }
+        }
+        if (symmetric) {
+            for (int i = 0; i < p; i++) {
+                for (int j = 0; j < i; j++) out[i * q + j] = out[j * q + i];
+            }
+        }
+        return new DenseMatrix(p, q, out);
+    }
+
+    // acc[i - i0][j - j0] = Σ_r A[r][i] * B[r][j], para r em [r0, r1)
+    private static void accumulateTile(DenseMatrix a, DenseMatrix b, int i0, int i1, int j0, int j1,
+                                       int r0, int r1, double[] acc) {
+        double[] ad = a.data(), bd = b.data();
+        int p = a.cols(), q = b.cols();
+        int width = j1 - j0;
+        Arrays.fill(acc, 0, (i1 - i0) * width, 0.0);
+        for (int r = r0; r < r1; r++) {
+            int aOff = r * p;
+            int bOff = r * q + j0;
+            for (int i = i0; i < i1; i++) {
+                double ai = ad[aOff + i];
+                if (ai == 0.0) continue;
+                int accOff = (i - i0) * width;
+                for (int j = 0; j < width; j++) acc[accOff + j] += ai * bd[bOff + j];
+            }
+        }
+    }
+
+    /** A·v, para A (n x p) e v de tamanho p. */
+    public static double[] operate(DenseMatrix a, double[] v) {
+        if (a.cols() != v.length) {
+            throw new IllegalArgumentException(String.format("Dimensões incompatíveis para A·v: %dx%d e %d.", a.rows(), a.cols(), v.length));
+        }
+        double[] ad = a.data();
+        int p = a.cols();
+        double[] out = new double[a.rows()];
+        parallelFor(0, a.rows(), Math.max(ROW_GRAIN, MIN_FLOPS_PER_TASK / Math.max(1, p)), (from, to) -> {
+            for (int i = from; i < to; i++) out[i] = VectorKernels.dot(ad, i * p, v, 0, p);
+        });
+        return out;
+    }
+
+    /** A·B, para A (n x p) e B (p x q). Paralelo por blocos de linhas de A, com blocos de K para reaproveitar B na cache. */
+    public static DenseMatrix multiply(DenseMatrix a, DenseMatrix b) {
+        if (a.cols() != b.rows()) {
+            throw new IllegalArgumentException(String.format("Dimensões incompatíveis para A·B: %dx%d e %dx%d.",
+                    a.rows(), a.cols(), b.rows(), b.cols()));
+        }
+        int p = a.cols(), q = b.cols();
+        double[] ad = a.data(), bd = b.data();
+        double[] out = new double[Math.multiplyExact(a.rows(), q)];
+        parallelFor(0, a.rows(), ROW_GRAIN, (from, to) -> {
+            for (int k0 = 0; k0 < p; k0 += K_BLOCK) {
+                int k1 = Math.min(p, k0 + K_BLOCK);
+                for (int i = from; i < to; i++) {
+                    int aOff = i * p, cOff = i * q;
+                    for (int k = k0; k < k1; k++) {
+                        double aik = ad[aOff + k];
+                        if (aik == 0.0) continue;
+                        int bOff = k * q;
+                        for (int j = 0; j < q; j++) out[cOff + j] += aik * bd[bOff + j];
+                    }
+                }
+            }
+        });
+        return new DenseMatrix(a.rows(), q, out);
+    }
+
+    /**
+     * A·Bᵀ, para A (n x d) e B (q x d): cada saída é o produto escalar de duas linhas contíguas.
+     * Blocos de linhas de A e de B e blocos de d mantêm as duas fatias na cache; paralelo por blocos de A.
+     */
+    public static DenseMatrix multiplyTransposed(DenseMatrix a, DenseMatrix b) {
+        if (a.cols() != b.cols()) {
+            throw new IllegalArgumentException(String.format("Dimensões incompatíveis para A·Bᵀ: %dx%d e %dx%d.",
+                    a.rows(), a.cols(), b.rows(), b.cols()));
+        }
+        int d = a.cols(), q = b.rows();
+        double[] ad = a.data(), bd = b.data();
+        double[] out = new double[Math.multiplyExact(a.rows(), q)];
+        int rowBlock = 16;
+        parallelFor(0, (a.rows() + rowBlock - 1) / rowBlock, 1, (from, to) -> {
+            for (int blk = from; blk < to; blk++) {
+                int i0 = blk * rowBlock, i1 = Math.min(a.rows(), i0 + rowBlock);
+                for (int j0 = 0; j0 < q; j0 += rowBlock) {
+                    int j1 = Math.min(q, j0 + rowBlock);
+                    for (int k0 = 0; k0 < d; k0 += 4 * K_BLOCK) {
+                        int k1 = Math.min(d, k0 + 4 * K_BLOCK);
+                        for (int i = i0; i < i1; i++) {
+                            int aOff = i * d;
+                            for (int j = j0; j < j1; j++) {
+                                out[i * q + j] += VectorKernels.dot(ad, aOff + k0, bd, j * d + k0, k1 - k0);
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        return new DenseMatrix(a.rows(), q, out);
+    }
+}
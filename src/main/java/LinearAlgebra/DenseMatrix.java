@@ -0,0 +1,64 @@
+package LinearAlgebra;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Matriz densa armazenada num único {@code double[]} contíguo, linha a linha (row-major).
+ * O elemento (i, j) fica em {@code data[i * cols + j]}.
+ */
+public final class DenseMatrix {
+
+    private final int rows;
+    private final int cols;
+    private final double[] data;
+
+    public DenseMatrix(int rows, int cols) {
+        this(rows, cols, new double[Math.multiplyExact(rows, cols)]);
+    }
+
+    public DenseMatrix(int rows, int cols, double[] data) {
+        if (data.length != (long) rows * cols) {
+            throw new IllegalArgumentException(String.format("Dados com %d elementos para matriz %dx%d.", data.length, rows, cols));
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    public static DenseMatrix of(RealMatrix matrix) {
+        DenseMatrix result = new DenseMatrix(matrix.getRowDimension(), matrix.getColumnDimension());
+        for (int i = 0; i < result.rows; i++) {
+            for (int j = 0; j < result.cols; j++) result.data[i * result.cols + j] = matrix.getEntry(i, j);
+        }
+        return result;
+    }
+
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+
+    /** Acesso direto ao armazenamento (sem cópia). */
+    public double[] data() { return data; }
+
+    public double get(int i, int j) { return data[i * cols + j]; }
+    public void set(int i, int j, double value) { data[i * cols + j] = value; }
+
+    public double[] getColumn(int j) {
+        double[] column = new double[rows];
+        for (int i = 0; i < rows; i++) column[i] = data[i * cols + j];
+        return column;
+    }
+
+    public void setColumn(int j, double[] column) {
+        for (int i = 0; i < rows; i++) data[i * cols + j] = column[i];
+    }
+
+    public RealMatrix toRealMatrix() {
+        double[][] copy = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            copy[i] = new double[cols];
+            System.arraycopy(data, i * cols, copy[i], 0, cols);
+        }
+        return new Array2DRowRealMatrix(copy, false);
+    }
+}
@@ -0,0 +1,100 @@
+package LinearAlgebra;
+
+import org.apache.commons.math3.linear.EigenDecomposition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SVD truncado por projeção aleatória (range finder de Halko, Martinsson e Tropp).
+ *
+ * Para A (dim x m) calcula apenas as k primeiras direções de Aᵀ, isto é, as k primeiras
+ * eigenfaces, sem nunca montar a matriz m x m de AᵀA. O custo é O(dim·m·l) com l = k + oversampling.
+ */
+public final class RandomizedPca {
+
+    // Autovalores relativos abaixo disto são tratados como zero na ortonormalização
+    private static final double RANK_TOLERANCE = 1e-12;
+
+    /**
+     * @param basis       dim x r, colunas ortonormais (direções principais), r <= k
+     * @param eigenvalues autovalores de AᵀA correspondentes, em ordem decrescente
+     */
+    public record Result(DenseMatrix basis, double[] eigenvalues) {}
+
+    private RandomizedPca() {}
+
+    public static Result topComponents(DenseMatrix a, int k, int oversampling, int powerIterations, long seed) {
+        int m = a.cols();
+        int l = Math.min(m, k + oversampling);
+        if (l <= 0) return new Result(new DenseMatrix(a.rows(), 0), new double[0]);
+
+        // Ω: m x l gaussiana
+        Random random = new Random(seed);
+        DenseMatrix omega = new DenseMatrix(m, l);
+        double[] o = omega.data();
+        for (int i = 0; i < o.length; i++) o[i] = random.nextGaussian();
+
+        // Q = orth(A·Ω), seguido de iterações de potência (A·Aᵀ)^q para separar melhor o espectro
+        DenseMatrix q = orthonormalize(DenseKernels.multiply(a, omega));
+        for (int it = 0; it < powerIterations; it++) {
+            DenseMatrix z = orthonormalize(DenseKernels.transposeMultiply(a, q));
+            q = orthonormalize(DenseKernels.multiply(a, z));
+        }
+
+        // B = Qᵀ·A; os autovetores de B·Bᵀ (l x l) giram Q para as direções principais
+        DenseMatrix bt = DenseKernels.transposeMultiply(a, q);
+        EigenDecomposition small = new EigenDecomposition(DenseKernels.gram(bt).toRealMatrix());
+        double[] ev = small.getRealEigenvalues();
+
+        List<Integer> idx = new ArrayList<>();
+        for (int i = 0; i < ev.length; i++) idx.add(i);
+        idx.sort((i, j) -> Double.compare(ev[j], ev[i]));
+
+        int r = 0;
+        while (r < Math.min(k, idx.size()) && ev[idx.get(r)] > 1e-10) r++;
+
+        DenseMatrix rotation = new DenseMatrix(q.cols(), r);
+        double[] eigenvalues = new double[r];
+        for (int c = 0; c < r; c++) {
+            rotation.setColumn(c, small.getEigenvector(idx.get(c)).toArray());
+            eigenvalues[c] = ev[idx.get(c)];
+        }
+        return new Result(DenseKernels.multiply(q, rotation), eigenvalues);
+    }
+
+    /**
+     * Ortonormaliza as colunas de Y por Y·V·Λ^(-1/2), com YᵀY = V·Λ·Vᵀ, descartando direções
+     * numericamente nulas. Aplicado duas vezes para recuperar a ortogonalidade perdida no primeiro passo.
+     */
+    public static DenseMatrix orthonormalize(DenseMatrix y) {
+        return orthonormalize(y, 0.0);
+    }
+
+    /** Como {@link #orthonormalize(DenseMatrix)}, descartando também direções com norma² abaixo de {@code absoluteTolerance}. */
+    public static DenseMatrix orthonormalize(DenseMatrix y, double absoluteTolerance) {
+        for (int pass = 0; pass < 2; pass++) {
+            EigenDecomposition ed = new EigenDecomposition(DenseKernels.gram(y).toRealMatrix());
+            double[] ev = ed.getRealEigenvalues();
+            double max = 0.0;
+            for (double v : ev) max = Math.max(max, v);
+
+            List<Integer> kept = new ArrayList<>();
+            for (int i = 0; i < ev.length; i++) {
+                if (ev[i] > RANK_TOLERANCE * max && ev[i] > absoluteTolerance) kept.add(i);
+            }
+            DenseMatrix transform = new DenseMatrix(y.cols(), kept.size());
+            for (int c = 0; c < kept.size(); c++) {
+                int i = kept.get(c);
+                double[] v = ed.getEigenvector(i).toArray();
+                double scale = 1.0 / Math.sqrt(ev[i]);
+                for (int t = 0; t < v.length; t++) v[t] *= scale;
+                transform.setColumn(c, v);
+            }
+            y = DenseKernels.multiply(y, transform);
+            absoluteTolerance = 0.0; // depois do primeiro passo as colunas já têm norma 1
+        }
+        return y;
+    }
+}
@@ -0,0 +1,50 @@
+package LinearAlgebra;
+
+/**
+ * Laços escalares de {@link VectorKernels}: usados quando o Vector API não está disponível
+ * e como referência nos benchmarks.
+ */
+final class ScalarKernels implements VectorKernels.Impl {
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            double t = a[aOffset + i] - b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] query, float[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            double t = query[i] - b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] query, byte[] b, int bOffset, double[] scales, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            double t = query[i] - scales[i] * b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public String description() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,117 @@
+package LinearAlgebra;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorKernels} com o Vector API, na largura preferida do processador (4 doubles com AVX2,
+ * 8 com AVX-512). Os laços de double usam dois acumuladores para esconder a latência do FMA; float e
+ * int8 são convertidos para double dentro do registrador, sem cópia da linha. A cauda que não preenche
+ * um registrador é somada em escalar.
+ *
+ * Só é carregada se o módulo {@code jdk.incubator.vector} estiver presente (ver {@link VectorKernels}).
+ */
+final class SimdKernels implements VectorKernels.Impl {
+
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    // Mesmo número de lanes que D, com metade dos bits
+    private static final VectorSpecies<Float> F = VectorSpecies.of(float.class, VectorShape.forBitSize(D.vectorBitSize() / 2));
+    // 8 bytes de cada vez, convertidos em 8 / D.length() partes
+    private static final VectorSpecies<Byte> B = ByteVector.SPECIES_64;
+
+    int lanes() {
+        return D.length();
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int lanes = D.length();
+        DoubleVector acc0 = DoubleVector.zero(D);
+        DoubleVector acc1 = DoubleVector.zero(D);
+        int i = 0;
+        for (int upper = length - 2 * lanes; i <= upper; i += 2 * lanes) {
+            acc0 = DoubleVector.fromArray(D, a, aOffset + i).fma(DoubleVector.fromArray(D, b, bOffset + i), acc0);
+            acc1 = DoubleVector.fromArray(D, a, aOffset + i + lanes).fma(DoubleVector.fromArray(D, b, bOffset + i + lanes), acc1);
+        }
+        for (int upper = length - lanes; i <= upper; i += lanes) {
+            acc0 = DoubleVector.fromArray(D, a, aOffset + i).fma(DoubleVector.fromArray(D, b, bOffset + i), acc0);
+        }
+        double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int lanes = D.length();
+        DoubleVector acc0 = DoubleVector.zero(D);
+        DoubleVector acc1 = DoubleVector.zero(D);
+        int i = 0;
+        for (int upper = length - 2 * lanes; i <= upper; i += 2 * lanes) {
+            DoubleVector t0 = DoubleVector.fromArray(D, a, aOffset + i).sub(DoubleVector.fromArray(D, b, bOffset + i));
+            DoubleVector t1 = DoubleVector.fromArray(D, a, aOffset + i + lanes).sub(DoubleVector.fromArray(D, b, bOffset + i + lanes));
+            acc0 = t0.fma(t0, acc0);
+            acc1 = t1.fma(t1, acc1);
+        }
+        for (int upper = length - lanes; i <= upper; i += lanes) {
+            DoubleVector t = DoubleVector.fromArray(D, a, aOffset + i).sub(DoubleVector.fromArray(D, b, bOffset + i));
+            acc0 = t.fma(t, acc0);
+        }
+        double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double t = a[aOffset + i] - b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] query, float[] b, int bOffset, int length) {
+        int lanes = D.length();
+        DoubleVector acc = DoubleVector.zero(D);
+        int i = 0;
+        for (int upper = length - lanes; i <= upper; i += lanes) {
+            DoubleVector v = (DoubleVector) FloatVector.fromArray(F, b, bOffset + i).convertShape(VectorOperators.F2D, D, 0);
+            DoubleVector t = DoubleVector.fromArray(D, query, i).sub(v);
+            acc = t.fma(t, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double t = query[i] - b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public double distanceSquared(double[] query, byte[] b, int bOffset, double[] scales, int length) {
+        int lanes = D.length();
+        int parts = B.length() / lanes;
+        DoubleVector acc = DoubleVector.zero(D);
+        int i = 0;
+        for (int upper = length - B.length(); i <= upper; i += B.length()) {
+            ByteVector bytes = ByteVector.fromArray(B, b, bOffset + i);
+            for (int p = 0; p < parts; p++) {
+                int at = i + p * lanes;
+                DoubleVector v = (DoubleVector) bytes.convertShape(VectorOperators.B2D, D, p);
+                DoubleVector t = DoubleVector.fromArray(D, query, at).sub(v.mul(DoubleVector.fromArray(D, scales, at)));
+                acc = t.fma(t, acc);
+            }
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            double t = query[i] - scales[i] * b[bOffset + i];
+            sum += t * t;
+        }
+        return sum;
+    }
+
+    @Override
+    public String description() {
+        return "SIMD (" + D.length() + " doubles por registrador)";
+    }
+}
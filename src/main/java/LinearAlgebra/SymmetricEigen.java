@@ -0,0 +1,193 @@
+package LinearAlgebra;
+
+/**
+ * Autovalores e autovetores de uma matriz simétrica: redução de Householder a tridiagonal seguida
+ * do algoritmo QL implícito (rotinas tred2/tql2 do EISPACK, na forma usada pelo JAMA).
+ *
+ * Ao contrário do {@code EigenDecomposition} do Commons Math 3.6, converge também quando há muitos
+ * autovalores repetidos ou nulos, como nas matrizes de posto baixo do LDA.
+ */
+public final class SymmetricEigen {
+
+    private SymmetricEigen() {}
+
+    /** Autovalores em ordem decrescente e autovetores ortonormais correspondentes (colunas). */
+    public record Result(double[] eigenvalues, DenseMatrix eigenvectors) {}
+
+    /**
+     * @throws ArithmeticException se o QL não convergir (não acontece com entradas finitas)
+     */
+    public static Result decompose(DenseMatrix a) {
+        int n = a.rows();
+        if (a.cols() != n) throw new IllegalArgumentException("Matriz não é quadrada: " + n + "x" + a.cols() + ".");
+        double[][] v = new double[n][];
+        for (int i = 0; i < n; i++) {
+            v[i] = new double[n];
+            System.arraycopy(a.data(), i * n, v[i], 0, n);
+        }
+        double[] d = new double[n];
+        double[] e = new double[n];
+        if (n > 0) {
+            tridiagonalize(v, d, e);
+            diagonalize(v, d, e);
+        }
+
+        // Ordem decrescente
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        java.util.Arrays.sort(order, (i, j) -> Double.compare(d[j], d[i]));
+        double[] values = new double[n];
+        DenseMatrix vectors = new DenseMatrix(n, n);
+        for (int c = 0; c < n; c++) {
+            int src = order[c];
+            values[c] = d[src];
+            for (int r = 0; r < n; r++) vectors.set(r, c, v[r][src]);
+        }
+        return new Result(values, vectors);
+    }
+
+    // Householder: V passa a conter a transformação ortogonal, d a diagonal e e a subdiagonal
+    private static void tridiagonalize(double[][] v, double[] d, double[] e) {
+        int n = d.length;
+        for (int j = 0; j < n; j++) d[j] = v[n - 1][j];
+
+        for (int i = n - 1; i > 0; i--) {
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) scale += Math.abs(d[k]);
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                    v[j][i] = 0.0;
+                }
+            } else {
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) g = -g;
+                e[i] = scale * g;
+                h -= f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) e[j] = 0.0;
+
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    v[j][i] = f;
+                    g = e[j] + v[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += v[k][j] * d[k];
+                        e[k] += v[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) e[j] -= hh * d[j];
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) v[k][j] -= (f * e[k] + g * d[k]);
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        // Acumula as transformações
+        for (int i = 0; i < n - 1; i++) {
+            v[n - 1][i] = v[i][i];
+            v[i][i] = 1.0;
+            double h = d[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) d[k] = v[k][i + 1] / h;
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) g += v[k][i + 1] * v[k][j];
+                    for (int k = 0; k <= i; k++) v[k][j] -= g * d[k];
+                }
+            }
+            for (int k = 0; k <= i; k++) v[k][i + 1] = 0.0;
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = v[n - 1][j];
+            v[n - 1][j] = 0.0;
+        }
+        v[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    // QL implícito com deslocamentos sobre a tridiagonal (d, e), acumulando as rotações em V
+    private static void diagonalize(double[][] v, double[] d, double[] e) {
+        int n = d.length;
+        for (int i = 1; i < n; i++) e[i - 1] = e[i];
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        double eps = Math.ulp(1.0);
+        for (int l = 0; l < n; l++) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n) {
+                if (Math.abs(e[m]) <= eps * tst1) break;
+                m++;
+            }
+
+            if (m > l) {
+                int iter = 0;
+                do {
+                    if (++iter > 30 * n) throw new ArithmeticException("QL simétrico não convergiu.");
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) r = -r;
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) d[i] -= h;
+                    f += h;
+
+                    p = d[m];
+                    double c = 1.0, c2 = c, c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0, s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        for (int k = 0; k < n; k++) {
+                            double[] row = v[k];
+                            h = row[i + 1];
+                            row[i + 1] = s * row[i] + c * h;
+                            row[i] = c * row[i] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+            d[l] += f;
+            e[l] = 0.0;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package LinearAlgebra;
+
+/**
+ * Problema generalizado de autovalores simétrico A·w = λ·B·w, com A = FᵀF semidefinida de posto
+ * baixo dada pelo seu fator F (r x n) e B simétrica definida positiva (no LDA: A = Sb, cujas r
+ * linhas de F são √Nᵢ·(μᵢ - μ), e B = Sw).
+ *
+ * Em vez de inverter B e decompor B⁻¹A (que não é simétrica), usa o branqueamento de Cholesky:
+ * B = L·Lᵀ e M = L⁻¹·A·L⁻ᵀ = Z·Zᵀ com Z = L⁻¹·Fᵀ (n x r). Os autovalores não nulos de M são os de
+ * ZᵀZ (r x r), e cada autovetor v desta dá y = Z·v/√λ de M e w = L⁻ᵀ·y do problema original.
+ * Só há substituições triangulares e uma decomposição simétrica pequena.
+ */
+public final class SymmetricGeneralizedEigen {
+
+    // Colunas do lado direito processadas por tarefa nas substituições triangulares
+    private static final int COLUMN_GRAIN = 32;
+
+    private SymmetricGeneralizedEigen() {}
+
+    /** Autovalores em ordem decrescente e os autovetores correspondentes (colunas, não normalizados). */
+    public record Result(double[] eigenvalues, DenseMatrix eigenvectors) {}
+
+    /**
+     * Resolve (FᵀF)·w = λ·B·w e devolve os {@code count} maiores autovalores (no máximo r) e os seus
+     * autovetores. Autovetores de autovalor nulo voltam como colunas de zeros.
+     *
+     * @throws ArithmeticException se B não for (numericamente) definida positiva
+     */
+    public static Result solve(DenseMatrix aFactor, DenseMatrix b, int count) {
+        int n = b.rows(), r = aFactor.rows();
+        if (b.cols() != n || aFactor.cols() != n) {
+            throw new IllegalArgumentException(String.format("Matrizes incompatíveis: fator %dx%d e B %dx%d.",
+                    aFactor.rows(), aFactor.cols(), b.rows(), b.cols()));
+        }
+        DenseMatrix l = cholesky(b);
+
+        // Z = L⁻¹·Fᵀ e a matriz pequena ZᵀZ
+        DenseMatrix z = transpose(aFactor);
+        forwardSubstitute(l, z);
+        DenseMatrix small = new DenseMatrix(r, r);
+        DenseKernels.symmetricRankUpdate(small, z);
+        SymmetricEigen.Result eigen = SymmetricEigen.decompose(small);
+
+        int k = Math.min(count, r);
+        double[] values = new double[k];
+        DenseMatrix v = new DenseMatrix(r, k);
+        for (int c = 0; c < k; c++) {
+            values[c] = eigen.eigenvalues()[c];
+            double scale = values[c] > 0.0 ? 1.0 / Math.sqrt(values[c]) : 0.0;
+            for (int i = 0; i < r; i++) v.set(i, c, eigen.eigenvectors().get(i, c) * scale);
+        }
+
+        // w = L⁻ᵀ·(Z·v/√λ)
+        DenseMatrix y = DenseKernels.multiply(z, v);
+        backSubstituteTransposed(l, y);
+        return new Result(values, y);
+    }
+
+    /**
+     * Fator de Cholesky B = L·Lᵀ (L triangular inferior, linha a linha).
+     * Para cada coluna j, os elementos abaixo da diagonal são independentes e calculados em paralelo,
+     * cada um como o produto escalar de duas linhas contíguas de L.
+     *
+     * @throws ArithmeticException se B não for definida positiva
+     */
+    public static DenseMatrix cholesky(DenseMatrix b) {
+        int n = b.rows();
+        double[] bd = b.data();
+        DenseMatrix l = new DenseMatrix(n, n);
+        double[] ld = l.data();
+        for (int j = 0; j < n; j++) {
+            int jOff = j * n;
+            double diag = bd[jOff + j];
+            for (int p = 0; p < j; p++) diag -= ld[jOff + p] * ld[jOff + p];
+            if (!(diag > 0.0)) {
+                throw new ArithmeticException("Matriz não é definida positiva (pivô " + j + " = " + diag + ").");
+            }
+            double ljj = Math.sqrt(diag);
+            ld[jOff + j] = ljj;
+            int col = j;
+            DenseKernels.parallelFor(j + 1, n, Math.max(16, (1 << 16) / Math.max(1, j)), (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    int iOff = i * n;
+                    double sum = bd[iOff + col];
+                    for (int p = 0; p < col; p++) sum -= ld[iOff + p] * ld[jOff + p];
+                    ld[iOff + col] = sum / ljj;
+                }
+            });
+        }
+        return l;
+    }
+
+    // X ← L⁻¹·X (X com n linhas), linha a linha; paralelo por blocos de colunas de X
+    private static void forwardSubstitute(DenseMatrix l, DenseMatrix x) {
+        int n = l.rows(), q = x.cols();
+        double[] ld = l.data(), xd = x.data();
+        DenseKernels.parallelFor(0, q, COLUMN_GRAIN, (c0, c1) -> {
+            for (int i = 0; i < n; i++) {
+                int iOff = i * q;
+                for (int p = 0; p < i; p++) {
+                    double lip = ld[i * n + p];
+                    if (lip == 0.0) continue;
+                    int pOff = p * q;
+                    for (int c = c0; c < c1; c++) xd[iOff + c] -= lip * xd[pOff + c];
+                }
+                double inv = 1.0 / ld[i * n + i];
+                for (int c = c0; c < c1; c++) xd[iOff + c] *= inv;
+            }
+        });
+    }
+
+    // Y ← L⁻ᵀ·Y, de baixo para cima
+    private static void backSubstituteTransposed(DenseMatrix l, DenseMatrix y) {
+        int n = l.rows(), q = y.cols();
+        double[] ld = l.data(), yd = y.data();
+        DenseKernels.parallelFor(0, q, COLUMN_GRAIN, (c0, c1) -> {
+            for (int i = n - 1; i >= 0; i--) {
+                int iOff = i * q;
+                for (int p = i + 1; p < n; p++) {
+                    double lpi = ld[p * n + i];
+                    if (lpi == 0.0) continue;
+                    int pOff = p * q;
+                    for (int c = c0; c < c1; c++) yd[iOff + c] -= lpi * yd[pOff + c];
+                }
+                double inv = 1.0 / ld[i * n + i];
+                for (int c = c0; c < c1; c++) yd[iOff + c] *= inv;
+            }
+        });
+    }
+
+    private static DenseMatrix transpose(DenseMatrix a) {
+        DenseMatrix t = new DenseMatrix(a.cols(), a.rows());
+        for (int i = 0; i < a.rows(); i++) {
+            for (int j = 0; j < a.cols(); j++) t.set(j, i, a.get(i, j));
+        }
+        return t;
+    }
+}
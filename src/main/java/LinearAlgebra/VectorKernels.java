@@ -0,0 +1,67 @@
+package LinearAlgebra;
+
+/**
+ * Núcleos vetoriais usados nos laços mais quentes: produto escalar (projeção e produtos de matrizes)
+ * e distância euclidiana ao quadrado (busca na galeria, nas três precisões de armazenamento).
+ *
+ * A implementação é escolhida uma vez, na carga da classe: a versão SIMD ({@code jdk.incubator.vector})
+ * quando o módulo foi adicionado à JVM ({@code --add-modules jdk.incubator.vector}) e o processador tem
+ * registradores de pelo menos 2 doubles; caso contrário, os laços escalares. {@code -Dfisherfaces.simd=false}
+ * força o caminho escalar. As duas versões somam em ordens diferentes, por isso os resultados podem
+ * diferir no último bit.
+ */
+public final class VectorKernels {
+
+    /** Propriedade de sistema que desliga a versão SIMD quando {@code false}. */
+    public static final String SIMD_PROPERTY = "fisherfaces.simd";
+
+    interface Impl {
+        double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+        double distanceSquared(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+        double distanceSquared(double[] query, float[] b, int bOffset, int length);
+
+        /** Distância a um vetor quantizado: b[i] representa {@code scales[i] * b[i]}. */
+        double distanceSquared(double[] query, byte[] b, int bOffset, double[] scales, int length);
+
+        String description();
+    }
+
+    static final Impl SCALAR = new ScalarKernels();
+    private static final Impl IMPL = select();
+
+    private VectorKernels() {}
+
+    private static Impl select() {
+        if (!Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))) return SCALAR;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return SCALAR;
+        try {
+            SimdKernels simd = new SimdKernels();
+            return simd.lanes() >= 2 ? simd : SCALAR;
+        } catch (LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    /** Implementação em uso, ex.: "SIMD (8 doubles por registrador)" ou "escalar". */
+    public static String implementation() {
+        return IMPL.description();
+    }
+
+    public static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        return IMPL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    public static double distanceSquared(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        return IMPL.distanceSquared(a, aOffset, b, bOffset, length);
+    }
+
+    public static double distanceSquared(double[] query, float[] b, int bOffset, int length) {
+        return IMPL.distanceSquared(query, b, bOffset, length);
+    }
+
+    public static double distanceSquared(double[] query, byte[] b, int bOffset, double[] scales, int length) {
+        return IMPL.distanceSquared(query, b, bOffset, scales, length);
+    }
+}
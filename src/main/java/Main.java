@@ -2,13 +2,28 @@ import Data.RecognitionResult;
 import Data.TrainingData;
 import FaceRecognizer.FaceRecognizer;
 import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.MappedTrainingMatrix;
+import FisherfacesModel.PcaOptions;
 import ImageProcessor.ImageProcessor;
+import LinearAlgebra.VectorKernels;
+import Metrics.Didactic;
+import Metrics.Metrics;
 import Services.DatabaseLoader;
+import Services.DeduplicationOptions;
+import Services.IngestListener;
+import Services.PipelineOptions;
+import Services.ProbeCache;
+import Services.SuspectWatcher;
+import Services.VectorCache;
 import Services.VerificationService;
 import org.apache.commons.math3.linear.RealMatrix;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 // Padrões apenas se nenhum argumento for passado
@@ -19,31 +34,155 @@ void main(String[] args) {
     // Configuração de caminhos (Ajuste conforme seu projeto)
     String dbPathStr = "data/database_criminosos";
     String suspectsPathStr = "data/suspeitos";
+    String modelPathStr = null; // Opcional: arquivo binário do modelo treinado
+    String cachePathStr = "data/cache/vetores.bin"; // Vetores pré-processados, pelo conteúdo de cada imagem
+    String resultLogStr = "data/verificacao/resultados.tsv"; // Registro do modo --monitorar
+    String trainingMatrixStr = "data/cache/treino.bin"; // Vetores de treino do modo --em-disco (temporário)
     double threshold = 12.0e6;
 
-    if (args.length >= 1) dbPathStr = args[0];
-    if (args.length >= 2) suspectsPathStr = args[1];
+    // --monitorar: depois do treino, verifica as imagens que forem chegando à pasta de suspeitos
+    List<String> positional = new ArrayList<>(Arrays.asList(args));
+    boolean watch = positional.remove("--monitorar");
+    // --em-disco: vetores de treino num arquivo mapeado em vez do heap, para galerias grandes
+    boolean outOfCore = positional.remove("--em-disco");
+    // Fotos quase iguais na galeria: por padrão só são informadas e todas ficam no treino.
+    // --deduplicar: tira do treino as quase iguais do mesmo indivíduo; --sem-deduplicacao: nem as procura
+    boolean collapseDuplicates = positional.remove("--deduplicar");
+    boolean skipDuplicates = positional.remove("--sem-deduplicacao");
+    if (collapseDuplicates && skipDuplicates) {
+        System.err.println("[ERRO] Use --deduplicar ou --sem-deduplicacao, não os dois.");
+        return;
+    }
+    DeduplicationOptions deduplication = collapseDuplicates ? DeduplicationOptions.collapse()
+            : skipDuplicates ? DeduplicationOptions.off() : DeduplicationOptions.flag();
+    // --sobrescrever-modelo: se o modelo salvo for rejeitado ou tiver outra resolução, grava o novo por cima dele
+    boolean replaceModel = positional.remove("--sobrescrever-modelo");
+    // --silencioso: sem a saída didática (passos do treino e ranking de cada imagem)
+    Didactic.setEnabled(!positional.remove("--silencioso"));
+    // --resolucao LxA: resolução das faces no treino (padrão 100x100); um modelo salvo usa a sua, salvo se for outra
+    ImageProcessor requested = null;
+    int resolutionArg = positional.indexOf("--resolucao");
+    if (resolutionArg >= 0) {
+        try {
+            requested = ImageProcessor.parse(resolutionArg + 1 < positional.size() ? positional.get(resolutionArg + 1) : "");
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERRO] " + e.getMessage());
+            return;
+        }
+        positional.subList(resolutionArg, resolutionArg + 2).clear();
+    }
+    // --limiar N: limiar de reconhecimento (quadrado da distância), ex.: o escolhido pelo Services.ParameterSweep
+    int thresholdArg = positional.indexOf("--limiar");
+    if (thresholdArg >= 0) {
+        try {
+            threshold = Double.parseDouble(thresholdArg + 1 < positional.size() ? positional.get(thresholdArg + 1) : "");
+        } catch (NumberFormatException e) {
+            System.err.println("[ERRO] --limiar requer um número (ex.: 12e6).");
+            return;
+        }
+        positional.subList(thresholdArg, thresholdArg + 2).clear();
+    }
+
+    // --pipeline: verifica os suspeitos em etapas paralelas ligadas por filas (decodificação, pré-processamento,
+    // projeção, busca); --threads D,P,J,B escolhe as threads de cada etapa e --fila N a capacidade das filas
+    boolean pipeline = positional.remove("--pipeline");
+    PipelineOptions pipelineOptions = PipelineOptions.defaults();
+    boolean pipelineTuned = positional.contains("--threads") || positional.contains("--fila");
+    try {
+        int threadsArg = positional.indexOf("--threads");
+        if (threadsArg >= 0) {
+            pipelineOptions = pipelineOptions.withThreads(threadsArg + 1 < positional.size() ? positional.get(threadsArg + 1) : "");
+            positional.subList(threadsArg, threadsArg + 2).clear();
+        }
+        int queueArg = positional.indexOf("--fila");
+        if (queueArg >= 0) {
+            pipelineOptions = pipelineOptions.withQueueCapacity(
+                    Integer.parseInt(queueArg + 1 < positional.size() ? positional.get(queueArg + 1) : ""));
+            positional.subList(queueArg, queueArg + 2).clear();
+        }
+    } catch (IllegalArgumentException e) {
+        System.err.println("[ERRO] " + (e instanceof NumberFormatException ? "--fila requer um número inteiro (ex.: 32)." : e.getMessage()));
+        return;
+    }
+    if (!pipeline && pipelineTuned) {
+        System.err.println("[Aviso] --threads e --fila só valem com --pipeline.");
+    }
+
+    if (positional.size() >= 1) dbPathStr = positional.get(0);
+    if (positional.size() >= 2) suspectsPathStr = positional.get(1);
+    if (positional.size() >= 3) modelPathStr = positional.get(2);
 
     Path databasePath = Paths.get(System.getProperty("user.dir"), dbPathStr);
     Path suspectsPath = Paths.get(System.getProperty("user.dir"), suspectsPathStr);
+    Path modelPath = modelPathStr != null ? Paths.get(System.getProperty("user.dir"), modelPathStr) : null;
+    Path cachePath = Paths.get(System.getProperty("user.dir"), cachePathStr);
 
     System.out.println("=== SISTEMA DE RECONHECIMENTO FACIAL (DEMONSTRAÇÃO ACADÊMICA) ===");
+    System.out.println("[Sistema] Núcleos de distância e projeção: " + VectorKernels.implementation());
 
-    ImageProcessor processor = new ImageProcessor();
-    DatabaseLoader loader = new DatabaseLoader(processor);
-    FisherfacesModel model = new FisherfacesModel();
-
-    try {
-        System.out.println("\n--- 1. Carregamento de Imagens ---");
-        TrainingData trainingData = loader.loadFromDirectory(databasePath);
+    FisherfacesModel model = null;
+    boolean keepSavedModel = false; // o arquivo de --modelo existe, mas não serve para esta execução
 
-        if (trainingData.isEmpty()) {
-            System.err.println("[ERRO] Nenhuma imagem encontrada. Verifique o caminho.");
-            return;
+    try (VectorCache cache = VectorCache.open(cachePath)) {
+        if (modelPath != null && Files.exists(modelPath)) {
+            System.out.println("\n--- 1/2. Carregando modelo treinado: " + modelPath + " ---");
+            try {
+                model = FisherfacesModel.load(modelPath);
+                if (requested != null && (model.getImageWidth() != requested.width() || model.getImageHeight() != requested.height())) {
+                    System.err.printf("[Aviso] Modelo salvo em %dx%d, pedido %s: treinando novamente.%n",
+                            model.getImageWidth(), model.getImageHeight(), requested.resolution());
+                    model = null;
+                    keepSavedModel = !replaceModel;
+                }
+            } catch (IOException e) {
+                System.err.println("[Aviso] Modelo salvo rejeitado, treinando novamente: " + e.getMessage());
+                keepSavedModel = !replaceModel;
+            }
         }
 
-        System.out.println("\n--- 2. Treinamento (Álgebra Linear) ---");
-        model.train(trainingData);
+        // Daqui em diante todas as imagens são pré-processadas na resolução do modelo
+        ImageProcessor processor = model != null ? model.newImageProcessor()
+                : requested != null ? requested : new ImageProcessor();
+        System.out.println("[Sistema] Resolução das faces: " + processor.resolution());
+        DatabaseLoader loader = new DatabaseLoader(processor, cache).withDeduplication(deduplication);
+
+        if (model == null) {
+            System.out.println("\n--- 1. Carregamento de Imagens ---");
+            int threads = Runtime.getRuntime().availableProcessors();
+            model = new FisherfacesModel();
+            if (outOfCore) {
+                Path trainingMatrixPath = Paths.get(System.getProperty("user.dir"), trainingMatrixStr);
+                try (MappedTrainingMatrix trainingMatrix = MappedTrainingMatrix.create(trainingMatrixPath,
+                        MappedTrainingMatrix.DEFAULT_BLOCK_ROWS, processor.width(), processor.height())) {
+                    loader.loadFromDirectoryParallel(databasePath, threads, trainingMatrix, IngestListener.CONSOLE);
+                    if (trainingMatrix.size() == 0) {
+                        System.err.println("[ERRO] Nenhuma imagem encontrada. Verifique o caminho.");
+                        return;
+                    }
+
+                    System.out.println("\n--- 2. Treinamento (Álgebra Linear, vetores em disco) ---");
+                    model.train(trainingMatrix, PcaOptions.exact());
+                }
+            } else {
+                TrainingData trainingData = loader.loadFromDirectoryParallel(databasePath, threads, IngestListener.CONSOLE);
+
+                if (trainingData.isEmpty()) {
+                    System.err.println("[ERRO] Nenhuma imagem encontrada. Verifique o caminho.");
+                    return;
+                }
+
+                System.out.println("\n--- 2. Treinamento (Álgebra Linear) ---");
+                model.train(trainingData);
+            }
+
+            if (keepSavedModel) {
+                System.err.println("[Aviso] O modelo treinado agora não foi gravado: " + modelPath
+                        + " continua como estava (use --sobrescrever-modelo para substituí-lo, ou outro caminho).");
+            } else if (modelPath != null) {
+                model.save(modelPath);
+                System.out.println("Modelo salvo em: " + modelPath);
+            }
+        }
 
         // --- DIDÁTICO: SALVAR EIGENFACES ---
         System.out.println("\n--- 3. Visualização Matemática ---");
@@ -62,9 +201,35 @@ void main(String[] args) {
         // 4. Reconhecimento
         System.out.println("\n--- 4. Reconhecimento e Testes ---");
         FaceRecognizer recognizer = new FaceRecognizer(model, processor, threshold);
-        VerificationService verificationService = new VerificationService(processor, recognizer);
+        if (watch) {
+            Path resultLog = Paths.get(System.getProperty("user.dir"), resultLogStr);
+            SuspectWatcher watcher = new SuspectWatcher(processor, recognizer, cache, resultLog);
+            System.out.printf("Monitorando %s (Ctrl+C para sair). Resultados em %s%n", suspectsPath, resultLog);
+            watcher.watch(suspectsPath, System.out::println);
+        } else {
+            ProbeCache probes = new ProbeCache();
+            VerificationService verificationService = new VerificationService(processor, recognizer, cache).withResultCache(probes);
+
+            if (pipeline) {
+                // Os resultados são impressos à medida que terminam, não pela ordem dos arquivos
+                verificationService.verifySuspects(suspectsPath, pipelineOptions, System.out::println);
+            } else {
+                List<RecognitionResult> results = verificationService.verifySuspects(suspectsPath);
+                if (!Didactic.enabled()) results.forEach(System.out::println);
+            }
+            ProbeCache.Stats probeStats = probes.stats();
+            if (probeStats.hits() > 0) {
+                System.out.printf("[Cache] %d imagens repetidas não foram verificadas de novo (acerto de %.0f%%).%n",
+                        probeStats.hits(), 100 * probeStats.hitRate());
+            }
+        }
+
+        System.out.println("\n--- Métricas ---");
+        Metrics.print(System.out);
 
-        verificationService.verifySuspects(suspectsPath);
+        VectorCache.Stats stats = cache.stats();
+        System.out.printf("%n[Cache] %d acertos, %d faltas; %d vetores em %.1f MB (%s)%n",
+                stats.hits(), stats.misses(), stats.entries(), stats.bytes() / 1e6, cachePath);
 
     } catch (Exception e) {
         System.err.println("Erro Geral: " + e.getMessage());
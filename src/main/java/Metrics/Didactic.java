@@ -0,0 +1,31 @@
+package Metrics;
+
+/**
+ * Saída didática no console (passos do treino, ranking de cada imagem). Desligada por padrão, para que
+ * servidor, pipeline e monitor não paguem pela formatação e pela E/S do console por imagem; o
+ * {@code Main} liga-a, salvo com {@code --silencioso}. Também pode ser ligada com {@code -Dfisherfaces.didatico=true}.
+ */
+public final class Didactic {
+
+    public static final String PROPERTY = "fisherfaces.didatico";
+
+    private static volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+
+    private Didactic() {}
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static void println(String line) {
+        if (enabled) System.out.println(line);
+    }
+
+    public static void printf(String format, Object... args) {
+        if (enabled) System.out.printf(format, args);
+    }
+}
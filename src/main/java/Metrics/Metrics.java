@@ -0,0 +1,160 @@
+package Metrics;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas do processo: um histograma de latência por etapa (decodificação, pré-processamento, projeção,
+ * busca, treino) e contadores de eventos. São globais e sempre ligadas; o custo por medição é um
+ * {@link System#nanoTime()} e um incremento atômico.
+ *
+ * A exportação é feita a pedido, em JSON ({@link #toJson()}) ou no formato de texto do Prometheus
+ * ({@link #toPrometheus()}), ex.: pelo {@code GET /metrics} do servidor.
+ */
+public final class Metrics {
+
+    /** Contador monotônico com nome e descrição, para exportação. */
+    public record Counter(String name, String help, LongAdder adder) {
+        public void increment() {
+            adder.increment();
+        }
+
+        public void add(long n) {
+            adder.add(n);
+        }
+
+        public long get() {
+            return adder.sum();
+        }
+    }
+
+    private static final List<LatencyHistogram> HISTOGRAMS = new CopyOnWriteArrayList<>();
+    private static final List<Counter> COUNTERS = new CopyOnWriteArrayList<>();
+
+    public static final LatencyHistogram DECODE = histogram("decode", "Decodificação do arquivo de imagem (JPEG/PNG)");
+    public static final LatencyHistogram PREPROCESS = histogram("preprocess", "Redimensionamento, tons de cinza e equalização");
+    public static final LatencyHistogram PROJECT = histogram("project", "Projeção de um vetor no espaço de faces");
+    public static final LatencyHistogram PROJECT_BATCH = histogram("project_batch", "Projeção de um lote de vetores");
+    public static final LatencyHistogram SEARCH = histogram("search", "Busca do vizinho mais próximo na galeria");
+    public static final LatencyHistogram TRAIN = histogram("train", "Treino completo (PCA + LDA + galeria)");
+    public static final LatencyHistogram TRAIN_PCA = histogram("train_pca", "Etapa PCA do treino");
+    public static final LatencyHistogram TRAIN_LDA = histogram("train_lda", "Etapa LDA do treino");
+    public static final LatencyHistogram HTTP_RECOGNIZE = histogram("http_recognize", "Requisição POST /recognize completa");
+
+    public static final Counter IMAGES_DECODED = counter("images_decoded", "Imagens decodificadas");
+    public static final Counter DECODE_FAILURES = counter("decode_failures", "Arquivos que não são imagens válidas");
+    public static final Counter VECTORS_PROJECTED = counter("vectors_projected", "Vetores projetados (individualmente ou em lote)");
+    public static final Counter RECOGNITIONS = counter("recognitions", "Imagens classificadas");
+    public static final Counter MATCHES = counter("matches", "Classificações abaixo do limiar (correspondências)");
+    public static final Counter VECTOR_CACHE_HITS = counter("vector_cache_hits", "Vetores servidos pelo cache em disco");
+    public static final Counter VECTOR_CACHE_MISSES = counter("vector_cache_misses", "Vetores ausentes do cache em disco");
+    public static final Counter PROBE_CACHE_HITS = counter("probe_cache_hits", "Resultados de verificação servidos pelo cache");
+    public static final Counter PROBE_CACHE_MISSES = counter("probe_cache_misses", "Imagens ausentes do cache de resultados");
+    public static final Counter PROBE_CACHE_EVICTED = counter("probe_cache_evicted", "Resultados descartados por falta de espaço (LRU)");
+    public static final Counter PROBE_CACHE_CLEARED = counter("probe_cache_cleared", "Esvaziamentos do cache de resultados por mudança do modelo ou do limiar");
+
+    private static final String PREFIX = "fisherfaces_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private Metrics() {}
+
+    public static LatencyHistogram histogram(String name, String help) {
+        LatencyHistogram h = new LatencyHistogram(name, help);
+        HISTOGRAMS.add(h);
+        return h;
+    }
+
+    public static Counter counter(String name, String help) {
+        Counter c = new Counter(name, help, new LongAdder());
+        COUNTERS.add(c);
+        return c;
+    }
+
+    /** Zera tudo (ex.: entre a fase de aquecimento e a medição de um benchmark). */
+    public static void reset() {
+        HISTOGRAMS.forEach(LatencyHistogram::reset);
+        COUNTERS.forEach(c -> c.adder().reset());
+    }
+
+    /** Formato de texto do Prometheus: cada histograma como summary (segundos) e cada contador com sufixo _total. */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram h : HISTOGRAMS) {
+            String name = PREFIX + h.name() + "_seconds";
+            sb.append("# HELP ").append(name).append(' ').append(h.help()).append('\n');
+            sb.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : QUANTILES) {
+                sb.append(name).append("{quantile=\"").append(q).append("\"} ").append(seconds(h.percentile(q))).append('\n');
+            }
+            sb.append(name).append("_sum ").append(seconds(h.sumNanos())).append('\n');
+            sb.append(name).append("_count ").append(h.count()).append('\n');
+            sb.append("# TYPE ").append(name).append("_max gauge\n");
+            sb.append(name).append("_max ").append(seconds(h.maxNanos())).append('\n');
+        }
+        for (Counter c : COUNTERS) {
+            String name = PREFIX + c.name() + "_total";
+            sb.append("# HELP ").append(name).append(' ').append(c.help()).append('\n');
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            sb.append(name).append(' ').append(c.get()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** {"histograms":{"decode":{"count":..,"p50Micros":..,...}},"counters":{"recognitions":..}}. */
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\"histograms\":{");
+        for (int i = 0; i < HISTOGRAMS.size(); i++) {
+            LatencyHistogram h = HISTOGRAMS.get(i);
+            if (i > 0) sb.append(',');
+            sb.append('"').append(h.name()).append("\":{\"count\":").append(h.count())
+                    .append(",\"meanMicros\":").append(micros(mean(h)))
+                    .append(",\"p50Micros\":").append(micros(h.percentile(0.5)))
+                    .append(",\"p90Micros\":").append(micros(h.percentile(0.9)))
+                    .append(",\"p99Micros\":").append(micros(h.percentile(0.99)))
+                    .append(",\"p999Micros\":").append(micros(h.percentile(0.999)))
+                    .append(",\"maxMicros\":").append(micros(h.maxNanos())).append('}');
+        }
+        sb.append("},\"counters\":{");
+        for (int i = 0; i < COUNTERS.size(); i++) {
+            Counter c = COUNTERS.get(i);
+            if (i > 0) sb.append(',');
+            sb.append('"').append(c.name()).append("\":").append(c.get());
+        }
+        return sb.append("}}").toString();
+    }
+
+    /** Tabela das etapas com registros e dos contadores não nulos, para o fim de uma execução. */
+    public static void print(PrintStream out) {
+        out.printf("  %-20s %9s %11s %11s %11s %11s%n", "Etapa", "Contagem", "Média", "p50", "p99", "Máx");
+        for (LatencyHistogram h : HISTOGRAMS) {
+            if (h.count() == 0) continue;
+            out.printf("  %-20s %9d %11s %11s %11s %11s%n", h.name(), h.count(), human(mean(h)),
+                    human(h.percentile(0.5)), human(h.percentile(0.99)), human(h.maxNanos()));
+        }
+        for (Counter c : COUNTERS) {
+            if (c.get() != 0) out.printf("  %-20s %9d%n", c.name(), c.get());
+        }
+    }
+
+    private static long mean(LatencyHistogram h) {
+        long n = h.count();
+        return n == 0 ? 0 : h.sumNanos() / n;
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e3);
+    }
+
+    private static String human(long nanos) {
+        if (nanos >= 1_000_000_000L) return String.format("%.2f s", nanos / 1e9);
+        if (nanos >= 1_000_000L) return String.format("%.2f ms", nanos / 1e6);
+        return String.format("%.1f µs", nanos / 1e3);
+    }
+}
@@ -0,0 +1,401 @@
+package Server;
+
+import Data.RecognitionResult;
+import Data.TrainingData;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import ImageProcessor.ImageProcessor;
+import Metrics.Metrics;
+import Services.DatabaseLoader;
+import Services.DeduplicationOptions;
+import Services.IngestListener;
+import Services.VectorCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor de reconhecimento residente: mantém um {@link FisherfacesModel} treinado em memória e responde
+ * a imagens enviadas por HTTP local (só no endereço de loopback). As requisições são atendidas por um conjunto
+ * fixo de threads de plataforma (uma por núcleo, {@code --threads}): o pré-processamento rápido e o leitor da
+ * decodificação reduzida ficam guardados por thread, e só são reaproveitados se as threads também forem.
+ *
+ * <pre>
+ *   POST /recognize?name=foto.jpg   corpo = bytes da imagem (PNG/JPEG) -> RecognitionResult em JSON
+ *   POST /model/reload              re-treina a partir da galeria em segundo plano (202, ou 409 se já houver um)
+ *   POST /model/reload?source=file  recarrega o arquivo do modelo ({@code --modelo}), gravado por outro processo
+ *   GET  /status                    versão do modelo em uso, recarga em curso, contadores
+ *   GET  /metrics[?format=json]     histogramas de latência por etapa e contadores ({@link Metrics})
+ * </pre>
+ *
+ * Cada resposta de /recognize traz o cabeçalho {@code Server-Timing} com o tempo de decodificação,
+ * pré-processamento, projeção e busca dessa requisição.
+ *
+ * O modelo em uso é um {@link ActiveModel} imutável publicado numa {@link AtomicReference}: cada requisição
+ * lê a referência uma única vez e termina com esse modelo, mesmo que outro seja publicado a meio. A recarga
+ * corre numa thread de baixa prioridade, constrói um modelo novo do zero (o atual nunca é alterado) e só
+ * então troca a referência; as requisições nunca esperam por ela. O servidor nunca grava no arquivo de
+ * {@code --modelo}: os modelos que ele treina só vão para disco com {@code --salvar}, noutro arquivo.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT.jar Server.RecognitionServer data/database_criminosos
+ *        [--porta 8080] [--modelo data/modelo.ffm] [--salvar data/modelo-servidor.ffm] [--cache data/cache/servidor.bin]
+ *        [--limiar 12e6] [--resolucao 64x64] [--threads 8] [--deduplicar | --sem-deduplicacao]
+ */
+public final class RecognitionServer implements Closeable {
+
+    /** Modelo publicado: nunca é alterado depois de construído. */
+    public record ActiveModel(int version, FisherfacesModel model, FaceRecognizer recognizer,
+                              String source, Instant loadedAt, int identities, int images) {}
+
+    private final ServerOptions options;
+    private final VectorCache cache;
+    private final AtomicReference<ActiveModel> active = new AtomicReference<>();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final ExecutorService reloader;
+    private final ExecutorService handlers;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile String lastReloadError;
+    private HttpServer http;
+
+    private RecognitionServer(ServerOptions options) throws IOException {
+        this.options = options;
+        this.cache = options.cacheFile() != null ? VectorCache.open(options.cacheFile()) : null;
+        AtomicInteger handlerCount = new AtomicInteger();
+        this.handlers = Executors.newFixedThreadPool(options.handlerThreads(), r -> {
+            Thread t = new Thread(r, "servidor-requisicao-" + handlerCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.reloader = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "servidor-recarga");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    /** Carrega ou treina o primeiro modelo e só depois começa a aceitar conexões. */
+    public static RecognitionServer start(ServerOptions options) throws IOException {
+        RecognitionServer server = new RecognitionServer(options);
+        try {
+            boolean saved = options.modelFile() != null && Files.exists(options.modelFile());
+            server.active.set(server.build(saved || options.gallery() == null, 1));
+
+            server.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.port()), 0);
+            server.http.setExecutor(server.handlers);
+            server.http.createContext("/recognize", server::recognize);
+            server.http.createContext("/model/reload", server::reload);
+            server.http.createContext("/status", server::status);
+            server.http.createContext("/metrics", server::metrics);
+            server.http.start();
+            return server;
+        } catch (IOException | RuntimeException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ServerOptions options = parse(args);
+        RecognitionServer server = start(options);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("[Servidor] Erro ao encerrar: " + e.getMessage());
+            }
+        }));
+        ActiveModel model = server.activeModel();
+        System.out.printf("%n[Servidor] Ouvindo em http://127.0.0.1:%d (modelo v%d: %d indivíduos, %d imagens)%n",
+                server.port(), model.version(), model.identities(), model.images());
+    }
+
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public ActiveModel activeModel() {
+        return active.get();
+    }
+
+    /**
+     * Agenda a construção de um modelo novo (da galeria ou do arquivo) e a sua publicação.
+     * Devolve false se já houver uma recarga em curso.
+     */
+    public boolean reload(boolean fromFile) {
+        if (!reloading.compareAndSet(false, true)) return false;
+        reloader.execute(() -> {
+            try {
+                ActiveModel next = build(fromFile, active.get().version() + 1);
+                active.set(next);
+                lastReloadError = null;
+                System.out.printf("[Servidor] Modelo v%d publicado (%s)%n", next.version(), next.source());
+            } catch (IOException | RuntimeException e) {
+                lastReloadError = e.getMessage();
+                System.err.println("[Servidor] Recarga falhou, mantendo o modelo atual: " + e.getMessage());
+            } finally {
+                reloading.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isReloading() {
+        return reloading.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (http != null) http.stop(1);
+        handlers.close();
+        reloader.shutdownNow();
+        try {
+            reloader.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (cache != null) cache.close();
+    }
+
+    private ActiveModel build(boolean fromFile, int version) throws IOException {
+        FisherfacesModel model;
+        String source;
+        if (fromFile) {
+            if (options.modelFile() == null) throw new IOException("Nenhum arquivo de modelo configurado.");
+            model = FisherfacesModel.load(options.modelFile());
+            source = "arquivo " + options.modelFile();
+        } else {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ImageProcessor processor = new ImageProcessor(options.imageWidth(), options.imageHeight());
+            TrainingData data = new DatabaseLoader(processor, cache).withDeduplication(options.deduplication())
+                    .loadFromDirectoryParallel(options.gallery(), threads, IngestListener.CONSOLE);
+            if (data.isEmpty()) throw new IOException("Nenhuma imagem encontrada em " + options.gallery());
+            model = new FisherfacesModel();
+            model.train(data);
+            if (options.saveFile() != null) model.save(options.saveFile());
+            source = "galeria " + options.gallery();
+        }
+        // Prepara a projeção antes de publicar, para a primeira requisição não pagar por isso
+        model.getProjection();
+        // O processador acompanha o modelo: uma recarga pode trocar a resolução
+        FaceRecognizer recognizer = new FaceRecognizer(model, model.newImageProcessor(), options.threshold());
+        return new ActiveModel(version, model, recognizer, source, Instant.now(),
+                new HashSet<>(model.getLabels()).size(), model.getLabels().size());
+    }
+
+    private void recognize(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, Map.of("error", "Use POST com os bytes da imagem no corpo."));
+                return;
+            }
+            requests.increment();
+            byte[] content = exchange.getRequestBody().readNBytes(options.maxImageBytes() + 1);
+            if (content.length > options.maxImageBytes()) {
+                failures.increment();
+                send(exchange, 413, Map.of("error", "Imagem maior que " + options.maxImageBytes() + " bytes."));
+                return;
+            }
+            String name = query(exchange).getOrDefault("name", "requisicao");
+
+            // Uma única leitura: a requisição termina com este modelo (e a sua resolução) mesmo que outro seja publicado
+            ActiveModel model = active.get();
+            ImageProcessor processor = model.recognizer().getImageProcessor();
+
+            // Tempo de cada etapa desta requisição, devolvido no cabeçalho Server-Timing
+            long t0 = System.nanoTime();
+            BufferedImage image;
+            try {
+                image = processor.decode(content, name);
+            } catch (IOException e) {
+                failures.increment();
+                send(exchange, 400, Map.of("error", e.getMessage()));
+                return;
+            }
+            long t1 = System.nanoTime();
+            double[] vector = processor.preprocess(image);
+            long t2 = System.nanoTime();
+            double[] coeffs = model.model().getProjection().project(vector);
+            long t3 = System.nanoTime();
+            RecognitionResult result = model.recognizer().recognizeProjected(coeffs, name);
+            long t4 = System.nanoTime();
+            exchange.getResponseHeaders().set("Server-Timing", String.format(Locale.ROOT,
+                    "decode;dur=%.3f, preprocess;dur=%.3f, project;dur=%.3f, search;dur=%.3f",
+                    (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, (t4 - t3) / 1e6));
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("fileName", result.fileName());
+            body.put("recognizedLabel", result.recognizedLabel());
+            body.put("distance", result.distance());
+            body.put("isMatch", result.isMatch());
+            body.put("modelVersion", model.version());
+            send(exchange, 200, body);
+            Metrics.HTTP_RECOGNIZE.recordSince(t0);
+        }
+    }
+
+    // Prometheus (texto) por padrão; ?format=json para JSON
+    private void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            boolean json = "json".equals(query(exchange).get("format"));
+            byte[] bytes = (json ? Metrics.toJson() : Metrics.toPrometheus()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", json ? "application/json; charset=utf-8" : "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void reload(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, Map.of("error", "Use POST."));
+                return;
+            }
+            boolean fromFile = "file".equals(query(exchange).get("source"));
+            if (fromFile && options.modelFile() == null) {
+                send(exchange, 400, Map.of("error", "Nenhum arquivo de modelo configurado."));
+            } else if (!fromFile && options.gallery() == null) {
+                send(exchange, 400, Map.of("error", "Nenhuma galeria configurada."));
+            } else if (reload(fromFile)) {
+                send(exchange, 202, Map.of("status", "reloading", "modelVersion", active.get().version()));
+            } else {
+                send(exchange, 409, Map.of("error", "Já existe uma recarga em curso."));
+            }
+        }
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            ActiveModel model = active.get();
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("modelVersion", model.version());
+            body.put("source", model.source());
+            body.put("loadedAt", model.loadedAt().toString());
+            body.put("identities", model.identities());
+            body.put("images", model.images());
+            body.put("resolution", model.recognizer().getImageProcessor().resolution());
+            body.put("reloading", reloading.get());
+            body.put("lastReloadError", lastReloadError);
+            body.put("requests", requests.sum());
+            body.put("failures", failures.sum());
+            send(exchange, 200, body);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, Map<String, ?> body) throws IOException {
+        byte[] bytes = json(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Objeto JSON plano: valores String, Number, Boolean ou null
+    static String json(Map<String, ?> body) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, ?> e : body.entrySet()) {
+            if (sb.length() > 1) sb.append(',');
+            quote(sb, e.getKey()).append(':');
+            Object v = e.getValue();
+            if (v == null || v instanceof Number || v instanceof Boolean) sb.append(v);
+            else quote(sb, v.toString());
+        }
+        return sb.append('}').toString();
+    }
+
+    private static StringBuilder quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"');
+    }
+
+    private static ServerOptions parse(String[] args) {
+        Path gallery = null;
+        Map<String, String> flags = new HashMap<>();
+        DeduplicationOptions deduplication = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--deduplicar") || args[i].equals("--sem-deduplicacao")) {
+                // As únicas opções sem valor, como no Main: tirar as quase iguais do treino ou nem procurá-las
+                DeduplicationOptions chosen = args[i].equals("--deduplicar") ? DeduplicationOptions.collapse() : DeduplicationOptions.off();
+                if (deduplication != null && !deduplication.equals(chosen)) {
+                    throw new IllegalArgumentException("Use --deduplicar ou --sem-deduplicacao, não os dois.");
+                }
+                deduplication = chosen;
+            } else if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Falta o valor de " + args[i]);
+                flags.put(args[i], args[++i]);
+            } else {
+                gallery = Paths.get(args[i]);
+            }
+        }
+        Path modelFile = flags.containsKey("--modelo") ? Paths.get(flags.get("--modelo")) : null;
+        if (gallery == null && modelFile == null) gallery = Paths.get("data/database_criminosos");
+        ServerOptions options = ServerOptions.defaults(gallery, modelFile);
+        if (flags.containsKey("--cache")) options = options.withCacheFile(Paths.get(flags.get("--cache")));
+        if (flags.containsKey("--salvar")) options = options.withSaveFile(Paths.get(flags.get("--salvar")));
+        if (flags.containsKey("--threads")) options = options.withHandlerThreads(Integer.parseInt(flags.get("--threads")));
+        if (flags.containsKey("--porta")) options = options.withPort(Integer.parseInt(flags.get("--porta")));
+        if (flags.containsKey("--limiar")) options = options.withThreshold(Double.parseDouble(flags.get("--limiar")));
+        if (deduplication != null) options = options.withDeduplication(deduplication);
+        if (flags.containsKey("--resolucao")) {
+            ImageProcessor resolution = ImageProcessor.parse(flags.get("--resolucao"));
+            options = options.withResolution(resolution.width(), resolution.height());
+        }
+        return options;
+    }
+}
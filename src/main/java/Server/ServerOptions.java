@@ -0,0 +1,98 @@
+package Server;
+
+import ImageProcessor.ImageProcessor;
+import Services.DeduplicationOptions;
+
+import java.nio.file.Path;
+
+/**
+ * Configuração do {@link RecognitionServer}: galeria de treino, arquivo do modelo (opcional), cache de
+ * vetores (opcional), porta, limiar de reconhecimento, tamanho máximo de cada imagem enviada, resolução das
+ * faces nos treinos feitos pelo servidor (um modelo carregado do arquivo usa a sua), arquivo onde gravar os
+ * modelos treinados pelo servidor (opcional; nunca o {@code modelFile}, que é de outro processo), número de
+ * threads que atendem as requisições e detecção de fotos quase iguais ao carregar a galeria.
+ */
+public record ServerOptions(
+        Path gallery,
+        Path modelFile,
+        Path cacheFile,
+        int port,
+        double threshold,
+        int maxImageBytes,
+        int imageWidth,
+        int imageHeight,
+        Path saveFile,
+        int handlerThreads,
+        DeduplicationOptions deduplication
+) {
+
+    public ServerOptions {
+        if (gallery == null && modelFile == null) {
+            throw new IllegalArgumentException("Informe a galeria de treino ou o arquivo do modelo.");
+        }
+        if (port < 0 || port > 65535) throw new IllegalArgumentException("Porta inválida: " + port);
+        if (maxImageBytes < 1) throw new IllegalArgumentException("O tamanho máximo da imagem deve ser positivo.");
+        if (imageWidth < ImageProcessor.MIN_SIDE || imageHeight < ImageProcessor.MIN_SIDE) {
+            throw new IllegalArgumentException("Resolução inválida: " + imageWidth + "x" + imageHeight);
+        }
+        if (saveFile != null && saveFile.equals(modelFile)) {
+            throw new IllegalArgumentException("O modelo treinado pelo servidor não pode sobrescrever o arquivo de --modelo.");
+        }
+        if (handlerThreads < 1) throw new IllegalArgumentException("É preciso pelo menos 1 thread de atendimento.");
+        if (deduplication == null) throw new IllegalArgumentException("Use DeduplicationOptions.off() para desligar a deduplicação.");
+    }
+
+    /**
+     * Padrão: porta 8080, limiar do {@code Main}, imagens de até 16 MB, faces em 100x100, sem modelo salvo nem
+     * cache, sem gravar os re-treinos, uma thread de atendimento por núcleo e, como no {@code Main}, as fotos quase
+     * iguais só informadas, todas no treino ({@link DeduplicationOptions#flag()}).
+     */
+    public static ServerOptions defaults(Path gallery) {
+        return defaults(gallery, null);
+    }
+
+    /** Como {@link #defaults(Path)}, com um arquivo de modelo; um dos dois pode ser null. */
+    public static ServerOptions defaults(Path gallery, Path modelFile) {
+        return new ServerOptions(gallery, modelFile, null, 8080, 12.0e6, 16 << 20,
+                ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, null, Runtime.getRuntime().availableProcessors(),
+                DeduplicationOptions.flag());
+    }
+
+    public ServerOptions withModelFile(Path file) {
+        return new ServerOptions(gallery, file, cacheFile, port, threshold, maxImageBytes, imageWidth, imageHeight, saveFile, handlerThreads, deduplication);
+    }
+
+    public ServerOptions withCacheFile(Path file) {
+        return new ServerOptions(gallery, modelFile, file, port, threshold, maxImageBytes, imageWidth, imageHeight, saveFile, handlerThreads, deduplication);
+    }
+
+    /** Porta 0 escolhe uma porta livre (ver {@link RecognitionServer#port()}). */
+    public ServerOptions withPort(int value) {
+        return new ServerOptions(gallery, modelFile, cacheFile, value, threshold, maxImageBytes, imageWidth, imageHeight, saveFile, handlerThreads, deduplication);
+    }
+
+    public ServerOptions withThreshold(double value) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, value, maxImageBytes, imageWidth, imageHeight, saveFile, handlerThreads, deduplication);
+    }
+
+    public ServerOptions withMaxImageBytes(int value) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, threshold, value, imageWidth, imageHeight, saveFile, handlerThreads, deduplication);
+    }
+
+    public ServerOptions withResolution(int width, int height) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, threshold, maxImageBytes, width, height, saveFile, handlerThreads, deduplication);
+    }
+
+    /** Grava em {@code file} cada modelo treinado pelo servidor (na partida e em cada recarga da galeria). */
+    public ServerOptions withSaveFile(Path file) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, threshold, maxImageBytes, imageWidth, imageHeight, file, handlerThreads, deduplication);
+    }
+
+    public ServerOptions withHandlerThreads(int value) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, threshold, maxImageBytes, imageWidth, imageHeight, saveFile, value, deduplication);
+    }
+
+    public ServerOptions withDeduplication(DeduplicationOptions value) {
+        return new ServerOptions(gallery, modelFile, cacheFile, port, threshold, maxImageBytes, imageWidth, imageHeight, saveFile, handlerThreads, value);
+    }
+}
@@ -1,56 +1,203 @@
 package Services;
 
+import Data.IngestFailure;
+import Data.NearDuplicate;
 import Data.TrainingData;
+import FisherfacesModel.MappedTrainingMatrix;
 import ImageProcessor.ImageProcessor;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Encapsula a lógica de carregamento e processamento
  * das imagens do banco de dados de treinamento.
+ * Com um {@link VectorCache}, as imagens cujo conteúdo já foi visto não são decodificadas de novo.
+ * Os vetores saem na resolução de {@code processor}, que segue no TrainingData até ao modelo.
+ * Com {@code deduplication} ligada, as fotos quase iguais são informadas ao {@link IngestListener} e, conforme
+ * as opções, as do mesmo indivíduo ficam fora do treino (ver {@link NearDuplicateFilter}).
  */
-public record DatabaseLoader(ImageProcessor processor) {
+public record DatabaseLoader(ImageProcessor processor, VectorCache cache, DeduplicationOptions deduplication) {
+
+    public DatabaseLoader(ImageProcessor processor) {
+        this(processor, null);
+    }
+
+    public DatabaseLoader(ImageProcessor processor, VectorCache cache) {
+        this(processor, cache, DeduplicationOptions.off());
+    }
+
+    public DatabaseLoader withDeduplication(DeduplicationOptions options) {
+        return new DatabaseLoader(processor, cache, options);
+    }
+
+    // Par (indivíduo, arquivo) na ordem em que entra no TrainingData
+    private record GalleryEntry(String label, Path file) {}
 
     /**
      * Carrega as imagens de referência do banco de dados.
      * A estrutura esperada é: databaseDir -> [Nome_Individuo] -> [image.png]
      */
     public TrainingData loadFromDirectory(Path trainDir) throws IOException {
-        if (!Files.exists(trainDir) || !Files.isDirectory(trainDir)) {
-            throw new IOException(String.format("Diretório do banco de dados não encontrado: %s", trainDir));
+        return loadFromDirectory(trainDir, IngestListener.CONSOLE);
+    }
+
+    public TrainingData loadFromDirectory(Path trainDir, IngestListener listener) throws IOException {
+        List<GalleryEntry> entries = listGallery(trainDir, listener);
+        NearDuplicateFilter duplicates = duplicateFilter();
+
+        List<double[]> outVectors = new ArrayList<>();
+        List<String> outLabels = new ArrayList<>();
+
+        int processed = 0;
+        for (GalleryEntry entry : entries) {
+            try {
+                // Processa a imagem e adiciona ao "treinamento"
+                double[] vector = load(entry.file());
+                if (keep(duplicates, entry, vector, listener)) {
+                    outVectors.add(vector);
+                    outLabels.add(entry.label());
+                }
+            } catch (IOException e) {
+                listener.onFailure(new IngestFailure(entry.file(), entry.label(), e.getMessage()));
+            }
+            listener.onProgress(++processed, entries.size());
         }
+        return new TrainingData(outVectors, outLabels, processor.width(), processor.height());
+    }
 
+    /**
+     * Versão paralela do carregamento: a decodificação e o pré-processamento correm num pool limitado
+     * de {@code parallelism} threads. No máximo {@code 2 * parallelism} imagens ficam em voo
+     * (backpressure), e os resultados são consumidos na ordem dos arquivos, de modo que o
+     * TrainingData é idêntico ao do modo sequencial.
+     */
+    public TrainingData loadFromDirectoryParallel(Path trainDir, int parallelism, IngestListener listener) throws IOException {
         List<double[]> outVectors = new ArrayList<>();
         List<String> outLabels = new ArrayList<>();
+        loadParallel(trainDir, parallelism, listener, (label, vector) -> {
+            outVectors.add(vector);
+            outLabels.add(label);
+        });
+        return new TrainingData(outVectors, outLabels, processor.width(), processor.height());
+    }
 
-        // Itera sobre as subpastas (ex: "Individuo_X", "Individuo_Y")
-        try (DirectoryStream<Path> labelDirs = Files.newDirectoryStream(trainDir, Files::isDirectory)) {
-            for (Path labelDir : labelDirs) {
-                String label = labelDir.getFileName().toString();
-                System.out.printf("  Registrando indivíduo: %s%n", label);
-
-                // Itera sobre os arquivos de imagem dentro da pasta do indivíduo
-                try (DirectoryStream<Path> imageFiles = Files.newDirectoryStream(labelDir)) {
-                    for (Path imageFile : imageFiles) {
-                        if (isImageFile(imageFile)) {
-                            try {
-                                // Processa a imagem e adiciona ao "treinamento"
-                                outVectors.add(processor.processImage(imageFile.toFile()));
-                                outLabels.add(label);
-                            } catch (IOException e) {
-                                System.err.printf("  [Aviso] Falha ao processar imagem %s: %s%n", imageFile.getFileName(), e.getMessage());
-                            }
-                        }
+    /**
+     * Como {@link #loadFromDirectoryParallel(Path, int, IngestListener)}, mas os vetores vão para um arquivo
+     * mapeado em vez de ficarem no heap, para treinar com {@code FisherfacesModel.train(MappedTrainingMatrix, ...)}.
+     */
+    public void loadFromDirectoryParallel(Path trainDir, int parallelism, MappedTrainingMatrix out,
+                                          IngestListener listener) throws IOException {
+        if (out.imageWidth() != processor.width() || out.imageHeight() != processor.height()) {
+            throw new IllegalArgumentException("Matriz de treino em " + out.imageWidth() + "x" + out.imageHeight()
+                    + ", processador em " + processor.resolution() + ".");
+        }
+        loadParallel(trainDir, parallelism, listener, (label, vector) -> out.append(vector, label));
+    }
+
+    // Destino de cada vetor carregado, chamado na ordem dos arquivos e sempre pela mesma thread
+    @FunctionalInterface
+    private interface VectorSink {
+        void accept(String label, double[] vector) throws IOException;
+    }
+
+    private void loadParallel(Path trainDir, int parallelism, IngestListener listener, VectorSink sink) throws IOException {
+        if (parallelism < 1) throw new IllegalArgumentException("O paralelismo deve ser pelo menos 1.");
+        List<GalleryEntry> entries = listGallery(trainDir, listener);
+        NearDuplicateFilter duplicates = duplicateFilter();
+
+        int window = 2 * parallelism;
+        Deque<Future<double[]>> inFlight = new ArrayDeque<>(window);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            int submitted = 0;
+            int processed = 0;
+            while (processed < entries.size()) {
+                // Mantém a janela cheia sem ultrapassar o limite de imagens em memória
+                while (submitted < entries.size() && inFlight.size() < window) {
+                    Path file = entries.get(submitted++).file();
+                    inFlight.addLast(executor.submit(() -> load(file)));
+                }
+
+                GalleryEntry entry = entries.get(processed);
+                try {
+                    double[] vector = inFlight.removeFirst().get();
+                    if (keep(duplicates, entry, vector, listener)) sink.accept(entry.label(), vector);
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof IOException io)) {
+                        throw new IOException("Erro inesperado ao processar " + entry.file(), e.getCause());
                     }
+                    listener.onFailure(new IngestFailure(entry.file(), entry.label(), io.getMessage()));
                 }
+                listener.onProgress(++processed, entries.size());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carregamento da galeria interrompido.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private NearDuplicateFilter duplicateFilter() {
+        return deduplication.enabled() ? new NearDuplicateFilter(deduplication, processor.width(), processor.height()) : null;
+    }
+
+    // Informa a quase igual encontrada, se houver, e diz se o vetor entra no treino
+    private static boolean keep(NearDuplicateFilter duplicates, GalleryEntry entry, double[] vector, IngestListener listener) {
+        if (duplicates == null) return true;
+        NearDuplicate duplicate = duplicates.check(entry.label(), entry.file(), vector);
+        if (duplicate == null) return true;
+        listener.onDuplicate(duplicate);
+        return !duplicate.removed();
+    }
+
+    private double[] load(Path file) throws IOException {
+        return cache != null ? cache.load(processor, file) : processor.processImage(file.toFile());
+    }
+
+    /**
+     * Lista as imagens da galeria ordenadas por indivíduo e nome de arquivo,
+     * para que os rótulos saiam sempre na mesma ordem.
+     */
+    private List<GalleryEntry> listGallery(Path trainDir, IngestListener listener) throws IOException {
+        if (!Files.exists(trainDir) || !Files.isDirectory(trainDir)) {
+            throw new IOException(String.format("Diretório do banco de dados não encontrado: %s", trainDir));
+        }
+
+        List<GalleryEntry> entries = new ArrayList<>();
+
+        // Itera sobre as subpastas (ex: "Individuo_X", "Individuo_Y")
+        for (Path labelDir : sortedChildren(trainDir, Files::isDirectory)) {
+            String label = labelDir.getFileName().toString();
+            listener.onLabel(label);
+
+            // Itera sobre os arquivos de imagem dentro da pasta do indivíduo
+            for (Path imageFile : sortedChildren(labelDir, this::isImageFile)) {
+                entries.add(new GalleryEntry(label, imageFile));
+            }
+        }
+        return entries;
+    }
+
+    private List<Path> sortedChildren(Path dir, DirectoryStream.Filter<Path> filter) throws IOException {
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, filter)) {
+            stream.forEach(children::add);
         }
-        return new TrainingData(outVectors, outLabels);
+        children.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        return children;
     }
 
     private boolean isImageFile(Path file) {
@@ -0,0 +1,48 @@
+package Services;
+
+/**
+ * Detecção de fotos quase iguais no carregamento da galeria ({@link NearDuplicateFilter}).
+ *
+ * @param maxHashDistance   bits diferentes aceitos entre hashes perceptuais; negativo desliga a detecção
+ * @param maxMeanDifference diferença média por pixel das miniaturas 16x16 (0 a 255) para confirmar um candidato
+ * @param collapseSameLabel true remove do treino as quase iguais do mesmo indivíduo; false só as informa.
+ *                          Entre indivíduos diferentes as duas fotos ficam sempre e o conflito é informado.
+ */
+public record DeduplicationOptions(int maxHashDistance, double maxMeanDifference, boolean collapseSameLabel) {
+
+    /**
+     * 7 bits: o {@link GalleryIndex.MultiIndexHash} só procura a 1 bit em cada bloco de 16 (até 8 bits seriam 2,
+     * com 137 baldes por bloco em vez de 17) e ganha da comparação com todas já com 20 000 fotos (140 ms x 459 ms
+     * no {@code Benchmark.NearDuplicateBenchmark}); com 8 bits perde. Cópias idênticas, recomprimidas, redimensionadas
+     * ou mais claras são todas achadas já com 6 bits; só se perdem algumas fotos da mesma rajada (26 de 60, contra 35 com 8).
+     */
+    public static final int DEFAULT_HASH_DISTANCE = 7;
+    public static final double DEFAULT_MEAN_DIFFERENCE = 10.0;
+
+    public DeduplicationOptions {
+        if (maxHashDistance > 64) throw new IllegalArgumentException("Um hash perceptual tem 64 bits.");
+        if (!(maxMeanDifference >= 0.0)) throw new IllegalArgumentException("A diferença média não pode ser negativa.");
+    }
+
+    public static DeduplicationOptions off() {
+        return new DeduplicationOptions(-1, 0.0, false);
+    }
+
+    /** Informa as quase iguais sem tirar nenhuma do treino. */
+    public static DeduplicationOptions flag() {
+        return new DeduplicationOptions(DEFAULT_HASH_DISTANCE, DEFAULT_MEAN_DIFFERENCE, false);
+    }
+
+    /** Mantém só a primeira foto de cada grupo de quase iguais do mesmo indivíduo. */
+    public static DeduplicationOptions collapse() {
+        return new DeduplicationOptions(DEFAULT_HASH_DISTANCE, DEFAULT_MEAN_DIFFERENCE, true);
+    }
+
+    public boolean enabled() {
+        return maxHashDistance >= 0;
+    }
+
+    public DeduplicationOptions withThresholds(int hashDistance, double meanDifference) {
+        return new DeduplicationOptions(hashDistance, meanDifference, collapseSameLabel);
+    }
+}
@@ -0,0 +1,46 @@
+package Services;
+
+import Data.IngestFailure;
+import Data.NearDuplicate;
+
+/**
+ * Recebe os eventos do carregamento da galeria.
+ * Os métodos são sempre chamados na thread que invocou o {@link DatabaseLoader},
+ * na ordem determinística dos arquivos, mesmo no modo paralelo.
+ */
+public interface IngestListener {
+
+    /** Listener que reproduz as mensagens de console do carregador. */
+    IngestListener CONSOLE = new IngestListener() {
+        @Override
+        public void onLabel(String label) {
+            System.out.printf("  Registrando indivíduo: %s%n", label);
+        }
+
+        @Override
+        public void onFailure(IngestFailure failure) {
+            System.err.printf("  [Aviso] Falha ao processar imagem %s: %s%n", failure.file().getFileName(), failure.reason());
+        }
+
+        @Override
+        public void onDuplicate(NearDuplicate duplicate) {
+            if (duplicate.crossLabel()) {
+                System.err.printf("  [Aviso] Mesma foto em indivíduos diferentes (erro de cadastro?): %s%n", duplicate);
+            } else {
+                System.out.printf("  Foto quase igual a outra do mesmo indivíduo: %s%n", duplicate);
+            }
+        }
+    };
+
+    /** Um novo indivíduo (subpasta) foi encontrado. */
+    default void onLabel(String label) {}
+
+    /** Mais uma imagem foi concluída (com sucesso ou não). */
+    default void onProgress(int processed, int total) {}
+
+    /** Uma imagem não pôde ser decodificada ou pré-processada. */
+    default void onFailure(IngestFailure failure) {}
+
+    /** Uma imagem é quase igual a outra já carregada (só com a deduplicação ligada no {@link DatabaseLoader}). */
+    default void onDuplicate(NearDuplicate duplicate) {}
+}
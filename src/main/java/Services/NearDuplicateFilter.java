@@ -0,0 +1,79 @@
+package Services;
+
+import Data.NearDuplicate;
+import GalleryIndex.MultiIndexHash;
+import ImageProcessor.PerceptualHash;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Etapa de deduplicação do carregamento: cada vetor pré-processado recebe um {@link PerceptualHash}, e a
+ * {@link MultiIndexHash} das imagens já aceitas devolve só as candidatas a poucos bits de distância, sem
+ * comparar com a galeria inteira. Uma candidata só conta se as miniaturas também forem parecidas.
+ *
+ * As imagens chegam na ordem dos arquivos, por isso a primeira de cada grupo é a que fica. Não é thread-safe:
+ * o {@link DatabaseLoader} chama-a sempre da mesma thread.
+ */
+public final class NearDuplicateFilter {
+
+    private final DeduplicationOptions options;
+    private final int width;
+    private final int height;
+    private final MultiIndexHash index = new MultiIndexHash();
+    private final List<byte[]> thumbnails = new ArrayList<>();
+    private final List<String> labels = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+
+    public NearDuplicateFilter(DeduplicationOptions options, int width, int height) {
+        if (!options.enabled()) throw new IllegalArgumentException("Deduplicação desligada.");
+        this.options = options;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Confere {@code vector} contra as imagens já aceitas. Devolve null se não houver nenhuma quase igual;
+     * senão a mais parecida, preferindo uma de outro indivíduo (conflito de rótulo). Se
+     * {@link NearDuplicate#removed()}, a imagem não deve entrar no treino e não é guardada aqui.
+     */
+    public NearDuplicate check(String label, Path file, double[] vector) {
+        PerceptualHash.Signature signature = PerceptualHash.of(vector, width, height);
+        int[] best = {-1, -1};             // mesmo indivíduo, outro indivíduo
+        double[] bestDifference = {Double.MAX_VALUE, Double.MAX_VALUE};
+        int[] bestBits = new int[2];
+        index.search(signature.hash(), options.maxHashDistance(), (item, bits) -> {
+            double difference = PerceptualHash.meanDifference(signature.thumbnail(), thumbnails.get(item));
+            if (difference > options.maxMeanDifference()) return;
+            int kind = labels.get(item).equals(label) ? 0 : 1;
+            if (difference < bestDifference[kind]) {
+                best[kind] = item;
+                bestDifference[kind] = difference;
+                bestBits[kind] = bits;
+            }
+        });
+
+        int kind = best[1] >= 0 ? 1 : 0;
+        boolean removed = kind == 0 && best[0] >= 0 && options.collapseSameLabel();
+        if (!removed) {
+            index.add(signature.hash());
+            thumbnails.add(signature.thumbnail());
+            labels.add(label);
+            files.add(file);
+        }
+        if (best[kind] < 0) return null;
+        int item = best[kind];
+        return new NearDuplicate(file, label, files.get(item), labels.get(item), bestBits[kind], bestDifference[kind], removed);
+    }
+
+    /** Imagens guardadas no índice (as aceitas para o treino). */
+    public int size() {
+        return index.size();
+    }
+
+    /** Distâncias de Hamming calculadas até agora, contra as n·(n - 1)/2 de comparar todas com todas. */
+    public long comparisons() {
+        return index.comparisons();
+    }
+}
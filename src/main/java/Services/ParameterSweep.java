@@ -0,0 +1,172 @@
+package Services;
+
+import Data.TrainingData;
+import FisherfacesModel.CrossValidation;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import FisherfacesModel.Projection;
+import GalleryIndex.Neighbor;
+import ImageProcessor.ImageProcessor;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Validação cruzada e varredura do número de componentes do PCA, da regularização de Sw e do limiar de
+ * reconhecimento com a {@link CrossValidation} (Gram calculada uma vez, uma decomposição por parte, limiares
+ * sobre as distâncias guardadas).
+ *
+ * 1. Tabela por combinação: acurácia do vizinho mais próximo, taxa de erro igual (EER) e o seu limiar, o
+ *    limiar com mais decisões certas e a acurácia no limiar padrão do {@code Main} (12e6).
+ * 2. Curva ROC e tabela de identificação da melhor combinação em vários limiares.
+ * 3. Conferência: a primeira parte é treinada do zero com {@link FisherfacesModel} na melhor combinação, e as
+ *    distâncias ao vizinho mais próximo são comparadas; o tempo desse treino vezes partes x combinações
+ *    estima quanto levaria a varredura re-treinando tudo.
+ *
+ * A galeria é a mesma do {@code Main} ({@code --galeria}, padrão {@value #DEFAULT_GALLERY}). {@code --partes loo} é
+ * deixa-um-de-fora: são m decomposições de (m-1) x (m-1), O(m⁴) no total, viável só em galerias pequenas.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT.jar Services.ParameterSweep
+ *        [--partes 5] [--componentes 0,20,40,80] [--regularizacoes 1e-5,1e-2,10,1e3] [--limiares 1e6,4e6,12e6]
+ *        [--galeria data/database_criminosos]
+ */
+public final class ParameterSweep {
+
+    private static final double DEFAULT_THRESHOLD = 12.0e6;
+    private static final String DEFAULT_GALLERY = "data/database_criminosos";
+    // Deixa-um-de-fora acima disto leva horas (uma decomposição (m-1) x (m-1) por imagem)
+    private static final int LEAVE_ONE_OUT_WARNING = 2_000;
+
+    private ParameterSweep() {}
+
+    public static void main(String[] args) throws Exception {
+        String folds = "5";
+        String components = "0,20,40,80";
+        String regularizations = "1e-5,1e-2,10,1e3";
+        String thresholds = null;
+        String galleryDir = DEFAULT_GALLERY;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--partes" -> folds = args[i + 1];
+                case "--componentes" -> components = args[i + 1];
+                case "--regularizacoes" -> regularizations = args[i + 1];
+                case "--limiares" -> thresholds = args[i + 1];
+                case "--galeria" -> galleryDir = args[i + 1];
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        int foldCount = folds.equalsIgnoreCase("loo") ? 0 : Integer.parseInt(folds);
+        List<CrossValidation.Setting> settings = CrossValidation.grid(
+                Arrays.stream(components.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray(),
+                Arrays.stream(regularizations.split(",")).mapToDouble(s -> Double.parseDouble(s.trim())).toArray());
+
+        DatabaseLoader loader = new DatabaseLoader(new ImageProcessor());
+        TrainingData data = loader.loadFromDirectoryParallel(Paths.get(galleryDir),
+                Runtime.getRuntime().availableProcessors(), IngestListener.CONSOLE);
+        if (data.isEmpty()) {
+            System.err.println("[ERRO] Nenhuma imagem encontrada em " + galleryDir + ".");
+            return;
+        }
+        System.out.printf("Imagens: %d de %d pixels (%s); %d combinações.%n", data.size(), data.vectors().getFirst().length,
+                galleryDir, settings.size());
+        if (foldCount == 0 && data.size() > LEAVE_ONE_OUT_WARNING) {
+            System.err.printf("[Aviso] Deixa-um-de-fora com %d imagens faz %d decomposições de %d x %d; prefira --partes 5.%n",
+                    data.size(), data.size(), data.size() - 1, data.size() - 1);
+        }
+
+        long start = System.nanoTime();
+        CrossValidation validation = CrossValidation.prepare(data);
+        double gramSeconds = (System.nanoTime() - start) / 1e9;
+        start = System.nanoTime();
+        CrossValidation.Report report;
+        try {
+            report = validation.run(foldCount, settings, 1L);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ERRO] " + e.getMessage() + " Use menos partes ou uma galeria com mais indivíduos.");
+            return;
+        }
+        double runSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: Gram em %.2f s, todas as partes e combinações em %.2f s.%n%n",
+                report.leaveOneOut() ? "Deixa-um-de-fora (" + report.folds() + " partes)" : report.folds() + " partes",
+                gramSeconds, runSeconds);
+
+        System.out.printf("%-12s %10s %10s %8s %12s %13s %14s %16s%n", "Componentes", "Reg. Sw", "Top-1 (%)",
+                "EER (%)", "Limiar EER", "Melhor limiar", "Acerto (%)", "Acerto 12e6 (%)");
+        for (CrossValidation.Outcome o : report.outcomes()) {
+            CrossValidation.Point eer = o.equalErrorRate();
+            CrossValidation.Point best = o.bestThreshold();
+            String used = o.minComponents() == o.maxComponents() ? String.valueOf(o.minComponents())
+                    : o.minComponents() + "-" + o.maxComponents();
+            System.out.printf("%-12s %10.0e %10.2f %8.2f %12.3e %13.3e %14.2f %16.2f%n", used, o.setting().regularization(),
+                    100 * o.rank1Accuracy(), 100 * (1 - eer.trueAcceptRate()), eer.threshold(), best.threshold(),
+                    100 * best.accuracy(), 100 * o.at(DEFAULT_THRESHOLD).accuracy());
+        }
+
+        CrossValidation.Outcome best = report.best();
+        double[] grid = thresholds != null
+                ? Arrays.stream(thresholds.split(",")).mapToDouble(s -> Double.parseDouble(s.trim())).toArray()
+                : defaultThresholds(best);
+        System.out.printf("%nROC da melhor combinação (componentes %s, regularização %.0e):%n",
+                best.setting().components() > 0 ? best.setting().components() : "m - C", best.setting().regularization());
+        System.out.printf("%12s %9s %9s %12s %12s %12s %11s%n", "Limiar", "TAR (%)", "FAR (%)", "Certo (%)",
+                "Errado (%)", "Rejeitado (%)", "Acerto (%)");
+        for (double t : grid) {
+            CrossValidation.Point p = best.at(t);
+            System.out.printf("%12.3e %9.2f %9.2f %12.2f %12.2f %12.2f %11.2f%n", t, 100 * p.trueAcceptRate(),
+                    100 * p.falseAcceptRate(), 100 * p.correctRate(), 100 * p.wrongRate(), 100 * p.rejectRate(), 100 * p.accuracy());
+        }
+
+        check(data, report, best, settings.size(), runSeconds + gramSeconds);
+    }
+
+    // Re-treina a primeira parte do zero e compara as distâncias ao vizinho mais próximo
+    private static void check(TrainingData data, CrossValidation.Report report, CrossValidation.Outcome outcome,
+                              int settingCount, double sweepSeconds) {
+        List<double[]> trainVectors = new ArrayList<>();
+        List<String> trainLabels = new ArrayList<>();
+        List<Integer> test = new ArrayList<>();
+        for (int j = 0; j < data.size(); j++) {
+            if (report.foldOf()[j] == 0) {
+                test.add(j);
+            } else {
+                trainVectors.add(data.vectors().get(j));
+                trainLabels.add(data.labels().get(j));
+            }
+        }
+        FisherfacesModel model = new FisherfacesModel();
+        model.setWithinClassRegularization(outcome.setting().regularization());
+        PcaOptions options = PcaOptions.exact().withComponents(outcome.setting().components());
+        long start = System.nanoTime();
+        model.train(new TrainingData(trainVectors, trainLabels, data.imageWidth(), data.imageHeight()), options);
+        double trainSeconds = (System.nanoTime() - start) / 1e9;
+
+        Projection projection = model.getProjection();
+        int sameLabel = 0;
+        double worst = 0.0;
+        for (int j : test) {
+            Neighbor nearest = model.getGalleryIndex().search(projection.project(data.vectors().get(j)), 1).getFirst();
+            if (nearest.label().equals(outcome.nearestLabel(j))) sameLabel++;
+            double scale = Math.max(Math.abs(nearest.distance()), 1e-9);
+            worst = Math.max(worst, Math.abs(nearest.distance() - outcome.nearestDistance(j)) / scale);
+        }
+        System.out.printf("%nConferência com o treino completo da parte 1: vizinho igual em %d/%d, maior diferença relativa de distância %.2e.%n",
+                sameLabel, test.size(), worst);
+        double naive = trainSeconds * report.folds() * settingCount;
+        System.out.printf("Re-treinando cada parte em cada combinação: %.2f s x %d partes x %d combinações ≈ %.1f s (varredura: %.2f s, %.0fx).%n",
+                trainSeconds, report.folds(), settingCount, naive, sweepSeconds, naive / sweepSeconds);
+    }
+
+    // Em torno do melhor limiar, em passos de √2, mais o limiar padrão
+    private static double[] defaultThresholds(CrossValidation.Outcome outcome) {
+        double center = outcome.bestThreshold().threshold();
+        if (!(center > 0)) center = DEFAULT_THRESHOLD;
+        double[] grid = new double[14];
+        for (int i = 0; i < 13; i++) grid[i] = center * Math.pow(2.0, (i - 6) / 2.0);
+        grid[13] = DEFAULT_THRESHOLD;
+        Arrays.sort(grid);
+        return grid;
+    }
+}
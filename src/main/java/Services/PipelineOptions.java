@@ -0,0 +1,63 @@
+package Services;
+
+/**
+ * Dimensionamento do pipeline de verificação: threads por etapa, capacidade das filas
+ * entre etapas e tamanho máximo de cada lote de projeção.
+ */
+public record PipelineOptions(
+        int decodeThreads,
+        int preprocessThreads,
+        int projectionThreads,
+        int searchThreads,
+        int queueCapacity,
+        int batchSize
+) {
+
+    public PipelineOptions {
+        if (decodeThreads < 1 || preprocessThreads < 1 || projectionThreads < 1 || searchThreads < 1) {
+            throw new IllegalArgumentException("Cada etapa precisa de pelo menos 1 thread.");
+        }
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacidade das filas e tamanho do lote devem ser positivos.");
+        }
+    }
+
+    /**
+     * Padrão: a decodificação fica com metade dos núcleos (é a etapa mais lenta), o pré-processamento
+     * com um quarto, e projeção e busca com uma thread cada (a projeção em lote já é paralela).
+     * As filas são curtas porque a primeira guarda imagens decodificadas em resolução original.
+     */
+    public static PipelineOptions defaults() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new PipelineOptions(Math.max(1, cores / 2), Math.max(1, cores / 4), 1, 1, 32, 64);
+    }
+
+    public PipelineOptions withThreads(int decode, int preprocess, int projection, int search) {
+        return new PipelineOptions(decode, preprocess, projection, search, queueCapacity, batchSize);
+    }
+
+    /** Threads por etapa escritas como {@code decodificação,pré-processamento,projeção,busca} (ex.: {@code 4,2,1,1}). */
+    public PipelineOptions withThreads(String stages) {
+        String[] parts = stages.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Threads por etapa devem ser 4 números separados por vírgula (ex.: 4,2,1,1): " + stages);
+        }
+        int[] threads = new int[4];
+        for (int i = 0; i < 4; i++) {
+            try {
+                threads[i] = Integer.parseInt(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Número de threads inválido: " + parts[i]);
+            }
+        }
+        return withThreads(threads[0], threads[1], threads[2], threads[3]);
+    }
+
+    public PipelineOptions withQueueCapacity(int capacity) {
+        return new PipelineOptions(decodeThreads, preprocessThreads, projectionThreads, searchThreads, capacity, batchSize);
+    }
+
+    public PipelineOptions withBatchSize(int size) {
+        return new PipelineOptions(decodeThreads, preprocessThreads, projectionThreads, searchThreads, queueCapacity, size);
+    }
+}
@@ -0,0 +1,41 @@
+package Services;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Resumo de uma execução do pipeline de verificação, para dimensionar as etapas.
+ *
+ * A ocupação de uma etapa é o tempo em que as suas threads estiveram a trabalhar dividido pelo tempo
+ * total disponível (threads x duração). Uma etapa perto de 100% com a fila de entrada cheia é o
+ * gargalo; uma fila sempre vazia indica que a etapa anterior não a alimenta depressa o suficiente.
+ */
+public record PipelineReport(int images, int failures, long elapsedNanos, List<StageStats> stages) {
+
+    /**
+     * @param queueCapacity capacidade da fila de entrada da etapa (0 para a decodificação, que lê a lista de arquivos)
+     */
+    public record StageStats(String name, int threads, long busyNanos, int queueCapacity,
+                             double meanQueueDepth, int maxQueueDepth) {
+
+        public double utilization(long elapsedNanos) {
+            return elapsedNanos == 0 ? 0.0 : (double) busyNanos / ((double) elapsedNanos * threads);
+        }
+    }
+
+    /** Imagens classificadas por segundo. */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0.0 : images / (elapsedNanos / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("Pipeline: %d imagens em %.1f ms (%.1f imagens/s), %d falhas%n",
+                images, elapsedNanos / 1e6, throughput(), failures);
+        out.printf("  %-18s %8s %10s %18s %12s%n", "Etapa", "Threads", "Ocupação", "Fila média/máx", "Capacidade");
+        for (StageStats s : stages) {
+            String queue = s.queueCapacity() == 0 ? "-" : String.format("%.1f / %d", s.meanQueueDepth(), s.maxQueueDepth());
+            String capacity = s.queueCapacity() == 0 ? "-" : Integer.toString(s.queueCapacity());
+            out.printf("  %-18s %8d %9.1f%% %18s %12s%n", s.name(), s.threads(), 100.0 * s.utilization(elapsedNanos), queue, capacity);
+        }
+    }
+}
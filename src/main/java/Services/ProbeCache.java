@@ -0,0 +1,106 @@
+package Services;
+
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import Metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache em memória dos resultados da verificação, pelo conteúdo de cada imagem ({@link VectorCache.Key}): a
+ * mesma foto enviada de novo, por outra câmera ou com outro nome, não é decodificada, projetada nem comparada
+ * com a galeria.
+ *
+ * Os resultados guardados valem para uma revisão do modelo e um limiar ({@link Stamp}). Quando um deles muda
+ * (re-treino, enroll/unenroll, {@link FaceRecognizer#setRecognitionThreshold}), a consulta seguinte esvazia o
+ * cache. Passando de {@code capacity} resultados, sai o usado há mais tempo (LRU). É seguro para várias threads.
+ */
+public final class ProbeCache {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /** Contagens desde a criação; {@code invalidations} conta os esvaziamentos por mudança do modelo ou do limiar. */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    /** Estado do reconhecedor com que um resultado foi calculado. */
+    public record Stamp(long modelRevision, double threshold) {
+        public static Stamp of(FaceRecognizer recognizer) {
+            return new Stamp(recognizer.getModelRevision(), recognizer.getRecognitionThreshold());
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<VectorCache.Key, RecognitionResult> entries;
+    private Stamp stamp; // estado com que todas as entradas foram calculadas; protegido por this
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ProbeCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ProbeCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("O cache de resultados precisa de pelo menos 1 entrada.");
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<VectorCache.Key, RecognitionResult> eldest) {
+                if (size() <= ProbeCache.this.capacity) return false;
+                evictions++;
+                Metrics.PROBE_CACHE_EVICTED.increment();
+                return true;
+            }
+        };
+    }
+
+    /** Resultado guardado para {@code key}, com o nome {@code fileName}, ou null se não houver um calculado com {@code current}. */
+    public synchronized RecognitionResult get(VectorCache.Key key, Stamp current, String fileName) {
+        align(current);
+        RecognitionResult result = entries.get(key);
+        if (result == null) {
+            misses++;
+            Metrics.PROBE_CACHE_MISSES.increment();
+            return null;
+        }
+        hits++;
+        Metrics.PROBE_CACHE_HITS.increment();
+        return renamed(result, fileName);
+    }
+
+    /**
+     * Guarda {@code result}, calculado com {@code computedWith} (lido antes do reconhecimento). Se o estado do
+     * cache for outro, as entradas antigas saem primeiro: nunca convivem resultados de estados diferentes.
+     */
+    public synchronized void put(VectorCache.Key key, Stamp computedWith, RecognitionResult result) {
+        align(computedWith);
+        entries.put(key, result);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, entries.size());
+    }
+
+    /** O mesmo resultado para outro arquivo com o mesmo conteúdo. */
+    public static RecognitionResult renamed(RecognitionResult result, String fileName) {
+        if (result.fileName().equals(fileName)) return result;
+        return new RecognitionResult(fileName, result.recognizedLabel(), result.distance(), result.isMatch());
+    }
+
+    private void align(Stamp current) {
+        if (current.equals(stamp)) return;
+        if (!entries.isEmpty()) {
+            entries.clear();
+            invalidations++;
+            Metrics.PROBE_CACHE_CLEARED.increment();
+        }
+        stamp = current;
+    }
+}
@@ -0,0 +1,266 @@
+package Services;
+
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import ImageProcessor.ImageProcessor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Verificação contínua da pasta de suspeitos: as imagens são reconhecidas à medida que chegam,
+ * em vez de a pasta inteira ser verificada de novo a cada execução.
+ *
+ * Um arquivo só é processado depois de o tamanho e a data de modificação ficarem iguais durante
+ * {@code quietPeriod} (a câmera pode ainda estar a escrevê-lo); se mesmo assim não decodificar, é tentado
+ * de novo mais duas vezes antes de ser registrado como falha.
+ *
+ * Cada resultado é acrescentado ao registro (TSV) e gravado em disco antes de o arquivo contar como
+ * processado. O próprio registro é a contabilidade: ao reiniciar, é lido de volta e os arquivos já
+ * registrados (mesmo nome e mesmo SHA-256) não são processados outra vez; os que chegaram com o programa
+ * parado são apanhados na varredura inicial. Uma linha incompleta no fim (queda a meio da escrita) é
+ * descartada, e esse arquivo é processado de novo. Um arquivo substituído por outro conteúdo com o mesmo
+ * nome gera uma linha nova.
+ */
+public final class SuspectWatcher {
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofMillis(500);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String HEADER = "# instante\tarquivo\ttamanho\tmodificado\tsha256\tresultado\tindividuo\tdistancia\n";
+
+    // Última linha do registro de cada arquivo
+    private record Entry(long size, long modified, String sha256) {}
+
+    // Arquivo visto e ainda não processado; fica pronto quando tamanho e data não mudam durante quietPeriod
+    private record Pending(long size, long modified, long stableSinceNanos, int attempts) {}
+
+    private final ImageProcessor processor;
+    private final FaceRecognizer recognizer;
+    private final VectorCache cache;
+    private final Path resultLog;
+    private final Duration quietPeriod;
+    private final Map<String, Entry> processed = new ConcurrentHashMap<>();
+
+    public SuspectWatcher(ImageProcessor processor, FaceRecognizer recognizer, VectorCache cache, Path resultLog) {
+        this(processor, recognizer, cache, resultLog, DEFAULT_QUIET_PERIOD);
+    }
+
+    /** @param cache opcional (null): vetores já calculados para o mesmo conteúdo */
+    public SuspectWatcher(ImageProcessor processor, FaceRecognizer recognizer, VectorCache cache, Path resultLog, Duration quietPeriod) {
+        if (quietPeriod.isNegative()) throw new IllegalArgumentException("O período de espera não pode ser negativo.");
+        this.processor = processor;
+        this.recognizer = recognizer;
+        this.cache = cache;
+        this.resultLog = resultLog;
+        this.quietPeriod = quietPeriod;
+    }
+
+    /** Arquivos registrados (processados ou com falha), contando as execuções anteriores. */
+    public int processedCount() {
+        return processed.size();
+    }
+
+    /**
+     * Monitora {@code dir} até a thread ser interrompida, entregando cada resultado a {@code sink}
+     * depois de ele estar gravado no registro.
+     */
+    public void watch(Path dir, Consumer<RecognitionResult> sink) throws IOException, InterruptedException {
+        if (recognizer.getProjection() == null) throw new IllegalStateException("Modelo não treinado.");
+        if (!Files.isDirectory(dir)) throw new IOException("Diretório de suspeitos não encontrado: " + dir);
+
+        long quietNanos = quietPeriod.toNanos();
+        long tickMillis = Math.clamp(quietPeriod.toMillis() / 2, 10, 250);
+        try (WatchService watcher = dir.getFileSystem().newWatchService();
+             FileChannel log = openLog()) {
+            // Registra antes da varredura: um arquivo que chegue entre as duas gera um evento
+            dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+            Map<Path, Pending> pending = new HashMap<>();
+            rescan(dir, pending);
+
+            while (true) {
+                WatchKey key = watcher.poll(tickMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            rescan(dir, pending);
+                        } else if (event.context() instanceof Path name && isImageFile(name)) {
+                            observe(dir.resolve(name), pending);
+                        }
+                    }
+                    if (!key.reset()) throw new IOException("Diretório de suspeitos deixou de estar acessível: " + dir);
+                }
+
+                long now = System.nanoTime();
+                List<Path> ready = new ArrayList<>();
+                for (Map.Entry<Path, Pending> e : List.copyOf(pending.entrySet())) {
+                    Pending p = e.getValue();
+                    BasicFileAttributes attrs = attributes(e.getKey());
+                    if (attrs == null) {
+                        pending.remove(e.getKey());
+                    } else if (attrs.size() != p.size() || attrs.lastModifiedTime().toMillis() != p.modified()) {
+                        pending.put(e.getKey(), new Pending(attrs.size(), attrs.lastModifiedTime().toMillis(), now, p.attempts()));
+                    } else if (now - p.stableSinceNanos() >= quietNanos) {
+                        ready.add(e.getKey());
+                    }
+                }
+                ready.sort(null);
+                for (Path file : ready) process(file, pending, log, sink);
+            }
+        }
+    }
+
+    private void process(Path file, Map<Path, Pending> pending, FileChannel log, Consumer<RecognitionResult> sink) throws IOException {
+        Pending p = pending.remove(file);
+        String name = file.getFileName().toString();
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        String sha = sha256(content);
+        Entry previous = processed.get(name);
+        if (previous != null && previous.sha256().equals(sha)) return;
+        Entry entry = new Entry(content.length, p.modified(), sha);
+
+        double[] vector;
+        try {
+            vector = preprocess(content, name);
+        } catch (IOException | RuntimeException e) {
+            if (p.attempts() + 1 < MAX_ATTEMPTS) {
+                pending.put(file, new Pending(p.size(), p.modified(), System.nanoTime(), p.attempts() + 1));
+                return;
+            }
+            append(log, name, entry, "FALHA\t" + clean(e.getMessage()) + "\t");
+            System.err.printf("  [Aviso] Falha ao verificar imagem %s: %s%n", name, e.getMessage());
+            return;
+        }
+
+        RecognitionResult result = recognizer.recognizeProjected(recognizer.getProjection().project(vector), name);
+        append(log, name, entry, (result.isMatch() ? "CORRESPONDENCIA" : "DESCONHECIDO")
+                + "\t" + clean(result.recognizedLabel()) + "\t" + result.distance());
+        sink.accept(result);
+    }
+
+    private double[] preprocess(byte[] content, String name) throws IOException {
+        if (cache == null) return processor.preprocess(processor.decode(content, name));
+        VectorCache.Key key = cache.keyOf(processor, content);
+        double[] vector = cache.get(key);
+        if (vector == null) {
+            vector = processor.preprocess(processor.decode(content, name));
+            cache.put(key, vector);
+        }
+        return vector;
+    }
+
+    // A linha só conta depois de gravada em disco
+    private void append(FileChannel log, String name, Entry entry, String outcome) throws IOException {
+        String line = Instant.now() + "\t" + clean(name) + "\t" + entry.size() + "\t" + entry.modified()
+                + "\t" + entry.sha256() + "\t" + outcome + "\n";
+        write(log, line);
+        log.force(false);
+        processed.put(name, entry);
+    }
+
+    private static void write(FileChannel log, String text) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        long position = log.size();
+        while (bytes.hasRemaining()) position += log.write(bytes, position);
+    }
+
+    // Lê o registro das execuções anteriores e descarta uma última linha incompleta
+    private FileChannel openLog() throws IOException {
+        Path parent = resultLog.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        FileChannel log = FileChannel.open(resultLog, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            byte[] existing = Files.readAllBytes(resultLog);
+            int end = existing.length;
+            while (end > 0 && existing[end - 1] != '\n') end--;
+            if (end < existing.length) log.truncate(end);
+
+            for (String line : new String(existing, 0, end, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 6) continue;
+                processed.put(fields[1], new Entry(Long.parseLong(fields[2]), Long.parseLong(fields[3]), fields[4]));
+            }
+            if (end == 0) write(log, HEADER);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    private void rescan(Path dir, Map<Path, Pending> pending) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, f -> isImageFile(f.getFileName()))) {
+            for (Path file : stream) observe(file, pending);
+        }
+    }
+
+    private void observe(Path file, Map<Path, Pending> pending) {
+        BasicFileAttributes attrs = attributes(file);
+        if (attrs == null || !attrs.isRegularFile()) return;
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        // Igual à última linha registrada: já processado (evita ler e calcular o hash de todo o histórico)
+        Entry entry = processed.get(file.getFileName().toString());
+        if (entry != null && entry.size() == size && entry.modified() == modified) return;
+        Pending previous = pending.get(file);
+        pending.put(file, new Pending(size, modified, System.nanoTime(), previous != null ? previous.attempts() : 0));
+    }
+
+    private static BasicFileAttributes attributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String clean(String text) {
+        return text == null ? "" : text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static boolean isImageFile(Path name) {
+        String fileName = name.toString().toLowerCase();
+        return fileName.endsWith(".png") || fileName.endsWith(".jpg") || fileName.endsWith(".jpeg");
+    }
+}
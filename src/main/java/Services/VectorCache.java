@@ -0,0 +1,469 @@
+package Services;
+
+import ImageProcessor.ImageProcessor;
+import Metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache em disco dos vetores pré-processados, para não decodificar de novo as imagens que não mudaram.
+ *
+ * A chave é o SHA-256 dos parâmetros de pré-processamento (incluindo a decodificação reduzida) seguidos do
+ * conteúdo do arquivo: renomear uma imagem não invalida a entrada, e alterar um pixel ou a resolução sim. As entradas vão sendo
+ * acrescentadas ao fim de um único arquivo, lido por mapeamento em memória; o índice (chave -> posição)
+ * é reconstruído na abertura, verificando o CRC de cada registro. Um registro incompleto no fim (processo
+ * interrompido a meio de uma escrita) é ignorado e sobrescrito.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int MAGIC ("FFVC"), int VERSION
+ *   registros: byte[32] chave, byte codificação, int n,
+ *              codificação 0: double[n]
+ *              codificação 1: int p, double paleta[p], byte índice[n]   (até 256 valores distintos)
+ *              int CRC32C do registro
+ * </pre>
+ * Com a equalização de histograma cada vetor tem no máximo 256 valores distintos, por isso a paleta
+ * guarda 10 000 elementos em cerca de 12 KB em vez de 80 KB, sem perda.
+ *
+ * Quando um acréscimo faria o arquivo passar de {@code maxBytes}, as entradas usadas nesta execução e, depois,
+ * as mais recentes são copiadas, até 3/4 do limite, para a geração seguinte ({@code vetores.bin.1},
+ * {@code vetores.bin.2}, ...), e o cache passa a usá-la sem ser fechado: o limite vale também para o servidor e
+ * para o {@code --monitorar}, que não chegam a fechá-lo. Um arquivo ainda mapeado não pode ser substituído nem
+ * apagado no Windows; por isso a compactação nunca reescreve o arquivo em uso, e as gerações antigas que não
+ * puderam ser apagadas na hora são apagadas na próxima abertura. É seguro para várias threads.
+ *
+ * Um arquivo de cache é de um único processo: cada um acrescenta na sua própria posição do fim, compacta e apaga
+ * gerações sem saber dos outros. {@link #open} toma um bloqueio exclusivo em {@code vetores.bin.lock}, mantido
+ * até o {@link #close}, e falha se outro processo (ou outro cache aberto neste) já o tiver; o servidor e o
+ * {@code Main} rodando juntos precisam de arquivos diferentes.
+ */
+public final class VectorCache implements Closeable {
+
+    static final int MAGIC = 0x46465643;
+    static final int VERSION = 1;
+
+    public static final long DEFAULT_MAX_BYTES = 2L << 30;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int KEY_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = KEY_BYTES + 1 + Integer.BYTES;
+    private static final byte RAW = 0;
+    private static final byte PALETTE = 1;
+    private static final int MAX_PALETTE = 256;
+    // O arquivo é mapeado em janelas de 1 GB que se sobrepõem em MAX_RECORD, para que cada registro caiba inteiro numa janela
+    private static final long SEGMENT = 1L << 30;
+    private static final int MAX_RECORD = 1 << 24;
+
+    /** Acertos e faltas desde a abertura, entradas no índice e tamanho atual do arquivo. */
+    public record Stats(long hits, long misses, int entries, long bytes) {}
+
+    /** SHA-256 dos parâmetros de pré-processamento e do conteúdo de uma imagem. */
+    public record Key(long a, long b, long c, long d) {}
+
+    private record Entry(long offset, int length) {}
+
+    // Um arquivo do cache aberto: o índice é o das posições nele, por isso troca junto com o arquivo
+    private static final class Generation {
+        final Path file;
+        final FileChannel channel;
+        final List<MappedByteBuffer> segments = new ArrayList<>();
+        final long mappedSize;
+        final Map<Key, Entry> index = new ConcurrentHashMap<>();
+        long size; // fim do último registro válido; protegido pelo VectorCache
+
+        Generation(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long fileSize = channel.size();
+                if (fileSize < HEADER_BYTES || !headerMatches(channel)) {
+                    // Arquivo novo ou de outro formato: recomeça vazio
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+                    channel.write(header, 0);
+                    channel.truncate(HEADER_BYTES);
+                    fileSize = HEADER_BYTES;
+                }
+                for (long start = 0; start < fileSize; start += SEGMENT) {
+                    segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, SEGMENT + MAX_RECORD)));
+                }
+                this.mappedSize = fileSize;
+                this.size = scan(this, fileSize);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+    }
+
+    private final Path file;
+    private final long maxBytes;
+    private final FileChannel lockChannel; // o bloqueio vale enquanto o canal estiver aberto
+    private volatile Generation current;
+    private final Set<Key> used = ConcurrentHashMap.newKeySet();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private VectorCache(Path file, long maxBytes) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        // Antes de tocar em qualquer geração: as "antigas" podem ser as que outro processo está usando
+        this.lockChannel = FileChannel.open(lockFile(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock acquired;
+        try {
+            acquired = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            acquired = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (acquired == null) {
+            lockChannel.close();
+            throw new IOException("Cache de vetores já aberto por outro processo: " + file
+                    + " (cada processo precisa do seu arquivo de cache)");
+        }
+        try {
+            List<Path> generations = generations(file);
+            this.current = new Generation(generations.isEmpty() ? file : generations.getLast());
+            // Gerações anteriores que não puderam ser apagadas e cópias interrompidas a meio
+            for (Path old : generations) {
+                if (!old.equals(current.file)) Files.deleteIfExists(old);
+            }
+            try (DirectoryStream<Path> tmp = Files.newDirectoryStream(file.toAbsolutePath().getParent(), file.getFileName() + ".*.tmp")) {
+                for (Path t : tmp) Files.deleteIfExists(t);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (current != null) current.channel.close();
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    public static VectorCache open(Path file) throws IOException {
+        return open(file, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Abre (ou cria) o cache em {@code file}.
+     *
+     * @throws IOException também se outro processo estiver com o mesmo arquivo aberto
+     */
+    public static VectorCache open(Path file, long maxBytes) throws IOException {
+        if (maxBytes <= HEADER_BYTES) throw new IllegalArgumentException("Limite do cache muito pequeno: " + maxBytes);
+        return new VectorCache(file, maxBytes);
+    }
+
+    /**
+     * Vetor pré-processado de {@code image}: do cache, se o conteúdo já foi visto com os mesmos parâmetros,
+     * ou decodificado e pré-processado por {@code processor} e acrescentado ao cache.
+     */
+    public double[] load(ImageProcessor processor, Path image) throws IOException {
+        byte[] content = Files.readAllBytes(image);
+        Key key = keyOf(processor, content);
+        double[] cached = get(key);
+        if (cached != null) return cached;
+        double[] vector = processor.preprocess(processor.decode(content, image.getFileName().toString()));
+        put(key, vector);
+        return vector;
+    }
+
+    public Key keyOf(ImageProcessor processor, byte[] content) {
+        return fingerprint(processor, content);
+    }
+
+    /** A mesma chave de {@link #keyOf}, sem um cache aberto (ex.: para o {@link ProbeCache}). */
+    public static Key fingerprint(ImageProcessor processor, byte[] content) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        sha.update(ByteBuffer.allocate(4 * Integer.BYTES + 1)
+                .putInt(processor.width())
+                .putInt(processor.height())
+                .putInt(processor.vectorSize())
+                .put((byte) (ImageProcessor.HISTOGRAM_EQUALIZATION ? 1 : 0))
+                .putInt(ImageProcessor.DECODE_MODE)
+                .flip());
+        ByteBuffer digest = ByteBuffer.wrap(sha.digest(content));
+        return new Key(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    }
+
+    /** O vetor guardado para {@code key}, ou null. */
+    public double[] get(Key key) throws IOException {
+        Generation generation = current;
+        Entry entry = generation.index.get(key);
+        ByteBuffer record = null;
+        if (entry != null) {
+            try {
+                record = record(generation, entry);
+            } catch (ClosedChannelException e) {
+                // A geração foi compactada durante a leitura: conta como falta
+            }
+        }
+        if (record == null) {
+            misses.increment();
+            Metrics.VECTOR_CACHE_MISSES.increment();
+            return null;
+        }
+        hits.increment();
+        Metrics.VECTOR_CACHE_HITS.increment();
+        used.add(key);
+        return decode(record);
+    }
+
+    /**
+     * Acrescenta o vetor de {@code key} ao fim do arquivo (não faz nada se a chave já existir). Se o arquivo
+     * passaria de {@code maxBytes}, compacta-o antes.
+     */
+    public synchronized void put(Key key, double[] vector) throws IOException {
+        if (current.index.containsKey(key)) return;
+        ByteBuffer record = encode(key, vector);
+        int length = record.remaining();
+        if (length > MAX_RECORD || HEADER_BYTES + length > maxBytes / 4 * 3) return;
+        if (current.size + length > maxBytes) compact();
+        Generation generation = current;
+        long offset = generation.size;
+        while (record.hasRemaining()) generation.channel.write(record, offset + record.position());
+        generation.size += length;
+        generation.index.put(key, new Entry(offset, length));
+        used.add(key);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), current.index.size(), current.size);
+    }
+
+    /** Arquivo em uso: {@code file} ou a geração criada pela última compactação. */
+    public Path file() {
+        return current.file;
+    }
+
+    /** Grava em disco; se o arquivo passou do limite (aberto com um limite menor), compacta-o antes. */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (current.size > maxBytes) compact();
+            current.channel.force(false);
+        } finally {
+            current.channel.close();
+            // Fechar o canal libera o bloqueio; o arquivo .lock fica, vazio, para o próximo
+            lockChannel.close();
+        }
+    }
+
+    // Copia as entradas usadas nesta execução e, depois, as mais recentes, até 3/4 do limite, para a geração
+    // seguinte, e passa a usá-la; o arquivo anterior só é apagado se o sistema deixar (ver a descrição da classe)
+    private void compact() throws IOException {
+        Generation old = current;
+        List<Map.Entry<Key, Entry>> candidates = new ArrayList<>(old.index.entrySet());
+        candidates.sort(Comparator.<Map.Entry<Key, Entry>, Boolean>comparing(e -> !used.contains(e.getKey()))
+                .thenComparing(e -> -e.getValue().offset()));
+        long budget = maxBytes / 4 * 3 - HEADER_BYTES;
+        List<Entry> kept = new ArrayList<>();
+        for (Map.Entry<Key, Entry> candidate : candidates) {
+            if (candidate.getValue().length() > budget) continue;
+            budget -= candidate.getValue().length();
+            kept.add(candidate.getValue());
+        }
+        kept.sort(Comparator.comparingLong(Entry::offset));
+
+        Path next = generationFile(file, generationOf(file, old.file) + 1);
+        Path tmp = next.resolveSibling(next.getFileName() + ".tmp");
+        try (FileChannel target = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            target.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+            for (Entry entry : kept) {
+                long position = entry.offset();
+                long end = position + entry.length();
+                while (position < end) position += old.channel.transferTo(position, end - position, target);
+            }
+            target.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        // O destino é um nome novo, que ninguém mapeia: a troca funciona também no Windows
+        Files.move(tmp, next, StandardCopyOption.ATOMIC_MOVE);
+        current = new Generation(next);
+        old.channel.close();
+        try {
+            Files.deleteIfExists(old.file);
+        } catch (IOException e) {
+            // Ainda mapeado (Windows): fica para a próxima abertura
+        }
+    }
+
+    // file e as suas gerações existentes (file.1, file.2, ...), da mais antiga para a mais nova
+    private static List<Path> generations(Path file) throws IOException {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(file.toAbsolutePath().getParent(), file.getFileName() + "*")) {
+            for (Path sibling : siblings) {
+                if (generationOf(file, sibling) >= 0) found.add(sibling);
+            }
+        }
+        found.sort(Comparator.comparingLong(p -> generationOf(file, p)));
+        return found;
+    }
+
+    private static Path lockFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".lock");
+    }
+
+    private static Path generationFile(Path file, long generation) {
+        return generation == 0 ? file : file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    // 0 para o próprio file, n para file.n, -1 para outro arquivo
+    private static long generationOf(Path file, Path candidate) {
+        String base = file.getFileName().toString();
+        String name = candidate.getFileName().toString();
+        if (name.equals(base)) return 0;
+        if (!name.startsWith(base + ".")) return -1;
+        String suffix = name.substring(base.length() + 1);
+        if (suffix.isEmpty() || suffix.length() > 18 || !suffix.chars().allMatch(Character::isDigit)) return -1;
+        return Long.parseLong(suffix);
+    }
+
+    private static boolean headerMatches(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {}
+        header.flip();
+        return header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    // Indexa os registros válidos e devolve onde termina o último
+    private static long scan(Generation generation, long fileSize) {
+        long offset = HEADER_BYTES;
+        CRC32C crc = new CRC32C();
+        while (fileSize - offset >= RECORD_HEADER_BYTES + Integer.BYTES) {
+            ByteBuffer view = mapped(generation, offset);
+            int at = view.position();
+            byte encoding = view.get(at + KEY_BYTES);
+            int n = view.getInt(at + KEY_BYTES + 1);
+            long length = RECORD_HEADER_BYTES + Integer.BYTES;
+            if (n < 0) break;
+            if (encoding == RAW) {
+                length += (long) n * Double.BYTES;
+            } else if (encoding == PALETTE) {
+                if (fileSize - offset < RECORD_HEADER_BYTES + Integer.BYTES + Integer.BYTES) break;
+                int p = view.getInt(at + RECORD_HEADER_BYTES);
+                if (p < 0 || p > MAX_PALETTE) break;
+                length += Integer.BYTES + (long) p * Double.BYTES + n;
+            } else {
+                break;
+            }
+            if (length > MAX_RECORD || length > fileSize - offset) break;
+
+            int body = (int) length - Integer.BYTES;
+            crc.reset();
+            crc.update(view.slice(at, body));
+            if ((int) crc.getValue() != view.getInt(at + body)) break;
+
+            generation.index.put(new Key(view.getLong(at), view.getLong(at + 8), view.getLong(at + 16), view.getLong(at + 24)),
+                    new Entry(offset, (int) length));
+            offset += length;
+        }
+        return offset;
+    }
+
+    // Janela mapeada que contém o registro em offset, posicionada no início dele
+    private static ByteBuffer mapped(Generation generation, long offset) {
+        int segment = (int) (offset / SEGMENT);
+        return generation.segments.get(segment).duplicate().position((int) (offset - segment * SEGMENT));
+    }
+
+    // Registros acrescentados depois da abertura ficam fora do mapeamento e são lidos do canal
+    private static ByteBuffer record(Generation generation, Entry entry) throws IOException {
+        if (entry.offset() + entry.length() <= generation.mappedSize) return mapped(generation, entry.offset()).slice();
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+        while (buffer.hasRemaining()) {
+            if (generation.channel.read(buffer, entry.offset() + buffer.position()) < 0) {
+                throw new IOException("Cache truncado: " + generation.file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static double[] decode(ByteBuffer record) {
+        byte encoding = record.get(KEY_BYTES);
+        int n = record.getInt(KEY_BYTES + 1);
+        double[] vector = new double[n];
+        int at = RECORD_HEADER_BYTES;
+        if (encoding == RAW) {
+            record.slice(at, n * Double.BYTES).asDoubleBuffer().get(vector);
+        } else {
+            int p = record.getInt(at);
+            double[] palette = new double[p];
+            record.slice(at + Integer.BYTES, p * Double.BYTES).asDoubleBuffer().get(palette);
+            int indices = at + Integer.BYTES + p * Double.BYTES;
+            for (int i = 0; i < n; i++) vector[i] = palette[record.get(indices + i) & 0xFF];
+        }
+        return vector;
+    }
+
+    private static ByteBuffer encode(Key key, double[] vector) {
+        // Paleta dos valores distintos (pelos bits, para distinguir -0.0 e NaN), se couber em 256
+        Map<Long, Integer> palette = new HashMap<>();
+        byte[] indices = new byte[vector.length];
+        for (int i = 0; i < vector.length && palette != null; i++) {
+            long bits = Double.doubleToRawLongBits(vector[i]);
+            Integer id = palette.get(bits);
+            if (id == null) {
+                if (palette.size() == MAX_PALETTE) {
+                    palette = null;
+                    break;
+                }
+                id = palette.size();
+                palette.put(bits, id);
+            }
+            indices[i] = (byte) (int) id;
+        }
+
+        int body = palette != null
+                ? RECORD_HEADER_BYTES + Integer.BYTES + palette.size() * Double.BYTES + vector.length
+                : RECORD_HEADER_BYTES + vector.length * Double.BYTES;
+        ByteBuffer record = ByteBuffer.allocate(body + Integer.BYTES);
+        record.putLong(key.a()).putLong(key.b()).putLong(key.c()).putLong(key.d());
+        record.put(palette != null ? PALETTE : RAW).putInt(vector.length);
+        if (palette != null) {
+            double[] values = new double[palette.size()];
+            for (Map.Entry<Long, Integer> e : palette.entrySet()) values[e.getValue()] = Double.longBitsToDouble(e.getKey());
+            record.putInt(values.length);
+            for (double v : values) record.putDouble(v);
+            record.put(indices);
+        } else {
+            for (double v : vector) record.putDouble(v);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, body);
+        record.putInt((int) crc.getValue());
+        return record.flip();
+    }
+}
@@ -0,0 +1,297 @@
+package Services;
+
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.Projection;
+import ImageProcessor.ImageProcessor;
+import LinearAlgebra.DenseMatrix;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Verificação em pipeline: decodificação, pré-processamento, projeção em lote e busca na galeria
+ * correm em etapas separadas, cada uma com o seu número de threads, ligadas por filas limitadas.
+ *
+ * Enquanto umas threads esperam pelo decodificador JPEG, outras já projetam e comparam as imagens
+ * anteriores. As filas limitadas seguram as etapas rápidas (backpressure), e a projeção junta o que
+ * estiver na fila num único produto matriz-matriz. Os resultados saem pela ordem em que terminam,
+ * não pela ordem dos arquivos.
+ *
+ * Com um {@link VectorCache}, a etapa de decodificação procura primeiro o conteúdo do arquivo no cache
+ * e, num acerto, entrega o vetor diretamente à projeção; nas faltas, o pré-processamento grava o vetor.
+ * Com um {@link ProbeCache}, uma imagem já verificada com o mesmo modelo e limiar sai direto da decodificação
+ * com o resultado guardado, e cada resultado novo é guardado pela busca.
+ */
+public final class VerificationPipeline {
+
+    private record Decoded(String name, BufferedImage image, VectorCache.Key key) {}
+    private record Preprocessed(String name, double[] vector, VectorCache.Key key) {}
+    private record Projected(String name, double[] coeffs, VectorCache.Key key) {}
+
+    // Marcadores de fim: cada consumidor que os encontra devolve-os à fila para os restantes
+    private static final Decoded DECODED_END = new Decoded(null, null, null);
+    private static final Preprocessed PREPROCESSED_END = new Preprocessed(null, null, null);
+    private static final Projected PROJECTED_END = new Projected(null, null, null);
+
+    // Intervalo de amostragem da profundidade das filas
+    private static final long SAMPLE_MICROS = 2_000;
+
+    private final ImageProcessor processor;
+    private final FaceRecognizer recognizer;
+    private final PipelineOptions options;
+    private final VectorCache cache;
+    private final ProbeCache probes;
+
+    public VerificationPipeline(ImageProcessor processor, FaceRecognizer recognizer, PipelineOptions options) {
+        this(processor, recognizer, options, null, null);
+    }
+
+    public VerificationPipeline(ImageProcessor processor, FaceRecognizer recognizer, PipelineOptions options, VectorCache cache) {
+        this(processor, recognizer, options, cache, null);
+    }
+
+    public VerificationPipeline(ImageProcessor processor, FaceRecognizer recognizer, PipelineOptions options,
+                                VectorCache cache, ProbeCache probes) {
+        this.processor = processor;
+        this.recognizer = recognizer;
+        this.options = options;
+        this.cache = cache;
+        this.probes = probes;
+    }
+
+    /**
+     * Verifica {@code files}, entregando cada resultado a {@code sink} assim que fica pronto.
+     * O {@code sink} é chamado por uma thread de busca de cada vez (nunca em paralelo).
+     */
+    public PipelineReport run(List<Path> files, Consumer<RecognitionResult> sink) throws InterruptedException {
+        Projection projection = recognizer.getProjection();
+        if (projection == null) throw new IllegalStateException("Modelo não treinado.");
+        // Lido junto com a projeção: os resultados guardados valem para este estado do reconhecedor
+        ProbeCache.Stamp stamp = probes != null ? ProbeCache.Stamp.of(recognizer) : null;
+
+        BlockingQueue<Decoded> decoded = new ArrayBlockingQueue<>(options.queueCapacity());
+        BlockingQueue<Preprocessed> preprocessed = new ArrayBlockingQueue<>(options.queueCapacity());
+        BlockingQueue<Projected> projected = new ArrayBlockingQueue<>(options.queueCapacity());
+        List<BlockingQueue<?>> queues = List.of(decoded, preprocessed, projected);
+
+        LongAdder[] busy = {new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder()};
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger images = new AtomicInteger();
+        AtomicInteger nextFile = new AtomicInteger();
+        Object sinkLock = new Object();
+
+        AtomicInteger decoders = new AtomicInteger(options.decodeThreads());
+        AtomicInteger preprocessors = new AtomicInteger(options.preprocessThreads());
+        AtomicInteger projectors = new AtomicInteger(options.projectionThreads());
+
+        // Amostragem periódica das filas (soma e máximo por fila), feita sempre pela mesma thread
+        long[] depthSums = new long[queues.size()];
+        int[] depthMax = new int[queues.size()];
+        long[] samples = new long[1];
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "verificacao-amostragem");
+            t.setDaemon(true);
+            return t;
+        });
+
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        sampler.scheduleAtFixedRate(() -> {
+            for (int q = 0; q < queues.size(); q++) {
+                int depth = queues.get(q).size();
+                depthSums[q] += depth;
+                depthMax[q] = Math.max(depthMax[q], depth);
+            }
+            samples[0]++;
+        }, 0, SAMPLE_MICROS, TimeUnit.MICROSECONDS);
+
+        // Etapa 1: decodificação, lendo diretamente da lista de arquivos
+        startWorkers(workers, "decodificacao", options.decodeThreads(), () -> {
+            try {
+                for (int i = nextFile.getAndIncrement(); i < files.size(); i = nextFile.getAndIncrement()) {
+                    Path file = files.get(i);
+                    String name = file.getFileName().toString();
+                    long t0 = System.nanoTime();
+                    try {
+                        if (cache == null && probes == null) {
+                            BufferedImage image = processor.decode(file.toFile());
+                            busy[0].add(System.nanoTime() - t0);
+                            decoded.put(new Decoded(name, image, null));
+                            continue;
+                        }
+                        byte[] content = Files.readAllBytes(file);
+                        VectorCache.Key key = VectorCache.fingerprint(processor, content);
+                        RecognitionResult known = probes != null ? probes.get(key, stamp, name) : null;
+                        if (known != null) {
+                            busy[0].add(System.nanoTime() - t0);
+                            synchronized (sinkLock) {
+                                sink.accept(known);
+                            }
+                            images.incrementAndGet();
+                            continue;
+                        }
+                        // O fim da fila de pré-processados só é marcado depois de todos os decodificadores terminarem
+                        double[] vector = cache != null ? cache.get(key) : null;
+                        if (vector != null) {
+                            busy[0].add(System.nanoTime() - t0);
+                            preprocessed.put(new Preprocessed(name, vector, key));
+                            continue;
+                        }
+                        BufferedImage image = processor.decode(content, name);
+                        busy[0].add(System.nanoTime() - t0);
+                        decoded.put(new Decoded(name, image, key));
+                    } catch (IOException | RuntimeException e) {
+                        // Leitores do ImageIO também lançam IllegalArgumentException e afins com arquivos truncados
+                        busy[0].add(System.nanoTime() - t0);
+                        fail(failures, name, e.getMessage());
+                    }
+                }
+            } finally {
+                finish(decoders, decoded, DECODED_END);
+            }
+        });
+
+        // Etapa 2: redimensionamento, tons de cinza e equalização
+        startWorkers(workers, "preprocessamento", options.preprocessThreads(), () -> {
+            try {
+                for (Decoded item = decoded.take(); item != DECODED_END; item = decoded.take()) {
+                    long t0 = System.nanoTime();
+                    try {
+                        double[] vector = processor.preprocess(item.image());
+                        if (item.key() != null && cache != null) cache.put(item.key(), vector);
+                        busy[1].add(System.nanoTime() - t0);
+                        preprocessed.put(new Preprocessed(item.name(), vector, item.key()));
+                    } catch (IOException | RuntimeException e) {
+                        busy[1].add(System.nanoTime() - t0);
+                        fail(failures, item.name(), e.getMessage());
+                    }
+                }
+                decoded.put(DECODED_END);
+            } finally {
+                finish(preprocessors, preprocessed, PREPROCESSED_END);
+            }
+        });
+
+        // Etapa 3: projeção em lote de tudo o que estiver na fila (até batchSize imagens)
+        startWorkers(workers, "projecao", options.projectionThreads(), () -> {
+            List<Preprocessed> batch = new ArrayList<>(options.batchSize());
+            List<double[]> vectors = new ArrayList<>(options.batchSize());
+            boolean done = false;
+            try {
+                while (!done) {
+                    batch.clear();
+                    batch.add(preprocessed.take());
+                    preprocessed.drainTo(batch, options.batchSize() - 1);
+                    done = batch.removeIf(p -> p == PREPROCESSED_END);
+                    if (batch.isEmpty()) continue;
+
+                    long t0 = System.nanoTime();
+                    List<Projected> out = new ArrayList<>(batch.size());
+                    try {
+                        vectors.clear();
+                        for (Preprocessed p : batch) vectors.add(p.vector());
+                        DenseMatrix coeffs = projection.projectBatch(vectors);
+                        int k = coeffs.cols();
+                        for (int i = 0; i < batch.size(); i++) {
+                            double[] row = new double[k];
+                            System.arraycopy(coeffs.data(), i * k, row, 0, k);
+                            out.add(new Projected(batch.get(i).name(), row, batch.get(i).key()));
+                        }
+                    } catch (RuntimeException e) {
+                        // O lote inteiro falha, mas a thread continua: sem ela as etapas vizinhas ficariam presas
+                        out.clear();
+                        for (Preprocessed p : batch) fail(failures, p.name(), e.getMessage());
+                    }
+                    busy[2].add(System.nanoTime() - t0);
+                    for (Projected p : out) projected.put(p);
+                }
+            } finally {
+                // Depois do fim não chega mais nada, por isso sempre há lugar na fila para repassá-lo
+                if (done) preprocessed.offer(PREPROCESSED_END);
+                finish(projectors, projected, PROJECTED_END);
+            }
+        });
+
+        // Etapa 4: busca na galeria e entrega do resultado
+        startWorkers(workers, "busca", options.searchThreads(), () -> {
+            for (Projected item = projected.take(); item != PROJECTED_END; item = projected.take()) {
+                long t0 = System.nanoTime();
+                try {
+                    RecognitionResult result = recognizer.recognizeProjected(item.coeffs(), item.name());
+                    if (probes != null) probes.put(item.key(), stamp, result);
+                    busy[3].add(System.nanoTime() - t0);
+                    synchronized (sinkLock) {
+                        sink.accept(result);
+                    }
+                    images.incrementAndGet();
+                } catch (RuntimeException e) {
+                    busy[3].add(System.nanoTime() - t0);
+                    fail(failures, item.name(), e.getMessage());
+                }
+            }
+            projected.put(PROJECTED_END);
+        });
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            for (Thread worker : workers) worker.interrupt();
+            throw e;
+        } finally {
+            sampler.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+
+        long n = Math.max(1, samples[0]);
+        List<PipelineReport.StageStats> stages = List.of(
+                new PipelineReport.StageStats("Decodificação", options.decodeThreads(), busy[0].sum(), 0, 0.0, 0),
+                new PipelineReport.StageStats("Pré-processamento", options.preprocessThreads(), busy[1].sum(),
+                        options.queueCapacity(), (double) depthSums[0] / n, depthMax[0]),
+                new PipelineReport.StageStats("Projeção", options.projectionThreads(), busy[2].sum(),
+                        options.queueCapacity(), (double) depthSums[1] / n, depthMax[1]),
+                new PipelineReport.StageStats("Busca", options.searchThreads(), busy[3].sum(),
+                        options.queueCapacity(), (double) depthSums[2] / n, depthMax[2]));
+        return new PipelineReport(images.get(), failures.get(), elapsed, stages);
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run() throws InterruptedException;
+    }
+
+    private static void startWorkers(List<Thread> workers, String stage, int threads, Worker body) {
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofPlatform().name("verificacao-" + stage + "-" + i).daemon(true).start(() -> {
+                try {
+                    body.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+    }
+
+    // A última thread de uma etapa a terminar avisa a etapa seguinte
+    private static <T> void finish(AtomicInteger remaining, BlockingQueue<T> next, T end) throws InterruptedException {
+        if (remaining.decrementAndGet() == 0) next.put(end);
+    }
+
+    private static void fail(AtomicInteger failures, String fileName, String reason) {
+        failures.incrementAndGet();
+        System.err.printf("  [Aviso] Falha ao verificar imagem %s: %s%n", fileName, reason);
+    }
+}
@@ -3,22 +3,46 @@ package Services;
 import Data.RecognitionResult;
 import FaceRecognizer.FaceRecognizer;
 import ImageProcessor.ImageProcessor;
+import Metrics.Didactic;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Encapsula a lógica de verificação de imagens de suspeitos
  * contra o modelo treinado.
+ * Com um {@link VectorCache}, as imagens cujo conteúdo já foi visto não são decodificadas de novo.
+ * Com um {@link ProbeCache} ({@link #withResultCache}), a verificação em lote também não as projeta nem as
+ * compara com a galeria, enquanto o modelo e o limiar forem os mesmos.
  */
-public record VerificationService(ImageProcessor processor, FaceRecognizer recognizer) {
+public record VerificationService(ImageProcessor processor, FaceRecognizer recognizer, VectorCache cache, ProbeCache probes) {
+
+    public VerificationService(ImageProcessor processor, FaceRecognizer recognizer) {
+        this(processor, recognizer, null, null);
+    }
+
+    public VerificationService(ImageProcessor processor, FaceRecognizer recognizer, VectorCache cache) {
+        this(processor, recognizer, cache, null);
+    }
+
+    /** O mesmo serviço guardando os resultados em {@code probes}. */
+    public VerificationService withResultCache(ProbeCache probes) {
+        return new VerificationService(processor, recognizer, cache, probes);
+    }
+
+    // Imagens acumuladas antes de cada projeção em lote
+    private static final int BATCH_SIZE = 64;
 
     /**
      * Executa a verificação em todos os arquivos da pasta de suspeitos.
+     * Com o cache de resultados, as cópias de uma imagem que está no lote esperam pelo resultado dela.
      */
     public List<RecognitionResult> verifySuspects(Path testDir) throws IOException {
         if (!Files.exists(testDir) || !Files.isDirectory(testDir)) {
@@ -27,22 +51,106 @@ public record VerificationService(ImageProcessor processor, FaceRecognizer recog
         }
 
         List<RecognitionResult> results = new ArrayList<>();
+        List<double[]> batchVectors = new ArrayList<>(BATCH_SIZE);
+        List<String> batchNames = new ArrayList<>(BATCH_SIZE);
+        // Só com o cache de resultados: a chave de cada imagem do lote e os nomes das suas cópias
+        List<VectorCache.Key> batchKeys = new ArrayList<>(BATCH_SIZE);
+        Map<VectorCache.Key, List<String>> copies = new HashMap<>();
 
         try (DirectoryStream<Path> testFiles = Files.newDirectoryStream(testDir)) {
             for (Path testFile : testFiles) {
                 if (isImageFile(testFile)) {
+                    String fileName = testFile.getFileName().toString();
                     try {
-                        double[] testVector = processor.processImage(testFile.toFile());
-                        // A lógica de reconhecimento foi movida para o FaceRecognizer
-                        RecognitionResult result = recognizer.recognize(testVector, testFile.getFileName().toString());
-                        results.add(result);
-
+                        if (probes == null) {
+                            batchVectors.add(cache != null ? cache.load(processor, testFile) : processor.processImage(testFile.toFile()));
+                            batchNames.add(fileName);
+                        } else {
+                            byte[] content = Files.readAllBytes(testFile);
+                            VectorCache.Key key = VectorCache.fingerprint(processor, content);
+                            List<String> pending = copies.get(key);
+                            RecognitionResult known;
+                            if (pending != null) {
+                                pending.add(fileName);
+                            } else if ((known = probes.get(key, ProbeCache.Stamp.of(recognizer), fileName)) != null) {
+                                Didactic.println("Imagem já verificada (cache de resultados): " + known);
+                                results.add(known);
+                            } else {
+                                batchVectors.add(vectorOf(key, content, fileName));
+                                batchNames.add(fileName);
+                                batchKeys.add(key);
+                                copies.put(key, new ArrayList<>());
+                            }
+                        }
                     } catch (IOException e) {
                         System.err.printf("  [Aviso] Falha ao verificar imagem %s: %s%n", testFile.getFileName(), e.getMessage());
                     }
+                    if (batchVectors.size() == BATCH_SIZE) recognizeBatch(batchVectors, batchNames, batchKeys, copies, results);
                 }
             }
         }
+        if (!batchVectors.isEmpty()) recognizeBatch(batchVectors, batchNames, batchKeys, copies, results);
+        return results;
+    }
+
+    // A lógica de reconhecimento foi movida para o FaceRecognizer; aqui o lote é esvaziado e, com o cache de
+    // resultados, cada resultado é guardado com o estado lido antes do reconhecimento e repassado às cópias
+    private void recognizeBatch(List<double[]> vectors, List<String> names, List<VectorCache.Key> keys,
+                                Map<VectorCache.Key, List<String>> copies, List<RecognitionResult> results) {
+        ProbeCache.Stamp stamp = probes != null ? ProbeCache.Stamp.of(recognizer) : null;
+        List<RecognitionResult> batch = recognizer.recognizeBatch(vectors, names);
+        results.addAll(batch);
+        for (int i = 0; i < keys.size(); i++) {
+            VectorCache.Key key = keys.get(i);
+            probes.put(key, stamp, batch.get(i));
+            for (String copy : copies.get(key)) {
+                RecognitionResult known = probes.get(key, stamp, copy);
+                results.add(known != null ? known : ProbeCache.renamed(batch.get(i), copy));
+            }
+        }
+        vectors.clear();
+        names.clear();
+        keys.clear();
+        copies.clear();
+    }
+
+    private double[] vectorOf(VectorCache.Key key, byte[] content, String fileName) throws IOException {
+        double[] vector = cache != null ? cache.get(key) : null;
+        if (vector == null) {
+            vector = processor.preprocess(processor.decode(content, fileName));
+            if (cache != null) cache.put(key, vector);
+        }
+        return vector;
+    }
+
+    /**
+     * Verificação em pipeline ({@link VerificationPipeline}): os resultados são entregues a {@code sink}
+     * à medida que ficam prontos, e no fim é impresso o relatório de vazão e ocupação das filas.
+     * Devolve os resultados pela ordem em que terminaram.
+     * Usa os mesmos caches do modo em lote: vetores pré-processados e, com {@link #withResultCache}, resultados.
+     */
+    public List<RecognitionResult> verifySuspects(Path testDir, PipelineOptions options, Consumer<RecognitionResult> sink) throws IOException {
+        if (!Files.exists(testDir) || !Files.isDirectory(testDir)) {
+            System.err.printf("Diretório de suspeitos não encontrado: %s%n", testDir);
+            return new ArrayList<>();
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> testFiles = Files.newDirectoryStream(testDir, this::isImageFile)) {
+            testFiles.forEach(files::add);
+        }
+
+        List<RecognitionResult> results = new ArrayList<>(files.size());
+        try {
+            PipelineReport report = new VerificationPipeline(processor, recognizer, options, cache, probes).run(files, result -> {
+                results.add(result);
+                sink.accept(result);
+            });
+            report.print(System.out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Verificação interrompida.", e);
+        }
         return results;
     }
 
@@ -0,0 +1,249 @@
+package Shard;
+
+import Data.RecognitionResult;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.Projection;
+import GalleryIndex.Neighbor;
+import ImageProcessor.ImageProcessor;
+import Metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Coordenador da busca distribuída: projeta cada imagem uma vez, envia os coeficientes a todas as
+ * partições ({@link ShardWorker}) e junta os k melhores de cada uma num único resultado.
+ *
+ * Cada busca usa uma conexão por partição, tirada de um conjunto de conexões abertas: a requisição é escrita
+ * em todas antes de a primeira resposta ser lida, por isso as partições buscam em paralelo sem uma thread
+ * por partição no coordenador. Várias threads podem buscar ao mesmo tempo; as conexões que faltarem são
+ * abertas na hora e reaproveitadas depois.
+ *
+ * Na ligação, cada partição informa a sua fatia e o checksum do modelo: o conjunto tem de cobrir a galeria
+ * inteira, sem repetições, e vir todo do mesmo arquivo.
+ *
+ * Uso:
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT.jar Shard.ShardCoordinator
+ *        --modelo data/modelo.ffm --particoes 127.0.0.1:9100,127.0.0.1:9101 [--limiar 12e6] data/suspeitos
+ */
+public final class ShardCoordinator implements Closeable {
+
+    private static final class Connection implements Closeable {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Connection(InetSocketAddress address) throws IOException {
+            socket = new Socket(address.getAddress(), address.getPort());
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // já fechada
+            }
+        }
+    }
+
+    private final Projection projection;
+    private final double threshold;
+    private final InetSocketAddress[] addresses;   // por índice de partição
+    private final List<ConcurrentLinkedDeque<Connection>> idle = new ArrayList<>();
+    private final int gallerySize;
+    private volatile boolean closed;
+
+    private ShardCoordinator(Projection projection, double threshold, InetSocketAddress[] addresses, int gallerySize) {
+        this.projection = projection;
+        this.threshold = threshold;
+        this.addresses = addresses;
+        this.gallerySize = gallerySize;
+        for (int i = 0; i < addresses.length; i++) idle.add(new ConcurrentLinkedDeque<>());
+    }
+
+    /**
+     * Liga-se às partições (em qualquer ordem) e confere que juntas formam a galeria do modelo de {@code model}:
+     * todas carregaram um arquivo com o mesmo CRC32C que o da projeção do coordenador.
+     */
+    public static ShardCoordinator connect(FisherfacesModel.ProjectionFile model, List<InetSocketAddress> workers,
+                                           double threshold) throws IOException {
+        if (workers.isEmpty()) throw new IllegalArgumentException("Nenhuma partição informada.");
+        Projection projection = model.projection();
+        InetSocketAddress[] addresses = new InetSocketAddress[workers.size()];
+        Connection[] first = new Connection[workers.size()];
+        ShardProtocol.Info reference = null;
+        long coveredRows = 0;
+        try {
+            for (InetSocketAddress address : workers) {
+                Connection connection = new Connection(address);
+                ShardProtocol.Info info;
+                try {
+                    connection.out.writeByte(ShardProtocol.INFO);
+                    connection.out.flush();
+                    info = ShardProtocol.readInfo(connection.in);
+                } catch (IOException e) {
+                    connection.close();
+                    throw new IOException("Partição " + address + " não respondeu: " + e.getMessage(), e);
+                }
+                if (info.shards() != workers.size() || info.shard() < 0 || info.shard() >= workers.size()
+                        || addresses[info.shard()] != null) {
+                    connection.close();
+                    throw new IOException(String.format("Partição %s é a %d de %d; esperadas %d partições distintas.",
+                            address, info.shard(), info.shards(), workers.size()));
+                }
+                if (info.checksum() != model.checksum()) {
+                    connection.close();
+                    throw new IOException(String.format("Partição %s carregou outro arquivo de modelo (CRC32C %08x; --modelo tem %08x).",
+                            address, info.checksum(), model.checksum()));
+                }
+                if (reference != null && info.totalRows() != reference.totalRows()) {
+                    connection.close();
+                    throw new IOException("Partição " + address + " carregou outro arquivo de modelo.");
+                }
+                if (info.dimension() != projection.components()) {
+                    connection.close();
+                    throw new IOException(String.format("Partição %s tem dimensão %d; a projeção tem %d.",
+                            address, info.dimension(), projection.components()));
+                }
+                reference = info;
+                addresses[info.shard()] = address;
+                first[info.shard()] = connection;
+                coveredRows += info.rows();
+            }
+            if (coveredRows != reference.totalRows()) {
+                throw new IOException(String.format("As partições cobrem %d de %d faces.", coveredRows, reference.totalRows()));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Connection c : first) if (c != null) c.close();
+            throw e;
+        }
+
+        ShardCoordinator coordinator = new ShardCoordinator(projection, threshold, addresses, reference.totalRows());
+        for (int i = 0; i < first.length; i++) coordinator.idle.get(i).push(first[i]);
+        return coordinator;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("data/suspeitos");
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--")) {
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Falta o valor de " + args[i]);
+                flags.put(args[i], args[++i]);
+            } else {
+                dir = Paths.get(args[i]);
+            }
+        }
+        if (!flags.containsKey("--modelo") || !flags.containsKey("--particoes")) {
+            throw new IllegalArgumentException("Uso: --modelo <arquivo> --particoes host:porta,host:porta,... [--limiar 12e6] [pasta]");
+        }
+        List<InetSocketAddress> workers = new ArrayList<>();
+        for (String address : flags.get("--particoes").split(",")) {
+            int colon = address.lastIndexOf(':');
+            workers.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+        }
+        double threshold = Double.parseDouble(flags.getOrDefault("--limiar", "12e6"));
+
+        Path modelFile = Paths.get(flags.get("--modelo"));
+        ImageProcessor processor = FisherfacesModel.loadImageProcessor(modelFile);
+        FisherfacesModel.ProjectionFile model = FisherfacesModel.loadProjection(modelFile);
+        try (ShardCoordinator coordinator = connect(model, workers, threshold);
+             DirectoryStream<Path> images = Files.newDirectoryStream(dir, "*.{png,jpg,jpeg,PNG,JPG,JPEG}")) {
+            System.out.printf("[Coordenador] %d partições, %d faces na galeria%n", coordinator.shards(), coordinator.gallerySize());
+            for (Path image : images) {
+                try {
+                    System.out.println(coordinator.recognize(processor.processImage(image.toFile()), image.getFileName().toString()));
+                } catch (IOException e) {
+                    System.err.printf("  [Aviso] Falha ao verificar imagem %s: %s%n", image.getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public int shards() {
+        return addresses.length;
+    }
+
+    /** Faces na galeria completa (soma das partições). */
+    public int gallerySize() {
+        return gallerySize;
+    }
+
+    public RecognitionResult recognize(double[] inputVector, String fileName) throws IOException {
+        return recognizeProjected(projection.project(inputVector), fileName);
+    }
+
+    public RecognitionResult recognizeProjected(double[] coeffs, String fileName) throws IOException {
+        Neighbor best = search(coeffs, 1).getFirst();
+        boolean isMatch = best.distance() < threshold;
+        Metrics.RECOGNITIONS.increment();
+        if (isMatch) Metrics.MATCHES.increment();
+        return new RecognitionResult(fileName, isMatch ? best.label() : "Desconhecido", best.distance(), isMatch);
+    }
+
+    /**
+     * Os {@code k} vizinhos mais próximos na galeria completa: os k melhores de cada partição, juntos e
+     * ordenados por distância. {@link Neighbor#index()} é a posição na galeria completa.
+     */
+    public List<Neighbor> search(double[] coeffs, int k) throws IOException {
+        if (closed) throw new IOException("Coordenador encerrado.");
+        if (k < 1 || k > ShardProtocol.MAX_K) throw new IllegalArgumentException("k fora de [1, " + ShardProtocol.MAX_K + "]: " + k);
+        long start = System.nanoTime();
+        Connection[] connections = new Connection[addresses.length];
+        List<Neighbor> merged = new ArrayList<>(k * addresses.length);
+        try {
+            // Dispersão: a mesma busca em todas as partições antes de ler qualquer resposta
+            for (int s = 0; s < addresses.length; s++) {
+                connections[s] = acquire(s);
+                ShardProtocol.writeSearch(connections[s].out, coeffs, k);
+                connections[s].out.flush();
+            }
+            // Recolha
+            for (int s = 0; s < addresses.length; s++) {
+                merged.addAll(ShardProtocol.readNeighbors(connections[s].in));
+                idle.get(s).push(connections[s]);
+                connections[s] = null;
+            }
+        } catch (IOException e) {
+            for (Connection c : connections) if (c != null) c.close();
+            throw e;
+        }
+        merged.sort(Comparator.comparingDouble(Neighbor::distance).thenComparingInt(Neighbor::index));
+        Metrics.SEARCH.recordSince(start);
+        return merged.size() > k ? List.copyOf(merged.subList(0, k)) : merged;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (ConcurrentLinkedDeque<Connection> pool : idle) {
+            Connection c;
+            while ((c = pool.poll()) != null) c.close();
+        }
+    }
+
+    private Connection acquire(int shard) throws IOException {
+        Connection c = idle.get(shard).poll();
+        return c != null ? c : new Connection(addresses[shard]);
+    }
+}
@@ -0,0 +1,79 @@
+package Shard;
+
+import GalleryIndex.Neighbor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Protocolo binário entre o coordenador e as partições, sobre uma conexão TCP persistente
+ * (big-endian, uma requisição de cada vez por conexão):
+ * <pre>
+ *   INFO   -> int partição, int partições, int primeiraLinha, int linhas, int totalLinhas, int dimensão, long checksum
+ *   SEARCH int k, int dimensão, double coeficientes[dimensão]
+ *          -> int n, { int linhaGlobal, double distância, UTF rótulo } x n    (n = -1: UTF mensagem de erro)
+ * </pre>
+ */
+final class ShardProtocol {
+
+    static final byte INFO = 1;
+    static final byte SEARCH = 2;
+
+    static final int MAX_K = 1000;
+
+    /** Resposta do INFO: que fatia da galeria a partição tem e de que modelo. */
+    record Info(int shard, int shards, int firstRow, int rows, int totalRows, int dimension, long checksum) {}
+
+    private ShardProtocol() {}
+
+    static void writeInfo(DataOutputStream out, Info info) throws IOException {
+        out.writeInt(info.shard());
+        out.writeInt(info.shards());
+        out.writeInt(info.firstRow());
+        out.writeInt(info.rows());
+        out.writeInt(info.totalRows());
+        out.writeInt(info.dimension());
+        out.writeLong(info.checksum());
+    }
+
+    static Info readInfo(DataInputStream in) throws IOException {
+        return new Info(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readLong());
+    }
+
+    static void writeSearch(DataOutputStream out, double[] coeffs, int k) throws IOException {
+        out.writeByte(SEARCH);
+        out.writeInt(k);
+        out.writeInt(coeffs.length);
+        for (double c : coeffs) out.writeDouble(c);
+    }
+
+    static void writeNeighbors(DataOutputStream out, List<Neighbor> neighbors, int firstRow) throws IOException {
+        out.writeInt(neighbors.size());
+        for (Neighbor neighbor : neighbors) {
+            out.writeInt(firstRow + neighbor.index());
+            out.writeDouble(neighbor.distance());
+            out.writeUTF(neighbor.label());
+        }
+    }
+
+    static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeInt(-1);
+        out.writeUTF(message == null ? "erro desconhecido" : message);
+    }
+
+    static List<Neighbor> readNeighbors(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) throw new IOException("Partição respondeu com erro: " + in.readUTF());
+        if (n > MAX_K) throw new IOException("Resposta inválida da partição: " + n + " vizinhos.");
+        List<Neighbor> neighbors = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int index = in.readInt();
+            double distance = in.readDouble();
+            neighbors.add(new Neighbor(index, in.readUTF(), distance));
+        }
+        return neighbors;
+    }
+}
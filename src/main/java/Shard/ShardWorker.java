@@ -0,0 +1,153 @@
+package Shard;
+
+import FisherfacesModel.FisherfacesModel;
+import GalleryIndex.GalleryIndex;
+import GalleryIndex.Neighbor;
+import Metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Partição da galeria para a busca distribuída: carrega do arquivo do modelo só a sua fatia das projeções
+ * ({@link FisherfacesModel#loadShard}) e responde às buscas do {@link ShardCoordinator} pela porta TCP local,
+ * uma thread virtual por conexão. Não projeta imagens: recebe os coeficientes já projetados.
+ *
+ * Uso (uma JVM por partição, todas com o mesmo arquivo de modelo):
+ *   java --enable-preview -cp target/ProjetoAlgebraLinear-1.0-SNAPSHOT.jar Shard.ShardWorker
+ *        --modelo data/modelo.ffm --particao 0 --particoes 4 [--porta 9100]
+ */
+public final class ShardWorker implements Closeable {
+
+    private final GalleryIndex index;
+    private final ShardProtocol.Info info;
+    private final ServerSocket server;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private ShardWorker(GalleryIndex index, ShardProtocol.Info info, ServerSocket server) {
+        this.index = index;
+        this.info = info;
+        this.server = server;
+    }
+
+    /** Carrega a fatia {@code shard} de {@code shards} e começa a aceitar conexões em {@code port} (0 = livre). */
+    public static ShardWorker start(Path modelFile, int shard, int shards, int port) throws IOException {
+        FisherfacesModel.GalleryShard slice = FisherfacesModel.loadShard(modelFile, shard, shards);
+        FisherfacesModel model = slice.model();
+        ShardProtocol.Info info = new ShardProtocol.Info(shard, shards, slice.firstRow(), model.getProjectedVectors().size(),
+                slice.totalRows(), model.getProjectedVectors().dimension(), slice.checksum());
+        ShardWorker worker = new ShardWorker(model.getGalleryIndex(), info,
+                new ServerSocket(port, 128, InetAddress.getLoopbackAddress()));
+        Thread.ofPlatform().daemon().name("particao-" + shard).start(worker::acceptLoop);
+        return worker;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) flags.put(args[i], args[i + 1]);
+        if (!flags.containsKey("--modelo")) throw new IllegalArgumentException("Falta --modelo");
+        int shard = Integer.parseInt(flags.getOrDefault("--particao", "0"));
+        int shards = Integer.parseInt(flags.getOrDefault("--particoes", "1"));
+        int port = Integer.parseInt(flags.getOrDefault("--porta", "0"));
+
+        ShardWorker worker = start(Paths.get(flags.get("--modelo")), shard, shards, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(worker::close));
+        ShardProtocol.Info info = worker.info;
+        // O ShardScalingBenchmark lê a porta desta linha
+        System.out.printf("[Partição %d de %d] faces %d a %d de %d, ouvindo em 127.0.0.1:%d%n", shard, shards,
+                info.firstRow(), info.firstRow() + info.rows() - 1, info.totalRows(), worker.port());
+        System.out.flush();
+        worker.closed.await();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+            for (Socket socket : connections) socket.close();
+        } catch (IOException e) {
+            // a fechar de qualquer forma
+        } finally {
+            closed.countDown();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!server.isClosed()) System.err.println("[Partição] Erro ao aceitar conexão: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (op) {
+                    case ShardProtocol.INFO -> ShardProtocol.writeInfo(out, info);
+                    case ShardProtocol.SEARCH -> search(in, out);
+                    default -> throw new IOException("Operação desconhecida: " + op);
+                }
+                out.flush();
+            }
+        } catch (SocketException e) {
+            // conexão fechada pelo coordenador ou pelo close()
+        } catch (IOException e) {
+            System.err.println("[Partição] Conexão encerrada: " + e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void search(DataInputStream in, DataOutputStream out) throws IOException {
+        int k = in.readInt();
+        int dimension = in.readInt();
+        if (dimension < 0 || dimension > 1 << 16) throw new IOException("Dimensão inválida: " + dimension);
+        double[] coeffs = new double[dimension];
+        for (int i = 0; i < dimension; i++) coeffs[i] = in.readDouble();
+
+        if (dimension != info.dimension() || k < 1 || k > ShardProtocol.MAX_K) {
+            ShardProtocol.writeError(out, String.format("busca inválida (k=%d, dimensão %d, esperada %d)", k, dimension, info.dimension()));
+            return;
+        }
+        long start = System.nanoTime();
+        List<Neighbor> neighbors = info.rows() == 0 ? List.of() : index.search(coeffs, k);
+        Metrics.SEARCH.recordSince(start);
+        ShardProtocol.writeNeighbors(out, neighbors, info.firstRow());
+    }
+}
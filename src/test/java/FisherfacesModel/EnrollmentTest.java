@@ -0,0 +1,133 @@
+package FisherfacesModel;
+
+import Benchmark.Evaluation;
+import Benchmark.SyntheticFaces;
+import Data.TrainingData;
+import ImageProcessor.ImageProcessor;
+import LinearAlgebra.DenseMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cadastro incremental (enroll/unenroll) contra um re-treino completo: treina com C - E indivíduos, cadastra
+ * os E restantes um a um e compara as respostas em fotos novas com as do modelo treinado do zero com todos.
+ */
+class EnrollmentTest {
+
+    private static final int CLASSES = 20;
+    private static final int PER_CLASS = 6;
+    private static final int ENROLLED = 4;
+    private static final int PROBES_PER_CLASS = 3;
+    private static final PcaOptions OPTIONS = PcaOptions.exact().withComponents(19);
+
+    private static TrainingData all;
+    private static List<double[]> probes;
+    private static List<String> probeLabels;
+
+    @BeforeAll
+    static void gallery() {
+        SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 11L);
+        all = faces.gallery(CLASSES * PER_CLASS, CLASSES);
+        probes = faces.probes(CLASSES, PROBES_PER_CLASS, 99L);
+        probeLabels = new ArrayList<>();
+        for (int c = 0; c < CLASSES; c++) {
+            for (int p = 0; p < PROBES_PER_CLASS; p++) probeLabels.add(SyntheticFaces.label(c));
+        }
+    }
+
+    @Test
+    void enrollAgreesWithFullRetraining() {
+        FisherfacesModel full = train(CLASSES);
+        FisherfacesModel incremental = train(CLASSES - ENROLLED);
+        for (int c = CLASSES - ENROLLED; c < CLASSES; c++) {
+            String label = SyntheticFaces.label(c);
+            List<double[]> photos = photosOf(label);
+            Evaluation.quietly(() -> incremental.enroll(label, photos));
+        }
+
+        List<String> fullAnswers = Evaluation.classify(full, probes);
+        List<String> incrementalAnswers = Evaluation.classify(incremental, probes);
+        assertTrue(Evaluation.accuracy(fullAnswers, probeLabels) >= 95.0, "acurácia do re-treino completo");
+        assertTrue(Evaluation.accuracy(incrementalAnswers, probeLabels) >= 95.0, "acurácia com cadastro incremental");
+        assertTrue(Evaluation.accuracy(incrementalAnswers, fullAnswers) >= 95.0, "concordância entre os modelos");
+    }
+
+    @Test
+    void unenrollAgreesWithTrainingWithoutTheIndividual() {
+        FisherfacesModel full = train(CLASSES);
+        String removed = SyntheticFaces.label(CLASSES - 1);
+        Evaluation.quietly(() -> full.unenroll(removed));
+        FisherfacesModel without = train(CLASSES - 1);
+
+        List<double[]> remainingProbes = probes.subList(0, (CLASSES - 1) * PROBES_PER_CLASS);
+        List<String> remainingLabels = probeLabels.subList(0, (CLASSES - 1) * PROBES_PER_CLASS);
+        List<String> unenrollAnswers = Evaluation.classify(full, remainingProbes);
+        assertFalse(full.getLabels().contains(removed), "o indivíduo removido continua na galeria");
+        assertTrue(Evaluation.accuracy(unenrollAnswers, remainingLabels) >= 95.0, "acurácia depois do unenroll");
+        assertTrue(Evaluation.accuracy(unenrollAnswers, Evaluation.classify(without, remainingProbes)) >= 95.0,
+                "concordância com o treino sem o indivíduo");
+    }
+
+    @Test
+    void incrementalScatterMatchesRebuiltScatter() {
+        FisherfacesModel model = train(CLASSES - ENROLLED);
+        String existing = SyntheticFaces.label(0);
+        for (int c = CLASSES - ENROLLED; c < CLASSES; c++) {
+            String label = SyntheticFaces.label(c);
+            Evaluation.quietly(() -> model.enroll(label, photosOf(label)));
+        }
+        List<double[]> more = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 11L)
+                .probes(1, 2, 7L);
+        Evaluation.quietly(() -> model.enroll(existing, more));
+        Evaluation.quietly(() -> model.unenroll(SyntheticFaces.label(3)));
+
+        Map<String, List<RealVector>> coords = model.coordenadasPca();
+        int m = coords.values().stream().mapToInt(List::size).sum();
+        FisherfacesModel.Scatter kept = model.dispersaoAtual();
+        FisherfacesModel.Scatter rebuilt = FisherfacesModel.calcularDispersao(coords, kept.within().rows(), m,
+                FisherfacesModel.SW_REGULARIZATION);
+        assertClose(rebuilt.within(), kept.within(), "Sw");
+        assertClose(rebuilt.between(), kept.between(), "Sb");
+    }
+
+    private static void assertClose(DenseMatrix expected, DenseMatrix actual, String name) {
+        double scale = 0.0, diff = 0.0;
+        for (int i = 0; i < expected.data().length; i++) {
+            scale = Math.max(scale, Math.abs(expected.data()[i]));
+            diff = Math.max(diff, Math.abs(expected.data()[i] - actual.data()[i]));
+        }
+        assertTrue(diff <= 1e-9 * scale, name + " incremental difere da reconstruída: " + diff + " (escala " + scale + ")");
+    }
+
+    private static List<double[]> photosOf(String label) {
+        List<double[]> photos = new ArrayList<>();
+        for (int j = 0; j < all.size(); j++) {
+            if (all.labels().get(j).equals(label)) photos.add(all.vectors().get(j));
+        }
+        return photos;
+    }
+
+    // Modelo treinado só com os primeiros indivíduos (rótulos em ordem)
+    private static FisherfacesModel train(int classes) {
+        List<double[]> vectors = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int j = 0; j < all.size(); j++) {
+            String label = all.labels().get(j);
+            if (label.compareTo(SyntheticFaces.label(classes)) < 0) {
+                vectors.add(all.vectors().get(j));
+                labels.add(label);
+            }
+        }
+        FisherfacesModel model = new FisherfacesModel();
+        Evaluation.quietly(() -> model.train(new TrainingData(vectors, labels, all.imageWidth(), all.imageHeight()), OPTIONS));
+        return model;
+    }
+}
@@ -0,0 +1,79 @@
+package FisherfacesModel;
+
+import Benchmark.SyntheticFaces;
+import Data.TrainingData;
+import GalleryIndex.VectorStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Treino fora do heap ({@link MappedTrainingMatrix}) contra o treino em memória com a mesma galeria: a face
+ * média e as distâncias no espaço de faces têm de ser as mesmas. O número de imagens não é múltiplo de
+ * {@value #BLOCK_ROWS}, para que o último bloco fique incompleto. As direções de W_final podem trocar de sinal
+ * entre os dois treinos, por isso são comparadas as distâncias, e não as coordenadas.
+ */
+class MappedTrainingMatrixTest {
+
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 16;
+    private static final int IMAGES = 47;
+    private static final int CLASSES = 6;
+    private static final int BLOCK_ROWS = 10;
+    private static final PcaOptions OPTIONS = PcaOptions.exact().withComponents(20);
+    private static final double TOLERANCE = 1e-6;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mappedTrainingMatchesInMemoryTraining() throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(WIDTH, HEIGHT, 21L);
+        TrainingData gallery = faces.gallery(IMAGES, CLASSES);
+        List<double[]> probes = faces.probes(CLASSES, 2, 8L);
+
+        FisherfacesModel inMemory = new FisherfacesModel();
+        inMemory.train(gallery, OPTIONS);
+
+        FisherfacesModel mapped = new FisherfacesModel();
+        try (MappedTrainingMatrix matrix = MappedTrainingMatrix.create(dir.resolve("treino.bin"), BLOCK_ROWS, WIDTH, HEIGHT)) {
+            for (int j = 0; j < gallery.size(); j++) matrix.append(gallery.vectors().get(j), gallery.labels().get(j));
+            mapped.train(matrix, OPTIONS);
+        }
+
+        double[] expectedMean = inMemory.getMeanVector(), actualMean = mapped.getMeanVector();
+        for (int i = 0; i < expectedMean.length; i++) {
+            assertEquals(expectedMean[i], actualMean[i], TOLERANCE * 255, "face média, pixel " + i);
+        }
+        assertEquals(inMemory.getEigenfaces().getColumnDimension(), mapped.getEigenfaces().getColumnDimension());
+        assertEquals(inMemory.getLabels(), mapped.getLabels());
+
+        // Distâncias entre as faces da galeria e de cada foto nova a cada face da galeria
+        VectorStore expected = inMemory.getProjectedVectors(), actual = mapped.getProjectedVectors();
+        double scale = 0.0;
+        for (int a = 0; a < expected.size(); a++) scale = Math.max(scale, expected.distanceBetween(a, 0));
+        for (int a = 0; a < expected.size(); a++) {
+            for (int b = a + 1; b < expected.size(); b++) {
+                assertClose(expected.distanceBetween(a, b), actual.distanceBetween(a, b), scale, "galeria " + a + "-" + b);
+            }
+        }
+        for (int p = 0; p < probes.size(); p++) {
+            double[] qe = inMemory.getProjection().project(probes.get(p));
+            double[] qa = mapped.getProjection().project(probes.get(p));
+            for (int b = 0; b < expected.size(); b++) {
+                assertClose(expected.distanceSquared(qe, b), actual.distanceSquared(qa, b), scale, "foto " + p + ", face " + b);
+            }
+        }
+    }
+
+    private static void assertClose(double expected, double actual, double scale, String what) {
+        assertTrue(Math.abs(expected - actual) <= TOLERANCE * scale,
+                what + ": " + actual + " em vez de " + expected + " (escala " + scale + ")");
+    }
+}
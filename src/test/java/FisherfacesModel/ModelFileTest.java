@@ -0,0 +1,160 @@
+package FisherfacesModel;
+
+import Benchmark.Evaluation;
+import Benchmark.SyntheticFaces;
+import GalleryIndex.VectorStore;
+import ImageProcessor.ImageProcessor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Formato binário do modelo: ida e volta, arquivos corrompidos ou truncados, partições lidas com janelas
+ * pequenas (várias trocas de janela, com linhas cortadas entre duas) e o modo de decodificação do cabeçalho.
+ */
+class ModelFileTest {
+
+    private static final int WIDTH = 16;
+    private static final int HEIGHT = 16;
+    // MAGIC, VERSION, largura, altura e o byte da equalização vêm antes da decodificação
+    private static final int DECODE_OFFSET = 4 * Integer.BYTES + 1;
+    // Galeria que não se divide igualmente pelas partições; janela que não é múltipla de 8 bytes
+    private static final int IMAGES = 26;
+    private static final int SHARDS = 3;
+    private static final long SMALL_WINDOW = 200;
+
+    private static FisherfacesModel model;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void train() {
+        model = new FisherfacesModel();
+        Evaluation.quietly(() -> model.train(new SyntheticFaces(WIDTH, HEIGHT, 5L).gallery(IMAGES, 4), PcaOptions.exact()));
+    }
+
+    @Test
+    void roundTripKeepsProjectionAndGallery() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        FisherfacesModel loaded = FisherfacesModel.load(file);
+
+        assertEquals(model.getImageWidth(), loaded.getImageWidth());
+        assertEquals(model.getImageHeight(), loaded.getImageHeight());
+        assertArrayEquals(model.getMeanVector(), loaded.getMeanVector());
+        assertArrayEquals(model.getEigenfaces().getData(), loaded.getEigenfaces().getData());
+        assertEquals(model.getLabels(), loaded.getLabels());
+        assertArrayEquals(rows(model.getProjectedVectors()), rows(loaded.getProjectedVectors()));
+    }
+
+    @Test
+    void flippedByteIsRejected() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        // Cabeçalho, face média, projeções, tabela de rótulos e o próprio checksum
+        for (int offset : new int[]{5, 40, bytes.length / 2, bytes.length - 20, bytes.length - 1}) {
+            byte[] corrupted = bytes.clone();
+            corrupted[offset] ^= 0x10;
+            Files.write(file, corrupted);
+            assertThrows(IOException.class, () -> FisherfacesModel.load(file), "byte " + offset + " alterado");
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[]{0, 12, DECODE_OFFSET + 2, bytes.length / 2, bytes.length - Long.BYTES, bytes.length - 1}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> FisherfacesModel.load(file), "arquivo com " + length + " bytes");
+        }
+    }
+
+    @Test
+    void shardsWithSmallWindowMatchFullLoad() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        FisherfacesModel full = FisherfacesModel.load(file);
+        double[][] fullRows = rows(full.getProjectedVectors());
+
+        List<String> labels = new ArrayList<>();
+        List<double[]> shardRows = new ArrayList<>();
+        long checksum = 0;
+        for (int s = 0; s < SHARDS; s++) {
+            FisherfacesModel.GalleryShard shard = ModelFile.readShard(new FisherfacesModel(), file, s, SHARDS, SMALL_WINDOW);
+            assertEquals(shardRows.size(), shard.firstRow(), "início da partição " + s);
+            assertEquals(IMAGES, shard.totalRows());
+            if (s > 0) assertEquals(checksum, shard.checksum(), "todas as partições vêm do mesmo arquivo");
+            checksum = shard.checksum();
+            assertArrayEquals(full.getMeanVector(), shard.model().getMeanVector());
+            assertArrayEquals(full.getEigenfaces().getData(), shard.model().getEigenfaces().getData());
+            labels.addAll(shard.model().getLabels());
+            shardRows.addAll(Arrays.asList(rows(shard.model().getProjectedVectors())));
+        }
+        assertEquals(full.getLabels(), labels);
+        assertArrayEquals(fullRows, shardRows.toArray(new double[0][]));
+    }
+
+    @Test
+    void modelWithAnotherDecodeModeIsRejected() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(ImageProcessor.DECODE_MODE, ByteBuffer.wrap(bytes).getInt(DECODE_OFFSET), "modo gravado no cabeçalho");
+
+        ByteBuffer.wrap(bytes).putInt(DECODE_OFFSET, ImageProcessor.DECODE_MODE == 0 ? 4 : 0);
+        Files.write(file, withChecksum(bytes));
+        IOException e = assertThrows(IOException.class, () -> FisherfacesModel.load(file));
+        assertTrue(e.getMessage().contains("decodificação"), e.getMessage());
+    }
+
+    @Test
+    void versionOneModelWithoutDecodeModeStillLoads() throws IOException {
+        Path file = dir.resolve("modelo.ffm");
+        model.save(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        // Versão 1: o mesmo arquivo sem o int da decodificação
+        byte[] v1 = new byte[bytes.length - Integer.BYTES];
+        System.arraycopy(bytes, 0, v1, 0, DECODE_OFFSET);
+        System.arraycopy(bytes, DECODE_OFFSET + Integer.BYTES, v1, DECODE_OFFSET, v1.length - DECODE_OFFSET);
+        ByteBuffer.wrap(v1).putInt(Integer.BYTES, 1);
+        Files.write(file, withChecksum(v1));
+
+        FisherfacesModel loaded = FisherfacesModel.load(file);
+        assertEquals(model.getLabels(), loaded.getLabels());
+    }
+
+    private static double[][] rows(VectorStore store) {
+        double[][] rows = new double[store.size()][store.dimension()];
+        for (int i = 0; i < rows.length; i++) store.copyRow(i, rows[i], 0);
+        return rows;
+    }
+
+    // Regrava o CRC32C dos últimos 8 bytes depois de uma alteração no conteúdo
+    private static byte[] withChecksum(byte[] bytes) {
+        int payload = bytes.length - Long.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, payload);
+        byte[] copy = Arrays.copyOf(bytes, bytes.length);
+        ByteBuffer.wrap(copy).putLong(payload, crc.getValue());
+        return copy;
+    }
+}
@@ -0,0 +1,53 @@
+package GalleryIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Contrato de {@link GalleryIndex#search}: busca exata e HNSW recusam {@code k < 1} da mesma forma e
+ * devolvem no máximo o tamanho da galeria.
+ */
+class GalleryIndexTest {
+
+    private static final int SIZE = 30;
+    private static final int DIMENSION = 8;
+
+    @Test
+    void bothIndexesRejectKBelowOne() {
+        for (GalleryIndex index : indexes()) {
+            double[] query = new double[DIMENSION];
+            assertThrows(IllegalArgumentException.class, () -> index.search(query, 0), index.getClass().getSimpleName());
+            assertThrows(IllegalArgumentException.class, () -> index.search(query, -1), index.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void bothIndexesAgreeOnTheNearestNeighbor() {
+        List<GalleryIndex> indexes = indexes();
+        double[] query = indexes.getFirst().vectors().asList().get(7).clone();
+        for (GalleryIndex index : indexes) {
+            assertEquals("Individuo_7", index.search(query, 1).getFirst().label(), index.getClass().getSimpleName());
+            assertEquals(SIZE, index.search(query, SIZE + 5).size(), index.getClass().getSimpleName());
+        }
+    }
+
+    private static List<GalleryIndex> indexes() {
+        Random random = new Random(4L);
+        List<double[]> projections = new ArrayList<>();
+        List<String> labels = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            double[] v = new double[DIMENSION];
+            for (int d = 0; d < DIMENSION; d++) v[d] = random.nextGaussian();
+            projections.add(v);
+            labels.add("Individuo_" + i);
+        }
+        VectorStore store = VectorStore.of(projections, Precision.DOUBLE);
+        return List.of(GalleryIndex.flat().build(store, labels), GalleryIndex.hnsw(8, 32, 32).build(store, labels));
+    }
+}
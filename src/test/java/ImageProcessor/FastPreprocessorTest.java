@@ -0,0 +1,57 @@
+package ImageProcessor;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * O pré-processamento rápido ({@link FastPreprocessor}) dá o mesmo vetor que o caminho original pela AWT em
+ * vários formatos e tamanhos: redução, ampliação, cinza, BGR, ARGB com transparência e paleta.
+ * O tempo e a memória de cada caminho estão no {@code Benchmark.PreprocessingJmh}.
+ */
+class FastPreprocessorTest {
+
+    private static final int[] TYPES = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_INDEXED};
+    private static final String[] TYPE_NAMES = {"3BYTE_BGR", "INT_RGB", "BYTE_GRAY", "INT_ARGB", "4BYTE_ABGR", "BYTE_INDEXED"};
+    private static final int[][] SIZES = {{640, 480}, {333, 517}, {100, 100}, {73, 41}};
+
+    @Test
+    void matchesAwtPathForEveryFormatAndSize() {
+        ImageProcessor processor = new ImageProcessor();
+        double[] fast = new double[ImageProcessor.VECTOR_SIZE];
+        Random random = new Random(1L);
+        for (int t = 0; t < TYPES.length; t++) {
+            for (int[] size : SIZES) {
+                BufferedImage image = synthetic(random, size[0], size[1], TYPES[t]);
+                double[] reference = processor.preprocessAwt(image);
+                processor.preprocess(image, fast);
+                double maxDiff = 0.0;
+                for (int i = 0; i < fast.length; i++) maxDiff = Math.max(maxDiff, Math.abs(fast[i] - reference[i]));
+                assertEquals(0.0, maxDiff, TYPE_NAMES[t] + " " + size[0] + "x" + size[1]);
+            }
+        }
+    }
+
+    // Gradientes suaves com ruído; nos formatos com alfa, um quarto dos pixels é translúcido
+    private static BufferedImage synthetic(Random random, int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = clamp(128 + 90 * Math.sin(x * 0.05) + random.nextGaussian() * 20);
+                int g = clamp(128 + 90 * Math.cos(y * 0.04) + random.nextGaussian() * 20);
+                int b = clamp((x + y) * 255.0 / (width + height) + random.nextGaussian() * 20);
+                int a = random.nextInt(4) == 0 ? random.nextInt(256) : 255;
+                image.setRGB(x, y, a << 24 | r << 16 | g << 8 | b);
+            }
+        }
+        return image;
+    }
+
+    private static int clamp(double v) {
+        return (int) Math.max(0, Math.min(255, v));
+    }
+}
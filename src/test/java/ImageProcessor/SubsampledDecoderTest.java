@@ -0,0 +1,69 @@
+package ImageProcessor;
+
+import Benchmark.SyntheticPhotos;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A decodificação reduzida ({@link SubsampledDecoder}) seguida do pré-processamento fica perto da decodificação
+ * em resolução cheia: diferença média do vetor final (0 a 255, depois da equalização) de no máximo
+ * {@value #MEAN_BOUND} níveis de cinza em fotos sintéticas grandes, em JPEG e PNG, e idêntica nas pequenas,
+ * que são lidas sem redução. O tempo e a memória de cada caminho estão no {@code Benchmark.DecodeJmh}.
+ */
+class SubsampledDecoderTest {
+
+    /** Limite da diferença média por pixel do vetor, em níveis de cinza (de 0 a 255). */
+    private static final double MEAN_BOUND = 4.0;
+
+    private final ImageProcessor processor = new ImageProcessor();
+    private final SubsampledDecoder decoder = new SubsampledDecoder(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+
+    @Test
+    void largePhotosStayWithinBound() throws IOException {
+        Random random = new Random(3L);
+        for (int[] size : new int[][]{{3000, 4000}, {1600, 1200}}) {
+            BufferedImage photo = SyntheticPhotos.camera(random, size[0], size[1]);
+            assertTrue(decoder.factor(size[0], size[1]) > 1, "foto grande lida sem redução");
+            for (String format : new String[]{"jpg", "png"}) {
+                byte[] content = encode(photo, format);
+                BufferedImage reduced = decoder.read(content);
+                assertTrue(reduced.getWidth() < size[0] && reduced.getHeight() < size[1]);
+                double mean = meanDifference(content, reduced);
+                assertTrue(mean <= MEAN_BOUND, size[0] + "x" + size[1] + " " + format + ": diferença média " + mean);
+            }
+        }
+    }
+
+    @Test
+    void smallPhotosAreReadInFull() throws IOException {
+        BufferedImage photo = SyntheticPhotos.camera(new Random(5L), 640, 480);
+        assertEquals(1, decoder.factor(640, 480));
+        for (String format : new String[]{"jpg", "png"}) {
+            byte[] content = encode(photo, format);
+            assertEquals(0.0, meanDifference(content, decoder.read(content)), format);
+        }
+    }
+
+    private double meanDifference(byte[] content, BufferedImage reduced) throws IOException {
+        double[] reference = processor.preprocess(ImageIO.read(new ByteArrayInputStream(content)));
+        double[] fast = processor.preprocess(reduced);
+        double sum = 0.0;
+        for (int i = 0; i < fast.length; i++) sum += Math.abs(fast[i] - reference[i]);
+        return sum / fast.length;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, format, bytes);
+        return bytes.toByteArray();
+    }
+}
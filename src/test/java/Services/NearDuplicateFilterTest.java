@@ -0,0 +1,202 @@
+package Services;
+
+import Benchmark.SyntheticFaces;
+import Data.NearDuplicate;
+import Data.TrainingData;
+import ImageProcessor.ImageProcessor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deduplicação do carregamento ({@link NearDuplicateFilter}) numa galeria sintética com cópias conhecidas.
+ *
+ * Cada foto é desenhada em 160x160 com ruído de sensor; depois entram cópias de fotos sorteadas: idêntica,
+ * JPEG recomprimido, reduzida e ampliada, outra foto da mesma rajada (2 pixels de deslocamento e ruído novo)
+ * e mais clara. Uma em cada 5 cópias vai para outro indivíduo (erro de cadastro). Com os limites padrão
+ * ({@link DeduplicationOptions#collapse()}), todas as cópias exceto as da rajada são achadas, sem falsos
+ * positivos. A escala do índice está no {@code Benchmark.NearDuplicateBenchmark}.
+ */
+class NearDuplicateFilterTest {
+
+    private static final int SOURCE_SIDE = 160;
+    private static final double SENSOR_NOISE = 12.0;
+    private static final int CLASSES = 60;
+    private static final int PHOTOS = 5;
+    private static final int COPIES = 100;
+
+    private enum Kind { IDENTICA, JPEG, REDIMENSIONADA, RAJADA, CLARA }
+
+    // Uma imagem da galeria: source é o índice da foto original (ela mesma, para as originais)
+    private record Item(String label, int source, Kind kind, double[] vector) {}
+
+    private static List<Item> items;
+    private static int originals;
+
+    @BeforeAll
+    static void gallery() throws IOException {
+        ImageIO.setUseCache(false); // recompressões em memória, sem arquivo temporário
+        ImageProcessor processor = new ImageProcessor();
+        TrainingData gallery = new SyntheticFaces(SOURCE_SIDE, SOURCE_SIDE, 7L).gallery(CLASSES * PHOTOS, CLASSES);
+        Random random = new Random(19L);
+        List<BufferedImage> images = new ArrayList<>();
+        items = new ArrayList<>();
+        for (int j = 0; j < gallery.size(); j++) {
+            BufferedImage image = render(gallery.vectors().get(j), 0, random);
+            images.add(image);
+            items.add(new Item(gallery.labels().get(j), j, null, processor.preprocess(image)));
+        }
+        originals = items.size();
+
+        List<Item> duplicates = new ArrayList<>();
+        Kind[] kinds = Kind.values();
+        for (int c = 0; c < COPIES; c++) {
+            int source = random.nextInt(originals);
+            Kind kind = kinds[c % kinds.length];
+            BufferedImage copy = switch (kind) {
+                case IDENTICA -> images.get(source);
+                case JPEG -> jpeg(images.get(source), 0.5f);
+                case REDIMENSIONADA -> resized(images.get(source), 0.6);
+                case RAJADA -> render(gallery.vectors().get(source), 2, random);
+                case CLARA -> brighter(images.get(source), 25);
+            };
+            String label = c % 5 == 4 ? SyntheticFaces.label((source % CLASSES + 1) % CLASSES) : gallery.labels().get(source);
+            duplicates.add(new Item(label, source, kind, processor.preprocess(copy)));
+        }
+        Collections.shuffle(duplicates, random);
+        items.addAll(duplicates);
+    }
+
+    @Test
+    void findsCopiesWithoutFalsePositives() {
+        NearDuplicateFilter filter = new NearDuplicateFilter(DeduplicationOptions.collapse(),
+                ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+        int[] found = new int[Kind.values().length], total = new int[Kind.values().length];
+        int falsePositives = 0, crossExpected = 0, crossFound = 0, removed = 0;
+        for (int j = 0; j < items.size(); j++) {
+            Item item = items.get(j);
+            NearDuplicate duplicate = filter.check(item.label(), Path.of(item.label(), "foto_" + j + ".png"), item.vector());
+            boolean isCopy = item.kind() != null;
+            boolean cross = isCopy && !item.label().equals(items.get(item.source()).label());
+            if (isCopy) total[item.kind().ordinal()]++;
+            if (cross) crossExpected++;
+            if (duplicate == null) continue;
+            if (duplicate.removed()) {
+                // Havendo também uma quase igual de outro indivíduo, vale o conflito e a foto fica
+                assertFalse(duplicate.crossLabel(), "foto removida por causa de outro indivíduo");
+                removed++;
+            }
+            int matched = Integer.parseInt(duplicate.original().getFileName().toString().replaceAll("\\D", ""));
+            if (!isCopy || items.get(matched).source() != item.source()) {
+                falsePositives++;
+            } else {
+                found[item.kind().ordinal()]++;
+                if (cross && duplicate.crossLabel()) crossFound++;
+            }
+        }
+
+        for (Kind kind : Kind.values()) {
+            if (kind != Kind.RAJADA) assertEquals(total[kind.ordinal()], found[kind.ordinal()], "cópias achadas: " + kind);
+        }
+        assertEquals(0, falsePositives, "falsos positivos");
+        assertEquals(crossExpected, crossFound, "conflitos entre indivíduos");
+        assertTrue(removed > 0, "nenhuma cópia do mesmo indivíduo saiu do treino");
+        assertEquals(items.size() - removed, filter.size());
+        long n = items.size();
+        assertTrue(filter.comparisons() < n * (n - 1) / 2 / 10, "o índice deve evitar a comparação de todas com todas");
+    }
+
+    @Test
+    void flagReportsWithoutRemoving() {
+        NearDuplicateFilter filter = new NearDuplicateFilter(DeduplicationOptions.flag(),
+                ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT);
+        int reported = 0;
+        for (int j = 0; j < items.size(); j++) {
+            Item item = items.get(j);
+            NearDuplicate duplicate = filter.check(item.label(), Path.of(item.label(), "foto_" + j + ".png"), item.vector());
+            if (duplicate == null) continue;
+            assertFalse(duplicate.removed(), "flag() não tira fotos do treino");
+            reported++;
+        }
+        assertTrue(reported >= COPIES * 4 / 5, "cópias informadas: " + reported);
+        assertEquals(items.size(), filter.size());
+    }
+
+    @Test
+    void disabledOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateFilter(DeduplicationOptions.off(),
+                ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT));
+    }
+
+    // Foto em tons de cinza com ruído de sensor, deslocada de shift pixels para a direita e para baixo
+    private static BufferedImage render(double[] pixels, int shift, Random noise) {
+        BufferedImage image = new BufferedImage(SOURCE_SIDE, SOURCE_SIDE, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < SOURCE_SIDE; y++) {
+            for (int x = 0; x < SOURCE_SIDE; x++) {
+                int sy = Math.max(0, y - shift), sx = Math.max(0, x - shift);
+                double v = pixels[sy * SOURCE_SIDE + sx] + noise.nextGaussian() * SENSOR_NOISE;
+                data[y * SOURCE_SIDE + x] = (byte) Math.clamp((int) v, 0, 255);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage jpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static BufferedImage resized(BufferedImage image, double factor) {
+        return scale(scale(image, (int) (SOURCE_SIDE * factor)), SOURCE_SIDE);
+    }
+
+    private static BufferedImage scale(BufferedImage image, int side) {
+        BufferedImage out = new BufferedImage(side, side, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, side, side, null);
+        g.dispose();
+        return out;
+    }
+
+    private static BufferedImage brighter(BufferedImage image, int delta) {
+        BufferedImage out = new BufferedImage(SOURCE_SIDE, SOURCE_SIDE, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] src = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        byte[] dst = ((DataBufferByte) out.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < src.length; i++) dst[i] = (byte) Math.min(255, (src[i] & 0xFF) + delta);
+        return out;
+    }
+}
@@ -0,0 +1,170 @@
+package Services;
+
+import Benchmark.Evaluation;
+import Benchmark.SyntheticFaces;
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache de resultados da verificação ({@link ProbeCache}) numa pasta com envios repetidos: {@value #FILES}
+ * arquivos, cópias byte a byte de {@value #DISTINCT} fotos sintéticas, com nomes diferentes. Cada verificação
+ * com cache é comparada, arquivo a arquivo, com a verificação sem cache no estado atual do modelo: com o cache
+ * vazio, cheio, depois de mudar o limiar, depois de um enroll, com um cache menor que as fotos distintas e no
+ * modo em pipeline.
+ */
+class ProbeCacheTest {
+
+    private static final int CLASSES = 20;
+    private static final int DISTINCT = 20;
+    private static final int FILES = 60;
+    private static final int SIDE = 120;
+
+    @TempDir
+    Path dir;
+
+    private SyntheticFaces faces;
+    private FisherfacesModel model;
+    private FaceRecognizer recognizer;
+    private VerificationService plain;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 3L);
+        writeProbes(faces.probes(CLASSES, DISTINCT / CLASSES + 1, 13L).subList(0, DISTINCT));
+        ImageProcessor processor = new ImageProcessor();
+        model = new FisherfacesModel();
+        Evaluation.quietly(() -> model.train(faces.gallery(8 * CLASSES, CLASSES), PcaOptions.exact().withComponents(19)));
+        recognizer = new FaceRecognizer(model, processor);
+        plain = new VerificationService(processor, recognizer);
+    }
+
+    @Test
+    void repeatedUploadsAreServedFromCache() throws IOException {
+        ProbeCache probes = new ProbeCache();
+        VerificationService cached = plain.withResultCache(probes);
+        List<RecognitionResult> reference = plain.verifySuspects(dir);
+
+        ProbeCache.Stats before = probes.stats();
+        assertSame(reference, cached.verifySuspects(dir));
+        ProbeCache.Stats empty = probes.stats();
+        assertEquals(FILES, empty.hits() + empty.misses() - before.hits() - before.misses());
+        assertTrue(empty.misses() >= DISTINCT, "cada foto distinta deve ser calculada pelo menos uma vez");
+
+        assertSame(reference, cached.verifySuspects(dir));
+        ProbeCache.Stats full = probes.stats();
+        assertEquals(FILES, full.hits() - empty.hits(), "com o cache cheio todas as imagens são acertos");
+        assertEquals(0, full.misses() - empty.misses());
+        assertEquals(DISTINCT, full.entries());
+    }
+
+    @Test
+    void pipelineUsesTheSameResultCache() throws IOException {
+        ProbeCache probes = new ProbeCache();
+        VerificationService cached = plain.withResultCache(probes);
+        List<RecognitionResult> reference = plain.verifySuspects(dir);
+        PipelineOptions options = PipelineOptions.defaults().withThreads(2, 2, 1, 2);
+
+        assertSame(reference, cached.verifySuspects(dir, options, r -> {}));
+        ProbeCache.Stats first = probes.stats();
+        assertEquals(FILES, first.hits() + first.misses());
+        assertEquals(DISTINCT, first.entries());
+
+        assertSame(reference, cached.verifySuspects(dir, options, r -> {}));
+        assertEquals(FILES, probes.stats().hits() - first.hits(), "com o cache cheio o pipeline não verifica de novo");
+        assertSame(reference, cached.verifySuspects(dir));
+        assertEquals(2 * FILES, probes.stats().hits() - first.hits(), "o modo em lote aproveita o que o pipeline guardou");
+    }
+
+    @Test
+    void thresholdChangeAndEnrollInvalidateTheCache() throws IOException {
+        ProbeCache probes = new ProbeCache();
+        VerificationService cached = plain.withResultCache(probes);
+        List<RecognitionResult> reference = plain.verifySuspects(dir);
+        cached.verifySuspects(dir);
+
+        double[] distances = reference.stream().mapToDouble(RecognitionResult::distance).sorted().toArray();
+        recognizer.setRecognitionThreshold(distances[distances.length / 2]);
+        long invalidations = probes.stats().invalidations();
+        assertSame(plain.verifySuspects(dir), cached.verifySuspects(dir));
+        assertEquals(invalidations + 1, probes.stats().invalidations(), "o limiar novo deve esvaziar o cache");
+
+        List<double[]> photos = faces.gallery(8 * CLASSES, CLASSES).vectors().subList(0, 3);
+        Evaluation.quietly(() -> model.enroll("Individuo_novo", photos));
+        assertSame(plain.verifySuspects(dir), cached.verifySuspects(dir));
+        assertEquals(invalidations + 2, probes.stats().invalidations(), "o enroll deve esvaziar o cache");
+    }
+
+    @Test
+    void smallCacheEvictsAndStaysCorrect() throws IOException {
+        ProbeCache small = new ProbeCache(DISTINCT / 2);
+        VerificationService cached = plain.withResultCache(small);
+        List<RecognitionResult> reference = plain.verifySuspects(dir);
+        assertSame(reference, cached.verifySuspects(dir));
+        assertSame(reference, cached.verifySuspects(dir));
+        ProbeCache.Stats stats = small.stats();
+        assertTrue(stats.evictions() > 0, "um cache menor que as fotos distintas deve despejar");
+        assertTrue(stats.entries() <= DISTINCT / 2);
+        assertEquals(2 * FILES, stats.hits() + stats.misses());
+    }
+
+    // Mesmo rótulo, decisão e distância (até arredondamento) para cada arquivo
+    private static void assertSame(List<RecognitionResult> expected, List<RecognitionResult> actual) {
+        Map<String, RecognitionResult> byName = new HashMap<>();
+        for (RecognitionResult r : actual) byName.put(r.fileName(), r);
+        assertEquals(expected.size(), actual.size());
+        for (RecognitionResult e : expected) {
+            RecognitionResult r = byName.get(e.fileName());
+            assertNotNull(r, e.fileName());
+            assertEquals(e.recognizedLabel(), r.recognizedLabel(), e.fileName());
+            assertEquals(e.isMatch(), r.isMatch(), e.fileName());
+            assertEquals(e.distance(), r.distance(), 1e-9 * Math.max(1.0, Math.abs(e.distance())), e.fileName());
+        }
+    }
+
+    // Cada foto distinta vira um JPEG ampliado para SIDE x SIDE; os arquivos são cópias byte a byte, intercaladas
+    private void writeProbes(List<double[]> probes) throws IOException {
+        int w = ImageProcessor.IMAGE_WIDTH, h = ImageProcessor.IMAGE_HEIGHT;
+        List<byte[]> contents = new ArrayList<>(probes.size());
+        for (double[] pixels : probes) {
+            BufferedImage small = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            for (int p = 0; p < pixels.length; p++) {
+                int gray = Math.clamp((int) pixels[p], 0, 255);
+                small.setRGB(p % w, p / w, (gray << 16) | (gray << 8) | gray);
+            }
+            BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(small, 0, 0, SIDE, SIDE, null);
+            g.dispose();
+            Path file = dir.resolve("original.jpg");
+            ImageIO.write(image, "jpg", file.toFile());
+            contents.add(Files.readAllBytes(file));
+            Files.delete(file);
+        }
+        for (int i = 0; i < FILES; i++) {
+            Files.write(dir.resolve(String.format("envio_%05d.jpg", i)), contents.get(i % contents.size()));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Services;
+
+import Benchmark.Evaluation;
+import Benchmark.SyntheticFaces;
+import Data.RecognitionResult;
+import FaceRecognizer.FaceRecognizer;
+import FisherfacesModel.FisherfacesModel;
+import FisherfacesModel.PcaOptions;
+import ImageProcessor.ImageProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Modo de monitoramento ({@link SuspectWatcher}) numa pasta temporária:
+ * <ul>
+ *   <li>imagens gravadas em pedaços, com pausas menores que o período de espera, só são lidas completas;</li>
+ *   <li>um arquivo que nunca chega a ser uma imagem válida é registrado uma única vez como falha;</li>
+ *   <li>ao reiniciar, nada é processado de novo, as imagens que chegaram com o monitor parado são
+ *       apanhadas e uma linha incompleta no fim do registro é descartada.</li>
+ * </ul>
+ */
+class SuspectWatcherTest {
+
+    private static final Duration QUIET = Duration.ofMillis(300);
+    private static final int IMAGES = 10;
+    private static final int SIDE = 120;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void recognizesEachImageOnceAcrossRestarts() throws Exception {
+        ImageProcessor processor = new ImageProcessor();
+        FisherfacesModel model = new FisherfacesModel();
+        SyntheticFaces faces = new SyntheticFaces(ImageProcessor.IMAGE_WIDTH, ImageProcessor.IMAGE_HEIGHT, 3L);
+        Evaluation.quietly(() -> model.train(faces.gallery(200, 20), PcaOptions.exact().withComponents(19)));
+        FaceRecognizer recognizer = new FaceRecognizer(model, processor);
+        List<byte[]> images = jpegs(IMAGES + 6);
+
+        Path suspects = Files.createDirectories(root.resolve("suspeitos"));
+        Path log = root.resolve("verificacao").resolve("resultados.tsv");
+        Set<String> recognized = ConcurrentHashMap.newKeySet();
+
+        // Imagens que chegaram antes de o monitor começar
+        for (int i = 0; i < 3; i++) Files.write(suspects.resolve(name(i)), images.get(i));
+
+        Thread watcher = start(processor, recognizer, suspects, log, recognized);
+        // Gravação em 3 pedaços com pausas de 100 ms (< período de espera de 300 ms)
+        for (int i = 3; i < IMAGES; i++) {
+            byte[] bytes = images.get(i);
+            try (OutputStream out = Files.newOutputStream(suspects.resolve(name(i)))) {
+                for (int part = 0; part < 3; part++) {
+                    out.write(bytes, part * bytes.length / 3, (part + 1) * bytes.length / 3 - part * bytes.length / 3);
+                    out.flush();
+                    if (part < 2) Thread.sleep(100);
+                }
+            }
+        }
+        // Um arquivo que nunca chega a ser uma imagem
+        Files.writeString(suspects.resolve("invalido.jpg"), "isto não é uma imagem");
+        awaitCount(recognized, IMAGES);
+        Thread.sleep(5 * QUIET.toMillis());
+        stop(watcher);
+
+        List<String> firstRun = lines(log);
+        assertEquals(IMAGES, recognized.size(), "imagens reconhecidas na 1ª execução");
+        assertEquals(IMAGES + 1, firstRun.size(), "linhas no registro depois da 1ª execução");
+        assertEquals(1, firstRun.stream().filter(l -> l.contains("\tFALHA\t")).count(), "falhas registradas");
+
+        // Monitor parado: chegam 3 imagens novas e o registro fica com uma linha cortada
+        for (int i = IMAGES; i < IMAGES + 3; i++) Files.write(suspects.resolve(name(i)), images.get(i + 3));
+        Files.writeString(log, "2026-01-01T00:00:00Z\tcortado.jpg\t12", StandardOpenOption.APPEND);
+
+        recognized.clear();
+        watcher = start(processor, recognizer, suspects, log, recognized);
+        awaitCount(recognized, 3);
+        Thread.sleep(5 * QUIET.toMillis());
+        stop(watcher);
+
+        List<String> secondRun = lines(log);
+        assertEquals(3, recognized.size(), "imagens reconhecidas na 2ª execução");
+        assertEquals(firstRun.size() + 3, secondRun.size(), "linhas no registro depois da 2ª execução");
+        Set<String> names = new HashSet<>();
+        for (String line : secondRun) assertTrue(names.add(line.split("\t")[1]), "imagem registrada duas vezes: " + line);
+        assertTrue(secondRun.stream().noneMatch(l -> l.contains("cortado.jpg")), "a linha cortada não foi descartada");
+    }
+
+    private static Thread start(ImageProcessor processor, FaceRecognizer recognizer, Path dir, Path log, Set<String> recognized) {
+        SuspectWatcher watcher = new SuspectWatcher(processor, recognizer, null, log, QUIET);
+        return Thread.ofPlatform().name("monitor").start(() -> {
+            try {
+                watcher.watch(dir, (RecognitionResult r) -> recognized.add(r.fileName()));
+            } catch (InterruptedException e) {
+                // fim normal
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void stop(Thread watcher) throws InterruptedException {
+        watcher.interrupt();
+        watcher.join();
+    }
+
+    private static void awaitCount(Set<String> recognized, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (recognized.size() < count && System.nanoTime() < deadline) Thread.sleep(20);
+    }
+
+    private static String name(int i) {
+        return String.format("camera_%04d.jpg", i);
+    }
+
+    private static List<String> lines(Path log) throws IOException {
+        List<String> out = new ArrayList<>();
+        for (String line : Files.readString(log, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty() && !line.startsWith("#")) out.add(line);
+        }
+        return out;
+    }
+
+    private static List<byte[]> jpegs(int n) throws IOException {
+        SyntheticFaces faces = new SyntheticFaces(SIDE, SIDE, 7L);
+        List<double[]> probes = faces.probes(Math.max(1, n / 5), 5, 13L);
+        List<byte[]> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double[] pixels = probes.get(i % probes.size());
+            BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_RGB);
+            for (int p = 0; p < pixels.length; p++) {
+                int gray = Math.clamp((int) pixels[p], 0, 255);
+                image.setRGB(p % SIDE, p / SIDE, (gray << 16) | (gray << 8) | gray);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", bytes);
+            out.add(bytes.toByteArray());
+        }
+        return out;
+    }
+}
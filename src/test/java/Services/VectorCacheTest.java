@@ -0,0 +1,48 @@
+package Services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bloqueio do arquivo do {@link VectorCache}: enquanto um cache está aberto, um segundo no mesmo arquivo é
+ * recusado sem tocar nas gerações do primeiro; depois do {@code close}, o arquivo volta a abrir com as entradas.
+ */
+class VectorCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void secondOpenOfTheSameFileIsRefused() throws IOException {
+        Path file = dir.resolve("vetores.bin");
+        VectorCache.Key key = new VectorCache.Key(1, 2, 3, 4);
+        VectorCache.Key newest = new VectorCache.Key(5, 6, 7, 8);
+        double[] vector = {1.0, 2.0, 3.0};
+        // Registros de 72 bytes: o segundo acréscimo já compacta para vetores.bin.1
+        long small = 120;
+        try (VectorCache first = VectorCache.open(file, small)) {
+            first.put(key, vector);
+            first.put(newest, vector);
+            Path inUse = first.file();
+            assertEquals("vetores.bin.1", inUse.getFileName().toString());
+
+            IOException refused = assertThrows(IOException.class, () -> VectorCache.open(file, small));
+            assertTrue(refused.getMessage().contains("outro processo"), refused.getMessage());
+            assertTrue(inUse.toFile().exists(), "a geração em uso não pode ser apagada pela abertura recusada");
+            assertArrayEquals(vector, first.get(key));
+        }
+        // O close compacta de novo e só a entrada mais recente cabe
+        try (VectorCache reopened = VectorCache.open(file, small)) {
+            assertArrayEquals(vector, reopened.get(newest));
+            assertEquals(1, reopened.stats().hits());
+        }
+    }
+}